@@ -1202,6 +1202,12 @@
                                             <xsl:when test="$propertyType='java.lang.String'">
                                                    xmlWriter.writeCharacters(<xsl:value-of select="$varName"/>);
                                             </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Calendar'">
+                                                   org.apache.axis2.databinding.utils.ConverterUtil.serializeDateTime(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Date'">
+                                                   org.apache.axis2.databinding.utils.ConverterUtil.serializeDate(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
                                             <xsl:otherwise>
                                                    xmlWriter.writeCharacters(org.apache.axis2.databinding.utils.ConverterUtil.convertToString(<xsl:value-of select="$varName"/>));
                                             </xsl:otherwise>
@@ -1346,6 +1352,12 @@
                                             <xsl:when test="$propertyType='java.lang.String'">
                                                        xmlWriter.writeCharacters(<xsl:value-of select="$varName"/>);
                                             </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Calendar'">
+                                                       org.apache.axis2.databinding.utils.ConverterUtil.serializeDateTime(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Date'">
+                                                       org.apache.axis2.databinding.utils.ConverterUtil.serializeDate(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
                                             <xsl:when test="property/@default">
                                                  org.apache.axis2.databinding.utils.ConverterUtil.serializeAnyType(<xsl:value-of select="$varName"/>, xmlWriter);
                                             </xsl:when>
@@ -915,6 +915,12 @@ public <xsl:if test="not(@unwrapped) or (@skip-write)">static</xsl:if> class <xs
                                             <xsl:when test="$propertyType='java.lang.String'">
                                                    xmlWriter.writeCharacters(<xsl:value-of select="$varName"/>);
                                             </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Calendar'">
+                                                   org.apache.axis2.databinding.utils.ConverterUtil.serializeDateTime(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Date'">
+                                                   org.apache.axis2.databinding.utils.ConverterUtil.serializeDate(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
                                             <xsl:otherwise>
                                                    xmlWriter.writeCharacters(org.apache.axis2.databinding.utils.ConverterUtil.convertToString(<xsl:value-of select="$varName"/>));
                                             </xsl:otherwise>
@@ -1011,6 +1017,12 @@ public <xsl:if test="not(@unwrapped) or (@skip-write)">static</xsl:if> class <xs
                                             <xsl:when test="$propertyType='java.lang.String'">
                                                        xmlWriter.writeCharacters(<xsl:value-of select="$varName"/>);
                                             </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Calendar'">
+                                                       org.apache.axis2.databinding.utils.ConverterUtil.serializeDateTime(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
+                                            <xsl:when test="$propertyType='java.util.Date'">
+                                                       org.apache.axis2.databinding.utils.ConverterUtil.serializeDate(<xsl:value-of select="$varName"/>, xmlWriter);
+                                            </xsl:when>
                                             <xsl:otherwise>
                                                        xmlWriter.writeCharacters(org.apache.axis2.databinding.utils.ConverterUtil.convertToString(<xsl:value-of select="$varName"/>));
                                             </xsl:otherwise>
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.databinding.utils;
+
+import org.apache.axis2.classloader.BeanInfoCache;
+import org.apache.axis2.databinding.annotation.IgnoreNullElement;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The introspection results {@link BeanUtil} needs for a bean class, computed once per class:
+ * the properties in the order the {@link java.beans.Introspector} returns them, lookup tables by
+ * name, and {@link MethodHandle}s for the read and write methods so that getting and setting a
+ * property doesn't go through {@link Method#invoke(Object, Object...)}.
+ * <p/>
+ * Accessors are kept in a {@link ClassValue}, so they don't keep the bean classes (and the class
+ * loaders of the services) reachable.
+ */
+final class BeanAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<BeanAccessor> accessors = new ClassValue<BeanAccessor>() {
+        protected BeanAccessor computeValue(Class<?> beanClass) {
+            try {
+                return new BeanAccessor(beanClass);
+            } catch (IntrospectionException e) {
+                throw new IntrospectionFailure(e);
+            }
+        }
+    };
+
+    /**
+     * The properties declared by the class itself, i.e. introspected with the superclass as the
+     * stop class.
+     */
+    private final Property[] declaredProperties;
+
+    /**
+     * All properties, including inherited ones.
+     */
+    private final Property[] properties;
+
+    private final Map<String, Property> propertiesByName;
+
+    private final Map<String, Property> propertiesIgnoreCase;
+
+    private BeanAccessor(Class<?> beanClass) throws IntrospectionException {
+        Field[] fields = beanClass.getDeclaredFields();
+        declaredProperties = createProperties(beanClass, fields,
+                BeanInfoCache.getCachedBeanInfo(beanClass, beanClass.getSuperclass())
+                        .getPropertyDescriptors());
+        properties = createProperties(beanClass, fields,
+                BeanInfoCache.getCachedBeanInfo(beanClass, null).getPropertyDescriptors());
+
+        Map<String, Property> byName = new HashMap<String, Property>();
+        Map<String, Property> ignoreCase = new TreeMap<String, Property>(
+                String.CASE_INSENSITIVE_ORDER);
+        for (Property property : properties) {
+            byName.put(property.name, property);
+            ignoreCase.put(property.name, property);
+        }
+        propertiesByName = Collections.unmodifiableMap(byName);
+        propertiesIgnoreCase = Collections.unmodifiableMap(ignoreCase);
+    }
+
+    static BeanAccessor getAccessor(Class<?> beanClass) throws IntrospectionException {
+        try {
+            return accessors.get(beanClass);
+        } catch (IntrospectionFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    Property[] getDeclaredProperties() {
+        return declaredProperties;
+    }
+
+    int getPropertyCount() {
+        return properties.length;
+    }
+
+    Property getProperty(String name) {
+        return propertiesByName.get(name);
+    }
+
+    /**
+     * Look up a property by name, ignoring case, so that e.g. an element named ServiceName
+     * matches the property serviceName.
+     */
+    Property getPropertyIgnoreCase(String name) {
+        return propertiesIgnoreCase.get(name);
+    }
+
+    private static Property[] createProperties(Class<?> beanClass, Field[] fields,
+                                               PropertyDescriptor[] descriptors) {
+        Property[] result = new Property[descriptors.length];
+        for (int i = 0; i < descriptors.length; i++) {
+            result[i] = new Property(descriptors[i], i, isIgnoreNull(fields, descriptors[i]));
+        }
+        return result;
+    }
+
+    private static boolean isIgnoreNull(Field[] fields, PropertyDescriptor descriptor) {
+        for (Field field : fields) {
+            if (field.getName().equals(descriptor.getName())) {
+                return field.getAnnotation(IgnoreNullElement.class) != null;
+            }
+        }
+        return false;
+    }
+
+    static final class Property {
+
+        final PropertyDescriptor descriptor;
+
+        final String name;
+
+        final Class<?> type;
+
+        /**
+         * Index of the property in the list of all properties of the bean class.
+         */
+        final int index;
+
+        /**
+         * Whether the field of the property is annotated with {@link IgnoreNullElement}.
+         */
+        final boolean ignoreNull;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        Property(PropertyDescriptor descriptor, int index, boolean ignoreNull) {
+            this.descriptor = descriptor;
+            this.name = descriptor.getName();
+            this.type = descriptor.getPropertyType();
+            this.index = index;
+            this.ignoreNull = ignoreNull;
+            this.getter = createHandle(descriptor.getReadMethod(), GETTER_TYPE);
+            this.setter = createHandle(descriptor.getWriteMethod(), SETTER_TYPE);
+        }
+
+        boolean isReadable() {
+            return getter != null;
+        }
+
+        boolean isWritable() {
+            return setter != null;
+        }
+
+        Object get(Object bean) throws InvocationTargetException {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        void set(Object bean, Object value) throws InvocationTargetException {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        private static MethodHandle createHandle(Method method, MethodType type) {
+            if (method == null) {
+                return null;
+            }
+            try {
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method).asType(type);
+            } catch (IllegalAccessException e) {
+                return null;
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class IntrospectionFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        IntrospectionFailure(IntrospectionException cause) {
+            super(cause);
+        }
+
+        public IntrospectionException getCause() {
+            return (IntrospectionException) super.getCause();
+        }
+    }
+}
@@ -20,23 +20,17 @@
 package org.apache.axis2.databinding.utils;
 
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
@@ -44,9 +38,7 @@ import javax.xml.stream.XMLStreamReader;
 import org.apache.axiom.om.*;
 import org.apache.axiom.om.util.Base64;
 import org.apache.axis2.AxisFault;
-import org.apache.axis2.classloader.BeanInfoCache;
 import org.apache.axis2.context.MessageContext;
-import org.apache.axis2.databinding.annotation.IgnoreNullElement;
 import org.apache.axis2.databinding.typemapping.SimpleTypeMapper;
 import org.apache.axis2.databinding.utils.reader.ADBXMLStreamReaderImpl;
 import org.apache.axis2.deployment.util.BeanExcludeInfo;
@@ -100,15 +92,6 @@ public class BeanUtil {
         return name;
     }
 
-
-    private static BeanInfo getBeanInfo(Class beanClass, Class beanSuperclass) throws IntrospectionException {
-        return BeanInfoCache.getCachedBeanInfo(beanClass, beanSuperclass);
-    }
-
-    private static BeanInfo getBeanInfo(Class beanClass) throws IntrospectionException {
-        return getBeanInfo(beanClass, null);
-    }
-
     private static List<Object> getPropertyQnameList(Object beanObject,
                                                      Class<?> beanClass,
                                                      QName beanName,
@@ -148,42 +131,24 @@ public class BeanUtil {
             if (axisService != null && axisService.getExcludeInfo() != null) {
                 beanExcludeInfo = axisService.getExcludeInfo().getBeanExcludeInfoForClass(beanClass.getName());
             }
-            BeanInfo beanInfo = getBeanInfo(beanClass, beanClass.getSuperclass());
-            PropertyDescriptor[] properties = beanInfo.getPropertyDescriptors();
-            for (PropertyDescriptor property : properties) {
-                String propertyName = property.getName();
+            for (BeanAccessor.Property beanProperty :
+                    BeanAccessor.getAccessor(beanClass).getDeclaredProperties()) {
+                String propertyName = beanProperty.name;
                 if (propertyName.equals("class") ||
                     beanExcludeInfo != null && beanExcludeInfo.isExcludedProperty(propertyName)) {
                     continue;
                 }
 
-                Class<?> ptype = property.getPropertyType();
-                Method readMethod = property.getReadMethod();
-                if (readMethod == null) {
-                    Class propertyType = property.getPropertyType();
-                    if (propertyType == java.lang.Boolean.class) {
-                        Method writeMethod = property.getWriteMethod();
-                        if (writeMethod != null) {
-                            String tmpWriteMethodName = writeMethod.getName();
-                            PropertyDescriptor tmpPropDesc =
-                                    new PropertyDescriptor(property.getName(),
-                                            beanObject.getClass(),
-                                            "is" + tmpWriteMethodName.substring(3),
-                                            tmpWriteMethodName);
-                            readMethod = tmpPropDesc.getReadMethod();
-                        }
-                    }
-                }
+                PropertyDescriptor property = beanProperty.descriptor;
+                Class<?> ptype = beanProperty.type;
                 Object value;
-                if (readMethod != null) {
-                    readMethod.setAccessible(true);
-                    value = readMethod.invoke(beanObject);
+                if (beanProperty.isReadable()) {
+                    value = beanProperty.get(beanObject);
                 } else {
-                    throw new AxisFault("Property '" + propertyName + "' in bean class '"
-                                        + beanClass.getName() + "'is not readable.");
+                    value = readProperty(beanObject, beanClass, property);
                 }
 
-                if (value == null && isSkipWhenNull(beanClass, propertyName)) {
+                if (value == null && beanProperty.ignoreNull && !isForceIncludeNullElements) {
                     continue;
                 }
 
@@ -281,31 +246,53 @@ public class BeanUtil {
     }
 
     /**
-     * When the annotation @IgnoreNullElement is set and the property forceIncludeNullElements in axis2.xml is not set
-     * or false then return false and skip null values.
-     *
-     * @param beanClass
-     * @param propertyName
-     * @return
+     * Read a property that has no usable read method handle, e.g. a Boolean property with an
+     * "is" getter, which the Introspector only recognizes for boolean.
      */
-    private static boolean isSkipWhenNull(Class<?> beanClass, String propertyName) {
-
-        boolean isSkip = false;
-        Field[] fields = beanClass.getDeclaredFields();
-        Field field = null;
-        for (Field tmpField : fields) {
-            if (tmpField.getName().equals(propertyName)) {
-                field = tmpField;
-                break;
+    private static Object readProperty(Object beanObject, Class<?> beanClass,
+                                       PropertyDescriptor property)
+            throws IntrospectionException, IllegalAccessException, InvocationTargetException,
+            AxisFault {
+        Method readMethod = property.getReadMethod();
+        if (readMethod == null) {
+            Class propertyType = property.getPropertyType();
+            if (propertyType == java.lang.Boolean.class) {
+                Method writeMethod = property.getWriteMethod();
+                if (writeMethod != null) {
+                    String tmpWriteMethodName = writeMethod.getName();
+                    PropertyDescriptor tmpPropDesc =
+                            new PropertyDescriptor(property.getName(),
+                                    beanObject.getClass(),
+                                    "is" + tmpWriteMethodName.substring(3),
+                                    tmpWriteMethodName);
+                    readMethod = tmpPropDesc.getReadMethod();
+                }
             }
         }
-        if (field != null) {
-            IgnoreNullElement ignoreNullElement = field.getAnnotation(IgnoreNullElement.class);
-            if (ignoreNullElement != null) {
-                isSkip = !isForceIncludeNullElements;
+        if (readMethod != null) {
+            readMethod.setAccessible(true);
+            return readMethod.invoke(beanObject);
+        } else {
+            throw new AxisFault("Property '" + property.getName() + "' in bean class '"
+                                + beanClass.getName() + "'is not readable.");
+        }
+    }
+
+    /**
+     * Set a property through its write method; properties without one are ignored.
+     */
+    private static void writeProperty(Object beanObject, BeanAccessor.Property property,
+                                      Object value)
+            throws IllegalAccessException, InvocationTargetException {
+        if (property.isWritable()) {
+            property.set(beanObject, value);
+        } else {
+            Method writeMethod = property.descriptor.getWriteMethod();
+            if (writeMethod != null) {
+                writeMethod.setAccessible(true);
+                writeMethod.invoke(beanObject, value);
             }
         }
-        return isSkip;
     }
 
     private static void addTypeQname(QName elemntNameSpace,
@@ -423,25 +410,12 @@ public class BeanUtil {
                     return beanElement.getFirstOMChild();
                 }
 
-                //use a comaprator to ignore the case of the bean element
+                //the properties are looked up ignoring the case of the bean element
                 //names eg. if the property descriptor is getServiceName it
                 //should accept child element with ServiceName as well.
-                //but currently accepts only serviceName
-                Comparator comparator = new Comparator() {
-                    public int compare(Object o1, Object o2) {
-                        String string1 = (String) o1;
-                        String string2 = (String) o2;
-                        return string1.compareToIgnoreCase(string2);
-                    }
-                };
-                Map<String, PropertyDescriptor> properties = new TreeMap<String, PropertyDescriptor>(comparator);
-
-
-                BeanInfo beanInfo = getBeanInfo(beanClass);
-                PropertyDescriptor[] propDescs = beanInfo.getPropertyDescriptors();
-                for (PropertyDescriptor proprty : propDescs) {
-                    properties.put(proprty.getName(), proprty);
-                }
+                //each property is only set from the first matching element
+                BeanAccessor accessor = BeanAccessor.getAccessor(beanClass);
+                boolean[] processed = new boolean[accessor.getPropertyCount()];
                 Iterator elements = beanElement.getChildren();
                 beanObj = objectSupplier.getObject(beanClass);
                 while (elements.hasNext()) {
@@ -461,10 +435,11 @@ public class BeanUtil {
                     // if parts/@href != null then need to find element with id and deserialize.
                     // before that first check whether we already have it in the hashtable
                     String partsLocalName = parts.getLocalName();
-                    PropertyDescriptor prty = properties.remove(partsLocalName);
-                    if (prty != null) {
-                        Class parameters = prty.getPropertyType();
-                        if (prty.getName().equals("class"))
+                    BeanAccessor.Property prty = accessor.getPropertyIgnoreCase(partsLocalName);
+                    if (prty != null && !processed[prty.index]) {
+                        processed[prty.index] = true;
+                        Class parameters = prty.type;
+                        if (prty.name.equals("class"))
                             continue;
 
                         Object partObj;
@@ -482,25 +457,20 @@ public class BeanUtil {
                                 partObj = SimpleTypeMapper.getSimpleTypeObject(parameters, parts);
                             } else if (SimpleTypeMapper.isHashSet(parameters)) {
                                 partObj = SimpleTypeMapper.getHashSet((OMElement)
-                                        parts.getParent(), prty.getName());
+                                        parts.getParent(), prty.name);
                             } else if (SimpleTypeMapper.isCollection(parameters)) {
                                 partObj = SimpleTypeMapper.getArrayList((OMElement)
-                                        parts.getParent(), prty.getName());
+                                        parts.getParent(), prty.name);
                             } else if (SimpleTypeMapper.isDataHandler(parameters)) {
                                 partObj = SimpleTypeMapper.getDataHandler(parts);
                             } else if (parameters.isArray()) {
                                 partObj = deserialize(parameters, (OMElement) parts.getParent(),
-                                                      objectSupplier, prty.getName());
+                                                      objectSupplier, prty.name);
                             } else {
                                 partObj = deserialize(parameters, parts, objectSupplier, null);
                             }
                         }
-                        Object[] parms = new Object[]{partObj};
-                        Method writeMethod = prty.getWriteMethod();
-                        if (writeMethod != null) {
-                            writeMethod.setAccessible(true);
-                            writeMethod.invoke(beanObj, parms);
-                        }
+                        writeProperty(beanObj, prty, partObj);
                     }
                 }
                 return beanObj;
@@ -522,12 +492,7 @@ public class BeanUtil {
                                      ObjectSupplier objectSupplier) throws AxisFault {
         Object beanObj;
         try {
-            HashMap<String, PropertyDescriptor> properties = new HashMap<String, PropertyDescriptor>();
-            BeanInfo beanInfo = getBeanInfo(beanClass);
-            PropertyDescriptor[] propDescs = beanInfo.getPropertyDescriptors();
-            for (PropertyDescriptor proprty : propDescs) {
-                properties.put(proprty.getName(), proprty);
-            }
+            BeanAccessor accessor = BeanAccessor.getAccessor(beanClass);
 
             beanObj = objectSupplier.getObject(beanClass);
             Iterator elements = beanElement.getChildren();
@@ -540,11 +505,11 @@ public class BeanUtil {
                     continue;
                 }
                 String partsLocalName = parts.getLocalName();
-                PropertyDescriptor prty = properties.get(
+                BeanAccessor.Property prty = accessor.getProperty(
                         partsLocalName.toLowerCase());
                 if (prty != null) {
-                    Class parameters = prty.getPropertyType();
-                    if (prty.getName().equals("class"))
+                    Class parameters = prty.type;
+                    if (prty.name.equals("class"))
                         continue;
                     Object partObj;
                     OMAttribute attr = MultirefHelper.processRefAtt(parts);
@@ -560,12 +525,7 @@ public class BeanUtil {
                             partObj = deserialize(parameters, parts, objectSupplier, null);
                         }
                     }
-                    Object[] parms = new Object[]{partObj};
-                    Method writeMethod = prty.getWriteMethod();
-                    if (writeMethod != null) {
-                        writeMethod.setAccessible(true);
-                        writeMethod.invoke(beanObj, parms);
-                    }
+                    writeProperty(beanObj, prty, partObj);
                 }
             }
         } catch (IllegalAccessException e) {
@@ -81,7 +81,10 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Converter methods to go from 1. simple type -> String 2. simple type -> Object 3. String ->
@@ -99,6 +102,25 @@ public class ConverterUtil {
     private static boolean isCustomClassPresent;
     private static Class customClass;
 
+    /** convertToString methods of the custom converter class, looked up once per type */
+    private static final Map<Class, Method> customToStringMethods =
+            new ConcurrentHashMap<Class, Method>();
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Instants from this point on are past the Julian/Gregorian cutover of
+     * java.util.GregorianCalendar in every time zone, so the calendar fields agree with the
+     * proleptic ISO calendar of java.time (15 October 1582 plus one day of margin for the offset).
+     */
+    private static final long GREGORIAN_CUTOVER_MILLIS = -12219292800000L + MILLIS_PER_DAY;
+
+    /** Longest lexical value written by the formatters, a nine digit year plus the time zone */
+    private static final int DATE_TIME_BUFFER_SIZE = 40;
+
+    /** The last default format locale known to use a plain GregorianCalendar */
+    private static volatile Locale gregorianLocale;
+
     /* String conversion methods */
     public static String convertToString(int i) {
         return Integer.toString(i);
@@ -138,18 +160,129 @@ public class ConverterUtil {
             // this means user has define a seperate converter util class
             return invokeToStringMethod(value,Date.class);
         } else {
-            // lexical form of the date is '-'? yyyy '-' mm '-' dd zzzzzz?
+            char[] buffer = new char[DATE_TIME_BUFFER_SIZE];
+            return new String(buffer, 0, formatDate(value, buffer));
+        }
+    }
+
+    /**
+     * Formats the date into the buffer as '-'? yyyy '-' mm '-' dd zzzzzz, using the default
+     * time zone.
+     *
+     * @return the number of characters written
+     */
+    private static int formatDate(Date value, char[] buffer) {
+        long time = value.getTime();
+        int year;
+        int month;
+        int day;
+        int timeZoneOffSet;
+        if (time >= GREGORIAN_CUTOVER_MILLIS && isGregorianDefault()) {
+            // same fields as the Calendar below, without creating one per value
+            timeZoneOffSet = TimeZone.getDefault().getOffset(time);
+            java.time.LocalDate date = java.time.LocalDate.ofEpochDay(
+                    Math.floorDiv(time + timeZoneOffSet, MILLIS_PER_DAY));
+            year = date.getYear();
+            month = date.getMonthValue();
+            day = date.getDayOfMonth();
+        } else {
             Calendar calendar = Calendar.getInstance();
             calendar.clear();
             calendar.setTime(value);
             if (!calendar.isSet(Calendar.ZONE_OFFSET)){
                 calendar.setTimeZone(TimeZone.getDefault());
             }
-            StringBuffer dateString = new StringBuffer(16);
-            appendDate(dateString, calendar);
-            appendTimeZone(calendar, dateString);
-            return dateString.toString();
+            year = calendar.get(Calendar.YEAR);
+            month = calendar.get(Calendar.MONTH) + 1;
+            day = calendar.get(Calendar.DAY_OF_MONTH);
+            timeZoneOffSet = calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET);
         }
+        int pos = formatDate(year, month, day, buffer, 0);
+        return formatTimeZone(timeZoneOffSet, buffer, pos);
+    }
+
+    /**
+     * Formats the calendar into the buffer as
+     * '-'? yyyy '-' mm '-' dd 'T' hh ':' mm ':' ss '.' sss zzzzzz.
+     *
+     * @return the number of characters written
+     */
+    private static int formatDateTime(Calendar value, char[] buffer) {
+        if (value.get(Calendar.ZONE_OFFSET) == -1){
+            value.setTimeZone(TimeZone.getDefault());
+        }
+        // xml date month is started from 1 and calendar month is
+        // started from 0. so have to add one
+        int pos = formatDate(value.get(Calendar.YEAR), value.get(Calendar.MONTH) + 1,
+                value.get(Calendar.DAY_OF_MONTH), buffer, 0);
+        buffer[pos++] = 'T';
+        pos = formatDigits(value.get(Calendar.HOUR_OF_DAY), 2, buffer, pos);
+        buffer[pos++] = ':';
+        pos = formatDigits(value.get(Calendar.MINUTE), 2, buffer, pos);
+        buffer[pos++] = ':';
+        pos = formatDigits(value.get(Calendar.SECOND), 2, buffer, pos);
+        buffer[pos++] = '.';
+        pos = formatDigits(value.get(Calendar.MILLISECOND), 3, buffer, pos);
+        return formatTimeZone(value.get(Calendar.ZONE_OFFSET) + value.get(Calendar.DST_OFFSET),
+                buffer, pos);
+    }
+
+    private static int formatDate(int year, int month, int day, char[] buffer, int pos) {
+        pos = formatDigits(year, 4, buffer, pos);
+        buffer[pos++] = '-';
+        pos = formatDigits(month, 2, buffer, pos);
+        buffer[pos++] = '-';
+        return formatDigits(day, 2, buffer, pos);
+    }
+
+    private static int formatTimeZone(int timeZoneOffSet, char[] buffer, int pos) {
+        int timezoneOffSetInMinits = timeZoneOffSet / 60000;
+        if (timezoneOffSetInMinits < 0){
+            buffer[pos++] = '-';
+            timezoneOffSetInMinits = timezoneOffSetInMinits * -1;
+        } else {
+            buffer[pos++] = '+';
+        }
+        pos = formatDigits(timezoneOffSetInMinits / 60, 2, buffer, pos);
+        buffer[pos++] = ':';
+        return formatDigits(timezoneOffSetInMinits % 60, 2, buffer, pos);
+    }
+
+    /**
+     * Writes a non negative value with at least the given number of digits, padding it with
+     * leading zeros.
+     */
+    private static int formatDigits(int value, int minDigits, char[] buffer, int pos) {
+        int digits = 1;
+        for (int i = value / 10; i > 0; i /= 10) {
+            digits++;
+        }
+        if (digits < minDigits) {
+            digits = minDigits;
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Whether Calendar.getInstance() currently returns a plain GregorianCalendar, i.e. the
+     * default locale does not select a Buddhist, Japanese or other calendar system. Only then can
+     * the date conversions use java.time instead of creating a Calendar.
+     */
+    private static boolean isGregorianDefault() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (locale == gregorianLocale) {
+            return true;
+        }
+        if (Calendar.getInstance(locale).getClass() == GregorianCalendar.class) {
+            gregorianLocale = locale;
+            return true;
+        }
+        return false;
     }
 
     public static void appendTimeZone(Calendar calendar, StringBuffer dateString) {
@@ -207,7 +340,11 @@ public class ConverterUtil {
     private static String invokeToStringMethod(Object value, Class type) {
 
         try {
-            Method method = customClass.getMethod("convertToString", new Class[]{type});
+            Method method = customToStringMethods.get(type);
+            if (method == null) {
+                method = customClass.getMethod("convertToString", new Class[]{type});
+                customToStringMethods.put(type, method);
+            }
             String result = (String) method.invoke(null,new Object[]{value});
             return result;
         } catch (NoSuchMethodException e) {
@@ -227,16 +364,8 @@ public class ConverterUtil {
             return invokeToStringMethod(value,Calendar.class);
         } else {
             // lexical form of the calendar is '-'? yyyy '-' mm '-' dd 'T' hh ':' mm ':' ss ('.' s+)? (zzzzzz)?
-            if (value.get(Calendar.ZONE_OFFSET) == -1){
-                value.setTimeZone(TimeZone.getDefault());
-            }
-            StringBuffer dateString = new StringBuffer(28);
-            appendDate(dateString, value);
-            dateString.append("T");
-            //adding hours
-            appendTime(value, dateString);
-            appendTimeZone(value, dateString);
-            return dateString.toString();
+            char[] buffer = new char[DATE_TIME_BUFFER_SIZE];
+            return new String(buffer, 0, formatDateTime(value, buffer));
         }
     }
 
@@ -559,6 +688,10 @@ public class ConverterUtil {
             return null;
         }
         source = source.trim();
+        Date date = parseGregorianDate(source);
+        if (date != null) {
+            return date;
+        }
         boolean bc = false;
         if (source.startsWith("-")) {
             source = source.substring(1);
@@ -575,25 +708,25 @@ public class ConverterUtil {
             if ((source.charAt(4) != '-') || (source.charAt(7) != '-')){
                 throw new RuntimeException("invalid date format (" + source + ") with out - s at correct place ");
             }
-            year = Integer.parseInt(source.substring(0,4));
-            month = Integer.parseInt(source.substring(5,7));
-            day = Integer.parseInt(source.substring(8,10));
+            year = parseInt(source, 0, 4);
+            month = parseInt(source, 5, 7);
+            day = parseInt(source, 8, 10);
 
             if (source.length() > 10) {
-                String restpart = source.substring(10);
-                if (restpart.startsWith("Z")) {
+                char zone = source.charAt(10);
+                if (zone == 'Z') {
                     // this is a gmt time zone value
                     timeZoneOffSet = 0;
-                } else if (restpart.startsWith("+") || restpart.startsWith("-")) {
+                } else if (zone == '+' || zone == '-') {
                     // this is a specific time format string
-                    if (restpart.charAt(3) != ':'){
+                    if (source.charAt(13) != ':'){
                         throw new RuntimeException("invalid time zone format (" + source
                                 + ") without : at correct place");
                     }
-                    int hours = Integer.parseInt(restpart.substring(1,3));
-                    int minits = Integer.parseInt(restpart.substring(4,6));
+                    int hours = parseInt(source, 11, 13);
+                    int minits = parseInt(source, 14, 16);
                     timeZoneOffSet = ((hours * 60) + minits) * 60000;
-                    if (restpart.startsWith("-")){
+                    if (zone == '-'){
                         timeZoneOffSet = timeZoneOffSet * -1;
                     }
                 } else {
@@ -626,6 +759,83 @@ public class ConverterUtil {
 
     }
 
+    /**
+     * Parses the common forms yyyy '-' mm '-' dd ('Z' | ('+' | '-') hh ':' mm)? of an xsd:date
+     * with java.time. Returns null for anything else (e.g. BC dates, years before the
+     * Gregorian cutover, invalid fields or a non Gregorian default calendar), which is then
+     * handled, and rejected where necessary, by the Calendar based code of convertToDate.
+     */
+    private static Date parseGregorianDate(String source) {
+        int length = source.length();
+        if ((length != 10 && length != 11 && length != 16)
+                || source.charAt(4) != '-' || source.charAt(7) != '-') {
+            return null;
+        }
+        int year = parseDigits(source, 0, 4);
+        int month = parseDigits(source, 5, 7);
+        int day = parseDigits(source, 8, 10);
+        if (year <= 1582 || month < 1 || month > 12 || day < 1
+                || day > java.time.Month.of(month).length(java.time.Year.isLeap(year))) {
+            return null;
+        }
+        int timeZoneOffSet;
+        if (length == 10) {
+            timeZoneOffSet = TimeZone.getDefault().getRawOffset();
+        } else if (length == 11) {
+            if (source.charAt(10) != 'Z') {
+                return null;
+            }
+            timeZoneOffSet = 0;
+        } else {
+            char sign = source.charAt(10);
+            int hours = parseDigits(source, 11, 13);
+            int minits = parseDigits(source, 14, 16);
+            if ((sign != '+' && sign != '-') || source.charAt(13) != ':' || hours < 0 || minits < 0) {
+                return null;
+            }
+            timeZoneOffSet = ((hours * 60) + minits) * 60000;
+            if (sign == '-') {
+                timeZoneOffSet = timeZoneOffSet * -1;
+            }
+        }
+        // the range a non lenient calendar accepts for the zone offset
+        if (timeZoneOffSet < -13 * 3600000 || timeZoneOffSet > 14 * 3600000
+                || !isGregorianDefault()) {
+            return null;
+        }
+        long epochDay = java.time.LocalDate.of(year, month, day).toEpochDay();
+        return new Date(epochDay * MILLIS_PER_DAY - timeZoneOffSet);
+    }
+
+    /**
+     * Parses the unsigned decimal digits between start and end without creating a substring.
+     *
+     * @return the value, or -1 if the range is empty or contains anything but digits
+     */
+    private static int parseDigits(String source, int start, int end) {
+        if (start >= end || end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Integer.parseInt(source.substring(start, end)), without the substring for the usual
+     * case of plain digits.
+     */
+    private static int parseInt(String source, int start, int end) {
+        int value = end <= source.length() ? parseDigits(source, start, end) : -1;
+        return value >= 0 ? value : Integer.parseInt(source.substring(start, end));
+    }
+
     public static Time convertToTime(String s) {
         if ((s == null) || s.equals("")){
             return null;
@@ -896,71 +1106,74 @@ public class ConverterUtil {
                     (source.charAt(16) != ':')) {
                 throw new RuntimeException("invalid date format (" + source + ") with out - s at correct place ");
             }
-            year = Integer.parseInt(source.substring(0, 4));
-            month = Integer.parseInt(source.substring(5, 7));
-            day = Integer.parseInt(source.substring(8, 10));
-            hour = Integer.parseInt(source.substring(11, 13));
-            minite = Integer.parseInt(source.substring(14, 16));
-            second = Integer.parseInt(source.substring(17, 19));
+            year = parseInt(source, 0, 4);
+            month = parseInt(source, 5, 7);
+            day = parseInt(source, 8, 10);
+            hour = parseInt(source, 11, 13);
+            minite = parseInt(source, 14, 16);
+            second = parseInt(source, 17, 19);
 
             int milliSecondPartLength = 0;
 
-            if (source.length() > 19)  {
-                String rest = source.substring(19);
-                if (rest.startsWith(".")) {
+            int length = source.length();
+            if (length > 19)  {
+                // the rest starts at index 19 and is parsed in place
+                if (source.charAt(19) == '.') {
                     // i.e this have the ('.'s+) part
-                    if (rest.endsWith("Z")) {
+                    int plus = source.lastIndexOf('+');
+                    int minus = source.lastIndexOf('-');
+                    if (source.charAt(length - 1) == 'Z') {
                         // this is in gmt time zone
                         timeZoneOffSet = 0;
                         calendar.setTimeZone(TimeZone.getTimeZone("GMT"));
-                        miliSecond = Integer.parseInt(rest.substring(1, rest.lastIndexOf("Z")));
-                        milliSecondPartLength = rest.substring(1,rest.lastIndexOf("Z")).trim().length();
-                    } else if ((rest.lastIndexOf("+") > 0) || (rest.lastIndexOf("-") > 0)) {
+                        miliSecond = parseInt(source, 20, length - 1);
+                        milliSecondPartLength = length - 21;
+                    } else if ((plus > 19) || (minus > 19)) {
                         // this is given in a general time zione
-                        String timeOffSet = null;
-                        if (rest.lastIndexOf("+") > 0) {
-                            timeOffSet = rest.substring(rest.lastIndexOf("+") + 1);
-                            miliSecond = Integer.parseInt(rest.substring(1, rest.lastIndexOf("+")));
-                            milliSecondPartLength = rest.substring(1, rest.lastIndexOf("+")).trim().length();
+                        int timeOffSet;
+                        if (plus > 19) {
+                            timeOffSet = plus + 1;
+                            miliSecond = parseInt(source, 20, plus);
+                            milliSecondPartLength = plus - 20;
                             // we keep +1 or -1 to finally calculate the value
                             timeZoneOffSet = 1;
-
-                        } else if (rest.lastIndexOf("-") > 0) {
-                            timeOffSet = rest.substring(rest.lastIndexOf("-") + 1);
-                            miliSecond = Integer.parseInt(rest.substring(1, rest.lastIndexOf("-")));
-                            milliSecondPartLength = rest.substring(1, rest.lastIndexOf("-")).trim().length();
+                        } else {
+                            timeOffSet = minus + 1;
+                            miliSecond = parseInt(source, 20, minus);
+                            milliSecondPartLength = minus - 20;
                             // we keep +1 or -1 to finally calculate the value
                             timeZoneOffSet = -1;
                         }
-                        if (timeOffSet.charAt(2) != ':') {
+                        if (source.charAt(timeOffSet + 2) != ':') {
                             throw new RuntimeException("invalid time zone format (" + source
                                     + ") without : at correct place");
                         }
-                        int hours = Integer.parseInt(timeOffSet.substring(0, 2));
-                        int minits = Integer.parseInt(timeOffSet.substring(3, 5));
+                        int hours = parseInt(source, timeOffSet, timeOffSet + 2);
+                        int minits = parseInt(source, timeOffSet + 3, timeOffSet + 5);
                         timeZoneOffSet = ((hours * 60) + minits) * 60000 * timeZoneOffSet;
 
                     } else {
                         // i.e it does not have time zone
-                        miliSecond = Integer.parseInt(rest.substring(1));
-                        milliSecondPartLength = rest.substring(1).trim().length();
+                        miliSecond = parseInt(source, 20, length);
+                        milliSecondPartLength = length - 20;
                     }
 
                 } else {
-                    if (rest.startsWith("Z")) {
+                    char zone = source.charAt(19);
+                    if (zone == 'Z') {
                         calendar.setTimeZone(TimeZone.getTimeZone("GMT"));
                         // this is in gmt time zone
                         timeZoneOffSet = 0;
-                    } else if (rest.startsWith("+") || rest.startsWith("-")) {
+                    } else if (zone == '+' || zone == '-') {
                         // this is given in a general time zione
-                        if (rest.charAt(3) != ':') {
+                        if (source.charAt(22) != ':') {
                             throw new RuntimeException("invalid time zone format (" + source
                                     + ") without : at correct place");
                         }
-                        int hours = Integer.parseInt(rest.substring(1, 3));
-                        int minits = Integer.parseInt(rest.substring(4, 6));
+                        int hours = parseInt(source, 20, 22);
+                        int minits = parseInt(source, 23, 25);
                         timeZoneOffSet = ((hours * 60) + minits) * 60000;
-                        if (rest.startsWith("-")) {
+                        if (zone == '-') {
                             timeZoneOffSet = timeZoneOffSet * -1;
                         }
                     } else {
@@ -988,8 +1201,8 @@ public class ConverterUtil {
             calendar.set(Calendar.ZONE_OFFSET, timeZoneOffSet);
             // set the day light offset only if the time zone is present along with the system property 'dss.applyLegacyDSTOffset'
             // to maintain backward compatibility
-            boolean applyLegacyRule = Boolean.parseBoolean(System.getProperty("dss.applyLegacyDSTOffset", "false"));
-            if (!applyLegacyRule || source.length() > 19) {
+            if (source.length() > 19
+                    || !Boolean.parseBoolean(System.getProperty("dss.applyLegacyDSTOffset", "false"))) {
                 calendar.set(Calendar.DST_OFFSET, 0);
             }
         } else {
@@ -1412,6 +1625,34 @@ public class ConverterUtil {
     }
 
     // serialization methods for xsd any type
+    /**
+     * Writes the xsd:date lexical form of the value, i.e. the same text as
+     * {@link #convertToString(Date)}, without creating an intermediate String.
+     */
+    public static void serializeDate(Date value, XMLStreamWriter xmlStreamWriter)
+            throws XMLStreamException {
+        if (isCustomClassPresent) {
+            xmlStreamWriter.writeCharacters(invokeToStringMethod(value, Date.class));
+        } else {
+            char[] buffer = new char[DATE_TIME_BUFFER_SIZE];
+            xmlStreamWriter.writeCharacters(buffer, 0, formatDate(value, buffer));
+        }
+    }
+
+    /**
+     * Writes the xsd:dateTime lexical form of the value, i.e. the same text as
+     * {@link #convertToString(Calendar)}, without creating an intermediate String.
+     */
+    public static void serializeDateTime(Calendar value, XMLStreamWriter xmlStreamWriter)
+            throws XMLStreamException {
+        if (isCustomClassPresent) {
+            xmlStreamWriter.writeCharacters(invokeToStringMethod(value, Calendar.class));
+        } else {
+            char[] buffer = new char[DATE_TIME_BUFFER_SIZE];
+            xmlStreamWriter.writeCharacters(buffer, 0, formatDateTime(value, buffer));
+        }
+    }
+
     public static void serializeAnyType(Object value, XMLStreamWriter xmlStreamWriter) throws XMLStreamException {
         if (value instanceof String) {
             serializeAnyType("string", value.toString(), xmlStreamWriter);
@@ -1424,9 +1665,11 @@ public class ConverterUtil {
         } else if (value instanceof Byte) {
             serializeAnyType("byte", value.toString(), xmlStreamWriter);
         } else if (value instanceof Date) {
-            serializeAnyType("date", convertToString((Date) value), xmlStreamWriter);
+            addTypeAttribute(xmlStreamWriter, "date");
+            serializeDate((Date) value, xmlStreamWriter);
         } else if (value instanceof Calendar) {
-            serializeAnyType("dateTime", convertToString((Calendar) value), xmlStreamWriter);
+            addTypeAttribute(xmlStreamWriter, "dateTime");
+            serializeDateTime((Calendar) value, xmlStreamWriter);
         } else if (value instanceof Time) {
             serializeAnyType("time", convertToString((Time) value), xmlStreamWriter);
         } else if (value instanceof Float) {
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.rpc.receivers;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes the service method of an RPC operation. The method is resolved once per operation and
+ * implementation class and called through a {@link MethodHandle} of type
+ * <code>(Object, Object[])Object</code>, which avoids the access checks and argument copying of
+ * {@link Method#invoke(Object, Object...)} on every request. If no handle can be created (e.g.
+ * because the service class is not public), the invoker falls back to reflection.
+ * <p/>
+ * Exceptions thrown by the service method are wrapped in an {@link InvocationTargetException},
+ * as with reflection, so that the message receivers can map them to faults. The target and the
+ * arguments are checked before the handle is invoked, so that a bad argument results in an
+ * {@link IllegalArgumentException} as with reflection and is not blamed on the service method.
+ */
+public final class MethodInvoker {
+
+    private static final Log log = LogFactory.getLog(MethodInvoker.class);
+
+    /**
+     * Name of the {@link AxisOperation} parameter holding the cached invoker.
+     */
+    private static final String INVOKER_PARAMETER = "rpcMethodInvoker";
+
+    private static final MethodType INVOKER_TYPE =
+            MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Class implClass;
+
+    private final Method method;
+
+    private final Class[] parameterTypes;
+
+    /**
+     * The parameter types with the primitive types replaced by their wrapper classes.
+     */
+    private final Class[] argumentTypes;
+
+    private final MethodHandle handle;
+
+    MethodInvoker(Class implClass, Method method) {
+        this.implClass = implClass;
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.argumentTypes = new Class[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            argumentTypes[i] = MethodType.methodType(parameterTypes[i]).wrap().returnType();
+        }
+        this.handle = createHandle(method, parameterTypes.length);
+    }
+
+    /**
+     * Get the invoker for the operation, resolving the method named after the operation on the
+     * implementation class the first time and caching the invoker on the operation. The cached
+     * invoker is discarded if the implementation class has changed (see AXIS2-3947).
+     *
+     * @param op        the operation being invoked
+     * @param implClass the class of the service object
+     * @return the invoker
+     * @throws AxisFault if the class has no public method with the name of the operation
+     */
+    public static MethodInvoker getMethodInvoker(AxisOperation op, Class implClass)
+            throws AxisFault {
+        MethodInvoker invoker = (MethodInvoker) op.getParameterValue(INVOKER_PARAMETER);
+        if (invoker != null && invoker.implClass == implClass) {
+            return invoker;
+        }
+        String methodName = op.getName().getLocalPart();
+        for (Method method : implClass.getMethods()) {
+            if (method.isBridge()) {
+                continue;
+            }
+            if (method.getName().equals(methodName)) {
+                invoker = new MethodInvoker(implClass, method);
+                op.addParameter(INVOKER_PARAMETER, invoker);
+                return invoker;
+            }
+        }
+        throw new AxisFault("No such method '" + methodName +
+                "' in class " + implClass.getName());
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Get the parameter types of the method. The returned array is shared and must not be
+     * modified.
+     */
+    public Class[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param target the service object; ignored for static methods
+     * @param args   the arguments
+     * @return the return value of the method, <code>null</code> for void methods
+     * @throws IllegalAccessException    if the method is not accessible
+     * @throws IllegalArgumentException  if the target or the arguments do not match the method
+     * @throws InvocationTargetException if the method threw an exception
+     */
+    public Object invoke(Object target, Object... args)
+            throws IllegalAccessException, InvocationTargetException {
+        if (handle == null) {
+            return method.invoke(target, args);
+        }
+        if (args == null) {
+            args = new Object[0];
+        }
+        if (args.length != parameterTypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        // the same checks as Method.invoke, so that the handle cannot fail to adapt the call
+        if (!Modifier.isStatic(method.getModifiers())
+                && !method.getDeclaringClass().isInstance(target)) {
+            if (target == null) {
+                throw new NullPointerException();
+            }
+            throw new IllegalArgumentException("object is not an instance of declaring class");
+        }
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg == null) {
+                if (parameterTypes[i].isPrimitive()) {
+                    throw new IllegalArgumentException("null value for primitive parameter " +
+                            i + " of " + method.getName());
+                }
+            } else if (!argumentTypes[i].isInstance(arg)) {
+                if (parameterTypes[i].isPrimitive()) {
+                    // possibly a widening conversion, such as an Integer for a long parameter
+                    return method.invoke(target, args);
+                }
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    private static MethodHandle createHandle(Method method, int parameterCount) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            handle = handle.asType(handle.type().changeReturnType(Object.class)
+                    .changeParameterType(0, Object.class));
+            return handle.asSpreader(Object[].class, parameterCount).asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Using reflection to invoke " + method + ": " + e.getMessage());
+            }
+            return null;
+        }
+    }
+}
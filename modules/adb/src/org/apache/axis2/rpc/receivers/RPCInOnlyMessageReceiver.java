@@ -50,23 +50,12 @@ public class RPCInOnlyMessageReceiver extends AbstractInMessageReceiver {
                     .getFirstElement();
 
             AxisMessage inAxisMessage = op.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
-            String messageNameSpace = null;
-            String methodName = op.getName().getLocalPart();
-            Method[] methods = ImplClass.getMethods();
-            for (int i = 0; i < methods.length; i++) {
-                if (methods[i].isBridge()) {
-                    continue;
-                }
-                if (methods[i].getName().equals(methodName)) {
-                    method = methods[i];
-                    break;
-                }
-            }
+            MethodInvoker invoker = MethodInvoker.getMethodInvoker(op, ImplClass);
+            method = invoker.getMethod();
             if (inAxisMessage != null) {
                 RPCUtil.invokeServiceClass(inAxisMessage,
-                        method,
+                        invoker,
                         obj,
-                        messageNameSpace,
                         methodElement,inMessage);
 
             }
@@ -86,7 +75,7 @@ public class RPCInOnlyMessageReceiver extends AbstractInMessageReceiver {
             throw AxisFault.makeFault(cause);
         } catch (Exception e) {
             String msg = "Exception occurred while trying to invoke service method " +
-                    method.getName();
+                    (method != null ? method.getName() : "null");
             log.error(msg, e);
             throw new AxisFault(msg, e);
         }
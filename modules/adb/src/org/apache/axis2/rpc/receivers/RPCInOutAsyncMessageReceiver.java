@@ -76,23 +76,13 @@ public class RPCInOutAsyncMessageReceiver extends AbstractInOutAsyncMessageRecei
 
             AxisMessage inaxisMessage = op.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
             String messageNameSpace = null;
-            String methodName = op.getName().getLocalPart();
-            Method[] methods = ImplClass.getMethods();
-            for (int i = 0; i < methods.length; i++) {
-                if (methods[i].isBridge()) {
-                    continue;
-                }
-                if (methods[i].getName().equals(methodName)) {
-                    method = methods[i];
-                    break;
-                }
-            }
+            MethodInvoker invoker = MethodInvoker.getMethodInvoker(op, ImplClass);
+            method = invoker.getMethod();
             Object resObject = null;
             if (inaxisMessage != null) {
                 resObject = RPCUtil.invokeServiceClass(inaxisMessage,
-                        method,
+                        invoker,
                         obj,
-                        messageNameSpace,
                         methodElement,inMessage);
             }
 
@@ -148,7 +138,7 @@ public class RPCInOutAsyncMessageReceiver extends AbstractInOutAsyncMessageRecei
             throw new AxisFault(msg);
         } catch (Exception e) {
             String msg = "Exception occurred while trying to invoke service method " +
-                    method.getName();
+                    (method != null ? method.getName() : "null");
             log.error(msg, e);
             throw new AxisFault(msg, e);
         }
@@ -80,44 +80,19 @@ public class RPCMessageReceiver extends AbstractInOutMessageReceiver {
             Class implClass = obj.getClass();
 
             AxisOperation op = inMessage.getOperationContext().getAxisOperation();
-            method = (Method)(op.getParameterValue("myMethod"));
-            // If the declaring class has changed, then the cached method is invalid, so we need to
-            // reload it. This is to fix AXIS2-3947.
-            if (method != null && method.getDeclaringClass() != implClass) {
-                method = null;
-            }
+            MethodInvoker invoker = MethodInvoker.getMethodInvoker(op, implClass);
+            method = invoker.getMethod();
             AxisService service = inMessage.getAxisService();
             OMElement methodElement = inMessage.getEnvelope().getBody()
                     .getFirstElement();
             AxisMessage inAxisMessage = op.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
             String messageNameSpace = null;
 
-
-            if (method == null) {
-                String methodName = op.getName().getLocalPart();
-                Method[] methods = implClass.getMethods();
-
-                for (Method method1 : methods) {
-                    if (method1.isBridge()) {
-                        continue;
-                    }
-                    if (method1.getName().equals(methodName)) {
-                        method = method1;
-                        op.addParameter("myMethod", method);
-                        break;
-                    }
-                }
-                if (method == null) {
-                    throw new AxisFault("No such method '" + methodName +
-                            "' in class " + implClass.getName());
-                }
-            }
             Object resObject = null;
             if (inAxisMessage != null) {
                 resObject = RPCUtil.invokeServiceClass(inAxisMessage,
-                        method,
+                        invoker,
                         obj,
-                        messageNameSpace,
                         methodElement,inMessage);
             }
 
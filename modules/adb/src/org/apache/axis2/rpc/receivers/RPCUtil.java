@@ -159,6 +159,16 @@ public class RPCUtil {
         return processRequest(methodElement, method, objectSupplier, null);
     }
 
+    private static Object[] processRequest(OMElement methodElement, Method method,
+                                           MethodInvoker invoker, ObjectSupplier objectSupplier,
+                                           String[] parameterNames) throws AxisFault {
+        if (invoker == null) {
+            return processRequest(methodElement, method, objectSupplier, parameterNames);
+        }
+        return BeanUtil.deserialize(methodElement, invoker.getParameterTypes(), objectSupplier,
+                parameterNames, method);
+    }
+
     public static Object invokeServiceClass(AxisMessage inAxisMessage,
                                             Method method,
                                             Object implObject,
@@ -166,6 +176,31 @@ public class RPCUtil {
                                             OMElement methodElement,
                                             MessageContext inMessage) throws AxisFault,
             IllegalAccessException, InvocationTargetException {
+        return doInvokeServiceClass(inAxisMessage, method, null, implObject, methodElement,
+                inMessage);
+    }
+
+    /**
+     * Same as {@link #invokeServiceClass(AxisMessage, Method, Object, String, OMElement,
+     * MessageContext)}, but calls the method through the cached invoker of the operation.
+     */
+    public static Object invokeServiceClass(AxisMessage inAxisMessage,
+                                            MethodInvoker invoker,
+                                            Object implObject,
+                                            OMElement methodElement,
+                                            MessageContext inMessage) throws AxisFault,
+            IllegalAccessException, InvocationTargetException {
+        return doInvokeServiceClass(inAxisMessage, invoker.getMethod(), invoker, implObject,
+                methodElement, inMessage);
+    }
+
+    private static Object doInvokeServiceClass(AxisMessage inAxisMessage,
+                                               Method method,
+                                               MethodInvoker invoker,
+                                               Object implObject,
+                                               OMElement methodElement,
+                                               MessageContext inMessage) throws AxisFault,
+            IllegalAccessException, InvocationTargetException {
         
         //POJO was not WS-I complient since it does generate an empty soap message for in comming
         //soap envelope when no input parameters are set. But now we have fixed this to include the
@@ -175,10 +210,10 @@ public class RPCUtil {
 
         if ((inAxisMessage.getElementQName() == null) || (methodElement == null)) {
             // method accept empty SOAPbody
-            return method.invoke(implObject);
+            return invoker != null ? invoker.invoke(implObject) : method.invoke(implObject);
         } else {
             QName elementQName = inAxisMessage.getElementQName();
-            messageNameSpace = elementQName.getNamespaceURI();
+            String messageNameSpace = elementQName.getNamespaceURI();
             OMNamespace namespace = methodElement.getNamespace();
             if (messageNameSpace != null) {
                 if (namespace == null) {
@@ -203,13 +238,14 @@ public class RPCUtil {
                 if (namesParameter != null){
                     parameterNames = (String[]) namesParameter.getValue();
                 }
-                objectArray = RPCUtil.processRequest(methodElement,
-                        method, inMessage.getAxisService().getObjectSupplier(), parameterNames);
+                objectArray = processRequest(methodElement, method, invoker,
+                        inMessage.getAxisService().getObjectSupplier(), parameterNames);
             } else {
-                objectArray = RPCUtil.processRequest((OMElement) methodElement.getParent(),
-                        method, inMessage.getAxisService().getObjectSupplier());
+                objectArray = processRequest((OMElement) methodElement.getParent(), method,
+                        invoker, inMessage.getAxisService().getObjectSupplier(), null);
             }
-            return method.invoke(implObject, objectArray);
+            return invoker != null ? invoker.invoke(implObject, objectArray)
+                    : method.invoke(implObject, objectArray);
 
         }
     }
@@ -186,4 +186,28 @@ public class BeanUtilTest extends TestCase {
             assertTrue(e.getMessage().contains("Brisbane"));
         }
     }
+
+    public void testDeserializeIgnoresCaseOfElementNames() throws Exception {
+        OMElement child = omFactory.createOMElement(new QName("Child"), omElement);
+        child.setText("World");
+        OMElement duplicate = omFactory.createOMElement(new QName("child"), omElement);
+        duplicate.setText("Ignored");
+
+        ComplexType result = (ComplexType) BeanUtil.deserialize(ComplexType.class, omElement,
+                objectSupplier, null);
+        assertEquals("World", result.getChild());
+    }
+
+    public void testGetPullParserRoundTrip() throws Exception {
+        ComplexType bean = new ComplexType();
+        bean.setChild("World");
+        OMElement element = OMXMLBuilderFactory.createStAXOMBuilder(
+                BeanUtil.getPullParser(bean, new QName("bean"), null, false, false))
+                .getDocumentElement();
+        assertEquals("World", element.getFirstChildWithName(new QName("child")).getText());
+
+        ComplexType result = (ComplexType) BeanUtil.deserialize(ComplexType.class, element,
+                objectSupplier, null);
+        assertEquals("World", result.getChild());
+    }
 }
@@ -21,6 +21,9 @@ package org.apache.axis2.databinding.utils;
 
 import junit.framework.TestCase;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.StringWriter;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -169,4 +172,57 @@ public class ConverterUtilTest extends TestCase {
         
     }
 
+    public void testDateConversionsAgreeWithCalendar() throws Exception {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/St_Johns"));
+            // summer time, a negative half hour offset and a date before the Gregorian cutover
+            long[] times = {1183300000000L, 1199145600000L, -12219292800000L - 86400000L * 3};
+            for (int i = 0; i < times.length; i++) {
+                Date date = new Date(times[i]);
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTime(date);
+                StringBuffer expected = new StringBuffer();
+                ConverterUtil.appendDate(expected, calendar);
+                ConverterUtil.appendTimeZone(calendar, expected);
+                assertEquals(expected.toString(), ConverterUtil.convertToString(date));
+            }
+
+            assertEquals("2007-07-01T14:26:40.000-02:30", ConverterUtil.convertToString(
+                    ConverterUtil.convertToDateTime("2007-07-01T14:26:40-02:30")));
+
+            // 2007-02-15T00:00:00Z and 2008-02-29T00:00:00Z
+            assertEquals(1171497600000L + 330 * 60000,
+                    ConverterUtil.convertToDate("2007-02-15-05:30").getTime());
+            assertEquals(1204243200000L, ConverterUtil.convertToDate("2008-02-29Z").getTime());
+            // without a time zone the raw offset of the default one (-03:30) is used
+            assertEquals(1171497600000L + 210 * 60000,
+                    ConverterUtil.convertToDate("2007-02-15").getTime());
+            try {
+                ConverterUtil.convertToDate("2007-02-29Z");
+                fail("accepted an invalid date");
+            } catch (IllegalArgumentException e) {
+                // expected, as with the non lenient calendar
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    public void testSerializeDateTime() throws Exception {
+        Calendar calendar = ConverterUtil.convertToDateTime("2007-02-15T14:54:29.399+05:30");
+        Date date = ConverterUtil.convertToDate("2007-02-15Z");
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+        writer.writeStartElement("dates");
+        ConverterUtil.serializeDateTime(calendar, writer);
+        writer.writeCharacters(" ");
+        ConverterUtil.serializeDate(date, writer);
+        writer.writeEndElement();
+        writer.flush();
+        assertEquals("<dates>" + ConverterUtil.convertToString(calendar) + " "
+                + ConverterUtil.convertToString(date) + "</dates>", out.toString());
+        assertTrue(out.toString().startsWith("<dates>2007-02-15T14:54:29.399+05:30 "));
+    }
+
 }
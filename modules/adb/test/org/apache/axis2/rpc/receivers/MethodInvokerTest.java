@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.rpc.receivers;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.InOutAxisOperation;
+
+import javax.xml.namespace.QName;
+import java.lang.reflect.InvocationTargetException;
+
+public class MethodInvokerTest extends TestCase {
+
+    public void testInvoke() throws Exception {
+        AxisOperation op = new InOutAxisOperation(new QName("add"));
+        MethodInvoker invoker = MethodInvoker.getMethodInvoker(op, Calculator.class);
+        assertEquals(5, invoker.invoke(new Calculator(), 2, 3));
+        assertSame(invoker, MethodInvoker.getMethodInvoker(op, Calculator.class));
+
+        // the cached invoker is replaced if the implementation class changes (AXIS2-3947)
+        MethodInvoker other = MethodInvoker.getMethodInvoker(op, ScientificCalculator.class);
+        assertNotSame(invoker, other);
+        assertEquals(5, other.invoke(new ScientificCalculator(), 2, 3));
+    }
+
+    public void testInvokeStaticAndVoidMethods() throws Exception {
+        MethodInvoker invoker = MethodInvoker.getMethodInvoker(
+                new InOutAxisOperation(new QName("negate")), Calculator.class);
+        assertEquals(-4, invoker.invoke(new Calculator(), 4));
+
+        invoker = MethodInvoker.getMethodInvoker(
+                new InOutAxisOperation(new QName("reset")), Calculator.class);
+        assertNull(invoker.invoke(new Calculator()));
+    }
+
+    public void testExceptionIsWrapped() throws Exception {
+        MethodInvoker invoker = MethodInvoker.getMethodInvoker(
+                new InOutAxisOperation(new QName("divide")), Calculator.class);
+        try {
+            invoker.invoke(new Calculator(), 1, 0);
+            fail("Expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+        try {
+            invoker.invoke(new Calculator(), 1, null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testBadArgumentsAreNotBlamedOnTheMethod() throws Exception {
+        MethodInvoker invoker = MethodInvoker.getMethodInvoker(
+                new InOutAxisOperation(new QName("parse")), Calculator.class);
+        try {
+            invoker.invoke(new Calculator(), Integer.valueOf(1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            invoker.invoke("not a calculator", "1");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // a ClassCastException thrown by the method itself is still wrapped
+        try {
+            invoker.invoke(new Calculator(), "cast");
+            fail("Expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+
+    public void testWideningConversion() throws Exception {
+        MethodInvoker invoker = MethodInvoker.getMethodInvoker(
+                new InOutAxisOperation(new QName("square")), Calculator.class);
+        assertEquals(Long.valueOf(9), invoker.invoke(new Calculator(), Integer.valueOf(3)));
+        assertEquals(Long.valueOf(9), invoker.invoke(new Calculator(), Long.valueOf(3)));
+    }
+
+    public void testNoSuchMethod() throws Exception {
+        try {
+            MethodInvoker.getMethodInvoker(new InOutAxisOperation(new QName("subtract")),
+                    Calculator.class);
+            fail("Expected AxisFault");
+        } catch (AxisFault e) {
+            assertTrue(e.getMessage().contains("subtract"));
+        }
+    }
+
+    public static class Calculator {
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public int divide(int a, int b) {
+            return a / b;
+        }
+
+        public static int negate(int a) {
+            return -a;
+        }
+
+        public long square(long a) {
+            return a * a;
+        }
+
+        public int parse(String s) {
+            if (s.equals("cast")) {
+                Object o = s;
+                return (Integer) o;
+            }
+            return Integer.parseInt(s);
+        }
+
+        public void reset() {
+        }
+    }
+
+    public static class ScientificCalculator extends Calculator {
+    }
+}
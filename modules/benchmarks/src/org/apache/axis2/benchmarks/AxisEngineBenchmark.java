@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.local.LocalTransportReceiver;
+import org.apache.axiom.util.UIDGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full request/response through AxisEngine.receive: the local transport builds the
+ * message, runs the InFlow phases and dispatchers, invokes the echo service and serializes the
+ * response through the OutFlow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AxisEngineBenchmark {
+
+    @Param({"1", "100"})
+    public int elementCount;
+
+    private ConfigurationContext configContext;
+
+    private MessageContext clientMessageContext;
+
+    private byte[] request;
+
+    @Setup
+    public void setUp() throws Exception {
+        configContext = BenchmarkSupport.createConfigurationContext();
+        clientMessageContext = configContext.createMessageContext();
+        clientMessageContext.setTo(new EndpointReference("local://services/"
+                + BenchmarkSupport.ECHO_SERVICE + "/" + BenchmarkSupport.ECHO_OPERATION));
+        clientMessageContext.getOptions().setAction(BenchmarkSupport.ECHO_ACTION);
+        clientMessageContext.setMessageID(UIDGenerator.generateURNString());
+        request = BenchmarkSupport.createEchoRequest(elementCount);
+    }
+
+    @Benchmark
+    public int receive() throws Exception {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        new LocalTransportReceiver(configContext).processMessage(clientMessageContext,
+                new ByteArrayInputStream(request), response);
+        return response.size();
+    }
+}
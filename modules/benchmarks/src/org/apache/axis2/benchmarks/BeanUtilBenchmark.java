@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.impl.builder.StAXOMBuilder;
+import org.apache.axis2.databinding.utils.BeanUtil;
+import org.apache.axis2.engine.DefaultObjectSupplier;
+import org.apache.axis2.engine.ObjectSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the BeanUtil serialization and deserialization used by the RPC message receivers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanUtilBenchmark {
+
+    private static final QName ORDER_QNAME = new QName(BenchmarkSupport.NAMESPACE, "order");
+
+    private final ObjectSupplier objectSupplier = new DefaultObjectSupplier();
+
+    private Order order;
+
+    private OMElement orderElement;
+
+    @Setup
+    public void setUp() throws Exception {
+        order = new Order();
+        order.setId("ORD-4711");
+        order.setQuantity(42);
+        order.setPrice(19.99);
+        order.setTags(new String[] { "priority", "gift", "international" });
+
+        orderElement = toElement(order);
+        orderElement.build();
+    }
+
+    @Benchmark
+    public int serialize() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        toElement(order).serialize(out);
+        return out.size();
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return BeanUtil.deserialize(Order.class, orderElement, objectSupplier, null);
+    }
+
+    private static OMElement toElement(Order order) {
+        return new StAXOMBuilder(BeanUtil.getPullParser(order, ORDER_QNAME, null, true, false))
+                .getDocumentElement();
+    }
+
+    public static class Order {
+
+        private String id;
+
+        private int quantity;
+
+        private double price;
+
+        private String[] tags;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+
+        public String[] getTags() {
+            return tags;
+        }
+
+        public void setTags(String[] tags) {
+            this.tags = tags;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.util.Utils;
+
+import javax.xml.namespace.QName;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Shared set up of the benchmarks: the configuration, the echo service and the request payloads.
+ */
+final class BenchmarkSupport {
+
+    static final String NAMESPACE = "http://benchmarks.axis2.apache.org";
+
+    static final String ECHO_SERVICE = "EchoService";
+
+    static final String ECHO_OPERATION = "echo";
+
+    static final String ECHO_ACTION = "urn:echo";
+
+    private static final String CONFIGURATION_RESOURCE = "benchmark-axis2.xml";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Create a configuration context from benchmark-axis2.xml and deploy the echo service.
+     */
+    static ConfigurationContext createConfigurationContext() throws Exception {
+        ConfigurationContext configContext =
+                ConfigurationContextFactory.createBasicConfigurationContext(CONFIGURATION_RESOURCE);
+        AxisService echoService = Utils.createSimpleService(new QName(ECHO_SERVICE),
+                EchoService.class.getName(), new QName(NAMESPACE, ECHO_OPERATION));
+        echoService.mapActionToOperation(ECHO_ACTION,
+                echoService.getOperation(new QName(NAMESPACE, ECHO_OPERATION)));
+        configContext.getAxisConfiguration().addService(echoService);
+        return configContext;
+    }
+
+    /**
+     * A SOAP 1.1 request for the echo operation with the given number of child elements.
+     */
+    static byte[] createEchoRequest(int elementCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version='1.0' encoding='UTF-8'?>");
+        sb.append("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">");
+        sb.append("<soapenv:Body>");
+        sb.append("<ns:").append(ECHO_OPERATION).append(" xmlns:ns=\"").append(NAMESPACE).append("\">");
+        for (int i = 0; i < elementCount; i++) {
+            sb.append("<ns:item id=\"").append(i).append("\">");
+            sb.append("The quick brown fox jumps over the lazy dog ").append(i);
+            sb.append("</ns:item>");
+        }
+        sb.append("</ns:").append(ECHO_OPERATION).append(">");
+        sb.append("</soapenv:Body>");
+        sb.append("</soapenv:Envelope>");
+        try {
+            return sb.toString().getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
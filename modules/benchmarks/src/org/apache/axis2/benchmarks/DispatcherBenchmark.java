@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.dispatchers.AddressingBasedDispatcher;
+import org.apache.axis2.dispatchers.RequestURIBasedDispatcher;
+import org.apache.axis2.dispatchers.SOAPActionBasedDispatcher;
+import org.apache.axis2.engine.AbstractDispatcher;
+import org.apache.axis2.receivers.RawXMLINOutMessageReceiver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatchers of the Transport, Addressing and Dispatch phases, one by one and as
+ * the chain the default axis2.xml configures, against a service with a realistic number of
+ * operations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    private static final String SERVICE_NAME = "DispatchService";
+
+    private static final int OPERATION_COUNT = 20;
+
+    private static final String TARGET_OPERATION = "operation7";
+
+    private MessageContext msgContext;
+
+    private final RequestURIBasedDispatcher requestURIBasedDispatcher =
+            new RequestURIBasedDispatcher();
+
+    private final SOAPActionBasedDispatcher soapActionBasedDispatcher =
+            new SOAPActionBasedDispatcher();
+
+    private final AddressingBasedDispatcher addressingBasedDispatcher =
+            new AddressingBasedDispatcher();
+
+    @Setup
+    public void setUp() throws Exception {
+        ConfigurationContext configContext = BenchmarkSupport.createConfigurationContext();
+        AxisService service = new AxisService(SERVICE_NAME);
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            AxisOperation operation =
+                    new InOutAxisOperation(new QName(BenchmarkSupport.NAMESPACE, "operation" + i));
+            operation.setMessageReceiver(new RawXMLINOutMessageReceiver());
+            operation.setSoapAction("urn:operation" + i);
+            service.addOperation(operation);
+            service.mapActionToOperation("urn:operation" + i, operation);
+        }
+        configContext.getAxisConfiguration().addService(service);
+
+        requestURIBasedDispatcher.initDispatcher();
+        soapActionBasedDispatcher.initDispatcher();
+        addressingBasedDispatcher.initDispatcher();
+
+        msgContext = configContext.createMessageContext();
+        msgContext.setTo(new EndpointReference("http://localhost:8080/axis2/services/"
+                + SERVICE_NAME + "/" + TARGET_OPERATION));
+        msgContext.setSoapAction("urn:" + TARGET_OPERATION);
+        msgContext.setWSAAction("urn:" + TARGET_OPERATION);
+    }
+
+    @Benchmark
+    public AxisOperation requestURIBasedDispatcher() throws Exception {
+        return dispatch(requestURIBasedDispatcher);
+    }
+
+    @Benchmark
+    public AxisOperation soapActionBasedDispatcher() throws Exception {
+        // SOAPActionBasedDispatcher only finds operations, so start from the resolved service
+        reset();
+        msgContext.setAxisService(
+                msgContext.getConfigurationContext().getAxisConfiguration().getService(SERVICE_NAME));
+        soapActionBasedDispatcher.invoke(msgContext);
+        return msgContext.getAxisOperation();
+    }
+
+    @Benchmark
+    public AxisOperation addressingBasedDispatcher() throws Exception {
+        return dispatch(addressingBasedDispatcher);
+    }
+
+    @Benchmark
+    public AxisOperation dispatcherChain() throws Exception {
+        reset();
+        requestURIBasedDispatcher.invoke(msgContext);
+        soapActionBasedDispatcher.invoke(msgContext);
+        addressingBasedDispatcher.invoke(msgContext);
+        return msgContext.getAxisOperation();
+    }
+
+    private AxisOperation dispatch(AbstractDispatcher dispatcher) throws Exception {
+        reset();
+        dispatcher.invoke(msgContext);
+        return msgContext.getAxisOperation();
+    }
+
+    /**
+     * The dispatchers do nothing once a service and an operation have been found, so every
+     * invocation starts from an undispatched message.
+     */
+    private void reset() {
+        msgContext.setAxisService(null);
+        msgContext.setAxisOperation(null);
+    }
+}
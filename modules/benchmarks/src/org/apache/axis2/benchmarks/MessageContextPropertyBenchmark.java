@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.context.ServiceContext;
+import org.apache.axis2.context.ServiceGroupContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures MessageContext.getProperty for a property set on the message context itself, one set
+ * on the configuration context (which walks the whole context hierarchy) and one that is not
+ * set anywhere.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageContextPropertyBenchmark {
+
+    private static final String LOCAL_PROPERTY = "benchmark.local";
+
+    private static final String CONFIGURATION_PROPERTY = "benchmark.configuration";
+
+    private static final String MISSING_PROPERTY = "benchmark.missing";
+
+    private MessageContext msgContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        ConfigurationContext configContext = BenchmarkSupport.createConfigurationContext();
+        AxisService service = configContext.getAxisConfiguration()
+                .getService(BenchmarkSupport.ECHO_SERVICE);
+        AxisOperation operation = service.getOperation(
+                new QName(BenchmarkSupport.NAMESPACE, BenchmarkSupport.ECHO_OPERATION));
+
+        ServiceGroupContext serviceGroupContext =
+                configContext.createServiceGroupContext(service.getAxisServiceGroup());
+        ServiceContext serviceContext = serviceGroupContext.getServiceContext(service);
+        OperationContext operationContext = serviceContext.createOperationContext(operation);
+
+        msgContext = configContext.createMessageContext();
+        msgContext.setAxisService(service);
+        msgContext.setAxisOperation(operation);
+        msgContext.setServiceContext(serviceContext);
+        msgContext.setOperationContext(operationContext);
+
+        msgContext.setProperty(LOCAL_PROPERTY, Boolean.TRUE);
+        configContext.setProperty(CONFIGURATION_PROPERTY, Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Object localProperty() {
+        return msgContext.getProperty(LOCAL_PROPERTY);
+    }
+
+    @Benchmark
+    public Object configurationProperty() {
+        return msgContext.getProperty(CONFIGURATION_PROPERTY);
+    }
+
+    @Benchmark
+    public Object missingProperty() {
+        return msgContext.getProperty(MISSING_PROPERTY);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.Constants;
+import org.apache.axis2.builder.SOAPBuilder;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.http.SOAPMessageFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a SOAP 1.1 message with SOAPBuilder and writes it back with SOAPMessageFormatter, for a
+ * range of payload sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SOAPRoundTripBenchmark {
+
+    private static final String CONTENT_TYPE = "text/xml; charset=UTF-8";
+
+    @Param({"1", "10", "100", "1000"})
+    public int elementCount;
+
+    private ConfigurationContext configContext;
+
+    private byte[] request;
+
+    private final SOAPBuilder builder = new SOAPBuilder();
+
+    private final SOAPMessageFormatter formatter = new SOAPMessageFormatter();
+
+    @Setup
+    public void setUp() throws Exception {
+        configContext = BenchmarkSupport.createConfigurationContext();
+        request = BenchmarkSupport.createEchoRequest(elementCount);
+    }
+
+    @Benchmark
+    public SOAPEnvelope build() throws Exception {
+        MessageContext msgContext = newMessageContext();
+        SOAPEnvelope envelope = (SOAPEnvelope) builder.processDocument(
+                new ByteArrayInputStream(request), CONTENT_TYPE, msgContext);
+        envelope.build();
+        return envelope;
+    }
+
+    @Benchmark
+    public int roundTrip() throws Exception {
+        MessageContext msgContext = newMessageContext();
+        msgContext.setEnvelope((SOAPEnvelope) builder.processDocument(
+                new ByteArrayInputStream(request), CONTENT_TYPE, msgContext));
+        OMOutputFormat format = new OMOutputFormat();
+        format.setCharSetEncoding("UTF-8");
+        format.setSOAP11(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(request.length);
+        formatter.writeTo(msgContext, format, out, false);
+        return out.size();
+    }
+
+    private MessageContext newMessageContext() {
+        MessageContext msgContext = configContext.createMessageContext();
+        msgContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING, "UTF-8");
+        return msgContext;
+    }
+}
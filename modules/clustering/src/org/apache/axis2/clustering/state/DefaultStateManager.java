@@ -23,12 +23,15 @@ import org.apache.axiom.om.OMElement;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.clustering.ClusteringFault;
 import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateStateCommand;
 import org.apache.axis2.clustering.tribes.ChannelSender;
 import org.apache.axis2.context.AbstractContext;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.context.ServiceGroupContext;
 import org.apache.axis2.description.Parameter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -36,19 +39,52 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * This class is the defaut StateManager of the Apache Tribes based clustering implementation
+ * This class is the defaut StateManager of the Apache Tribes based clustering implementation.
+ * <p/>
+ * By default each state change is sent to the group from the thread that made it. When the
+ * <code>asyncReplication</code> parameter is true, the changes are instead queued and sent from
+ * a background thread, with the updates to the same context within a flush interval merged into
+ * one command. Note that the property values are then serialized after the request thread
+ * returns, so values that are modified in place may be replicated with later modifications.
+ * The queue is tuned with the following parameters:
+ * <ul>
+ * <li><code>replicationFlushInterval</code> - the maximum time in milliseconds a change is
+ * queued, 50 by default</li>
+ * <li><code>replicationBatchSize</code> - the number of queued commands which are sent without
+ * waiting for the flush interval, 100 by default</li>
+ * <li><code>replicationQueueCapacity</code> - the number of queued commands at which the request
+ * threads wait for the queue to be flushed, 10000 by default</li>
+ * </ul>
  */
 public class DefaultStateManager implements StateManager {
 
+    private static final Log log = LogFactory.getLog(DefaultStateManager.class);
+
+    public static final String ASYNC_REPLICATION = "asyncReplication";
+    public static final String REPLICATION_FLUSH_INTERVAL = "replicationFlushInterval";
+    public static final String REPLICATION_BATCH_SIZE = "replicationBatchSize";
+    public static final String REPLICATION_QUEUE_CAPACITY = "replicationQueueCapacity";
+
     private final Map<String, Parameter> parameters = new HashMap<String, Parameter>();
 
     private ChannelSender sender;
 
+    private volatile ReplicationPipeline pipeline;
+
     private final Map<String, List> excludedReplicationPatterns = new HashMap<String, List>();
 
     //TODO: Try to use an interface
     public void setSender(ChannelSender sender) {
         this.sender = sender;
+        stop();
+        if (sender != null && isParameterTrue(ASYNC_REPLICATION)) {
+            long flushInterval = getLongParameter(REPLICATION_FLUSH_INTERVAL, 50);
+            int batchSize = (int) getLongParameter(REPLICATION_BATCH_SIZE, 100);
+            int queueCapacity = (int) getLongParameter(REPLICATION_QUEUE_CAPACITY, 10000);
+            log.info("Replicating state asynchronously, flush interval " + flushInterval +
+                     "ms, batch size " + batchSize + ", queue capacity " + queueCapacity);
+            pipeline = new ReplicationPipeline(sender, flushInterval, batchSize, queueCapacity);
+        }
     }
 
     public DefaultStateManager() {
@@ -60,7 +96,7 @@ public class DefaultStateManager implements StateManager {
                                                                  excludedReplicationPatterns,
                                                                  false);
         if (cmd != null) {
-            sender.sendToGroup(cmd);
+            send(context, cmd);
         }
     }
 
@@ -69,11 +105,17 @@ public class DefaultStateManager implements StateManager {
         StateClusteringCommand cmd =
                 StateClusteringCommandFactory.getUpdateCommand(context, propertyNames);
         if (cmd != null) {
-            sender.sendToGroup(cmd);
+            send(context, cmd);
         }
     }
 
     public void updateContexts(AbstractContext[] contexts) throws ClusteringFault {
+        if (pipeline != null) {
+            for (AbstractContext context : contexts) {
+                updateContext(context);
+            }
+            return;
+        }
         StateClusteringCommandCollection cmd =
                 StateClusteringCommandFactory.getCommandCollection(contexts,
                                                                    excludedReplicationPatterns);
@@ -83,12 +125,99 @@ public class DefaultStateManager implements StateManager {
     }
 
     public void replicateState(StateClusteringCommand command) throws ClusteringFault {
-        sender.sendToGroup(command);
+        send(null, command);
     }
 
     public void removeContext(AbstractContext context) throws ClusteringFault {
         StateClusteringCommand cmd = StateClusteringCommandFactory.getRemoveCommand(context);
-        sender.sendToGroup(cmd);
+        if (cmd != null) {
+            send(null, cmd);
+        }
+    }
+
+    private void send(AbstractContext context, StateClusteringCommand cmd)
+            throws ClusteringFault {
+        ReplicationPipeline pipeline = this.pipeline;
+        if (pipeline == null) {
+            sender.sendToGroup(cmd);
+        } else if (context != null && cmd instanceof UpdateStateCommand) {
+            pipeline.update(context, (UpdateStateCommand) cmd);
+        } else {
+            pipeline.add(cmd);
+        }
+    }
+
+    /**
+     * Send the queued state changes, if state is replicated asynchronously, and stop the
+     * replication thread.
+     */
+    public void stop() {
+        ReplicationPipeline pipeline = this.pipeline;
+        if (pipeline != null) {
+            this.pipeline = null;
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * @return the number of state changes waiting to be sent, or 0 if state is replicated
+     *         synchronously
+     */
+    public int getReplicationQueueDepth() {
+        ReplicationPipeline pipeline = this.pipeline;
+        return pipeline != null ? pipeline.getQueueDepth() : 0;
+    }
+
+    /**
+     * @return the time in milliseconds between queueing the oldest change of the last batch and
+     *         the batch having been sent, or 0 if state is replicated synchronously
+     */
+    public long getReplicationLag() {
+        ReplicationPipeline pipeline = this.pipeline;
+        return pipeline != null ? pipeline.getLastReplicationLag() : 0;
+    }
+
+    /**
+     * @return the number of commands sent asynchronously, not counting merged updates
+     */
+    public long getReplicatedCommandCount() {
+        ReplicationPipeline pipeline = this.pipeline;
+        return pipeline != null ? pipeline.getSentCommands() : 0;
+    }
+
+    /**
+     * @return the number of updates merged into an update queued earlier
+     */
+    public long getCoalescedUpdateCount() {
+        ReplicationPipeline pipeline = this.pipeline;
+        return pipeline != null ? pipeline.getCoalescedCommands() : 0;
+    }
+
+    /**
+     * @return the number of batches that could not be sent
+     */
+    public long getFailedReplicationCount() {
+        ReplicationPipeline pipeline = this.pipeline;
+        return pipeline != null ? pipeline.getFailedBatches() : 0;
+    }
+
+    private boolean isParameterTrue(String name) {
+        Parameter parameter = getParameter(name);
+        return parameter != null && parameter.getValue() != null &&
+               Boolean.parseBoolean(((String) parameter.getValue()).trim());
+    }
+
+    private long getLongParameter(String name, long defaultValue) {
+        Parameter parameter = getParameter(name);
+        if (parameter != null && parameter.getValue() != null) {
+            String value = ((String) parameter.getValue()).trim();
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value '" + value + "' for " + name + ", using " + defaultValue);
+            }
+        }
+        return defaultValue;
     }
 
     public boolean isContextClusterable(AbstractContext context) {
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.state;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registry of the context property types that can be replicated in a compact binary form instead
+ * of through Java serialization. Each type is identified on the wire by a one byte type id.
+ * The common JDK value types (strings, boxed primitives, byte arrays and dates) are registered
+ * out of the box; other types can be registered with {@link #register(int, Class, TypeHandler)}.
+ * All members of a cluster must register the same types with the same ids.
+ * <p/>
+ * Types are matched on the exact class of a value, so subclasses of a registered type are not
+ * encoded with its handler.
+ */
+public final class PropertyTypeRegistry {
+
+    /**
+     * Type id written for a null value
+     */
+    public static final int NULL_TYPE = 0;
+
+    /**
+     * Type id written for a value that is not of a registered type and is Java serialized
+     */
+    public static final int SERIALIZED_TYPE = 1;
+
+    /**
+     * The first type id that can be used for custom types. Lower ids are reserved.
+     */
+    public static final int FIRST_CUSTOM_TYPE = 64;
+
+    public static final int MAX_TYPE = 255;
+
+    private static final int STRING = 2;
+    private static final int BOOLEAN = 3;
+    private static final int BYTE = 4;
+    private static final int SHORT = 5;
+    private static final int INTEGER = 6;
+    private static final int LONG = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int CHARACTER = 10;
+    private static final int BYTE_ARRAY = 11;
+    private static final int DATE = 12;
+
+    private static final PropertyTypeRegistry instance = new PropertyTypeRegistry();
+
+    private final Map<Class<?>, RegisteredType> typesByClass =
+            new ConcurrentHashMap<Class<?>, RegisteredType>();
+
+    private final AtomicReferenceArray<RegisteredType> typesById =
+            new AtomicReferenceArray<RegisteredType>(MAX_TYPE + 1);
+
+    /**
+     * Writes and reads the values of one type.
+     */
+    public interface TypeHandler<T> {
+
+        void write(T value, DataOutput out) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    private PropertyTypeRegistry() {
+        registerType(STRING, String.class, new BuiltInHandler(STRING));
+        registerType(BOOLEAN, Boolean.class, new BuiltInHandler(BOOLEAN));
+        registerType(BYTE, Byte.class, new BuiltInHandler(BYTE));
+        registerType(SHORT, Short.class, new BuiltInHandler(SHORT));
+        registerType(INTEGER, Integer.class, new BuiltInHandler(INTEGER));
+        registerType(LONG, Long.class, new BuiltInHandler(LONG));
+        registerType(FLOAT, Float.class, new BuiltInHandler(FLOAT));
+        registerType(DOUBLE, Double.class, new BuiltInHandler(DOUBLE));
+        registerType(CHARACTER, Character.class, new BuiltInHandler(CHARACTER));
+        registerType(BYTE_ARRAY, byte[].class, new BuiltInHandler(BYTE_ARRAY));
+        registerType(DATE, Date.class, new BuiltInHandler(DATE));
+    }
+
+    public static PropertyTypeRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Register a custom property type. Values of a custom type are still only replicated if they
+     * can be Java serialized, as the default
+     * {@link org.apache.axis2.clustering.tribes.SerializingCommandCodec} does not use this
+     * registry.
+     *
+     * @param typeId  the id identifying the type on the wire, between {@link #FIRST_CUSTOM_TYPE}
+     *                and {@link #MAX_TYPE}
+     * @param type    the exact class of the values
+     * @param handler writes and reads the values
+     * @throws IllegalArgumentException if the id is out of range, or the id or the type has
+     *                                  already been registered
+     */
+    public synchronized <T> void register(int typeId, Class<T> type, TypeHandler<T> handler) {
+        if (typeId < FIRST_CUSTOM_TYPE || typeId > MAX_TYPE) {
+            throw new IllegalArgumentException("Type id " + typeId + " is not between " +
+                                               FIRST_CUSTOM_TYPE + " and " + MAX_TYPE);
+        }
+        registerType(typeId, type, handler);
+    }
+
+    private void registerType(int typeId, Class<?> type, TypeHandler<?> handler) {
+        if (typesById.get(typeId) != null) {
+            throw new IllegalArgumentException("Type id " + typeId + " is already registered");
+        }
+        if (typesByClass.containsKey(type)) {
+            throw new IllegalArgumentException(type.getName() + " is already registered");
+        }
+        RegisteredType registeredType = new RegisteredType(typeId, handler);
+        typesById.set(typeId, registeredType);
+        typesByClass.put(type, registeredType);
+    }
+
+    /**
+     * @return true if values of the given class are written by a registered handler
+     */
+    public boolean isRegistered(Class<?> type) {
+        return typesByClass.containsKey(type);
+    }
+
+    /**
+     * @return true if the given class is one of the JDK value types registered out of the box
+     */
+    public boolean isBuiltIn(Class<?> type) {
+        RegisteredType registeredType = typesByClass.get(type);
+        return registeredType != null && registeredType.id < FIRST_CUSTOM_TYPE;
+    }
+
+    /**
+     * Write the type id followed by the value, if the value is null or of a registered type.
+     *
+     * @return false, without writing anything, if the type of the value is not registered
+     */
+    @SuppressWarnings("unchecked")
+    public boolean write(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_TYPE);
+            return true;
+        }
+        RegisteredType registeredType = typesByClass.get(value.getClass());
+        if (registeredType == null) {
+            return false;
+        }
+        out.writeByte(registeredType.id);
+        ((TypeHandler<Object>) registeredType.handler).write(value, out);
+        return true;
+    }
+
+    /**
+     * Read a value written by {@link #write(Object, DataOutput)}, after its type id has been read.
+     */
+    public Object read(int typeId, DataInput in) throws IOException {
+        if (typeId == NULL_TYPE) {
+            return null;
+        }
+        RegisteredType registeredType = typeId > 0 && typeId <= MAX_TYPE ?
+                                        typesById.get(typeId) : null;
+        if (registeredType == null) {
+            throw new IOException("Unknown property type " + typeId);
+        }
+        return registeredType.handler.read(in);
+    }
+
+    /**
+     * Write a string which may be null. Unlike {@link DataOutput#writeUTF(String)} this has no
+     * length limit.
+     */
+    public static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static final class RegisteredType {
+        final int id;
+        final TypeHandler<?> handler;
+
+        RegisteredType(int id, TypeHandler<?> handler) {
+            this.id = id;
+            this.handler = handler;
+        }
+    }
+
+    private static final class BuiltInHandler implements TypeHandler<Object> {
+        private final int type;
+
+        BuiltInHandler(int type) {
+            this.type = type;
+        }
+
+        public void write(Object value, DataOutput out) throws IOException {
+            switch (type) {
+                case STRING:
+                    writeString((String) value, out);
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case BYTE:
+                    out.writeByte((Byte) value);
+                    break;
+                case SHORT:
+                    out.writeShort((Short) value);
+                    break;
+                case INTEGER:
+                    out.writeInt((Integer) value);
+                    break;
+                case LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case FLOAT:
+                    out.writeFloat((Float) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case CHARACTER:
+                    out.writeChar((Character) value);
+                    break;
+                case BYTE_ARRAY:
+                    byte[] bytes = (byte[]) value;
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    break;
+                case DATE:
+                    out.writeLong(((Date) value).getTime());
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        public Object read(DataInput in) throws IOException {
+            switch (type) {
+                case STRING:
+                    return readString(in);
+                case BOOLEAN:
+                    return in.readBoolean();
+                case BYTE:
+                    return in.readByte();
+                case SHORT:
+                    return in.readShort();
+                case INTEGER:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case CHARACTER:
+                    return in.readChar();
+                case BYTE_ARRAY:
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    return bytes;
+                case DATE:
+                    return new Date(in.readLong());
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.state;
+
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.MessageSender;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateStateCommand;
+import org.apache.axis2.context.AbstractContext;
+import org.apache.axis2.context.PropertyDifference;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends state replication commands to the group from a background thread, so that request
+ * threads do not wait for the other members. The commands queued within a flush interval are
+ * sent together as one {@link StateClusteringCommandCollection}, and the property differences of
+ * consecutive updates to the same context are merged into one command, later values replacing
+ * earlier ones. Commands are sent in the order they were queued.
+ * <p/>
+ * Callers block once {@link #getQueueCapacity()} commands are waiting to be sent.
+ */
+final class ReplicationPipeline implements Runnable {
+
+    private static final Log log = LogFactory.getLog(ReplicationPipeline.class);
+
+    private final MessageSender sender;
+    private final long flushInterval;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+
+    // Guarded by lock
+    private List<StateClusteringCommand> pending = new ArrayList<StateClusteringCommand>();
+    /**
+     * The pending update command of each context that later updates can be merged into. Cleared
+     * whenever another kind of command is queued, so that no update is moved before it.
+     */
+    private final Map<AbstractContext, UpdateStateCommand> openUpdates =
+            new IdentityHashMap<AbstractContext, UpdateStateCommand>();
+    private long oldestPendingTime;
+    private boolean running = true;
+
+    private final Thread thread;
+
+    private final AtomicLong sentCommands = new AtomicLong();
+    private final AtomicLong coalescedCommands = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastReplicationLag;
+
+    /**
+     * @param sender        the sender used to send the batches
+     * @param flushInterval the maximum time, in milliseconds, a command waits before being sent
+     * @param batchSize     the number of queued commands which causes a flush before the interval
+     *                      has elapsed
+     * @param queueCapacity the number of queued commands at which callers start to block
+     */
+    ReplicationPipeline(MessageSender sender, long flushInterval, int batchSize,
+                        int queueCapacity) {
+        this.sender = sender;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.queueCapacity = Math.max(queueCapacity, batchSize);
+        thread = new Thread(this, "Axis2 state replication");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue an update of the given context, merging it into the queued update of that context
+     * if there is one.
+     */
+    void update(AbstractContext context, UpdateStateCommand command) throws ClusteringFault {
+        lock.lock();
+        try {
+            UpdateStateCommand open = openUpdates.get(context);
+            if (open != null && open.getClass() == command.getClass()) {
+                for (Object diff : command.getProperties().values()) {
+                    open.addProperty((PropertyDifference) diff);
+                }
+                coalescedCommands.incrementAndGet();
+            } else {
+                enqueue(command);
+                openUpdates.put(context, command);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a command which is not merged with other commands.
+     */
+    void add(StateClusteringCommand command) throws ClusteringFault {
+        lock.lock();
+        try {
+            enqueue(command);
+            openUpdates.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(StateClusteringCommand command) throws ClusteringFault {
+        while (running && pending.size() >= queueCapacity) {
+            flushNeeded.signal();
+            try {
+                spaceAvailable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClusteringFault("Interrupted while waiting to queue " + command);
+            }
+        }
+        if (!running) {
+            // Stopped; send it from the calling thread instead
+            sender.sendToGroup(command);
+            return;
+        }
+        if (pending.isEmpty()) {
+            oldestPendingTime = System.currentTimeMillis();
+            flushNeeded.signal();
+        }
+        pending.add(command);
+        if (pending.size() >= batchSize) {
+            flushNeeded.signal();
+        }
+    }
+
+    public void run() {
+        while (true) {
+            List<StateClusteringCommand> batch;
+            long queuedTime;
+            lock.lock();
+            try {
+                try {
+                    while (running && (pending.isEmpty() || (pending.size() < batchSize &&
+                            System.currentTimeMillis() - oldestPendingTime < flushInterval))) {
+                        if (pending.isEmpty()) {
+                            flushNeeded.await();
+                        } else {
+                            long wait = flushInterval -
+                                        (System.currentTimeMillis() - oldestPendingTime);
+                            flushNeeded.await(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                if (pending.isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = pending;
+                queuedTime = oldestPendingTime;
+                pending = new ArrayList<StateClusteringCommand>();
+                openUpdates.clear();
+                spaceAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            send(batch, queuedTime);
+        }
+    }
+
+    private void send(List<StateClusteringCommand> batch, long queuedTime) {
+        StateClusteringCommand command = batch.size() == 1 ? batch.get(0) :
+                                         new StateClusteringCommandCollection(batch);
+        try {
+            sender.sendToGroup(command);
+            sentCommands.addAndGet(batch.size());
+            sentBatches.incrementAndGet();
+        } catch (Throwable e) {
+            failedBatches.incrementAndGet();
+            log.error("Could not replicate " + batch.size() + " state update(s)", e);
+        }
+        lastReplicationLag = System.currentTimeMillis() - queuedTime;
+    }
+
+    /**
+     * Send the queued commands and stop the background thread.
+     */
+    void stop() {
+        lock.lock();
+        try {
+            running = false;
+            flushNeeded.signal();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join(Math.max(flushInterval, 1000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    long getSentCommands() {
+        return sentCommands.get();
+    }
+
+    long getCoalescedCommands() {
+        return coalescedCommands.get();
+    }
+
+    long getSentBatches() {
+        return sentBatches.get();
+    }
+
+    long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    long getLastReplicationLag() {
+        return lastReplicationLag;
+    }
+}
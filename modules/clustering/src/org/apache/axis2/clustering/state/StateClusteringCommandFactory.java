@@ -35,8 +35,9 @@ import org.apache.axis2.deployment.DeploymentConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -264,15 +265,36 @@ public final class StateClusteringCommandFactory {
         return null;
     }
 
+    /**
+     * Check whether a property value can be replicated. Values of the JDK types built into the
+     * {@link PropertyTypeRegistry} always can. Other values, including those of custom registered
+     * types, must survive Java serialization since that is what the default codec does; they are
+     * test serialized every time, since whether a value can be serialized depends on its fields
+     * and not only on its class.
+     */
     private static boolean isSerializable(Object obj) {
+        if (obj == null || PropertyTypeRegistry.getInstance().isBuiltIn(obj.getClass())) {
+            return true;
+        }
+        if (!(obj instanceof Serializable)) {
+            return false;
+        }
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(out);
+            ObjectOutputStream oos = new ObjectOutputStream(new DiscardingOutputStream());
             oos.writeObject(obj);
             oos.close();
-            return out.toByteArray().length > 0;
         } catch (Exception e) {
             return false;
         }
+        return true;
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+
+        public void write(int b) {
+        }
+
+        public void write(byte[] b, int off, int len) {
+        }
     }
 }
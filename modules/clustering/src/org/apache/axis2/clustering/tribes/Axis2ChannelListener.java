@@ -32,7 +32,6 @@ import org.apache.catalina.tribes.ChannelListener;
 import org.apache.catalina.tribes.Member;
 import org.apache.catalina.tribes.RemoteProcessException;
 import org.apache.catalina.tribes.group.RpcMessage;
-import org.apache.catalina.tribes.io.XByteBuffer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -50,12 +49,22 @@ public class Axis2ChannelListener implements ChannelListener {
 
     private ConfigurationContext configurationContext;
 
+    private final ClusteringCommandCodec codec;
+
     public Axis2ChannelListener(ConfigurationContext configurationContext,
                                 DefaultNodeManager nodeManager,
                                 DefaultStateManager stateManager) {
+        this(configurationContext, nodeManager, stateManager, new SerializingCommandCodec());
+    }
+
+    public Axis2ChannelListener(ConfigurationContext configurationContext,
+                                DefaultNodeManager nodeManager,
+                                DefaultStateManager stateManager,
+                                ClusteringCommandCodec codec) {
         this.nodeManager = nodeManager;
         this.stateManager = stateManager;
         this.configurationContext = configurationContext;
+        this.codec = codec;
     }
 
     public void setStateManager(DefaultStateManager stateManager) {
@@ -87,11 +96,7 @@ public class Axis2ChannelListener implements ChannelListener {
      */
     public void messageReceived(Serializable msg, Member sender) {
         try {
-            byte[] message = ((ByteMessage) msg).getMessage();
-            msg = XByteBuffer.deserialize(message,
-                                          0,
-                                          message.length,
-                                          ClassLoaderUtil.getClassLoaders());
+            msg = codec.decode(((ByteMessage) msg).getMessage());
         } catch (Exception e) {
             String errMsg = "Cannot deserialize received message";
             log.error(errMsg, e);
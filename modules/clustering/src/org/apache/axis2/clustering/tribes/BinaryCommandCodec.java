@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.state.PropertyTypeRegistry;
+import org.apache.axis2.clustering.state.StateClusteringCommand;
+import org.apache.axis2.clustering.state.commands.DeleteServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateConfigurationStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateServiceStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateStateCommand;
+import org.apache.axis2.context.PropertyDifference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An opt-in {@link ClusteringCommandCodec}, enabled by setting the <code>commandCodec</code>
+ * clustering parameter to BinaryCommandCodec on every member. The state replication commands are
+ * written in a compact binary form: the command fields are written directly, and the replicated
+ * property values are written by their {@link PropertyTypeRegistry} handlers. Only property
+ * values of other types are Java serialized, one by one. All other commands are Java serialized
+ * as a whole, as with {@link SerializingCommandCodec}.
+ * <p/>
+ * Java serialized messages are recognized when decoding, so messages from members that use
+ * {@link SerializingCommandCodec} can still be received. Such members cannot read the binary
+ * messages though, so switch all members of a cluster to this codec only once they all support
+ * it.
+ */
+public class BinaryCommandCodec implements ClusteringCommandCodec {
+
+    private static final int MAGIC = 0xA2;
+    private static final int VERSION = 1;
+
+    private static final int SERIALIZED_COMMAND = 0;
+    private static final int UPDATE_CONFIGURATION = 1;
+    private static final int UPDATE_SERVICE_GROUP = 2;
+    private static final int UPDATE_SERVICE = 3;
+    private static final int DELETE_SERVICE_GROUP = 4;
+    private static final int COLLECTION = 5;
+
+    private final PropertyTypeRegistry typeRegistry = PropertyTypeRegistry.getInstance();
+
+    public byte[] encode(ClusteringCommand command) throws IOException {
+        if (getCommandType(command) == SERIALIZED_COMMAND) {
+            return SerializingCommandCodec.serialize(command);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        writeCommand(command, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public ClusteringCommand decode(byte[] data) throws IOException, ClassNotFoundException {
+        if (data.length == 0 || (data[0] & 0xFF) != MAGIC) {
+            return (ClusteringCommand) SerializingCommandCodec.deserialize(data, 0, data.length);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported clustering message version " + version);
+        }
+        return readCommand(in);
+    }
+
+    private static int getCommandType(ClusteringCommand command) {
+        // Subclasses may have state of their own, so the exact class has to match
+        Class<?> type = command.getClass();
+        if (type == UpdateConfigurationStateCommand.class) {
+            return UPDATE_CONFIGURATION;
+        } else if (type == UpdateServiceGroupStateCommand.class) {
+            return UPDATE_SERVICE_GROUP;
+        } else if (type == UpdateServiceStateCommand.class) {
+            return UPDATE_SERVICE;
+        } else if (type == DeleteServiceGroupStateCommand.class) {
+            return DELETE_SERVICE_GROUP;
+        } else if (type == StateClusteringCommandCollection.class) {
+            return COLLECTION;
+        }
+        return SERIALIZED_COMMAND;
+    }
+
+    private void writeCommand(ClusteringCommand command, DataOutputStream out)
+            throws IOException {
+        int commandType = getCommandType(command);
+        out.writeByte(commandType);
+        switch (commandType) {
+            case UPDATE_CONFIGURATION:
+                writeProperties((UpdateStateCommand) command, out);
+                break;
+            case UPDATE_SERVICE_GROUP:
+                UpdateServiceGroupStateCommand sgCmd = (UpdateServiceGroupStateCommand) command;
+                PropertyTypeRegistry.writeString(sgCmd.getServiceGroupName(), out);
+                PropertyTypeRegistry.writeString(sgCmd.getServiceGroupContextId(), out);
+                writeProperties(sgCmd, out);
+                break;
+            case UPDATE_SERVICE:
+                UpdateServiceStateCommand serviceCmd = (UpdateServiceStateCommand) command;
+                PropertyTypeRegistry.writeString(serviceCmd.getServiceGroupName(), out);
+                PropertyTypeRegistry.writeString(serviceCmd.getServiceGroupContextId(), out);
+                PropertyTypeRegistry.writeString(serviceCmd.getServiceName(), out);
+                writeProperties(serviceCmd, out);
+                break;
+            case DELETE_SERVICE_GROUP:
+                PropertyTypeRegistry.writeString(
+                        ((DeleteServiceGroupStateCommand) command).getServiceGroupContextId(), out);
+                break;
+            case COLLECTION:
+                List<StateClusteringCommand> commands =
+                        ((StateClusteringCommandCollection) command).getCommands();
+                out.writeInt(commands.size());
+                for (StateClusteringCommand cmd : commands) {
+                    writeCommand(cmd, out);
+                }
+                break;
+            default:
+                writeBytes(SerializingCommandCodec.serialize(command), out);
+        }
+    }
+
+    private ClusteringCommand readCommand(DataInputStream in)
+            throws IOException, ClassNotFoundException {
+        int commandType = in.readUnsignedByte();
+        switch (commandType) {
+            case UPDATE_CONFIGURATION:
+                return readProperties(new UpdateConfigurationStateCommand(), in);
+            case UPDATE_SERVICE_GROUP:
+                UpdateServiceGroupStateCommand sgCmd = new UpdateServiceGroupStateCommand();
+                sgCmd.setServiceGroupName(PropertyTypeRegistry.readString(in));
+                sgCmd.setServiceGroupContextId(PropertyTypeRegistry.readString(in));
+                return readProperties(sgCmd, in);
+            case UPDATE_SERVICE:
+                UpdateServiceStateCommand serviceCmd = new UpdateServiceStateCommand();
+                serviceCmd.setServiceGroupName(PropertyTypeRegistry.readString(in));
+                serviceCmd.setServiceGroupContextId(PropertyTypeRegistry.readString(in));
+                serviceCmd.setServiceName(PropertyTypeRegistry.readString(in));
+                return readProperties(serviceCmd, in);
+            case DELETE_SERVICE_GROUP:
+                DeleteServiceGroupStateCommand deleteCmd = new DeleteServiceGroupStateCommand();
+                deleteCmd.setServiceGroupContextId(PropertyTypeRegistry.readString(in));
+                return deleteCmd;
+            case COLLECTION:
+                int count = in.readInt();
+                List<StateClusteringCommand> commands = new ArrayList<StateClusteringCommand>();
+                for (int i = 0; i < count; i++) {
+                    commands.add((StateClusteringCommand) readCommand(in));
+                }
+                return new StateClusteringCommandCollection(commands);
+            case SERIALIZED_COMMAND:
+                byte[] data = readBytes(in);
+                return (ClusteringCommand) SerializingCommandCodec.deserialize(data, 0, data.length);
+            default:
+                throw new StreamCorruptedException("Unknown clustering command type " + commandType);
+        }
+    }
+
+    private void writeProperties(UpdateStateCommand command, DataOutputStream out)
+            throws IOException {
+        Map properties = command.getProperties();
+        if (properties == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(properties.size());
+        for (Object o : properties.values()) {
+            PropertyDifference diff = (PropertyDifference) o;
+            PropertyTypeRegistry.writeString(diff.getKey(), out);
+            out.writeBoolean(diff.isRemoved());
+            Object value = diff.getValue();
+            if (!typeRegistry.write(value, out)) {
+                out.writeByte(PropertyTypeRegistry.SERIALIZED_TYPE);
+                writeBytes(SerializingCommandCodec.serialize(value), out);
+            }
+        }
+    }
+
+    private UpdateStateCommand readProperties(UpdateStateCommand command, DataInputStream in)
+            throws IOException, ClassNotFoundException {
+        int count = in.readInt();
+        // this also creates the property map when there are no properties
+        command.isPropertiesEmpty();
+        for (int i = 0; i < count; i++) {
+            String key = PropertyTypeRegistry.readString(in);
+            boolean removed = in.readBoolean();
+            int valueType = in.readUnsignedByte();
+            Object value;
+            if (valueType == PropertyTypeRegistry.SERIALIZED_TYPE) {
+                byte[] data = readBytes(in);
+                value = SerializingCommandCodec.deserialize(data, 0, data.length);
+            } else {
+                value = typeRegistry.read(valueType, in);
+            }
+            command.addProperty(new PropertyDifference(key, value, removed));
+        }
+        return command;
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutputStream out) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -29,10 +29,8 @@ import org.apache.catalina.tribes.Member;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.NotSerializableException;
-import java.io.ObjectOutputStream;
 
 public class ChannelSender implements MessageSender {
 
@@ -40,13 +38,22 @@ public class ChannelSender implements MessageSender {
     private Channel channel;
     private boolean synchronizeAllMembers;
     private MembershipManager membershipManager;
+    private final ClusteringCommandCodec codec;
 
     public ChannelSender(Channel channel,
                          MembershipManager membershipManager,
                          boolean synchronizeAllMembers) {
+        this(channel, membershipManager, synchronizeAllMembers, new SerializingCommandCodec());
+    }
+
+    public ChannelSender(Channel channel,
+                         MembershipManager membershipManager,
+                         boolean synchronizeAllMembers,
+                         ClusteringCommandCodec codec) {
         this.channel = channel;
         this.membershipManager = membershipManager;
         this.synchronizeAllMembers = synchronizeAllMembers;
+        this.codec = codec;
     }
 
     public synchronized void sendToGroup(ClusteringCommand msg,
@@ -106,12 +113,7 @@ public class ChannelSender implements MessageSender {
     }
 
     private ByteMessage toByteMessage(ClusteringCommand msg) throws IOException {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream out = new ObjectOutputStream(bos);
-        out.writeObject(msg);
-        out.flush();
-        out.close();
-        return new ByteMessage(bos.toByteArray());
+        return new ByteMessage(codec.encode(msg));
     }
 
     public void sendToSelf(ClusteringCommand msg) throws ClusteringFault {
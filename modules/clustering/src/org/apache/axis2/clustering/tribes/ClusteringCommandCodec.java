@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+
+import java.io.IOException;
+
+/**
+ * Converts the {@link ClusteringCommand}s sent to other members to and from the bytes of a
+ * Tribes byte message. The codec is selected with the <code>commandCodec</code> clustering
+ * parameter, which gives the name of a class with a public no-argument constructor (a short name
+ * refers to a codec in this package). {@link SerializingCommandCodec} is used by default. All
+ * members of a cluster must use compatible codecs.
+ *
+ * @see BinaryCommandCodec
+ * @see SerializingCommandCodec
+ */
+public interface ClusteringCommandCodec {
+
+    byte[] encode(ClusteringCommand command) throws IOException;
+
+    ClusteringCommand decode(byte[] data) throws IOException, ClassNotFoundException;
+}
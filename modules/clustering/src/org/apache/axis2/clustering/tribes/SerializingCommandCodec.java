@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.catalina.tribes.io.XByteBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * A {@link ClusteringCommandCodec} which Java serializes the commands. This is the format used
+ * by members that predate {@link BinaryCommandCodec}.
+ */
+public class SerializingCommandCodec implements ClusteringCommandCodec {
+
+    public byte[] encode(ClusteringCommand command) throws IOException {
+        return serialize(command);
+    }
+
+    public ClusteringCommand decode(byte[] data) throws IOException, ClassNotFoundException {
+        return (ClusteringCommand) deserialize(data, 0, data.length);
+    }
+
+    static byte[] serialize(Object obj) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(obj);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    /**
+     * Deserialize with the service group and module class loaders, so that the classes of
+     * replicated properties can be found.
+     */
+    static Serializable deserialize(byte[] data, int offset, int length)
+            throws IOException, ClassNotFoundException {
+        ClassLoader[] classLoaders = ClassLoaderUtil.getClassLoaders();
+        if (classLoaders.length == 0) {
+            // Not initialized yet
+            classLoaders = new ClassLoader[]{SerializingCommandCodec.class.getClassLoader()};
+        }
+        return XByteBuffer.deserialize(data, offset, length, classLoaders);
+    }
+}
@@ -264,9 +264,12 @@ public class TribesClusteringAgent implements ClusteringAgent {
         coordinator = new NonBlockingCoordinator();
         channel.addInterceptor(coordinator);
         channel.setHeartbeat(true);
-        channelSender = new ChannelSender(channel, primaryMembershipManager, synchronizeAllMembers());
+        ClusteringCommandCodec codec = getCommandCodec();
+        channelSender = new ChannelSender(channel, primaryMembershipManager,
+                                          synchronizeAllMembers(), codec);
         axis2ChannelListener =
-                new Axis2ChannelListener(configurationContext, configurationManager, contextManager);
+                new Axis2ChannelListener(configurationContext, configurationManager, contextManager,
+                                         codec);
         channel.addChannelListener(axis2ChannelListener);
 
         byte[] domain = getClusterDomain();
@@ -341,6 +344,9 @@ public class TribesClusteringAgent implements ClusteringAgent {
     }
 
     public void stop(){
+        if (contextManager != null) {
+            contextManager.stop();
+        }
         if (channel != null){
             log.info("Stopping Tribes channel...");
             try {
@@ -689,6 +695,27 @@ public class TribesClusteringAgent implements ClusteringAgent {
         membershipScheme.init();
     }
 
+    private ClusteringCommandCodec getCommandCodec() throws ClusteringFault {
+        Parameter parameter = getParameter(TribesConstants.COMMAND_CODEC);
+        if (parameter == null || parameter.getValue() == null) {
+            return new SerializingCommandCodec();
+        }
+        String clazz = ((String) parameter.getValue()).trim();
+        if (clazz.indexOf('.') == -1) {
+            // a short name such as BinaryCommandCodec refers to one of the codecs in this package
+            clazz = ClusteringCommandCodec.class.getPackage().getName() + "." + clazz;
+        }
+        try {
+            ClusteringCommandCodec codec = (ClusteringCommandCodec) Class.forName(clazz).newInstance();
+            log.info("Using clustering command codec " + clazz);
+            return codec;
+        } catch (Exception e) {
+            String msg = "Cannot instantiate ClusteringCommandCodec " + clazz;
+            log.error(msg, e);
+            throw new ClusteringFault(msg, e);
+        }
+    }
+
     private boolean getBooleanParam(String name) {
         boolean result = false;
         Parameter parameter = getParameter(name);
@@ -863,6 +890,9 @@ public class TribesClusteringAgent implements ClusteringAgent {
      */
     public void shutdown() throws ClusteringFault {
         log.debug("Enter: TribesClusteringAgent::shutdown");
+        if (contextManager != null) {
+            contextManager.stop();
+        }
         if (channel != null) {
             try {
                 channel.removeChannelListener(rpcInitChannel);
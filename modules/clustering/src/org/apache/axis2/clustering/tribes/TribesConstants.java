@@ -62,4 +62,12 @@ public final class TribesConstants {
     public static final String BIND_ADDRESS = "bindAddress";
     public static final String TCP_LISTEN_PORT = "tcpListenPort";
     public static final String MAX_RETRIES = "maxRetries";
+
+    /**
+     * The {@link ClusteringCommandCodec} class used to encode the messages sent to the group,
+     * either a fully qualified class name or the short name of one of the codecs in the
+     * org.apache.axis2.clustering.tribes package (SerializingCommandCodec or BinaryCommandCodec).
+     * {@link SerializingCommandCodec}, the wire format of earlier releases, is used by default.
+     */
+    public static final String COMMAND_CODEC = "commandCodec";
 }
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.state;
+
+import junit.framework.TestCase;
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.MessageSender;
+import org.apache.axis2.clustering.state.commands.DeleteServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateConfigurationStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateStateCommand;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.PropertyDifference;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ReplicationPipelineTest extends TestCase {
+
+    private final List<ClusteringCommand> sent = new ArrayList<ClusteringCommand>();
+
+    private final MessageSender sender = new MessageSender() {
+        public void sendToGroup(ClusteringCommand msg) {
+            synchronized (sent) {
+                sent.add(msg);
+            }
+        }
+
+        public void sendToSelf(ClusteringCommand msg) {
+        }
+    };
+
+    public void testUpdatesToTheSameContextAreMerged() throws Exception {
+        ConfigurationContext context = new ConfigurationContext(new AxisConfiguration());
+        ReplicationPipeline pipeline = new ReplicationPipeline(sender, 60000, 100, 1000);
+        pipeline.update(context, update("a", "1"));
+        pipeline.update(context, update("a", "2"));
+        pipeline.update(context, update("b", "3"));
+        assertEquals(1, pipeline.getQueueDepth());
+        pipeline.stop();
+
+        assertEquals(1, sent.size());
+        Map properties = ((UpdateStateCommand) sent.get(0)).getProperties();
+        assertEquals(2, properties.size());
+        assertEquals("2", ((PropertyDifference) properties.get("a")).getValue());
+        assertEquals("3", ((PropertyDifference) properties.get("b")).getValue());
+        assertEquals(2, pipeline.getCoalescedCommands());
+        assertEquals(1, pipeline.getSentCommands());
+    }
+
+    public void testUpdatesAreNotMovedBeforeOtherCommands() throws Exception {
+        ConfigurationContext context = new ConfigurationContext(new AxisConfiguration());
+        ReplicationPipeline pipeline = new ReplicationPipeline(sender, 60000, 100, 1000);
+        pipeline.update(context, update("a", "1"));
+        pipeline.add(new DeleteServiceGroupStateCommand());
+        pipeline.update(context, update("a", "2"));
+        pipeline.stop();
+
+        assertEquals(1, sent.size());
+        List<StateClusteringCommand> commands =
+                ((StateClusteringCommandCollection) sent.get(0)).getCommands();
+        assertEquals(3, commands.size());
+        assertTrue(commands.get(1) instanceof DeleteServiceGroupStateCommand);
+        assertEquals("2", ((PropertyDifference) ((UpdateStateCommand) commands.get(2))
+                .getProperties().get("a")).getValue());
+    }
+
+    public void testFlushInterval() throws Exception {
+        ConfigurationContext context = new ConfigurationContext(new AxisConfiguration());
+        ReplicationPipeline pipeline = new ReplicationPipeline(sender, 10, 100, 1000);
+        try {
+            pipeline.update(context, update("a", "1"));
+            for (int i = 0; i < 500 && pipeline.getSentBatches() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, pipeline.getSentBatches());
+            assertEquals(0, pipeline.getQueueDepth());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    public void testCommandsAreSentDirectlyOnceStopped() throws ClusteringFault {
+        ReplicationPipeline pipeline = new ReplicationPipeline(sender, 60000, 100, 1000);
+        pipeline.stop();
+        pipeline.add(new DeleteServiceGroupStateCommand());
+        assertEquals(1, sent.size());
+    }
+
+    private static UpdateStateCommand update(String key, String value) {
+        UpdateStateCommand cmd = new UpdateConfigurationStateCommand();
+        cmd.addProperty(new PropertyDifference(key, value, false));
+        return cmd;
+    }
+}
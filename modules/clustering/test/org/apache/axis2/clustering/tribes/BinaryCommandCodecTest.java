@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import junit.framework.TestCase;
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.TestDO;
+import org.apache.axis2.clustering.control.GetConfigurationCommand;
+import org.apache.axis2.clustering.state.PropertyTypeRegistry;
+import org.apache.axis2.clustering.state.StateClusteringCommand;
+import org.apache.axis2.clustering.state.commands.DeleteServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateServiceStateCommand;
+import org.apache.axis2.context.PropertyDifference;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class BinaryCommandCodecTest extends TestCase {
+
+    private final BinaryCommandCodec codec = new BinaryCommandCodec();
+
+    public void testUpdateCommandRoundTrip() throws Exception {
+        UpdateServiceStateCommand cmd = new UpdateServiceStateCommand();
+        cmd.setServiceGroupName("sg");
+        cmd.setServiceGroupContextId("sg-ctx");
+        cmd.setServiceName("service");
+        cmd.addProperty(new PropertyDifference("string", "value", false));
+        cmd.addProperty(new PropertyDifference("int", 42, false));
+        cmd.addProperty(new PropertyDifference("date", new Date(1000), false));
+        cmd.addProperty(new PropertyDifference("bytes", new byte[]{1, 2, 3}, false));
+        cmd.addProperty(new PropertyDifference("removed", null, true));
+        cmd.addProperty(new PropertyDifference("object", new TestDO("name", "value"), false));
+
+        UpdateServiceStateCommand copy = (UpdateServiceStateCommand) codec.decode(codec.encode(cmd));
+        assertEquals("sg", copy.getServiceGroupName());
+        assertEquals("sg-ctx", copy.getServiceGroupContextId());
+        assertEquals("service", copy.getServiceName());
+
+        Map properties = copy.getProperties();
+        assertEquals(6, properties.size());
+        assertEquals("value", getValue(properties, "string"));
+        assertEquals(42, getValue(properties, "int"));
+        assertEquals(new Date(1000), getValue(properties, "date"));
+        assertEquals(3, ((byte[]) getValue(properties, "bytes")).length);
+        assertTrue(((PropertyDifference) properties.get("removed")).isRemoved());
+        assertNull(getValue(properties, "removed"));
+        assertEquals("name", ((TestDO) getValue(properties, "object")).getName());
+    }
+
+    public void testCollectionRoundTrip() throws Exception {
+        DeleteServiceGroupStateCommand delete = new DeleteServiceGroupStateCommand();
+        delete.setServiceGroupContextId("sg-ctx");
+        List<StateClusteringCommand> commands = new ArrayList<StateClusteringCommand>();
+        commands.add(delete);
+        commands.add(new UpdateServiceStateCommand());
+
+        StateClusteringCommandCollection copy = (StateClusteringCommandCollection)
+                codec.decode(codec.encode(new StateClusteringCommandCollection(commands)));
+        assertEquals(2, copy.getCommands().size());
+        assertEquals("sg-ctx", ((DeleteServiceGroupStateCommand) copy.getCommands().get(0))
+                .getServiceGroupContextId());
+        assertTrue(((UpdateServiceStateCommand) copy.getCommands().get(1)).isPropertiesEmpty());
+    }
+
+    public void testOtherCommandsAreSerialized() throws Exception {
+        byte[] data = codec.encode(new GetConfigurationCommand());
+        // Java serialization stream magic
+        assertEquals((byte) 0xAC, data[0]);
+        assertEquals((byte) 0xED, data[1]);
+        ClusteringCommand copy = codec.decode(data);
+        assertTrue(copy instanceof GetConfigurationCommand);
+    }
+
+    public void testDecodesSerializedUpdateCommands() throws Exception {
+        UpdateServiceStateCommand cmd = new UpdateServiceStateCommand();
+        cmd.setServiceName("service");
+        cmd.addProperty(new PropertyDifference("string", "value", false));
+        UpdateServiceStateCommand copy = (UpdateServiceStateCommand)
+                codec.decode(new SerializingCommandCodec().encode(cmd));
+        assertEquals("service", copy.getServiceName());
+        assertEquals("value", getValue(copy.getProperties(), "string"));
+    }
+
+    public void testCustomTypesAreNotBuiltIn() throws Exception {
+        PropertyTypeRegistry registry = PropertyTypeRegistry.getInstance();
+        assertTrue(registry.isBuiltIn(String.class));
+        assertTrue(registry.isBuiltIn(Date.class));
+        assertFalse(registry.isBuiltIn(Object.class));
+
+        registry.register(PropertyTypeRegistry.MAX_TYPE, Point.class,
+                          new PropertyTypeRegistry.TypeHandler<Point>() {
+                              public void write(Point value, DataOutput out) throws IOException {
+                                  out.writeInt(value.x);
+                              }
+
+                              public Point read(DataInput in) throws IOException {
+                                  return new Point(in.readInt());
+                              }
+                          });
+        assertTrue(registry.isRegistered(Point.class));
+        // not Serializable, so it must still be filtered before it reaches the default codec
+        assertFalse(registry.isBuiltIn(Point.class));
+    }
+
+    private static final class Point {
+        final int x;
+
+        Point(int x) {
+            this.x = x;
+        }
+    }
+
+    private static Object getValue(Map properties, String key) {
+        return ((PropertyDifference) properties.get(key)).getValue();
+    }
+}
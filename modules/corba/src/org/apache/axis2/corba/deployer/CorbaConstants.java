@@ -35,6 +35,9 @@ public interface CorbaConstants {
     // Required only if namingServiceUrl is provided 
     String OBJECT_NAME = "objectName";
 
+    // Optional, the time in milliseconds after which the object reference is resolved again
+    String OBJECT_REFERENCE_TTL = "objectReferenceTTL";
+
     // Name of the CORBA interface
     String INTERFACE_NAME = "interfaceName";
 
@@ -30,6 +30,7 @@ import org.apache.axis2.corba.idl.types.IDL;
 import org.apache.axis2.corba.idl.types.Interface;
 import org.apache.axis2.corba.idl.types.Operation;
 import org.apache.axis2.corba.receivers.CorbaUtil;
+import org.apache.axis2.corba.receivers.ObjectReferenceCache;
 import org.apache.axis2.deployment.AbstractDeployer;
 import org.apache.axis2.deployment.DeploymentConstants;
 import org.apache.axis2.deployment.DeploymentEngine;
@@ -600,7 +601,10 @@ public class CorbaDeployer extends AbstractDeployer implements DeploymentConstan
         try {
             super.undeploy(fileName);
             fileName = Utils.getShortFileName(fileName);
-            axisConfig.removeServiceGroup(fileName);
+            AxisServiceGroup serviceGroup = axisConfig.removeServiceGroup(fileName);
+            for (Iterator services = serviceGroup.getServices(); services.hasNext();) {
+                ObjectReferenceCache.release((AxisService) services.next());
+            }
             log.info(Messages.getMessage(DeploymentErrorMsgs.SERVICE_REMOVED, fileName));
         } catch (AxisFault axisFault) {
             axisConfig.removeFaultyService(fileName);
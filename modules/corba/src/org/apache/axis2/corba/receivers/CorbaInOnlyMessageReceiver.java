@@ -25,44 +25,40 @@ import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.corba.deployer.CorbaConstants;
 import org.apache.axis2.corba.exceptions.CorbaInvocationException;
-import org.apache.axis2.corba.idl.types.IDL;
 import org.apache.axis2.description.AxisMessage;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
-import org.apache.axis2.description.Parameter;
 import org.apache.axis2.receivers.AbstractInMessageReceiver;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.omg.CORBA_2_3.ORB;
 
 import javax.xml.namespace.QName;
-import java.util.HashMap;
-import java.util.Map;
 
 public class CorbaInOnlyMessageReceiver extends AbstractInMessageReceiver implements CorbaConstants {
 
     private static Log log = LogFactory.getLog(CorbaInOnlyMessageReceiver.class);
-    private ORB orb = null;
-    private Map invokerCache = new HashMap();
 
     public void invokeBusinessLogic(MessageContext inMessage) throws AxisFault {
         try{
             invoke(inMessage);
-        } catch (org.omg.CORBA.TRANSIENT e) {
-            log.info("org.omg.CORBA.TRANSIENT exception thrown.");
+        } catch (org.omg.CORBA.SystemException e) {
+            if (!ObjectReferenceCache.isStale(e)) {
+                throw e;
+            }
+            log.info(e.getClass().getName() + " exception thrown.");
             /*
-            * If cannot connect to the corba server
-            * try again after clearing the cache
-            * (eg. if the Corba server is restarted)
+            * The object reference is no longer valid (eg. if the Corba server
+            * is restarted), try again with a newly resolved one
             */
-            invokerCache.clear();
             invoke(inMessage);
         }
     }
 
     private void invoke(MessageContext inMessage) throws AxisFault {
         String methodName = null;
+        ObjectReferenceCache references = null;
+        org.omg.CORBA.Object obj = null;
         try {
             AxisOperation op = inMessage.getOperationContext().getAxisOperation();
             AxisService service = inMessage.getAxisService();
@@ -73,20 +69,9 @@ public class CorbaInOnlyMessageReceiver extends AbstractInMessageReceiver implem
             QName elementQName;
             methodName = op.getName().getLocalPart();
 
-            Invoker invoker = (Invoker) invokerCache.get(methodName);
-            if (invoker==null) {
-                if (orb==null) {
-                    Parameter orbParam = service.getParameter(ORB_LITERAL);
-                    orb = orbParam != null ? (ORB) orbParam.getValue() : CorbaUtil.getORB(service);
-                }
-                org.omg.CORBA.Object obj = CorbaUtil.resolveObject(service, orb);
-                Parameter idlParameter = service.getParameter(IDL_LITERAL);
-                if (idlParameter==null)
-                    throw new CorbaInvocationException("No IDL found");
-                IDL idl = (IDL) idlParameter.getValue();
-                invoker = CorbaUtil.getInvoker(service, obj, idl, methodName);
-                invokerCache.put(methodName, invoker);
-            }
+            references = ObjectReferenceCache.getCache(service);
+            obj = references.getObject();
+            Invoker invoker = references.newInvoker(obj, methodName);
 
             if (inAxisMessage != null) {
                 if (inAxisMessage.getElementQName()!=null) {
@@ -111,7 +96,16 @@ public class CorbaInOnlyMessageReceiver extends AbstractInMessageReceiver implem
                 }
                 invoker.invoke();
             }
+        } catch (org.omg.CORBA.SystemException e) {
+            if (references != null && ObjectReferenceCache.isStale(e)) {
+                references.invalidate(obj);
+            }
+            throw e;
         } catch (CorbaInvocationException e) {
+            if (references != null && ObjectReferenceCache.isStale(e)) {
+                references.invalidate(obj);
+                throw (org.omg.CORBA.SystemException) e.getCause();
+            }
             String msg;
             Throwable cause = e.getCause();
             if (cause != null) {
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.corba.receivers;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.corba.deployer.CorbaConstants;
+import org.apache.axis2.corba.exceptions.CorbaInvocationException;
+import org.apache.axis2.corba.idl.types.IDL;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.Parameter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.omg.CORBA.OBJECT_NOT_EXIST;
+import org.omg.CORBA.TRANSIENT;
+import org.omg.CORBA_2_3.ORB;
+
+/**
+ * Holds the ORB and the resolved object reference of a CORBA service, so that the naming
+ * service (or IOR file) is consulted only once instead of on every request. The reference is
+ * resolved again when it is older than the <code>objectReferenceTTL</code> service parameter
+ * (in milliseconds, by default it never expires) or when an invocation on it failed with
+ * <code>TRANSIENT</code> or <code>OBJECT_NOT_EXIST</code>, e.g. because the CORBA server was
+ * restarted.
+ * <p>
+ * There is one instance per service, kept as a service parameter. The ORB is the one created by
+ * the deployer; {@link #release(AxisService)} shuts it down when the service is undeployed. Once
+ * released, the cache refuses to resolve the reference again, since that would go through the
+ * destroyed ORB.
+ */
+public class ObjectReferenceCache implements CorbaConstants {
+
+    private static final Log log = LogFactory.getLog(ObjectReferenceCache.class);
+
+    private static final String OBJECT_REFERENCE_CACHE = "objectReferenceCache";
+
+    private final AxisService service;
+    private final ORB orb;
+    private final IDL idl;
+    private final long ttl;
+    private final Resolver resolver;
+
+    private volatile org.omg.CORBA.Object object;
+    private volatile long expiryTime;
+    private boolean released;
+
+    ObjectReferenceCache(final AxisService service, final ORB orb, IDL idl, long ttl) {
+        this(service, orb, idl, ttl, new Resolver() {
+            public org.omg.CORBA.Object resolve() throws CorbaInvocationException {
+                return CorbaUtil.resolveObject(service, orb);
+            }
+        });
+    }
+
+    ObjectReferenceCache(AxisService service, ORB orb, IDL idl, long ttl, Resolver resolver) {
+        this.service = service;
+        this.orb = orb;
+        this.idl = idl;
+        this.ttl = ttl;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Get the cache of the given service, creating it on first use.
+     */
+    public static ObjectReferenceCache getCache(AxisService service)
+            throws CorbaInvocationException {
+        Parameter cached = service.getParameter(OBJECT_REFERENCE_CACHE);
+        if (cached != null) {
+            return (ObjectReferenceCache) cached.getValue();
+        }
+        synchronized (service) {
+            cached = service.getParameter(OBJECT_REFERENCE_CACHE);
+            if (cached != null) {
+                return (ObjectReferenceCache) cached.getValue();
+            }
+            Parameter idlParameter = service.getParameter(IDL_LITERAL);
+            if (idlParameter == null) {
+                throw new CorbaInvocationException("IDL not found");
+            }
+            ORB orb;
+            Parameter orbParameter = service.getParameter(ORB_LITERAL);
+            if (orbParameter != null) {
+                orb = (ORB) orbParameter.getValue();
+            } else {
+                orb = CorbaUtil.getORB(service);
+            }
+            long ttl = 0;
+            Parameter ttlParameter = service.getParameter(OBJECT_REFERENCE_TTL);
+            if (ttlParameter != null) {
+                try {
+                    ttl = Long.parseLong(((String) ttlParameter.getValue()).trim());
+                } catch (NumberFormatException e) {
+                    throw new CorbaInvocationException("Invalid value for " + OBJECT_REFERENCE_TTL
+                            + ": " + ttlParameter.getValue());
+                }
+            }
+            ObjectReferenceCache cache = new ObjectReferenceCache(service, orb,
+                    (IDL) idlParameter.getValue(), ttl);
+            try {
+                if (orbParameter == null) {
+                    // keep the ORB for the lifetime of the service
+                    service.addParameter(ORB_LITERAL, orb);
+                }
+                service.addParameter(OBJECT_REFERENCE_CACHE, cache);
+            } catch (AxisFault e) {
+                throw new CorbaInvocationException(e);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Discard the cached reference of the given service and shut down its ORB. Called when the
+     * service is undeployed.
+     */
+    public static void release(AxisService service) {
+        Parameter cached = service.getParameter(OBJECT_REFERENCE_CACHE);
+        if (cached != null) {
+            ((ObjectReferenceCache) cached.getValue()).release();
+        }
+        Parameter orbParameter = service.getParameter(ORB_LITERAL);
+        if (orbParameter != null && orbParameter.getValue() instanceof ORB) {
+            ORB orb = (ORB) orbParameter.getValue();
+            try {
+                orb.shutdown(false);
+                orb.destroy();
+            } catch (RuntimeException e) {
+                log.debug("Error shutting down the ORB of service " + service.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Whether the given exception, or the exception it wraps, shows that the object reference is
+     * no longer usable and has to be resolved again.
+     */
+    public static boolean isStale(Throwable e) {
+        if (e instanceof CorbaInvocationException) {
+            e = e.getCause();
+        }
+        return e instanceof TRANSIENT || e instanceof OBJECT_NOT_EXIST;
+    }
+
+    public ORB getORB() {
+        return orb;
+    }
+
+    public IDL getIDL() {
+        return idl;
+    }
+
+    /**
+     * Discard the reference and refuse to resolve it again. Waits for a resolution in progress,
+     * so that the ORB is not shut down under it.
+     */
+    synchronized void release() {
+        released = true;
+        object = null;
+    }
+
+    /**
+     * Get the object reference, resolving it if it has not been resolved yet or has expired.
+     *
+     * @throws CorbaInvocationException if the reference cannot be resolved, or if the service
+     *                                  has been undeployed
+     */
+    public org.omg.CORBA.Object getObject() throws CorbaInvocationException {
+        org.omg.CORBA.Object obj = object;
+        if (obj != null && (ttl <= 0 || System.currentTimeMillis() < expiryTime)) {
+            return obj;
+        }
+        synchronized (this) {
+            if (released) {
+                throw new CorbaInvocationException("The CORBA service " + service.getName()
+                        + " has been undeployed");
+            }
+            obj = object;
+            if (obj == null || (ttl > 0 && System.currentTimeMillis() >= expiryTime)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Resolving the object reference of service " + service.getName());
+                }
+                obj = resolver.resolve();
+                expiryTime = System.currentTimeMillis() + ttl;
+                object = obj;
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * Discard the given reference so that the next request resolves it again. Nothing is done if
+     * another request already replaced it.
+     */
+    public synchronized void invalidate(org.omg.CORBA.Object obj) {
+        if (obj != null && object == obj) {
+            object = null;
+        }
+    }
+
+    /**
+     * Create an invoker for the given operation on the given object reference. Invokers hold the
+     * parameters of a single invocation and must not be shared between requests.
+     */
+    public Invoker newInvoker(org.omg.CORBA.Object obj, String methodName)
+            throws CorbaInvocationException {
+        return CorbaUtil.getInvoker(service, obj, idl, methodName);
+    }
+
+    /**
+     * Resolves the object reference of the service, through the naming service or the IOR.
+     */
+    interface Resolver {
+        org.omg.CORBA.Object resolve() throws CorbaInvocationException;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.corba.receivers;
+
+import junit.framework.TestCase;
+import org.apache.axis2.corba.exceptions.CorbaInvocationException;
+import org.apache.axis2.description.AxisService;
+import org.omg.CORBA.BAD_PARAM;
+import org.omg.CORBA.OBJECT_NOT_EXIST;
+import org.omg.CORBA.TRANSIENT;
+import org.omg.CORBA.portable.ObjectImpl;
+
+public class ObjectReferenceCacheTest extends TestCase {
+
+    private StubResolver resolver;
+
+    protected void setUp() throws Exception {
+        resolver = new StubResolver();
+    }
+
+    public void testReferenceIsResolvedOnce() throws Exception {
+        ObjectReferenceCache cache = newCache(0);
+        org.omg.CORBA.Object obj = cache.getObject();
+        assertNotNull(obj);
+        assertSame(obj, cache.getObject());
+        assertEquals(1, resolver.count);
+    }
+
+    public void testReferenceExpires() throws Exception {
+        ObjectReferenceCache cache = newCache(50);
+        org.omg.CORBA.Object obj = cache.getObject();
+        assertSame(obj, cache.getObject());
+        Thread.sleep(100);
+        assertNotSame(obj, cache.getObject());
+        assertEquals(2, resolver.count);
+    }
+
+    public void testInvalidateOnlyDiscardsTheFailedReference() throws Exception {
+        ObjectReferenceCache cache = newCache(0);
+        org.omg.CORBA.Object failed = cache.getObject();
+        cache.invalidate(failed);
+        org.omg.CORBA.Object current = cache.getObject();
+        assertNotSame(failed, current);
+
+        // a second request that failed on the old reference keeps the new one
+        cache.invalidate(failed);
+        assertSame(current, cache.getObject());
+        assertEquals(2, resolver.count);
+    }
+
+    public void testResolutionFailureIsNotCached() throws Exception {
+        ObjectReferenceCache cache = newCache(0);
+        resolver.failure = new CorbaInvocationException("naming service down");
+        try {
+            cache.getObject();
+            fail("Expected CorbaInvocationException");
+        } catch (CorbaInvocationException e) {
+            assertSame(resolver.failure, e);
+        }
+        resolver.failure = null;
+        assertNotNull(cache.getObject());
+    }
+
+    public void testReleasedCacheDoesNotResolve() throws Exception {
+        ObjectReferenceCache cache = newCache(0);
+        cache.getObject();
+        cache.release();
+        try {
+            cache.getObject();
+            fail("Expected CorbaInvocationException");
+        } catch (CorbaInvocationException e) {
+            assertTrue(e.getMessage().indexOf("undeployed") != -1);
+        }
+        assertEquals(1, resolver.count);
+    }
+
+    public void testIsStale() {
+        assertTrue(ObjectReferenceCache.isStale(new TRANSIENT()));
+        assertTrue(ObjectReferenceCache.isStale(new OBJECT_NOT_EXIST()));
+        assertTrue(ObjectReferenceCache.isStale(new CorbaInvocationException(new TRANSIENT())));
+        assertFalse(ObjectReferenceCache.isStale(new BAD_PARAM()));
+        assertFalse(ObjectReferenceCache.isStale(new CorbaInvocationException("failed")));
+        assertFalse(ObjectReferenceCache.isStale(new CorbaInvocationException(new BAD_PARAM())));
+    }
+
+    private ObjectReferenceCache newCache(long ttl) {
+        return new ObjectReferenceCache(new AxisService("Echo"), null, null, ttl, resolver);
+    }
+
+    private static class StubResolver implements ObjectReferenceCache.Resolver {
+        private int count;
+        private CorbaInvocationException failure;
+
+        public org.omg.CORBA.Object resolve() throws CorbaInvocationException {
+            if (failure != null) {
+                throw failure;
+            }
+            count++;
+            return new ObjectImpl() {
+                public String[] _ids() {
+                    return new String[0];
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.OperationClient;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.util.TestConstants;
+import org.apache.axis2.integration.TestingUtils;
+import org.apache.axis2.integration.UtilServer;
+import org.apache.axis2.integration.UtilServerBasedTestCase;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.NonBlockingHTTPTransportSender;
+import org.apache.axis2.util.Utils;
+
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NonBlockingHTTPEchoRawXMLTest extends UtilServerBasedTestCase implements TestConstants {
+
+    private AxisService service;
+
+    private ConfigurationContext configContext;
+
+    private RecordingTransportSender transportSender;
+
+    public NonBlockingHTTPEchoRawXMLTest() {
+        super(NonBlockingHTTPEchoRawXMLTest.class.getName());
+    }
+
+    public NonBlockingHTTPEchoRawXMLTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return getTestSetup(new TestSuite(NonBlockingHTTPEchoRawXMLTest.class));
+    }
+
+    protected void setUp() throws Exception {
+        service =
+                Utils.createSimpleService(serviceName,
+                        Echo.class.getName(),
+                        operationName);
+        UtilServer.deployService(service);
+        configContext =
+                ConfigurationContextFactory.createConfigurationContextFromFileSystem(
+                        TestingUtils.prefixBaseDirectory(Constants.TESTING_PATH + "nonblocking-http-enabledRepository"), null);
+        transportSender = new RecordingTransportSender();
+        TransportOutDescription transportOut =
+                configContext.getAxisConfiguration().getTransportOut(Constants.TRANSPORT_HTTP);
+        transportSender.init(configContext, transportOut);
+        transportOut.setSender(transportSender);
+    }
+
+    protected void tearDown() throws Exception {
+        transportSender.stop();
+        UtilServer.unDeployService(serviceName);
+        UtilServer.unDeployClientService();
+    }
+
+    private ServiceClient createServiceClient(EndpointReference target) throws AxisFault {
+        Options options = new Options();
+        options.setTo(target);
+        options.setTransportInProtocol(Constants.TRANSPORT_HTTP);
+        ServiceClient sender = new ServiceClient(configContext, null);
+        sender.setOptions(options);
+        return sender;
+    }
+
+    public void testEchoXMLAsync() throws Exception {
+        ServiceClient sender = createServiceClient(targetEPR);
+
+        CompletableFuture<OMElement> future = sender.sendReceiveAsync(TestingUtils.createDummyOMElement());
+        TestingUtils.compareWithCreatedOMElement(future.get(10, TimeUnit.SECONDS));
+
+        assertEquals(1, transportSender.nonBlockingRequests.get());
+        assertEquals(0, transportSender.blockingRequests.get());
+        sender.cleanup();
+    }
+
+    public void testEchoXMLAsyncWithoutChunking() throws Exception {
+        ServiceClient sender = createServiceClient(targetEPR);
+        sender.getOptions().setProperty(HTTPConstants.CHUNKED, Boolean.FALSE);
+
+        CompletableFuture<OMElement> future = sender.sendReceiveAsync(TestingUtils.createDummyOMElement());
+        TestingUtils.compareWithCreatedOMElement(future.get(10, TimeUnit.SECONDS));
+
+        assertEquals(1, transportSender.nonBlockingRequests.get());
+        sender.cleanup();
+    }
+
+    public void testOperationClientExecuteAsync() throws Exception {
+        ServiceClient sender = createServiceClient(targetEPR);
+        OperationClient opClient = sender.createClient(ServiceClient.ANON_OUT_IN_OP);
+        MessageContext requestContext = new MessageContext();
+        SOAPEnvelope envelope = OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope();
+        envelope.getBody().addChild(TestingUtils.createDummyOMElement());
+        requestContext.setEnvelope(envelope);
+        opClient.addMessageContext(requestContext);
+
+        MessageContext response = opClient.executeAsync().get(10, TimeUnit.SECONDS);
+        TestingUtils.compareWithCreatedOMElement(
+                response.getEnvelope().getBody().getFirstElement());
+        opClient.complete(requestContext);
+
+        assertEquals(1, transportSender.nonBlockingRequests.get());
+        sender.cleanup();
+    }
+
+    public void testConcurrentRequests() throws Exception {
+        ServiceClient sender = createServiceClient(targetEPR);
+
+        CompletableFuture<OMElement>[] futures = new CompletableFuture[20];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = sender.sendReceiveAsync(TestingUtils.createDummyOMElement());
+        }
+        for (int i = 0; i < futures.length; i++) {
+            TestingUtils.compareWithCreatedOMElement(futures[i].get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(futures.length, transportSender.nonBlockingRequests.get());
+        sender.cleanup();
+    }
+
+    public void testSOAPFault() throws Exception {
+        ServiceClient sender = createServiceClient(targetEPR);
+
+        CompletableFuture<OMElement> future = sender.sendReceiveAsync(createFaultTriggeringElement());
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected a SOAP fault");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AxisFault);
+            AxisFault fault = (AxisFault) e.getCause();
+            assertNotNull(fault.getFaultMessageContext());
+            assertTrue(fault.getMessage().indexOf("fault string found in echoOMElement") >= 0);
+        }
+        assertEquals(1, transportSender.nonBlockingRequests.get());
+        sender.cleanup();
+    }
+
+    public void testSOAPFaultWithoutException() throws Exception {
+        ServiceClient sender = createServiceClient(targetEPR);
+        sender.getOptions().setExceptionToBeThrownOnSOAPFault(false);
+
+        CompletableFuture<OMElement> future = sender.sendReceiveAsync(createFaultTriggeringElement());
+        OMElement fault = future.get(10, TimeUnit.SECONDS);
+        assertEquals("Fault", fault.getLocalName());
+        sender.cleanup();
+    }
+
+    public void testConnectionRefused() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0);
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+        ServiceClient sender = createServiceClient(new EndpointReference(
+                "http://127.0.0.1:" + port + "/axis2/services/EchoXMLService/echoOMElement"));
+
+        CompletableFuture<OMElement> future = sender.sendReceiveAsync(TestingUtils.createDummyOMElement());
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected the connection to be refused");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AxisFault);
+            assertCausedBy(ConnectException.class, e.getCause());
+        }
+        sender.cleanup();
+    }
+
+    public void testReadTimeout() throws Exception {
+        // accepts the connection, but never responds
+        ServerSocket serverSocket = new ServerSocket(0);
+        try {
+            ServiceClient sender = createServiceClient(new EndpointReference(
+                    "http://127.0.0.1:" + serverSocket.getLocalPort()
+                            + "/axis2/services/EchoXMLService/echoOMElement"));
+            sender.getOptions().setTimeOutInMilliSeconds(500);
+
+            CompletableFuture<OMElement> future = sender.sendReceiveAsync(TestingUtils.createDummyOMElement());
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Expected a timeout");
+            } catch (ExecutionException e) {
+                assertCausedBy(SocketTimeoutException.class, e.getCause());
+            }
+            assertEquals(1, transportSender.nonBlockingRequests.get());
+            sender.cleanup();
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    public void testFallbackToBlocking() throws Exception {
+        transportSender.nonBlocking = false;
+        ServiceClient sender = createServiceClient(targetEPR);
+
+        CompletableFuture<OMElement> future = sender.sendReceiveAsync(TestingUtils.createDummyOMElement());
+        TestingUtils.compareWithCreatedOMElement(future.get(10, TimeUnit.SECONDS));
+
+        assertEquals(0, transportSender.nonBlockingRequests.get());
+        assertEquals(1, transportSender.blockingRequests.get());
+        sender.cleanup();
+    }
+
+    private static OMElement createFaultTriggeringElement() {
+        OMFactory fac = OMAbstractFactory.getOMFactory();
+        OMNamespace omNs = fac.createOMNamespace("http://org.apache.axis2/xsd", "ns1");
+        OMElement method = fac.createOMElement("echoOM", omNs);
+        OMElement value = fac.createOMElement("omEle", omNs);
+        value.addChild(fac.createOMText(value, "fault"));
+        method.addChild(value);
+        return method;
+    }
+
+    private static void assertCausedBy(Class<? extends Throwable> expected, Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (expected.isInstance(cause)) {
+                return;
+            }
+        }
+        fail("Expected " + expected.getName() + ", got " + t);
+    }
+
+    /**
+     * Records whether requests are sent without blocking, and can be made to refuse to.
+     */
+    private static class RecordingTransportSender extends NonBlockingHTTPTransportSender {
+
+        volatile boolean nonBlocking = true;
+        final AtomicInteger nonBlockingRequests = new AtomicInteger();
+        final AtomicInteger blockingRequests = new AtomicInteger();
+
+        public boolean canSendNonBlocking(MessageContext msgContext) {
+            return nonBlocking && super.canSendNonBlocking(msgContext);
+        }
+
+        protected void writeMessageWithCommons(MessageContext messageContext,
+                                               EndpointReference toEPR, OMOutputFormat format)
+                throws AxisFault {
+            if (messageContext.getProperty(NonBlockingTransportSender.RESPONSE_CALLBACK) != null) {
+                nonBlockingRequests.incrementAndGet();
+            } else {
+                blockingRequests.incrementAndGet();
+            }
+            super.writeMessageWithCommons(messageContext, toEPR, format);
+        }
+    }
+}
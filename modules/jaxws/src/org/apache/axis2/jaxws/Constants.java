@@ -204,6 +204,21 @@ public interface Constants {
     public static final String JAXWS_MESSAGE_ACCESSOR = 
         "jaxws.message.accessor";
 
+    /**
+     * Configuration Parameter
+     * Name: jaxws.jaxb.warmup
+     * Value: String or Boolean representing true or false
+     * Default: null, which is interpreted as FALSE
+     * 
+     * Description:
+     * If the value is true, the JAXWSDeployer builds the JAXBContexts of the
+     * deployed endpoints at deployment time (see JAXBUtils.warmUp) and keeps them
+     * strongly referenced until the endpoints are undeployed.  The first requests
+     * then do not pay for the JAXBContext creation, at the cost of a longer deployment.
+     */
+    public static final String JAXWS_JAXB_WARMUP = 
+        "jaxws.jaxb.warmup";
+
     /** 
      * Context Property:
      * Name: jaxws.dispatch.outbound.operation.resolution.enable
@@ -38,7 +38,9 @@ import org.apache.axis2.jaxws.addressing.util.EndpointContextMapManager;
 import org.apache.axis2.jaxws.addressing.util.EndpointKey;
 import org.apache.axis2.jaxws.description.DescriptionFactory;
 import org.apache.axis2.jaxws.description.EndpointDescription;
+import org.apache.axis2.jaxws.message.databinding.JAXBUtils;
 import org.apache.axis2.jaxws.server.JAXWSMessageReceiver;
+import org.apache.axis2.jaxws.utility.JavaUtils;
 import org.apache.axis2.util.Loader;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
@@ -234,6 +236,14 @@ public class JAXWSDeployer extends AbstractDeployer {
         }
         axisConfig.addServiceGroup(serviceGroup);
         configureAddressing(serviceGroup);
+        if (JavaUtils.isTrue(axisConfig.getParameterValue(
+                org.apache.axis2.jaxws.Constants.JAXWS_JAXB_WARMUP))) {
+            int count = JAXBUtils.warmUp(getEndpointDescriptions(serviceGroup));
+            if (log.isDebugEnabled()) {
+                log.debug("Warmed up the JAXBContexts of " + count + " services in " 
+                        + serviceGroup.getServiceGroupName());
+            }
+        }
         return serviceGroup;
     }
 
@@ -292,6 +302,9 @@ public class JAXWSDeployer extends AbstractDeployer {
         try {
             AxisServiceGroup serviceGroup =
                     axisConfig.removeServiceGroup(fileName);
+            if (serviceGroup != null) {
+                JAXBUtils.releaseWarmUp(getEndpointDescriptions(serviceGroup));
+            }
             if(configCtx != null) {
                 configCtx.removeServiceGroupContext(serviceGroup);
             }
@@ -352,6 +365,19 @@ public class JAXWSDeployer extends AbstractDeployer {
         }
     }
 
+    private List<EndpointDescription> getEndpointDescriptions(AxisServiceGroup serviceGroup) {
+        List<EndpointDescription> endpointDescs = new ArrayList<EndpointDescription>();
+        Iterator<AxisService> iterator = serviceGroup.getServices();
+        while (iterator.hasNext()) {
+            Parameter param =
+                iterator.next().getParameter(EndpointDescription.AXIS_SERVICE_PARAMETER);
+            if (param != null && param.getValue() instanceof EndpointDescription) {
+                endpointDescs.add((EndpointDescription) param.getValue());
+            }
+        }
+        return endpointDescs;
+    }
+
     /**
      * Checks whether there's a 'lib' folder inside the provided folder and adds all the lib URLs
      * into the provided URL list.
@@ -19,12 +19,17 @@
 
 package org.apache.axis2.jaxws.message.databinding;
 
+import org.apache.axis2.description.AxisService;
 import org.apache.axis2.java.security.AccessController;
 import org.apache.axis2.jaxws.ExceptionFactory;
+import org.apache.axis2.jaxws.description.EndpointDescription;
+import org.apache.axis2.jaxws.description.ServiceDescription;
 import org.apache.axis2.jaxws.i18n.Messages;
 import org.apache.axis2.jaxws.message.databinding.JAXBUtilsMonitor;
 import org.apache.axis2.jaxws.message.factory.ClassFinderFactory;
 import org.apache.axis2.jaxws.registry.FactoryRegistry;
+import org.apache.axis2.jaxws.runtime.description.marshal.MarshalServiceRuntimeDescription;
+import org.apache.axis2.jaxws.runtime.description.marshal.MarshalServiceRuntimeDescriptionFactory;
 import org.apache.axis2.jaxws.utility.ClassUtils;
 import org.apache.axis2.jaxws.utility.JavaUtils;
 import org.apache.commons.logging.Log;
@@ -53,6 +58,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -60,6 +66,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
@@ -79,6 +88,16 @@ public class JAXBUtils {
             new ConcurrentHashMap<String, 
                 SoftReference<ConcurrentHashMap<ClassLoader, JAXBContextValue>>>();
 
+    // The inner maps of the JAXBContexts that were built by warmUp(...).
+    //    key is the ServiceDescription
+    //    value is the ConcurrentHashMap that is also referenced (softly) by the jaxbMap
+    // The strong reference keeps the JAXBContexts of deployed services from being
+    // reclaimed in low memory situations and rebuilt in the middle of the traffic.
+    private static Map<ServiceDescription, ConcurrentHashMap<ClassLoader, JAXBContextValue>> 
+        pinnedMap = 
+            new ConcurrentHashMap<ServiceDescription, 
+                ConcurrentHashMap<ClassLoader, JAXBContextValue>>();
+
     private static Pool<JAXBContext, Marshaller>       mpool = new Pool<JAXBContext, Marshaller>();
     private static Pool<JAXBContext, Unmarshaller>     upool = new Pool<JAXBContext, Unmarshaller>();
     private static Pool<JAXBContext, JAXBIntrospector> ipool = new Pool<JAXBContext, JAXBIntrospector>();
@@ -294,11 +313,13 @@ public class JAXBUtils {
                     
                     int numPackages = validContextPackages.size();
                     
+                    long start = System.nanoTime();
                     contextValue = createJAXBContextValue(validContextPackages, 
                             clKey, 
                             forceArrays, 
                             properties, 
                             classRefs);
+                    JAXBUtilsMonitor.jaxbContextCreated(System.nanoTime() - start);
                     
                     synchronized (jaxbMap) {
                         // Add the context value with the original package set
@@ -354,6 +375,124 @@ public class JAXBUtils {
         return contextValue.jaxbContext;
     }
     
+    /**
+     * Build the JAXBContexts of the endpoints ahead of the first request.
+     * 
+     * For each distinct ServiceDescription the JAXBContext is created (or obtained)
+     * with the same package set, key and classloader that the marshallers use at runtime,
+     * and one Marshaller and one Unmarshaller are placed into the pools.  The JAXBContexts
+     * remain strongly referenced until releaseWarmUp is called for the endpoints.
+     * 
+     * A failure is logged and does not stop the warm up of the other endpoints;
+     * the JAXBContext of the failing endpoint is built on first use as before.
+     *
+     * @param endpointDescs Collection<EndpointDescription>
+     * @return number of services that were warmed up
+     */
+    public static int warmUp(Collection<EndpointDescription> endpointDescs) {
+        int count = 0;
+        for (EndpointDescription endpointDesc : endpointDescs) {
+            ServiceDescription serviceDesc = endpointDesc.getServiceDescription();
+            if (serviceDesc == null || pinnedMap.containsKey(serviceDesc)) {
+                continue;
+            }
+            ClassLoader cl = null;
+            AxisService axisService = endpointDesc.getAxisService();
+            if (axisService != null) {
+                cl = (ClassLoader) axisService.getParameterValue(
+                        org.apache.axis2.jaxws.spi.Constants.CACHE_CLASSLOADER);
+            }
+            try {
+                MarshalServiceRuntimeDescription marshalDesc =
+                        MarshalServiceRuntimeDescriptionFactory.get(serviceDesc);
+                String key = marshalDesc.getPackagesKey();
+                JAXBContext context = getJAXBContext(marshalDesc.getPackages(), 
+                        new Holder<CONSTRUCTION_TYPE>(), key, cl, null);
+                
+                SoftReference<ConcurrentHashMap<ClassLoader, JAXBContextValue>> 
+                    softRef = jaxbMap.get(key);
+                ConcurrentHashMap<ClassLoader, JAXBContextValue> innerMap = 
+                    (softRef == null) ? null : softRef.get();
+                if (innerMap != null) {
+                    pinnedMap.put(serviceDesc, innerMap);
+                }
+                
+                if (ENABLE_MARSHALL_POOLING && mpool.size(context) == 0) {
+                    releaseJAXBMarshaller(context, getJAXBMarshaller(context));
+                }
+                if (ENABLE_UNMARSHALL_POOLING && upool.size(context) == 0) {
+                    releaseJAXBUnmarshaller(context, getJAXBUnmarshaller(context));
+                }
+                count++;
+                if (log.isDebugEnabled()) {
+                    log.debug("JAXBContext [warmed up] for " + serviceDesc.getServiceQName() + 
+                              " packages=" + marshalDesc.getPackages());
+                }
+            } catch (Throwable t) {
+                if (log.isDebugEnabled()) {
+                    log.debug("The JAXBContext of " + serviceDesc.getServiceQName() + 
+                              " could not be warmed up.  It will be created on first use. " + t, t);
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Release the strong references that warmUp holds for the endpoints, and remove the
+     * JAXBContexts that were built for the classloaders of the endpoints together with their
+     * pooled Marshallers, Unmarshallers and JAXBIntrospectors.  The pools hold their keys
+     * strongly, so without this the classloader of an undeployed service would be kept alive.
+     * This should be called when the endpoints are undeployed.
+     * 
+     * @param endpointDescs Collection<EndpointDescription>
+     */
+    public static void releaseWarmUp(Collection<EndpointDescription> endpointDescs) {
+        List<ClassLoader> classLoaders = new ArrayList<ClassLoader>();
+        for (EndpointDescription endpointDesc : endpointDescs) {
+            ServiceDescription serviceDesc = endpointDesc.getServiceDescription();
+            if (serviceDesc != null) {
+                pinnedMap.remove(serviceDesc);
+            }
+            AxisService axisService = endpointDesc.getAxisService();
+            if (axisService != null) {
+                ClassLoader cl = (ClassLoader) axisService.getParameterValue(
+                        org.apache.axis2.jaxws.spi.Constants.CACHE_CLASSLOADER);
+                if (cl != null && !classLoaders.contains(cl)) {
+                    classLoaders.add(cl);
+                }
+            }
+        }
+        for (ClassLoader cl : classLoaders) {
+            releaseJAXBContexts(cl);
+        }
+    }
+
+    /**
+     * Remove the JAXBContexts that were built for the classloader and purge the
+     * Marshallers, Unmarshallers and JAXBIntrospectors that are pooled for them.
+     * 
+     * @param cl ClassLoader
+     */
+    private static void releaseJAXBContexts(ClassLoader cl) {
+        for (SoftReference<ConcurrentHashMap<ClassLoader, JAXBContextValue>> softRef : 
+                jaxbMap.values()) {
+            ConcurrentHashMap<ClassLoader, JAXBContextValue> innerMap = softRef.get();
+            if (innerMap == null) {
+                continue;
+            }
+            JAXBContextValue contextValue = innerMap.remove(cl);
+            if (contextValue != null) {
+                mpool.remove(contextValue.jaxbContext);
+                upool.remove(contextValue.jaxbContext);
+                ipool.remove(contextValue.jaxbContext);
+                if (log.isDebugEnabled()) {
+                    log.debug("JAXBContext [released] for classloader " + cl);
+                }
+            }
+        }
+    }
+
     /**
      * The contextPackages may declare overrides.  
      * Example:
@@ -666,11 +805,14 @@ public class JAXBUtils {
             if (log.isDebugEnabled()) {
                 log.debug("Unmarshaller created [not in pool]");
             }
+            long start = System.nanoTime();
             unm = internalCreateUnmarshaller(context);
+            JAXBUtilsMonitor.unmarshallerCreated(System.nanoTime() - start);
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("Unmarshaller obtained [from  pool]");
             }
+            JAXBUtilsMonitor.unmarshallerHit();
         }
         return unm;
     }
@@ -745,11 +887,14 @@ public class JAXBUtils {
                 if (log.isDebugEnabled()) {
                     log.debug("Marshaller created [not in pool]");
                 }
+                long start = System.nanoTime();
                 m = internalCreateMarshaller(context);
+                JAXBUtilsMonitor.marshallerCreated(System.nanoTime() - start);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("Marshaller obtained [from  pool]");
                 }
+                JAXBUtilsMonitor.marshallerHit();
             }
         }
         m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE); // No PIs
@@ -1465,36 +1610,40 @@ public class JAXBUtils {
     }
 
     /**
-     * Pool a list of items for a specific key
+     * Pool of items for a specific key.
+     * 
+     * The pool holds strong references, so a JAXBContext that is actively used does not lose its
+     * Marshallers/Unmarshallers when the garbage collector reclaims soft references.  Instead the
+     * pool is bounded: at most MAX_LOAD_FACTOR keys are kept and each key keeps at most
+     * AFFINITY_SLOTS + MAX_LIST_FACTOR idle items.  The keys of undeployed services are removed
+     * by releaseWarmUp.
+     * 
+     * Each key has a small array of slots indexed by the calling thread.  A thread that releases
+     * an item and later asks for one again usually finds it in its own slot, which is a single
+     * compare and set.  Items that do not fit into a slot go to a shared queue.  No locks are
+     * taken on either path.
      *
      * @param <K> Key
      * @param <V> Pooled object
      */
     private static class Pool<K,V> {
-        private SoftReference<Map<K,List<V>>> softMap = 
-            new SoftReference<Map<K,List<V>>>(
-                    new ConcurrentHashMap<K, List<V>>());
-
-        // The maps are freed up when a LOAD FACTOR is hit
-        private static int MAX_LIST_FACTOR = 50;
         
-        // Limit the adjustSize calls
-        private int count = 0;
+        // Maximum number of items in the shared queue of a key
+        private static final int MAX_LIST_FACTOR = 50;
+        
+        // Number of thread affinity slots per key (must be a power of 2)
+        private static final int AFFINITY_SLOTS = 16;
+        
+        private final ConcurrentHashMap<K, Bucket<V>> map = 
+            new ConcurrentHashMap<K, Bucket<V>>();
         
         /**
          * @param key
          * @return removed item from pool or null.
          */
         public V get(K key) {
-            List<V> values = getValues(key);
-            synchronized (values) {
-                if (values.size()>0) {
-                    V v = values.remove(values.size()-1);
-                    return v;
-                    
-                }
-            }
-            return null;
+            Bucket<V> bucket = map.get(key);
+            return (bucket == null) ? null : bucket.poll();
         }
 
         /**
@@ -1503,75 +1652,91 @@ public class JAXBUtils {
          * @param value
          */
         public void put(K key, V value) {
-            adjustSize();
-            List<V> values = getValues(key);
-            synchronized (values) {
-                if (values.size() < MAX_LIST_FACTOR) {
-                    values.add(value);
+            Bucket<V> bucket = map.get(key);
+            if (bucket == null) {
+                bucket = new Bucket<V>();
+                Bucket<V> existing = map.putIfAbsent(key, bucket);
+                if (existing != null) {
+                    bucket = existing;
+                } else {
+                    // A new key was added, make sure that the map stays bounded.
+                    adjustPoolSize(map);
                 }
             }
+            bucket.offer(value);
         }
-
+        
+        /**
+         * @param key
+         * @return number of idle items pooled for the key
+         */
+        public int size(K key) {
+            Bucket<V> bucket = map.get(key);
+            return (bucket == null) ? 0 : bucket.size();
+        }
+        
         /**
-         * Get or create a list of the values for the key
+         * Remove the pooled items of the key
          * @param key
-         * @return list of values.
          */
-        private List<V> getValues(K key) {
-            Map<K,List<V>> map = softMap.get();
-            List<V> values = null;
-            if (map != null) {
-                values = map.get(key);
-                if(values !=null) {
-                    return values;
+        public void remove(K key) {
+            map.remove(key);
+        }
+        
+        /**
+         * Remove all of the pooled items
+         */
+        public void clear() {
+            map.clear();
+        }
+        
+        /**
+         * The idle items of a single key
+         */
+        private static class Bucket<V> {
+            private final AtomicReferenceArray<V> slots = 
+                new AtomicReferenceArray<V>(AFFINITY_SLOTS);
+            private final ConcurrentLinkedQueue<V> queue = new ConcurrentLinkedQueue<V>();
+            private final AtomicInteger queueSize = new AtomicInteger();
+            
+            V poll() {
+                int index = slotIndex();
+                V value = slots.get(index);
+                if (value != null && slots.compareAndSet(index, value, null)) {
+                    return value;
+                }
+                value = queue.poll();
+                if (value != null) {
+                    queueSize.decrementAndGet();
                 }
+                return value;
             }
-            synchronized (this) {
-                if (map != null) {
-                    values = map.get(key);
+            
+            void offer(V value) {
+                int index = slotIndex();
+                if (slots.get(index) == null && slots.compareAndSet(index, null, value)) {
+                    return;
                 }
-                if (values == null) {
-                    if (map == null) {
-                        map = new ConcurrentHashMap<K, List<V>>();
-                        softMap = 
-                            new SoftReference<Map<K,List<V>>>(map);
-                    }
-                    values = new ArrayList<V>();
-                    map.put(key, values);
-
+                if (queueSize.incrementAndGet() <= MAX_LIST_FACTOR) {
+                    queue.offer(value);
+                } else {
+                    // The pool is full, let the item be garbage collected
+                    queueSize.decrementAndGet();
                 }
-                return values;
             }
-        }
-        
-        /**
-         * AdjustSize
-         * When the number of keys exceeds the maximum load, half
-         * of the entries are deleted.
-         * 
-         * The assumption is that the JAXBContexts, UnMarshallers, Marshallers, etc. require
-         * a large footprint.
-         */
-        private void adjustSize() {
             
-            // Don't check each time, map.size() can be expensive
-            count++;
-            if (count < 10) {
-                return;
-            }
-            count = 0;
-            Map<K,List<V>> map = softMap.get();
-            if (map != null && map.size() > MAX_LOAD_FACTOR) {
-                // Remove every other Entry in the map.
-                Iterator it = map.entrySet().iterator();
-                boolean removeIt = false;
-                while (it.hasNext()) {
-                    it.next();
-                    if (removeIt) {
-                        it.remove();
+            int size() {
+                int size = queueSize.get();
+                for (int i = 0; i < AFFINITY_SLOTS; i++) {
+                    if (slots.get(i) != null) {
+                        size++;
                     }
-                    removeIt = !removeIt;
                 }
+                return size;
+            }
+            
+            private static int slotIndex() {
+                return (int) Thread.currentThread().getId() & (AFFINITY_SLOTS - 1);
             }
         }
     }
@@ -25,15 +25,21 @@ import org.apache.commons.logging.LogFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The monitor is used by the tests to ensure
  * that the JAXBUtils code is used and is functioning correctly.
  * In normal usage, monitoring is off.
  * 
- * Currently the JAXBUtilsMonitor keeps track of the packageKeys
- * passed to createJAXBContext(*).  Future improvements may monitor
- * the size of the pools, the pool hits versus misses, etc.
+ * The JAXBUtilsMonitor keeps track of the packageKeys
+ * passed to createJAXBContext(*) while monitoring is on.
+ * 
+ * The pool hits, misses and creation times of the Marshallers,
+ * Unmarshallers and JAXBContexts are always counted.  The counters
+ * are cheap to update and can be read at any time, for example
+ * to check that a warm up removed the JAXBContext creations from
+ * the request path.
  */
 public class JAXBUtilsMonitor {
     
@@ -42,6 +48,15 @@ public class JAXBUtilsMonitor {
     private static ArrayList<String> packageKeys = new ArrayList<String>(); 
     private static String semifore = "JAXBUtils";
     
+    private static final LongAdder marshallerHits = new LongAdder();
+    private static final LongAdder marshallerMisses = new LongAdder();
+    private static final LongAdder marshallerCreateTime = new LongAdder();
+    private static final LongAdder unmarshallerHits = new LongAdder();
+    private static final LongAdder unmarshallerMisses = new LongAdder();
+    private static final LongAdder unmarshallerCreateTime = new LongAdder();
+    private static final LongAdder contextCreates = new LongAdder();
+    private static final LongAdder contextCreateTime = new LongAdder();
+    
     /**
      * Intentionally private.  All methods are static.
      */
@@ -65,12 +80,20 @@ public class JAXBUtilsMonitor {
     }
     
     /**
-     * Clear the number of creates and failed creates
+     * Clear the package keys and the pool counters
      */
     public static void clear() {
         synchronized(semifore) {
             packageKeys.clear();
         }
+        marshallerHits.reset();
+        marshallerMisses.reset();
+        marshallerCreateTime.reset();
+        unmarshallerHits.reset();
+        unmarshallerMisses.reset();
+        unmarshallerCreateTime.reset();
+        contextCreates.reset();
+        contextCreateTime.reset();
     }
 
     /**
@@ -98,5 +121,83 @@ public class JAXBUtilsMonitor {
             }
         }
     }
-  
+
+    /**
+     * @return number of Marshallers obtained from the pool
+     */
+    public static long getMarshallerHits() {
+        return marshallerHits.sum();
+    }
+
+    /**
+     * @return number of Marshallers created because the pool was empty
+     */
+    public static long getMarshallerMisses() {
+        return marshallerMisses.sum();
+    }
+
+    /**
+     * @return total time in nanoseconds spent creating pooled Marshallers
+     */
+    public static long getMarshallerCreateTime() {
+        return marshallerCreateTime.sum();
+    }
+
+    /**
+     * @return number of Unmarshallers obtained from the pool
+     */
+    public static long getUnmarshallerHits() {
+        return unmarshallerHits.sum();
+    }
+
+    /**
+     * @return number of Unmarshallers created because the pool was empty
+     */
+    public static long getUnmarshallerMisses() {
+        return unmarshallerMisses.sum();
+    }
+
+    /**
+     * @return total time in nanoseconds spent creating pooled Unmarshallers
+     */
+    public static long getUnmarshallerCreateTime() {
+        return unmarshallerCreateTime.sum();
+    }
+
+    /**
+     * @return number of JAXBContexts created
+     */
+    public static long getJAXBContextCreates() {
+        return contextCreates.sum();
+    }
+
+    /**
+     * @return total time in nanoseconds spent creating JAXBContexts
+     */
+    public static long getJAXBContextCreateTime() {
+        return contextCreateTime.sum();
+    }
+
+    static void marshallerHit() {
+        marshallerHits.increment();
+    }
+
+    static void marshallerCreated(long nanos) {
+        marshallerMisses.increment();
+        marshallerCreateTime.add(nanos);
+    }
+
+    static void unmarshallerHit() {
+        unmarshallerHits.increment();
+    }
+
+    static void unmarshallerCreated(long nanos) {
+        unmarshallerMisses.increment();
+        unmarshallerCreateTime.add(nanos);
+    }
+
+    static void jaxbContextCreated(long nanos) {
+        contextCreates.increment();
+        contextCreateTime.add(nanos);
+    }
 }
@@ -76,4 +76,39 @@ public class JAXBUtilsTests extends TestCase {
         assertTrue(jbcString.indexOf(BadData2.class.getName()) < 0);
         assertTrue(jbcString.indexOf(BadData3.class.getName()) < 0);
     }
+    
+    /**
+     * Marshallers and Unmarshallers that are released are reused by the
+     * next request for the same JAXBContext, and the monitor counts the
+     * pool hits and misses.
+     * @throws Exception
+     */
+    public void testPoolReuse() throws Exception {
+        TreeSet<String> contextPackages = new TreeSet<String>();
+        contextPackages.add("org.apache.ws.jaxb.a");
+        JAXBContext jbc = JAXBUtils.getJAXBContext(contextPackages, 
+                                                   new Holder<CONSTRUCTION_TYPE>(),
+                                                   contextPackages.toString());
+        JAXBUtilsMonitor.clear();
+        
+        Marshaller m1 = JAXBUtils.getJAXBMarshaller(jbc);
+        Marshaller m2 = JAXBUtils.getJAXBMarshaller(jbc);
+        assertNotSame(m1, m2);
+        JAXBUtils.releaseJAXBMarshaller(jbc, m1);
+        JAXBUtils.releaseJAXBMarshaller(jbc, m2);
+        
+        Marshaller m3 = JAXBUtils.getJAXBMarshaller(jbc);
+        Marshaller m4 = JAXBUtils.getJAXBMarshaller(jbc);
+        assertTrue(m3 == m1 || m3 == m2);
+        assertTrue(m4 == m1 || m4 == m2);
+        assertNotSame(m3, m4);
+        assertEquals(2, JAXBUtilsMonitor.getMarshallerMisses());
+        assertEquals(2, JAXBUtilsMonitor.getMarshallerHits());
+        
+        Unmarshaller u1 = JAXBUtils.getJAXBUnmarshaller(jbc);
+        JAXBUtils.releaseJAXBUnmarshaller(jbc, u1);
+        assertSame(u1, JAXBUtils.getJAXBUnmarshaller(jbc));
+        assertEquals(1, JAXBUtilsMonitor.getUnmarshallerMisses());
+        assertEquals(1, JAXBUtilsMonitor.getUnmarshallerHits());
+    }
 }
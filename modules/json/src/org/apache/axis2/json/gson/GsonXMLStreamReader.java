@@ -22,10 +22,12 @@ package org.apache.axis2.json.gson;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.AxisMessage;
 import org.apache.axis2.json.gson.factory.JSONType;
 import org.apache.axis2.json.gson.factory.JsonConstant;
 import org.apache.axis2.json.gson.factory.JsonObject;
 import org.apache.axis2.json.gson.factory.XmlNode;
+import org.apache.axis2.json.gson.factory.XmlNodeCache;
 import org.apache.axis2.json.gson.factory.XmlNodeGenerator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,10 +38,8 @@ import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Stack;
 
@@ -60,14 +60,8 @@ public class GsonXMLStreamReader implements XMLStreamReader {
 
     private boolean isProcessed;
 
-    private ConfigurationContext configContext;
-
     private QName elementQname;
 
-    private XmlNode mainXmlNode;
-
-    private List<XmlSchema> xmlSchemaList;
-
     private List<JsonObject> schemaList = new LinkedList<JsonObject>();
     private boolean skipSchemaListElement = false;
     private int schemaListPointer = 0;
@@ -76,8 +70,6 @@ public class GsonXMLStreamReader implements XMLStreamReader {
     private boolean skipMiniListElement = false;
     private int miniListPointer = 0;
 
-    private XmlNodeGenerator xmlNodeGenerator;
-
     private Stack<JsonObject> stackObj = new Stack<JsonObject>();
     private JsonObject topNestedArrayObj = null;
     private Stack<JsonObject> processedJsonObject = new Stack<JsonObject>();
@@ -100,69 +92,21 @@ public class GsonXMLStreamReader implements XMLStreamReader {
     }
 
     public void initXmlStreamReader(QName elementQname, List<XmlSchema> xmlSchemaList, ConfigurationContext configContext) {
-        processSchemaUpdates(elementQname, xmlSchemaList, configContext);
-        this.elementQname = elementQname;
-        this.xmlSchemaList = xmlSchemaList;
-        this.configContext = configContext;
-        process();
-        isProcessed = true;
-
+        process(elementQname, XmlNodeCache.getXmlNode(elementQname, xmlSchemaList, configContext));
     }
 
-    private void processSchemaUpdates(QName elementQname, List<XmlSchema> xmlSchemaList, ConfigurationContext configContext) {
-        Object ob = configContext.getProperty(JsonConstant.CURRENT_XML_SCHEMA);
-        if (ob != null) {
-            Map<QName, XmlSchema> schemaMap = (Map<QName, XmlSchema>) ob;
-            if (schemaMap != null) {
-                XmlSchema currentXmlSchema = schemaMap.get(elementQname);
-                for (XmlSchema xmlSchema : xmlSchemaList) {
-                    if (xmlSchema.getTargetNamespace().equals(elementQname.getNamespaceURI())) {
-                        if (currentXmlSchema != xmlSchema) {
-                            schemaMap.put(elementQname, xmlSchema);
-                            configContext.setProperty(JsonConstant.XMLNODES, null);
-                            if (log.isDebugEnabled()) {
-                                log.debug("Updating message schema. [Current:" + currentXmlSchema + ", New:" + xmlSchema + "]");
-                            }
-                        }
-                        break;
-                    }
-                }
-            }
-        } else {
-            Map<QName, XmlSchema> schemaMap = new HashMap<QName, XmlSchema>();
-            for (XmlSchema xmlSchema : xmlSchemaList) {
-                if (xmlSchema.getTargetNamespace().equals(elementQname.getNamespaceURI())) {
-                    schemaMap.put(elementQname, xmlSchema);
-                    configContext.setProperty(JsonConstant.CURRENT_XML_SCHEMA, schemaMap);
-                    break;
-                }
-            }
-        }
+    /**
+     * Initializes the reader with the XmlNode tree kept on the given message, which is normally
+     * generated when the service is deployed.
+     */
+    public void initXmlStreamReader(AxisMessage message, List<XmlSchema> xmlSchemaList) {
+        process(message.getElementQName(), XmlNodeCache.getXmlNode(message, xmlSchemaList));
     }
 
-    private void process() {
-        Object ob = configContext.getProperty(JsonConstant.XMLNODES);
-        if (ob != null) {
-            Map<QName, XmlNode> nodeMap = (Map<QName, XmlNode>) ob;
-            XmlNode requesNode = nodeMap.get(elementQname);
-            if (requesNode != null) {
-                xmlNodeGenerator = new XmlNodeGenerator();
-                schemaList = xmlNodeGenerator.getSchemaList(requesNode);
-            } else {
-                xmlNodeGenerator = new XmlNodeGenerator(xmlSchemaList, elementQname);
-                mainXmlNode = xmlNodeGenerator.getMainXmlNode();
-                schemaList = xmlNodeGenerator.getSchemaList(mainXmlNode);
-                nodeMap.put(elementQname, mainXmlNode);
-                configContext.setProperty(JsonConstant.XMLNODES, nodeMap);
-            }
-        } else {
-            Map<QName, XmlNode> newNodeMap = new HashMap<QName, XmlNode>();
-            xmlNodeGenerator = new XmlNodeGenerator(xmlSchemaList, elementQname);
-            mainXmlNode = xmlNodeGenerator.getMainXmlNode();
-            schemaList = xmlNodeGenerator.getSchemaList(mainXmlNode);
-            newNodeMap.put(elementQname, mainXmlNode);
-            configContext.setProperty(JsonConstant.XMLNODES, newNodeMap);
-        }
+    private void process(QName elementQname, XmlNode requesNode) {
+        this.elementQname = elementQname;
+        // the schema list is consumed while reading, so each reader needs its own one
+        schemaList = new XmlNodeGenerator().getSchemaList(requesNode);
         isProcessed = true;
     }
 
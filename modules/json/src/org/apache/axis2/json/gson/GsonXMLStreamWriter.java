@@ -21,10 +21,11 @@ package org.apache.axis2.json.gson;
 
 import com.google.gson.stream.JsonWriter;
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.AxisMessage;
 import org.apache.axis2.json.gson.factory.JSONType;
-import org.apache.axis2.json.gson.factory.JsonConstant;
 import org.apache.axis2.json.gson.factory.JsonObject;
 import org.apache.axis2.json.gson.factory.XmlNode;
+import org.apache.axis2.json.gson.factory.XmlNodeCache;
 import org.apache.axis2.json.gson.factory.XmlNodeGenerator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -72,8 +73,6 @@ public class GsonXMLStreamWriter implements XMLStreamWriter {
      */
     private Stack<JsonObject> processedJsonObjects = new Stack<JsonObject>();
 
-    private List<XmlSchema> xmlSchemaList;
-
     /**
      * Element QName of outgoing message , which is get from the outgoing message context
      */
@@ -84,10 +83,6 @@ public class GsonXMLStreamWriter implements XMLStreamWriter {
      */
     private XmlNode mainXmlNode;
 
-    private ConfigurationContext configContext;
-
-    private XmlNodeGenerator xmlNodeGenerator;
-
     private boolean isProcessed;
 
     /**
@@ -113,69 +108,24 @@ public class GsonXMLStreamWriter implements XMLStreamWriter {
 
     public GsonXMLStreamWriter(JsonWriter jsonWriter, QName elementQName, List<XmlSchema> xmlSchemaList,
                                ConfigurationContext context) {
-        processSchemaUpdates(elementQName, xmlSchemaList, context);
         this.jsonWriter = jsonWriter;
         this.elementQName = elementQName;
-        this.xmlSchemaList = xmlSchemaList;
-        this.configContext = context;
-    }
-
-    private void processSchemaUpdates(QName elementQname, List<XmlSchema> xmlSchemaList,
-                                      ConfigurationContext configContext) {
-        Object ob = configContext.getProperty(JsonConstant.CURRENT_XML_SCHEMA);
-        if (ob != null) {
-            Map<QName, XmlSchema> schemaMap = (Map<QName, XmlSchema>) ob;
-            if (schemaMap != null) {
-                XmlSchema currentXmlSchema = schemaMap.get(elementQname);
-                for (XmlSchema xmlSchema : xmlSchemaList) {
-                    if (xmlSchema.getTargetNamespace().equals(elementQname.getNamespaceURI())) {
-                        if (currentXmlSchema != xmlSchema) {
-                            schemaMap.put(elementQname, xmlSchema);
-                            configContext.setProperty(JsonConstant.XMLNODES, null);
-                            if (log.isDebugEnabled()) {
-                                log.debug("Updating message schema. [Current:" + currentXmlSchema + ", New:" +
-                                          xmlSchema + "]");
-                            }
-                        }
-                        break;
-                    }
-                }
-            }
-        } else {
-            Map<QName, XmlSchema> schemaMap = new HashMap<QName, XmlSchema>();
-            for (XmlSchema xmlSchema : xmlSchemaList) {
-                if (xmlSchema.getTargetNamespace().equals(elementQname.getNamespaceURI())) {
-                    schemaMap.put(elementQname, xmlSchema);
-                    configContext.setProperty(JsonConstant.CURRENT_XML_SCHEMA, schemaMap);
-                    break;
-                }
-            }
-        }
+        this.mainXmlNode = XmlNodeCache.getXmlNode(elementQName, xmlSchemaList, context);
+    }
+
+    /**
+     * Creates a writer for the element of the given message, using the XmlNode tree kept on the
+     * message, which is normally generated when the service is deployed.
+     */
+    public GsonXMLStreamWriter(JsonWriter jsonWriter, AxisMessage message, List<XmlSchema> xmlSchemaList) {
+        this.jsonWriter = jsonWriter;
+        this.elementQName = message.getElementQName();
+        this.mainXmlNode = XmlNodeCache.getXmlNode(message, xmlSchemaList);
     }
 
     private void process() throws IOException {
-        Object ob = configContext.getProperty(JsonConstant.XMLNODES);
-        if (ob != null) {
-            Map<QName, XmlNode> nodeMap = (Map<QName, XmlNode>) ob;
-            XmlNode resNode = nodeMap.get(elementQName);
-            if (resNode != null) {
-                xmlNodeGenerator = new XmlNodeGenerator();
-                queue = xmlNodeGenerator.getQueue(resNode);
-            } else {
-                xmlNodeGenerator = new XmlNodeGenerator(xmlSchemaList, elementQName);
-                mainXmlNode = xmlNodeGenerator.getMainXmlNode();
-                queue = xmlNodeGenerator.getQueue(mainXmlNode);
-                nodeMap.put(elementQName, mainXmlNode);
-                configContext.setProperty(JsonConstant.XMLNODES, nodeMap);
-            }
-        } else {
-            Map<QName, XmlNode> newNodeMap = new HashMap<QName, XmlNode>();
-            xmlNodeGenerator = new XmlNodeGenerator(xmlSchemaList, elementQName);
-            mainXmlNode = xmlNodeGenerator.getMainXmlNode();
-            queue = xmlNodeGenerator.getQueue(mainXmlNode);
-            newNodeMap.put(elementQName, mainXmlNode);
-            configContext.setProperty(JsonConstant.XMLNODES, newNodeMap);
-        }
+        // the queue is consumed while writing, so each writer needs its own one
+        queue = new XmlNodeGenerator().getQueue(mainXmlNode);
         isProcessed = true;
         this.jsonWriter.beginObject();
     }
@@ -792,8 +742,7 @@ public class GsonXMLStreamWriter implements XMLStreamWriter {
 
     public void writeStartDocument(String encoding, String version) throws XMLStreamException {
         if (!isProcessed) {
-            xmlNodeGenerator.getMainXmlNode();
-            queue = xmlNodeGenerator.getQueue(mainXmlNode);
+            queue = new XmlNodeGenerator().getQueue(mainXmlNode);
             isProcessed = true;
         }
     }
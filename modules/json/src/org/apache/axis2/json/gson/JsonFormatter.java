@@ -19,21 +19,21 @@
 
 package org.apache.axis2.json.gson;
 
-import com.google.gson.Gson;
 import com.google.gson.stream.JsonWriter;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMOutputFormat;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.Constants;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisMessage;
 import org.apache.axis2.json.gson.factory.JsonConstant;
+import org.apache.axis2.json.gson.rpc.JsonUtils;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ws.commons.schema.XmlSchema;
 
-import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -84,14 +84,13 @@ public class JsonFormatter implements MessageFormatter {
 
             } else if (retObj == null) {
                 OMElement element = outMsgCtxt.getEnvelope().getBody().getFirstElement();
-                QName elementQname = outMsgCtxt.getAxisOperation().getMessage
-                        (WSDLConstants.MESSAGE_LABEL_OUT_VALUE).getElementQName();
+                AxisMessage outMessage = outMsgCtxt.getAxisOperation().getMessage
+                        (WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
 
                 ArrayList<XmlSchema> schemas = outMsgCtxt.getAxisService().getSchema();
                 GsonXMLStreamWriter xmlsw = new GsonXMLStreamWriter(jsonWriter,
-                                                                    elementQname,
-                                                                    schemas,
-                                                                    outMsgCtxt.getConfigurationContext());
+                                                                    outMessage,
+                                                                    schemas);
                 try {
                     xmlsw.writeStartDocument();
                     if (b) {
@@ -106,11 +105,11 @@ public class JsonFormatter implements MessageFormatter {
 
             } else {
                 try {
-                    Gson gson = new Gson();
+                    // the return object of the JSON RPC receivers is written directly, no OM tree is built
                     jsonWriter.beginObject();
                     jsonWriter.name(JsonConstant.RESPONSE);
                     Type returnType = (Type) outMsgCtxt.getProperty(JsonConstant.RETURN_TYPE);
-                    gson.toJson(retObj, returnType, jsonWriter);
+                    JsonUtils.GSON.toJson(retObj, returnType, jsonWriter);
                     jsonWriter.endObject();
                     jsonWriter.flush();
 
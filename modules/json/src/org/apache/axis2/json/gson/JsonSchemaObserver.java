@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.json.gson;
+
+import org.apache.axis2.description.AxisMessage;
+import org.apache.axis2.description.AxisModule;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.axis2.description.ParameterIncludeImpl;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.AxisEvent;
+import org.apache.axis2.engine.AxisObserver;
+import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.json.gson.factory.XmlNodeCache;
+import org.apache.axis2.json.gson.rpc.JsonInOnlyRPCMessageReceiver;
+import org.apache.axis2.json.gson.rpc.JsonRpcMessageReceiver;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ws.commons.schema.XmlSchema;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Generates the XmlNode trees used by {@link GsonXMLStreamReader} and {@link GsonXMLStreamWriter}
+ * for the input and output messages of every operation when a service is deployed, so that the
+ * first JSON request of an operation does not have to walk the schema. Register it in axis2.xml
+ * with
+ * <pre>
+ * &lt;listener class="org.apache.axis2.json.gson.JsonSchemaObserver"/&gt;
+ * </pre>
+ * Without it the trees are generated on the first request of each message instead.
+ */
+public class JsonSchemaObserver extends ParameterIncludeImpl implements AxisObserver {
+
+    private static final Log log = LogFactory.getLog(JsonSchemaObserver.class);
+
+    public void init(AxisConfiguration axisConfig) {
+        for (AxisService service : axisConfig.getServices().values()) {
+            generateXmlNodes(service);
+        }
+    }
+
+    public void serviceUpdate(AxisEvent event, AxisService service) {
+        if (event.getEventType() == AxisEvent.SERVICE_DEPLOY) {
+            generateXmlNodes(service);
+        }
+    }
+
+    public void serviceGroupUpdate(AxisEvent event, AxisServiceGroup serviceGroup) {
+        // services are handled one at a time in serviceUpdate
+    }
+
+    public void moduleUpdate(AxisEvent event, AxisModule module) {
+        // nothing to do
+    }
+
+    private void generateXmlNodes(AxisService service) {
+        List<XmlSchema> schemas = service.getSchema();
+        if (schemas.isEmpty()) {
+            return;
+        }
+        for (Iterator<AxisOperation> operations = service.getOperations(); operations.hasNext();) {
+            AxisOperation operation = operations.next();
+            MessageReceiver messageReceiver = operation.getMessageReceiver();
+            if (messageReceiver instanceof JsonRpcMessageReceiver
+                    || messageReceiver instanceof JsonInOnlyRPCMessageReceiver) {
+                // these receivers bind the JSON message directly, without an XmlNode tree
+                continue;
+            }
+            for (Iterator<AxisMessage> messages = operation.getMessages(); messages.hasNext();) {
+                AxisMessage message = messages.next();
+                if (message.getElementQName() == null) {
+                    continue;
+                }
+                try {
+                    XmlNodeCache.getXmlNode(message, schemas);
+                } catch (RuntimeException e) {
+                    // e.g. the element is not defined in the schema; the request will fail the
+                    // same way when the tree is generated for it
+                    if (log.isDebugEnabled()) {
+                        log.debug("Could not generate the XmlNode tree of " + message.getElementQName()
+                                  + " in service " + service.getName(), e);
+                    }
+                }
+            }
+        }
+    }
+}
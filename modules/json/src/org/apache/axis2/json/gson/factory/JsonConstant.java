@@ -34,8 +34,16 @@ public class JsonConstant {
 
     public static final String XMLNODES = "xmlnodes";
 
+    /**
+     * @deprecated the schema an XmlNode tree was generated from is now kept with the tree, see
+     *             {@link XmlNodeCache}
+     */
+    @Deprecated
     public static final String CURRENT_XML_SCHEMA = "CurrentXmlSchema";
 
+    /** AxisMessage parameter holding the XmlNode tree of the message element */
+    public static final String XMLNODE = "jsonXmlNode";
+
 //    error messages
 
     public static final String IN_JSON_MESSAGE_NOT_VALID = "Input JSON message is not valid ";
@@ -20,6 +20,7 @@
 package org.apache.axis2.json.gson.factory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class XmlNode {
@@ -28,6 +29,7 @@ public class XmlNode {
     private boolean isAttribute;
     private boolean isArray;
     private List<XmlNode> childrenList = new ArrayList<XmlNode>();
+    private List<XmlNode> readOnlyChildrenList = Collections.unmodifiableList(childrenList);
     private String valueType;
     private String namespaceUri;
     private long minOccurs;
@@ -58,8 +60,11 @@ public class XmlNode {
         return isArray;
     }
 
+    /**
+     * Returns a read only view of the children; trees are shared between threads once generated.
+     */
     public List<XmlNode> getChildrenList() {
-        return childrenList;
+        return readOnlyChildrenList;
     }
 
     public String getValueType() {
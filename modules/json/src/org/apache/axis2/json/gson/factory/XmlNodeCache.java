@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.json.gson.factory;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.AxisMessage;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ws.commons.schema.XmlSchema;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the XmlNode tree of a message element so that the schema is only walked once, normally
+ * when the service is deployed (see {@link org.apache.axis2.json.gson.JsonSchemaObserver}).
+ * The trees are stored on the AxisMessage they describe, or in a map on the ConfigurationContext
+ * for callers that only know the element name. A tree is not modified once it is stored, so the
+ * readers and writers use it without locking. If the schema of the element is replaced, a new
+ * tree is generated and stored in place of the old one.
+ */
+public final class XmlNodeCache {
+
+    private static final Log log = LogFactory.getLog(XmlNodeCache.class);
+
+    private XmlNodeCache() {
+    }
+
+    /**
+     * Returns the XmlNode tree of the element of the given message, generating and storing it on
+     * the message if it has not been generated yet for the current schema.
+     */
+    public static XmlNode getXmlNode(AxisMessage message, List<XmlSchema> xmlSchemaList) {
+        QName elementQname = message.getElementQName();
+        XmlSchema xmlSchema = getXmlSchema(elementQname, xmlSchemaList);
+        Object value = message.getParameterValue(JsonConstant.XMLNODE);
+        if (value instanceof Entry && ((Entry) value).isFor(elementQname, xmlSchema)) {
+            return ((Entry) value).xmlNode;
+        }
+        Entry entry = new Entry(elementQname, xmlSchema, generate(elementQname, xmlSchemaList));
+        try {
+            message.addParameter(JsonConstant.XMLNODE, entry);
+        } catch (AxisFault e) {
+            // the parameter is locked, the tree is generated again for the next message
+            log.debug("Could not keep the XmlNode tree of " + elementQname, e);
+        }
+        return entry.xmlNode;
+    }
+
+    /**
+     * Returns the XmlNode tree of the given element, using a map kept in the
+     * {@link JsonConstant#XMLNODES} property of the configuration context.
+     */
+    public static XmlNode getXmlNode(QName elementQname, List<XmlSchema> xmlSchemaList,
+                                     ConfigurationContext configContext) {
+        ConcurrentMap<QName, Entry> nodeMap = getNodeMap(configContext);
+        XmlSchema xmlSchema = getXmlSchema(elementQname, xmlSchemaList);
+        Entry entry = nodeMap.get(elementQname);
+        if (entry == null || !entry.isFor(elementQname, xmlSchema)) {
+            if (entry != null && log.isDebugEnabled()) {
+                log.debug("Updating message schema. [Current:" + entry.xmlSchema + ", New:" +
+                          xmlSchema + "]");
+            }
+            entry = new Entry(elementQname, xmlSchema, generate(elementQname, xmlSchemaList));
+            nodeMap.put(elementQname, entry);
+        }
+        return entry.xmlNode;
+    }
+
+    private static ConcurrentMap<QName, Entry> getNodeMap(ConfigurationContext configContext) {
+        Object nodeMap = configContext.getProperty(JsonConstant.XMLNODES);
+        if (nodeMap instanceof ConcurrentMap) {
+            return (ConcurrentMap<QName, Entry>) nodeMap;
+        }
+        synchronized (configContext) {
+            nodeMap = configContext.getProperty(JsonConstant.XMLNODES);
+            if (!(nodeMap instanceof ConcurrentMap)) {
+                nodeMap = new ConcurrentHashMap<QName, Entry>();
+                configContext.setProperty(JsonConstant.XMLNODES, nodeMap);
+            }
+            return (ConcurrentMap<QName, Entry>) nodeMap;
+        }
+    }
+
+    private static XmlNode generate(QName elementQname, List<XmlSchema> xmlSchemaList) {
+        return new XmlNodeGenerator(xmlSchemaList, elementQname).getMainXmlNode();
+    }
+
+    private static XmlSchema getXmlSchema(QName elementQname, List<XmlSchema> xmlSchemaList) {
+        for (XmlSchema xmlSchema : xmlSchemaList) {
+            if (xmlSchema.getTargetNamespace().equals(elementQname.getNamespaceURI())) {
+                return xmlSchema;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An XmlNode tree together with the element and schema it was generated from.
+     */
+    private static final class Entry {
+        private final QName elementQname;
+        private final XmlSchema xmlSchema;
+        private final XmlNode xmlNode;
+
+        Entry(QName elementQname, XmlSchema xmlSchema, XmlNode xmlNode) {
+            this.elementQname = elementQname;
+            this.xmlSchema = xmlSchema;
+            this.xmlNode = xmlNode;
+        }
+
+        boolean isFor(QName elementQname, XmlSchema xmlSchema) {
+            return this.xmlSchema == xmlSchema && this.elementQname.equals(elementQname);
+        }
+    }
+}
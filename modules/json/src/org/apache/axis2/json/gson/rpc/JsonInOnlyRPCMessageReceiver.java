@@ -56,8 +56,8 @@ public class JsonInOnlyRPCMessageReceiver extends RPCInOnlyMessageReceiver {
                 }
                 Object serviceObj = getTheImplementationObject(inMessage);
                 AxisOperation op = inMessage.getOperationContext().getAxisOperation();
-                String operation = op.getName().getLocalPart();
-                invokeService(jsonReader, serviceObj, operation);
+                JsonUtils.MethodBinding binding = JsonUtils.getMethodBinding(op, serviceObj.getClass());
+                invokeService(jsonReader, serviceObj, binding);
             } else {
                 throw new AxisFault("GsonXMLStreamReader should have put as a property of messageContext " +
                         "to evaluate JSON message");
@@ -68,15 +68,18 @@ public class JsonInOnlyRPCMessageReceiver extends RPCInOnlyMessageReceiver {
     }
 
     public void invokeService(JsonReader jsonReader, Object serviceObj, String operation_name) throws AxisFault {
-        Method method = null;
-        String msg;
         Class implClass = serviceObj.getClass();
         Method[] allMethods = implClass.getDeclaredMethods();
-        method = JsonUtils.getOpMethod(operation_name, allMethods);
-        Class[] paramClasses = method.getParameterTypes();
+        Method method = JsonUtils.getOpMethod(operation_name, allMethods);
+        invokeService(jsonReader, serviceObj, new JsonUtils.MethodBinding(method));
+    }
+
+    private void invokeService(JsonReader jsonReader, Object serviceObj,
+                               JsonUtils.MethodBinding binding) throws AxisFault {
+        String msg;
+        Method method = binding.method;
         try {
-            int paramCount = paramClasses.length;
-            JsonUtils.invokeServiceClass(jsonReader, serviceObj, method, paramClasses, paramCount);
+            JsonUtils.invokeServiceClass(jsonReader, serviceObj, method, binding.paramTypes);
         } catch (IllegalAccessException e) {
             msg = "Does not have access to " +
                     "the definition of the specified class, field, method or constructor";
@@ -56,8 +56,8 @@ public class JsonRpcMessageReceiver extends RPCMessageReceiver {
                 }
                 Object serviceObj = getTheImplementationObject(inMessage);
                 AxisOperation op = inMessage.getOperationContext().getAxisOperation();
-                String operation = op.getName().getLocalPart();
-                invokeService(jsonReader, serviceObj, operation , outMessage);
+                JsonUtils.MethodBinding binding = JsonUtils.getMethodBinding(op, serviceObj.getClass());
+                invokeService(jsonReader, serviceObj, binding, outMessage);
             } else {
                 throw new AxisFault("GsonXMLStreamReader should be put as a property of messageContext " +
                         "to evaluate JSON message");
@@ -69,18 +69,22 @@ public class JsonRpcMessageReceiver extends RPCMessageReceiver {
 
     public void invokeService(JsonReader jsonReader, Object serviceObj, String operation_name,
                                    MessageContext outMes) throws AxisFault {
-        String msg;
         Class implClass = serviceObj.getClass();
         Method[] allMethods = implClass.getDeclaredMethods();
         Method method = JsonUtils.getOpMethod(operation_name, allMethods);
-        Class[] paramClasses = method.getParameterTypes();
+        invokeService(jsonReader, serviceObj, new JsonUtils.MethodBinding(method), outMes);
+    }
+
+    private void invokeService(JsonReader jsonReader, Object serviceObj,
+                               JsonUtils.MethodBinding binding, MessageContext outMes) throws AxisFault {
+        String msg;
+        Method method = binding.method;
         try {
-            int paramCount = paramClasses.length;
-            Object retObj = JsonUtils.invokeServiceClass(jsonReader, serviceObj, method, paramClasses, paramCount);
+            Object retObj = JsonUtils.invokeServiceClass(jsonReader, serviceObj, method, binding.paramTypes);
 
-            // handle response
+            // handle response, JsonFormatter writes the return object straight to the output stream
             outMes.setProperty(JsonConstant.RETURN_OBJECT, retObj);
-            outMes.setProperty(JsonConstant.RETURN_TYPE, method.getReturnType());
+            outMes.setProperty(JsonConstant.RETURN_TYPE, binding.returnType);
 
         } catch (IllegalAccessException e) {
             msg = "Does not have access to " +
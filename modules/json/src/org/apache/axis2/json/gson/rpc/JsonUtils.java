@@ -21,24 +21,47 @@ package org.apache.axis2.json.gson.rpc;
 
 import com.google.gson.Gson;
 import com.google.gson.stream.JsonReader;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisOperation;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
 
 
 public class JsonUtils {
 
+    /**
+     * Gson instances are thread safe and cache the type adapters they create, so a single
+     * instance is shared by all requests instead of building a new one per message.
+     */
+    public static final Gson GSON = new Gson();
+
+    private static final String METHOD_BINDING = "jsonMethodBinding";
+
     public static Object invokeServiceClass(JsonReader jsonReader,
                                             Object service,
                                             Method operation ,
                                             Class[] paramClasses ,
                                             int paramCount ) throws InvocationTargetException,
             IllegalAccessException, IOException  {
+        return invokeServiceClass(jsonReader, service, operation, (Type[]) paramClasses);
+    }
+
+    /**
+     * Bind the parameters of the service method straight from the JSON stream and invoke it.
+     * The parameters are read with Gson using their generic types, so collections of beans
+     * are bound to the declared element type.
+     */
+    public static Object invokeServiceClass(JsonReader jsonReader,
+                                            Object service,
+                                            Method operation,
+                                            Type[] paramTypes) throws InvocationTargetException,
+            IllegalAccessException, IOException  {
 
-        Object[] methodParam = new Object[paramCount];
-        Gson gson = new Gson();
-        String[] argNames = new String[paramCount];
+        Object[] methodParam = new Object[paramTypes.length];
 
         if( ! jsonReader.isLenient()){
             jsonReader.setLenient(true);
@@ -47,13 +70,11 @@ public class JsonUtils {
         jsonReader.nextName();     // get message name from input json stream
         jsonReader.beginArray();
 
-        int i = 0;
-        for (Class paramType : paramClasses) {
+        for (int i = 0; i < paramTypes.length; i++) {
             jsonReader.beginObject();
-            argNames[i] = jsonReader.nextName();
-            methodParam[i] = gson.fromJson(jsonReader, paramType);   // gson handle all types well and return an object from it
+            jsonReader.nextName();  // argument name
+            methodParam[i] = GSON.fromJson(jsonReader, paramTypes[i]);   // gson handle all types well and return an object from it
             jsonReader.endObject();
-            i++;
         }
 
         jsonReader.endArray();
@@ -73,4 +94,51 @@ public class JsonUtils {
         return null;
     }
 
+    /**
+     * Get the method binding of the operation for the given implementation class. The binding
+     * is looked up once and cached on the AxisOperation, the same way RPCMessageReceiver caches
+     * the operation Method.
+     */
+    static MethodBinding getMethodBinding(AxisOperation op, Class implClass) throws AxisFault {
+        MethodBinding binding = (MethodBinding) op.getParameterValue(METHOD_BINDING);
+        // If the declaring class has changed, then the cached method is invalid (AXIS2-3947)
+        if (binding != null && binding.method.getDeclaringClass() == implClass) {
+            return binding;
+        }
+        String methodName = op.getName().getLocalPart();
+        Method method = getOpMethod(methodName, implClass.getDeclaredMethods());
+        if (method == null) {
+            throw new AxisFault("No such method '" + methodName +
+                    "' in class " + implClass.getName());
+        }
+        binding = new MethodBinding(method);
+        op.addParameter(METHOD_BINDING, binding);
+        return binding;
+    }
+
+    /**
+     * The resolved service method together with its generic parameter and return types
+     */
+    static final class MethodBinding {
+        final Method method;
+        final Type[] paramTypes;
+        final Type returnType;
+
+        MethodBinding(Method method) {
+            this.method = method;
+            Type[] genericTypes = method.getGenericParameterTypes();
+            Class[] rawTypes = method.getParameterTypes();
+            // Gson cannot bind an unresolved type variable, use the erasure for those
+            for (int i = 0; i < genericTypes.length; i++) {
+                if (genericTypes[i] instanceof TypeVariable) {
+                    genericTypes[i] = rawTypes[i];
+                }
+            }
+            this.paramTypes = genericTypes;
+            Type genericReturnType = method.getGenericReturnType();
+            this.returnType = (genericReturnType instanceof TypeVariable) ?
+                    method.getReturnType() : genericReturnType;
+        }
+    }
+
 }
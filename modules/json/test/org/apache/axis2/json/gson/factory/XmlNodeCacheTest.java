@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.json.gson.factory;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.AxisMessage;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisOperationFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.AxisEvent;
+import org.apache.axis2.json.gson.JsonSchemaObserver;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.apache.ws.commons.schema.XmlSchemaCollection;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class XmlNodeCacheTest {
+
+    private static final QName ECHO_PERSON = new QName("http://test.json.axis2.apache.org", "echoPerson");
+
+    private List<XmlSchema> schemaList;
+
+    @Before
+    public void setUp() throws Exception {
+        schemaList = new ArrayList<XmlSchema>();
+        schemaList.add(readSchema());
+    }
+
+    private XmlSchema readSchema() throws Exception {
+        XmlSchemaCollection schemaCol = new XmlSchemaCollection();
+        return schemaCol.read(new StreamSource(
+                new FileInputStream("test-resources/custom_schema/testSchema_2.xsd")), null);
+    }
+
+    @Test
+    public void testXmlNodeIsKeptOnMessage() throws Exception {
+        AxisMessage message = new AxisMessage();
+        message.setElementQName(ECHO_PERSON);
+
+        XmlNode xmlNode = XmlNodeCache.getXmlNode(message, schemaList);
+        Assert.assertEquals("echoPerson", xmlNode.getName());
+        Assert.assertSame(xmlNode, XmlNodeCache.getXmlNode(message, schemaList));
+
+        try {
+            xmlNode.getChildrenList().clear();
+            Assert.fail("the children of a shared XmlNode could be modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        // a replaced schema gives a new tree
+        schemaList.set(0, readSchema());
+        XmlNode updatedXmlNode = XmlNodeCache.getXmlNode(message, schemaList);
+        Assert.assertNotSame(xmlNode, updatedXmlNode);
+        Assert.assertSame(updatedXmlNode, XmlNodeCache.getXmlNode(message, schemaList));
+    }
+
+    @Test
+    public void testXmlNodeIsKeptOnConfigurationContext() throws Exception {
+        ConfigurationContext configContext = new ConfigurationContext(new AxisConfiguration());
+        XmlNode xmlNode = XmlNodeCache.getXmlNode(ECHO_PERSON, schemaList, configContext);
+        Assert.assertSame(xmlNode, XmlNodeCache.getXmlNode(ECHO_PERSON, schemaList, configContext));
+        Assert.assertNotSame(xmlNode, XmlNodeCache.getXmlNode(ECHO_PERSON, schemaList,
+                new ConfigurationContext(new AxisConfiguration())));
+    }
+
+    @Test
+    public void testXmlNodesAreGeneratedOnDeployment() throws Exception {
+        AxisService axisService = new AxisService("PersonService");
+        axisService.addSchema(schemaList.get(0));
+        AxisOperation axisOperation =
+                AxisOperationFactory.getAxisOperation(WSDLConstants.MEP_CONSTANT_IN_OUT);
+        axisOperation.setName(new QName("echoPerson"));
+        AxisMessage inMessage = axisOperation.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+        inMessage.setElementQName(ECHO_PERSON);
+        AxisMessage outMessage = axisOperation.getMessage(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+        outMessage.setElementQName(new QName("http://test.json.axis2.apache.org", "echoPersonResponse"));
+        axisService.addOperation(axisOperation);
+
+        new JsonSchemaObserver().serviceUpdate(
+                new AxisEvent(AxisEvent.SERVICE_DEPLOY, axisService), axisService);
+
+        Assert.assertNotNull(inMessage.getParameter(JsonConstant.XMLNODE));
+        Assert.assertNotNull(outMessage.getParameter(JsonConstant.XMLNODE));
+        Assert.assertEquals("echoPersonResponse",
+                XmlNodeCache.getXmlNode(outMessage, axisService.getSchema()).getName());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.json.gson.rpc;
+
+import com.google.gson.stream.JsonReader;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.io.StringReader;
+import java.util.List;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void testInvokeWithGenericParameter() throws Exception {
+        AxisOperation op = new InOutAxisOperation(new QName("countAdults"));
+        PeopleService service = new PeopleService();
+        JsonUtils.MethodBinding binding = JsonUtils.getMethodBinding(op, PeopleService.class);
+
+        String jsonRequest = "{\"countAdults\":[{\"arg0\":[{\"name\":\"Simon\",\"age\":\"35\"}," +
+                "{\"name\":\"Anne\",\"age\":\"12\"}]},{\"arg1\":18}]}";
+        JsonReader jsonReader = new JsonReader(new StringReader(jsonRequest));
+        Object result = JsonUtils.invokeServiceClass(jsonReader, service, binding.method,
+                                                     binding.paramTypes);
+        Assert.assertEquals(1, result);
+        Assert.assertEquals(Integer.TYPE, binding.returnType);
+    }
+
+    @Test
+    public void testMethodBindingIsCached() throws Exception {
+        AxisOperation op = new InOutAxisOperation(new QName("countAdults"));
+        JsonUtils.MethodBinding binding = JsonUtils.getMethodBinding(op, PeopleService.class);
+        Assert.assertSame(binding, JsonUtils.getMethodBinding(op, PeopleService.class));
+        Assert.assertNotSame(binding, JsonUtils.getMethodBinding(op, OtherPeopleService.class));
+    }
+
+    public static class PeopleService {
+        public int countAdults(List<Person> people, int minAge) {
+            int count = 0;
+            for (Person person : people) {
+                // fails with a ClassCastException if the list was not bound to Person
+                if (Integer.parseInt(person.getAge()) >= minAge) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    public static class OtherPeopleService {
+        public int countAdults(List<Person> people, int minAge) {
+            return 0;
+        }
+    }
+}
@@ -95,6 +95,11 @@ public class Constants extends org.apache.axis2.namespace.Constants {
 
     public static final String HTTP_RESPONSE_STATE = "axis2.http.response.state";
     public static final String HTTP_BASIC_AUTH_REALM = "axis2.authentication.realm";
+    /**
+     * Value of the Retry-After header the HTTP transports send along with a 503 response
+     * state, e.g. when a {@link org.apache.axis2.engine.Bulkhead} rejects a request
+     */
+    public static final String HTTP_RETRY_AFTER = "axis2.http.retry.after";
 
     /**
      * Field APPLICATION_SCOPE
@@ -388,6 +393,18 @@ public class Constants extends org.apache.axis2.namespace.Constants {
         /** @deprecated MISSPELLING */
         public static final String CONFIG_CONTEXT_TIMOUT_INTERVAL = "ConfigContextTimeoutInterval";
 
+        /**
+         * Maximum number of OperationContexts kept in the message ID table of the
+         * ConfigurationContext. The oldest entries are evicted beyond that. Unbounded by default.
+         */
+        public static final String MAX_OPERATION_CONTEXTS = "MaxOperationContexts";
+
+        /**
+         * Time in milliseconds after which a registered OperationContext that is still waiting
+         * for its MEP to complete is evicted. Disabled by default.
+         */
+        public static final String OPERATION_CONTEXT_TIMEOUT = "OperationContextTimeout";
+
         public static final String TRANSPORT_IN_URL = "TransportInURL";
 
         public static final String URL_PARAMETER_LIST = "URLParameterList";
@@ -0,0 +1,539 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.builder;
+
+import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
+import org.apache.axiom.attachments.lifecycle.impl.LifecycleManagerImpl;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An attachments lifecycle manager which serves cached attachments from memory-mapped files and
+ * reuses those files, instead of creating a new temporary file for each attachment and deleting
+ * it once the message has been processed. It is enabled in axis2.xml with
+ * <pre>
+ * &lt;attachmentsLifecycleManager class="org.apache.axis2.builder.SpoolFileLifecycleManager"/&gt;
+ * </pre>
+ * The data handlers of the attachments read directly from a read-only mapping of the file, and
+ * {@link SpoolDataSource#transferTo(WritableByteChannel)} copies the attachment to a channel with
+ * {@link FileChannel#transferTo}. The data handler does so itself when it is written to a
+ * {@link FileOutputStream}.
+ * <p/>
+ * A released file is truncated and kept for a later attachment in the same directory, at most
+ * {@link #getMaxPooledFiles()} files per directory, but only if none of the streams opened
+ * through this manager on the attachment is still open; otherwise the file is deleted. A released
+ * file is renamed, so a late {@link #delete(File)} for an earlier use of the file has no effect,
+ * and the data sources of an earlier use fail instead of returning the data of the next one. Code that opens the file by its name bypasses this and must not read it
+ * after it has been released.
+ * <p/>
+ * A file is released when {@link #delete(File)} has been called once more than
+ * {@link #retain(File)}, which lets a component that passes an attachment on to another message
+ * keep the file until both messages are done with it.
+ */
+public class SpoolFileLifecycleManager extends LifecycleManagerImpl {
+
+    private static final Log log = LogFactory.getLog(SpoolFileLifecycleManager.class);
+
+    private static final String PREFIX = "Axis2";
+    private static final String SUFFIX = ".att";
+
+    /** The files in use, by path */
+    private final Map<File, SpoolFile> inUse = new ConcurrentHashMap<File, SpoolFile>();
+
+    /** The released files, by directory */
+    private final ConcurrentMap<String, Queue<SpoolFile>> pools =
+            new ConcurrentHashMap<String, Queue<SpoolFile>>();
+
+    private final AtomicInteger pooledFiles = new AtomicInteger();
+    private final AtomicLong createdFiles = new AtomicLong();
+    private final AtomicLong reusedFiles = new AtomicLong();
+
+    private volatile int maxPooledFiles = 64;
+
+    public FileAccessor create(String attachmentDir) throws IOException {
+        String dir = attachmentDir == null ? "" : attachmentDir;
+        SpoolFile spoolFile = null;
+        int generation = 0;
+        Queue<SpoolFile> pool = pools.get(dir);
+        if (pool != null) {
+            while ((spoolFile = pool.poll()) != null) {
+                pooledFiles.decrementAndGet();
+                generation = spoolFile.acquire();
+                if (generation >= 0) {
+                    reusedFiles.incrementAndGet();
+                    break;
+                }
+            }
+        }
+        if (spoolFile == null) {
+            File parent = attachmentDir == null ? null : new File(attachmentDir);
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            spoolFile = new SpoolFile(dir, File.createTempFile(PREFIX, SUFFIX, parent));
+            generation = 0;
+            createdFiles.incrementAndGet();
+        }
+        File file = spoolFile.getFile();
+        inUse.put(file, spoolFile);
+        if (log.isDebugEnabled()) {
+            log.debug("Caching attachment in " + file);
+        }
+        return new SpoolFileAccessor(spoolFile, file, generation);
+    }
+
+    /**
+     * Keep the given file until {@link #delete(File)} has been called once more.
+     *
+     * @return false if the file is not managed by this lifecycle manager, or has been released
+     */
+    public boolean retain(File file) {
+        SpoolFile spoolFile = inUse.get(file);
+        return spoolFile != null && spoolFile.retain();
+    }
+
+    public void delete(File file) throws IOException {
+        SpoolFile spoolFile = inUse.get(file);
+        if (spoolFile == null) {
+            super.delete(file);
+            return;
+        }
+        if (!spoolFile.release()) {
+            return;
+        }
+        inUse.remove(file);
+        if (pooledFiles.incrementAndGet() <= maxPooledFiles && spoolFile.truncate()) {
+            Queue<SpoolFile> pool = pools.get(spoolFile.dir);
+            if (pool == null) {
+                Queue<SpoolFile> newPool = new ConcurrentLinkedQueue<SpoolFile>();
+                pool = pools.putIfAbsent(spoolFile.dir, newPool);
+                if (pool == null) {
+                    pool = newPool;
+                }
+            }
+            pool.offer(spoolFile);
+        } else {
+            pooledFiles.decrementAndGet();
+            // streams that are still open keep reading the deleted file
+            if (!file.delete()) {
+                super.deleteOnExit(file);
+            }
+        }
+    }
+
+    public void deleteOnExit(File file) throws IOException {
+        // The file may still be in use, so it is not reused
+        inUse.remove(file);
+        super.deleteOnExit(file);
+    }
+
+    public void deleteOnTimeInterval(int interval, File file) throws IOException {
+        inUse.remove(file);
+        super.deleteOnTimeInterval(interval, file);
+    }
+
+    /**
+     * Delete the released files.
+     */
+    public void clear() {
+        for (Queue<SpoolFile> pool : pools.values()) {
+            SpoolFile spoolFile;
+            while ((spoolFile = pool.poll()) != null) {
+                pooledFiles.decrementAndGet();
+                spoolFile.getFile().delete();
+            }
+        }
+    }
+
+    public int getMaxPooledFiles() {
+        return maxPooledFiles;
+    }
+
+    public void setMaxPooledFiles(int maxPooledFiles) {
+        this.maxPooledFiles = maxPooledFiles;
+    }
+
+    /**
+     * @return the number of released files kept for reuse
+     */
+    public int getPooledFileCount() {
+        return pooledFiles.get();
+    }
+
+    public long getCreatedFileCount() {
+        return createdFiles.get();
+    }
+
+    public long getReusedFileCount() {
+        return reusedFiles.get();
+    }
+
+    /**
+     * Gives access to one use of a spool file.
+     */
+    private final class SpoolFileAccessor extends FileAccessor {
+        private final SpoolFile spoolFile;
+        private final int generation;
+
+        SpoolFileAccessor(SpoolFile spoolFile, File file, int generation) {
+            super(SpoolFileLifecycleManager.this, file);
+            this.spoolFile = spoolFile;
+            this.generation = generation;
+        }
+
+        public InputStream getInputStream() throws IOException {
+            return spoolFile.openInputStream(generation);
+        }
+
+        public DataHandler getDataHandler(String contentType) {
+            return new SpoolDataHandler(
+                    new SpoolDataSource(spoolFile, generation, getFile().getName(), contentType));
+        }
+    }
+
+    /**
+     * A data source reading an attachment from its spool file. It fails once the file has been
+     * released.
+     */
+    public static final class SpoolDataSource implements DataSource {
+        private final SpoolFile spoolFile;
+        private final int generation;
+        private final String name;
+        private final String contentType;
+
+        SpoolDataSource(SpoolFile spoolFile, int generation, String name, String contentType) {
+            this.spoolFile = spoolFile;
+            this.generation = generation;
+            this.name = name;
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType == null ? "application/octet-stream" : contentType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return a stream reading the memory-mapped file
+         */
+        public InputStream getInputStream() throws IOException {
+            return spoolFile.openInputStream(generation);
+        }
+
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("Cached attachments are read-only");
+        }
+
+        /**
+         * Copy the attachment to the given channel using {@link FileChannel#transferTo}, which
+         * lets the operating system copy the data without passing it through the Java heap.
+         *
+         * @param target the channel to write to
+         * @return the number of bytes written
+         * @throws IOException if the file has been released or an I/O error occurs
+         */
+        public long transferTo(WritableByteChannel target) throws IOException {
+            return spoolFile.transferTo(generation, target);
+        }
+    }
+
+    /**
+     * Uses {@link FileChannel#transferTo} when it is written to a file.
+     */
+    private static final class SpoolDataHandler extends DataHandler {
+        private final SpoolDataSource dataSource;
+
+        SpoolDataHandler(SpoolDataSource dataSource) {
+            super(dataSource);
+            this.dataSource = dataSource;
+        }
+
+        public void writeTo(OutputStream os) throws IOException {
+            if (os instanceof FileOutputStream) {
+                // null for the streams of a java.net.Socket
+                FileChannel channel = ((FileOutputStream) os).getChannel();
+                if (channel != null) {
+                    dataSource.transferTo(channel);
+                    return;
+                }
+            }
+            super.writeTo(os);
+        }
+    }
+
+    private static final class SpoolFile {
+        final String dir;
+        /** The name without the suffix, as created by {@link File#createTempFile} */
+        private final String baseName;
+        private int generation;
+        private int references = 1;
+        /** The number of open streams on the file */
+        private int readers;
+        private MappedByteBuffer mapping;
+        private File file;
+
+        SpoolFile(String dir, File file) {
+            this.dir = dir;
+            this.file = file;
+            String name = file.getName();
+            baseName = name.substring(0, name.length() - SUFFIX.length());
+        }
+
+        synchronized File getFile() {
+            return file;
+        }
+
+        synchronized boolean retain() {
+            if (references == 0) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        /**
+         * @return true if this was the last reference
+         */
+        synchronized boolean release() {
+            if (references > 0 && --references == 0) {
+                mapping = null;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Empty the file and rename it for its next use, unless a stream is still open on it.
+         */
+        synchronized boolean truncate() {
+            if (readers > 0) {
+                return false;
+            }
+            try {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(0);
+                } finally {
+                    raf.close();
+                }
+            } catch (IOException e) {
+                log.debug("Cannot truncate " + file, e);
+                return false;
+            }
+            File newFile = new File(file.getParentFile(), baseName + "-" + (generation + 1) + SUFFIX);
+            if (!file.renameTo(newFile)) {
+                return false;
+            }
+            file = newFile;
+            return true;
+        }
+
+        /**
+         * Hand out the released file again.
+         *
+         * @return the generation of the new use, or -1 if the file no longer exists
+         */
+        synchronized int acquire() {
+            if (!file.exists()) {
+                return -1;
+            }
+            references = 1;
+            return ++generation;
+        }
+
+        private void checkInUse(int generation) throws IOException {
+            if (generation != this.generation || references == 0) {
+                throw new IOException("The cached attachment has been released");
+            }
+        }
+
+        /**
+         * Open a stream on the given use of the file. Attachments that fit into a single mapping
+         * are read from memory-mapped file.
+         */
+        InputStream openInputStream(int generation) throws IOException {
+            ByteBuffer buffer;
+            File file;
+            synchronized (this) {
+                checkInUse(generation);
+                file = this.file;
+                long length = file.length();
+                if (length <= Integer.MAX_VALUE) {
+                    if (mapping == null || mapping.capacity() != length) {
+                        // the attachment is mapped once it has been written completely
+                        RandomAccessFile raf = new RandomAccessFile(file, "r");
+                        try {
+                            mapping = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+                        } finally {
+                            raf.close();
+                        }
+                    }
+                    buffer = mapping.duplicate();
+                } else {
+                    buffer = null;
+                }
+                readers++;
+            }
+            if (buffer != null) {
+                return new MappedInputStream(buffer, this);
+            }
+            try {
+                return new ReaderInputStream(new FileInputStream(file), this);
+            } catch (IOException e) {
+                closeReader();
+                throw e;
+            }
+        }
+
+        long transferTo(int generation, WritableByteChannel target) throws IOException {
+            File file;
+            synchronized (this) {
+                checkInUse(generation);
+                file = this.file;
+                readers++;
+            }
+            try {
+                FileInputStream in = new FileInputStream(file);
+                try {
+                    FileChannel channel = in.getChannel();
+                    long size = channel.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += channel.transferTo(position, size - position, target);
+                    }
+                    return size;
+                } finally {
+                    in.close();
+                }
+            } finally {
+                closeReader();
+            }
+        }
+
+        synchronized void closeReader() {
+            readers--;
+        }
+    }
+
+    /**
+     * Reads a memory-mapped spool file.
+     */
+    private static final class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private SpoolFile spoolFile;
+
+        MappedInputStream(ByteBuffer buffer, SpoolFile spoolFile) {
+            this.buffer = buffer;
+            this.spoolFile = spoolFile;
+        }
+
+        public int read() throws IOException {
+            checkOpen();
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        public long skip(long n) throws IOException {
+            checkOpen();
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        public int available() throws IOException {
+            checkOpen();
+            return buffer.remaining();
+        }
+
+        private void checkOpen() throws IOException {
+            if (spoolFile == null) {
+                throw new IOException("Stream closed");
+            }
+        }
+
+        public void close() {
+            if (spoolFile != null) {
+                spoolFile.closeReader();
+                spoolFile = null;
+            }
+        }
+    }
+
+    /**
+     * Reads a spool file too large to be mapped at once.
+     */
+    private static final class ReaderInputStream extends FilterInputStream {
+        private SpoolFile spoolFile;
+
+        ReaderInputStream(InputStream in, SpoolFile spoolFile) {
+            super(in);
+            this.spoolFile = spoolFile;
+        }
+
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (spoolFile != null) {
+                    spoolFile.closeReader();
+                    spoolFile = null;
+                }
+            }
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.apache.axis2.wsdl.WSDLConstants;
 import javax.xml.namespace.QName;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An operation client is the way an advanced user interacts with Axis2. Actual
@@ -165,6 +166,43 @@ public abstract class OperationClient {
      */
     public abstract void executeImpl(boolean block) throws AxisFault;
 
+    /**
+     * Execute the MEP without blocking and return a future that completes with the response
+     * message context. A SOAP fault completes the future exceptionally unless
+     * {@link Options#isExceptionToBeThrownOnSOAPFault()} is <code>false</code>, in which case
+     * the future completes with the fault message context. This replaces any callback set with
+     * {@link #setCallback(AxisCallback)}, and is only meaningful for MEPs with a response.
+     * <p>
+     * When the transport sender supports it (see
+     * {@link org.apache.axis2.transport.NonBlockingTransportSender}) no thread is held while
+     * the response is outstanding. The caller should release the transport resources with
+     * {@link #complete(MessageContext)} once the response has been processed.
+     *
+     * @return the future response message context
+     * @throws AxisFault if the request could not be prepared
+     */
+    public CompletableFuture<MessageContext> executeAsync() throws AxisFault {
+        final CompletableFuture<MessageContext> future = new CompletableFuture<MessageContext>();
+        setCallback(new AxisCallback() {
+            public void onMessage(MessageContext msgContext) {
+                future.complete(msgContext);
+            }
+
+            public void onFault(MessageContext msgContext) {
+                future.complete(msgContext);
+            }
+
+            public void onError(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            public void onComplete() {
+            }
+        });
+        execute(false);
+        return future;
+    }
+
     /**
      * Reset the operation client to a clean status after the MEP has completed.
      * This is how you can reuse an operation client. NOTE: this does not reset
@@ -58,6 +58,7 @@ import javax.wsdl.Definition;
 import javax.xml.namespace.QName;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Client access to a service. Each instance of this class is associated with a particular {@link
@@ -602,6 +603,78 @@ public class ServiceClient {
         mepClient.execute(false);
     }
 
+    /**
+     * Directly invoke an anonymous operation with an In-Out MEP without waiting for a response.
+     *
+     * @param elem the data to send (becomes the content of SOAP body)
+     * @return a future for the content of the response SOAP body
+     * @throws AxisFault if the request could not be prepared
+     * @see #sendReceiveAsync(QName, OMElement)
+     */
+    public CompletableFuture<OMElement> sendReceiveAsync(OMElement elem) throws AxisFault {
+        return sendReceiveAsync(ANON_OUT_IN_OP, elem);
+    }
+
+    /**
+     * Directly invoke a named operation with an In-Out MEP without waiting for a response. The
+     * returned future completes with the content of the response SOAP body, or exceptionally if
+     * the invocation fails. The response is fully built before the future completes and the
+     * transport is cleaned up right after, so there is no need to call
+     * {@link #cleanupTransport()}.
+     * <p>
+     * With a transport sender that supports it (see
+     * {@link org.apache.axis2.transport.NonBlockingTransportSender}) no thread is held while the
+     * response is outstanding; otherwise the request is sent from a thread of the configuration
+     * context's thread pool, as with {@link #sendReceiveNonBlocking(QName, OMElement,
+     * AxisCallback)}.
+     *
+     * @param operation name of operation to be invoked (non-<code>null</code>)
+     * @param elem      the data to send (becomes the content of SOAP body)
+     * @return a future for the content of the response SOAP body
+     * @throws AxisFault if the request could not be prepared
+     */
+    public CompletableFuture<OMElement> sendReceiveAsync(QName operation, OMElement elem)
+            throws AxisFault {
+        final MessageContext mc = new MessageContext();
+        fillSOAPEnvelope(mc, elem);
+        final OperationClient mepClient = createClient(operation);
+        final CompletableFuture<OMElement> future = new CompletableFuture<OMElement>();
+        mepClient.setCallback(new AxisCallback() {
+            public void onMessage(MessageContext msgContext) {
+                complete(msgContext);
+            }
+
+            public void onFault(MessageContext msgContext) {
+                complete(msgContext);
+            }
+
+            public void onError(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            public void onComplete() {
+                try {
+                    mepClient.complete(mc);
+                } catch (AxisFault e) {
+                    log.debug("Unable to clean up the transport", e);
+                }
+            }
+
+            private void complete(MessageContext response) {
+                try {
+                    SOAPEnvelope envelope = response.getEnvelope();
+                    envelope.buildWithAttachments();
+                    future.complete(envelope.getBody().getFirstElement());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        mepClient.addMessageContext(mc);
+        mepClient.execute(false);
+        return future;
+    }
+
     /**
      * Create an operation client with the appropriate message exchange pattern (MEP). This method
      * creates a full-function MEP client which can be used to exchange messages for a specific
@@ -42,6 +42,7 @@ public abstract class AbstractContext {
     private static final OnDemandLogger log = new OnDemandLogger(AbstractContext.class);
     
     private static final int DEFAULT_MAP_SIZE = 64;
+    private static final int MISS_CACHE_SIZE = 16;
     private static boolean DEBUG_ENABLED = log.isTraceEnabled();
     private static boolean DEBUG_PROPERTY_SET = false;
     private boolean isClusteringOn = false;
@@ -58,6 +59,17 @@ public abstract class AbstractContext {
     protected transient Map<String, Object> properties;
     private transient Map<String, Object> propertyDifferences;
 
+    /**
+     * Bumped whenever the property map is replaced or the parent changes. Together with the
+     * modification count of the {@link PropertyStore} it tells whether a cached miss is stale.
+     */
+    private transient volatile int propertyEpoch;
+
+    /**
+     * Direct-mapped cache of keys that were recently not found anywhere in the parent hierarchy.
+     */
+    private transient volatile Miss[] missCache;
+
     protected AbstractContext(AbstractContext parent) {
         this.parent = parent;
     }
@@ -135,7 +147,7 @@ public abstract class AbstractContext {
                 addPropertyDifference(key, obj, false);
             }
         } else if (parent!=null) {
-            obj = parent.getProperty(key);
+            obj = getParentProperty(key, true);
         } 
         return obj;
     }
@@ -177,11 +189,59 @@ public abstract class AbstractContext {
     public Object getPropertyNonReplicable(String key) {
         Object obj = properties == null ? null : properties.get(key);
         if ((obj == null) && (parent != null)) {
-            obj = parent.getPropertyNonReplicable(key);
+            obj = getParentProperty(key, false);
         }
         return obj;
     }
 
+    /**
+     * Looks a key up in the parent hierarchy, remembering misses so that repeated lookups of
+     * absent keys (the common case for most well known properties) do not walk every ancestor.
+     * A cached miss is only trusted while no ancestor has gained a property or changed parent.
+     */
+    private Object getParentProperty(String key, boolean replicable) {
+        AbstractContext ancestor = parent;
+        // read the version before the lookup so that a concurrent addition invalidates the entry
+        long version = key == null ? -1 : ancestor.getHierarchyVersion();
+        int index = version < 0 ? 0 : key.hashCode() & (MISS_CACHE_SIZE - 1);
+        Miss[] cache = missCache;
+        if (version >= 0 && cache != null) {
+            Miss miss = cache[index];
+            if (miss != null && miss.version == version && miss.parent == ancestor
+                    && miss.key.equals(key)) {
+                return null;
+            }
+        }
+        Object obj = replicable ? ancestor.getProperty(key)
+                : ancestor.getPropertyNonReplicable(key);
+        if (obj == null && version >= 0) {
+            if (cache == null) {
+                missCache = cache = new Miss[MISS_CACHE_SIZE];
+            }
+            cache[index] = new Miss(key, ancestor, version);
+        }
+        return obj;
+    }
+
+    /**
+     * @return a value that grows whenever a property is added to this context or one of its
+     *         ancestors, or -1 if a context uses a property map that cannot be tracked
+     */
+    private long getHierarchyVersion() {
+        long version = 0;
+        for (AbstractContext context = this; context != null; context = context.parent) {
+            Map<String, Object> props = context.properties;
+            long mods = 0;
+            if (props instanceof PropertyStore) {
+                mods = ((PropertyStore) props).getModCount() & 0xffffffffL;
+            } else if (props != null) {
+                return -1;
+            }
+            version += ((long) context.propertyEpoch << 32) + mods;
+        }
+        return version;
+    }
+
     /**
      * Store a property in this context
      *
@@ -341,6 +401,7 @@ public abstract class AbstractContext {
      */
     public void setParent(AbstractContext context) {
         parent = context;
+        propertyEpoch++;
     }
 
     /**
@@ -352,6 +413,7 @@ public abstract class AbstractContext {
      * @param properties
      */
     public void setProperties(Map<String, Object> properties) {
+        propertyEpoch++;
         if (properties == null) {
             this.properties = null;
         } else {
@@ -376,7 +438,7 @@ public abstract class AbstractContext {
                 // argument map.
                 while (true) {
                     try {
-                        this.properties = new HashMap(properties);
+                        this.properties = new PropertyStore(properties);
                         break;
                     } catch (ConcurrentModificationException cme) {
                     }
@@ -479,10 +541,19 @@ public abstract class AbstractContext {
      */
     private void initPropertiesMap() {
         if (properties == null) {
-            // This needs to be a concurrent collection to prevent ConcurrentModificationExcpetions
-            // for async-on-the-wire.  It was originally: 
-//            properties = new HashMap(DEFAULT_MAP_SIZE);
-            properties = new HashMap<String,Object>(DEFAULT_MAP_SIZE);
+            properties = new PropertyStore();
+        }
+    }
+
+    private static final class Miss {
+        private final String key;
+        private final AbstractContext parent;
+        private final long version;
+
+        Miss(String key, AbstractContext parent, long version) {
+            this.key = key;
+            this.parent = parent;
+            this.version = version;
         }
     }
 }
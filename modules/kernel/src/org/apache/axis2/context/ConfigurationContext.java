@@ -40,6 +40,7 @@ import org.apache.axis2.java.security.AccessController;
 import org.apache.axis2.modules.Module;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.OnDemandLogger;
+import org.apache.axis2.util.TimerWheel;
 import org.apache.axis2.util.threadpool.ThreadFactory;
 import org.apache.axis2.util.threadpool.ThreadPool;
 
@@ -47,12 +48,14 @@ import java.io.File;
 import java.net.URL;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>Axis2 states are held in two information models, called description hierarchy and context
@@ -69,9 +72,16 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ConfigurationContext extends AbstractContext {
 
     private static final OnDemandLogger log = new OnDemandLogger(ConfigurationContext.class);
+    private static final long SERVICE_GROUP_CONTEXT_TICK = 1000;
+
     /** Map containing <code>MessageID</code> to <code>OperationContext</code> mapping. */
-    private final ConcurrentHashMap<String, OperationContext> operationContextMap = new ConcurrentHashMap<String, OperationContext>();
+    private OperationContextRegistry operationContextMap;
     private final Hashtable<String, ServiceGroupContext> serviceGroupContextMap = new Hashtable<String, ServiceGroupContext>();
+    /** Idle timeouts of the SOAP session ServiceGroupContexts in serviceGroupContextMap */
+    private final TimerWheel<ServiceGroupContext> serviceGroupContextTimeouts =
+            new TimerWheel<ServiceGroupContext>(SERVICE_GROUP_CONTEXT_TICK, 128);
+    private final AtomicLong expiredServiceGroupContexts = new AtomicLong();
+    private ScheduledExecutorService contextSweeper;
     private Hashtable<String, ServiceGroupContext> applicationSessionServiceGroupContexts = new Hashtable<String, ServiceGroupContext>();
     private AxisConfiguration axisConfiguration;
     private ThreadFactory threadPool;
@@ -99,6 +109,7 @@ public class ConfigurationContext extends AbstractContext {
         super(null);
         this.axisConfiguration = axisConfiguration;
         initConfigContextTimeout(axisConfiguration);
+        initOperationContextRegistry(axisConfiguration);
     }
 
     private void initConfigContextTimeout(AxisConfiguration axisConfiguration) {
@@ -112,6 +123,68 @@ public class ConfigurationContext extends AbstractContext {
         }
     }
 
+    private void initOperationContextRegistry(AxisConfiguration axisConfiguration) {
+        int maxSize = 0;
+        long timeout = 0;
+        Parameter parameter =
+                axisConfiguration.getParameter(Constants.Configuration.MAX_OPERATION_CONTEXTS);
+        if (parameter != null && parameter.getValue() instanceof String) {
+            try {
+                maxSize = Integer.parseInt(((String) parameter.getValue()).trim());
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring the invalid value '" + parameter.getValue() + "' of the " +
+                        Constants.Configuration.MAX_OPERATION_CONTEXTS + " parameter");
+            }
+        }
+        parameter = axisConfiguration.getParameter(Constants.Configuration.OPERATION_CONTEXT_TIMEOUT);
+        if (parameter != null && parameter.getValue() instanceof String) {
+            try {
+                timeout = Long.parseLong(((String) parameter.getValue()).trim());
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring the invalid value '" + parameter.getValue() + "' of the " +
+                        Constants.Configuration.OPERATION_CONTEXT_TIMEOUT + " parameter");
+            }
+        }
+        // resolve timeouts to roughly 1/64th of their length, within 50ms to 1s
+        long tick = timeout > 0 ? Math.min(1000, Math.max(50, timeout / 64)) : 1000;
+        operationContextMap = new OperationContextRegistry(this, maxSize, timeout, tick);
+        if (operationContextMap.isBounded()) {
+            operationContextMap.setExecutor(getContextSweeper());
+        }
+    }
+
+    /**
+     * Returns the single daemon thread that expires OperationContexts and idle SOAP session
+     * ServiceGroupContexts, starting it on first use.
+     */
+    private synchronized ScheduledExecutorService getContextSweeper() {
+        if (contextSweeper == null) {
+            contextSweeper = Executors.newSingleThreadScheduledExecutor(
+                    new java.util.concurrent.ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "Axis2ContextSweeper");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            long tick = operationContextMap.getTickMillis() > 0
+                    ? Math.min(operationContextMap.getTickMillis(), SERVICE_GROUP_CONTEXT_TICK)
+                    : SERVICE_GROUP_CONTEXT_TICK;
+            contextSweeper.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        long now = System.currentTimeMillis();
+                        operationContextMap.sweep(now);
+                        sweepServiceGroupContexts(now);
+                    } catch (Throwable t) {
+                        log.error("Failed to expire contexts", t);
+                    }
+                }
+            }, tick, tick, TimeUnit.MILLISECONDS);
+        }
+        return contextSweeper;
+    }
+
     /**
      * Initializes the ClusterManager for this ConfigurationContext
      *
@@ -245,8 +318,6 @@ public class ConfigurationContext extends AbstractContext {
                 messageContext
                         .setServiceContext(serviceGroupContext.getServiceContext(axisService));
             } else if (Constants.SCOPE_SOAP_SESSION.equals(scope)) {
-                //cleaning the session
-                cleanupServiceGroupContexts();
                 String serviceGroupContextId = messageContext.getServiceGroupContextId();
                 if (serviceGroupContextId != null) {
                     serviceGroupContext =
@@ -315,10 +386,9 @@ public class ConfigurationContext extends AbstractContext {
         mepContext.setKey(messageID);
 
         if (override) {
-            operationContextMap.put(messageID, mepContext);
+            operationContextMap.register(messageID, mepContext, true);
         } else {
-            Object previous = operationContextMap.putIfAbsent(messageID, mepContext);
-            alreadyInMap = (previous != null);
+            alreadyInMap = !operationContextMap.register(messageID, mepContext, false);
         }
         if (log.isDebugEnabled()) {
             log.debug("registerOperationContext (" + override + "): " +
@@ -344,7 +414,7 @@ public class ConfigurationContext extends AbstractContext {
                 log.debug("messageID is null.");
             }
         } else {
-            OperationContext opCtx = operationContextMap.remove(messageID);
+            OperationContext opCtx = operationContextMap.unregister(messageID);
             contextRemoved(opCtx);
         }
     }
@@ -353,6 +423,37 @@ public class ConfigurationContext extends AbstractContext {
         return !operationContextMap.isEmpty();
     }
 
+    /**
+     * @return the number of OperationContexts currently registered by message ID
+     */
+    public int getOperationContextCount() {
+        return operationContextMap.size();
+    }
+
+    /**
+     * @return the number of OperationContexts evicted because the configured maximum
+     *         ({@link Constants.Configuration#MAX_OPERATION_CONTEXTS}) was reached
+     */
+    public long getEvictedOperationContextCount() {
+        return operationContextMap.getEvictionCount();
+    }
+
+    /**
+     * @return the number of OperationContexts evicted because they were registered for longer
+     *         than {@link Constants.Configuration#OPERATION_CONTEXT_TIMEOUT}
+     */
+    public long getExpiredOperationContextCount() {
+        return operationContextMap.getExpirationCount();
+    }
+
+    /**
+     * @return the number of SOAP session ServiceGroupContexts removed after being idle for
+     *         longer than the service group context timeout
+     */
+    public long getExpiredServiceGroupContextCount() {
+        return expiredServiceGroupContexts.get();
+    }
+
     /**
      * Adds the given ServiceGroupContext into the SOAP session table
      *
@@ -364,8 +465,9 @@ public class ConfigurationContext extends AbstractContext {
         serviceGroupContextMap.put(id, serviceGroupContext);
         serviceGroupContext.touch();
         serviceGroupContext.setParent(this);
-        // this is the best time to clean up the SGCtxts since are not being used anymore
-        cleanupServiceGroupContexts();
+        getContextSweeper();
+        serviceGroupContextTimeouts.schedule(serviceGroupContext,
+                serviceGroupContext.getLastTouchedTime() + getServiceGroupContextTimeoutInterval());
     }
 
     /**
@@ -436,7 +538,7 @@ public class ConfigurationContext extends AbstractContext {
         // group name is not necessarily a prereq
         // but if the group name is non-null, then it has to match
 
-        Iterator<OperationContext> it = operationContextMap.values().iterator();
+        Iterator<OperationContext> it = operationContextMap.contexts();
 
         while (it.hasNext()) {
             OperationContext value = it.next();
@@ -647,23 +749,28 @@ public class ConfigurationContext extends AbstractContext {
         cleanupServiceContexts(serviceGroupContext);
     }
 
-    private void cleanupServiceGroupContexts() {
-        if (serviceGroupContextMap == null) {
-            return;
-        }
-        long currentTime = new Date().getTime();
-
-        synchronized (serviceGroupContextMap) {
-            for (Iterator<String> sgCtxtMapKeyIter = serviceGroupContextMap.keySet().iterator();
-                 sgCtxtMapKeyIter.hasNext();) {
-                String sgCtxtId = sgCtxtMapKeyIter.next();
-                ServiceGroupContext serviceGroupContext =serviceGroupContextMap.get(sgCtxtId);
-                if ((currentTime - serviceGroupContext.getLastTouchedTime()) >
-                    getServiceGroupContextTimeoutInterval()) {
-                    sgCtxtMapKeyIter.remove();
-                    cleanupServiceContexts(serviceGroupContext);
-                    contextRemoved(serviceGroupContext);
-                }
+    /**
+     * Removes the SOAP session ServiceGroupContexts whose idle timeout has elapsed. Only the
+     * contexts that were due since the last run are looked at; a context that has been touched in
+     * the meantime is simply rescheduled.
+     */
+    private void sweepServiceGroupContexts(long now) {
+        List<TimerWheel.Timeout<ServiceGroupContext>> due = serviceGroupContextTimeouts.expire(now);
+        for (TimerWheel.Timeout<ServiceGroupContext> timeout : due) {
+            ServiceGroupContext serviceGroupContext = timeout.getItem();
+            String sgCtxtId = serviceGroupContext.getId();
+            if (sgCtxtId == null || serviceGroupContextMap.get(sgCtxtId) != serviceGroupContext) {
+                // already removed
+                continue;
+            }
+            long deadline = serviceGroupContext.getLastTouchedTime() +
+                            getServiceGroupContextTimeoutInterval();
+            if (deadline > now) {
+                serviceGroupContextTimeouts.reschedule(timeout, deadline);
+            } else if (serviceGroupContextMap.remove(sgCtxtId, serviceGroupContext)) {
+                expiredServiceGroupContexts.incrementAndGet();
+                cleanupServiceContexts(serviceGroupContext);
+                contextRemoved(serviceGroupContext);
             }
         }
     }
@@ -719,6 +826,7 @@ public class ConfigurationContext extends AbstractContext {
             }
             serviceGroupContextMap.clear();
         }
+        serviceGroupContextTimeouts.clear();
     }
     /**
      * Called during shutdown to clean up all Contexts
@@ -782,6 +890,12 @@ public class ConfigurationContext extends AbstractContext {
      */
     public void terminate() throws AxisFault {
         shutdownModulesAndServices();
+        synchronized (this) {
+            if (contextSweeper != null) {
+                contextSweeper.shutdownNow();
+                contextSweeper = null;
+            }
+        }
         if (listenerManager != null) {
             listenerManager.destroy();
         }
@@ -582,7 +582,7 @@ public class OperationContext extends AbstractContext
         // properties
         //---------------------------------------------------------
         in.readUTF(); // read marker
-        properties = in.readMap(new HashMap());
+        properties = in.readMap(new PropertyStore());
 
         //---------------------------------------------------------
         // axis operation meta data
@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.context;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.util.CallbackReceiver;
+import org.apache.axis2.util.OnDemandLogger;
+import org.apache.axis2.util.TimerWheel;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The message ID to OperationContext table of a {@link ConfigurationContext}.
+ * <p/>
+ * Without limits configured this is a plain concurrent map. When a time to live is set, every
+ * registration is also placed on a {@link TimerWheel} and evicted once the time to live has
+ * elapsed. When a maximum size is set, the registrations are also kept in insertion order and
+ * the oldest ones are evicted once the table is full. The AxisCallback still waiting for the
+ * response of an evicted context, if any, is faulted so that the caller does not wait forever
+ * for a response that got lost.
+ */
+final class OperationContextRegistry {
+
+    private static final OnDemandLogger log = new OnDemandLogger(OperationContextRegistry.class);
+
+    private final ConfigurationContext configurationContext;
+    private final ConcurrentHashMap<String, Entry> contexts = new ConcurrentHashMap<String, Entry>();
+    private final int maxSize;
+    private final long timeToLive;
+    private final TimerWheel<Entry> wheel;
+
+    /**
+     * Sentinel of the list of registered entries in insertion order, only maintained when a
+     * maximum size is set. The links of the entries are guarded by this object.
+     */
+    private final Entry order = new Entry(null, null);
+
+    private Executor executor;
+
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * @param configurationContext the owning context, notified when an entry is evicted
+     * @param maxSize              the maximum number of entries, or 0 for no limit
+     * @param timeToLive           the time in milliseconds after which an entry is evicted,
+     *                             or 0 to keep entries until they are unregistered
+     * @param tickMillis           the resolution of the expiry timer
+     */
+    OperationContextRegistry(ConfigurationContext configurationContext, int maxSize,
+                             long timeToLive, long tickMillis) {
+        this.configurationContext = configurationContext;
+        this.maxSize = Math.max(0, maxSize);
+        this.timeToLive = Math.max(0, timeToLive);
+        order.prev = order;
+        order.next = order;
+        if (this.timeToLive > 0) {
+            wheel = new TimerWheel<Entry>(tickMillis, 512);
+        } else {
+            wheel = null;
+        }
+    }
+
+    /**
+     * @param executor where the waiting callbacks of evicted entries are notified; if not set
+     *                 they are notified by the thread that causes the eviction
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the resolution of the expiry timer, or 0 if entries never expire
+     */
+    long getTickMillis() {
+        return wheel == null ? 0 : wheel.getTickMillis();
+    }
+
+    /**
+     * @return true if entries may be evicted, either because they expire or because the table
+     *         is full
+     */
+    boolean isBounded() {
+        return maxSize > 0 || timeToLive > 0;
+    }
+
+    OperationContext get(String messageID) {
+        Entry entry = contexts.get(messageID);
+        return entry == null ? null : entry.context;
+    }
+
+    /**
+     * @return true if the context was registered, false if another context was already
+     *         registered for the message ID and override was not requested
+     */
+    boolean register(String messageID, OperationContext context, boolean override) {
+        Entry entry = new Entry(messageID, context);
+        if (wheel != null) {
+            // scheduled before the entry is published, so that whoever removes it can cancel it
+            entry.timeout = wheel.schedule(entry, System.currentTimeMillis() + timeToLive);
+        }
+        if (override) {
+            Entry previous = contexts.put(messageID, entry);
+            if (previous != null) {
+                release(previous);
+            }
+        } else if (contexts.putIfAbsent(messageID, entry) != null) {
+            if (entry.timeout != null) {
+                entry.timeout.cancel();
+            }
+            return false;
+        }
+        if (maxSize > 0) {
+            synchronized (order) {
+                // skipped if the entry has already been unregistered by another thread
+                if (!entry.released) {
+                    entry.prev = order.prev;
+                    entry.next = order;
+                    order.prev.next = entry;
+                    order.prev = entry;
+                }
+            }
+            if (contexts.size() > maxSize) {
+                evictOverflow();
+            }
+        }
+        return true;
+    }
+
+    OperationContext unregister(String messageID) {
+        Entry entry = contexts.remove(messageID);
+        if (entry == null) {
+            return null;
+        }
+        release(entry);
+        return entry.context;
+    }
+
+    /**
+     * Takes an entry that has been removed from the table off the wheel and the insertion order.
+     */
+    private void release(Entry entry) {
+        if (entry.timeout != null) {
+            entry.timeout.cancel();
+        }
+        if (maxSize > 0) {
+            synchronized (order) {
+                entry.released = true;
+                unlink(entry);
+            }
+        }
+    }
+
+    private static void unlink(Entry entry) {
+        if (entry.next != null) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    boolean isEmpty() {
+        return contexts.isEmpty();
+    }
+
+    int size() {
+        return contexts.size();
+    }
+
+    long getEvictionCount() {
+        return evictions.get();
+    }
+
+    long getExpirationCount() {
+        return expirations.get();
+    }
+
+    Iterator<OperationContext> contexts() {
+        final Iterator<Entry> entries = contexts.values().iterator();
+        return new Iterator<OperationContext>() {
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            public OperationContext next() {
+                return entries.next().context;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Evicts the entries whose time to live has elapsed. Called periodically by the sweeper of
+     * the ConfigurationContext.
+     *
+     * @param now the current time
+     */
+    void sweep(long now) {
+        if (wheel == null) {
+            return;
+        }
+        List<TimerWheel.Timeout<Entry>> expired = wheel.expire(now);
+        for (TimerWheel.Timeout<Entry> timeout : expired) {
+            Entry entry = timeout.getItem();
+            if (contexts.remove(entry.messageID, entry)) {
+                release(entry);
+                expirations.incrementAndGet();
+                evicted(entry, "expired after " + timeToLive + " ms");
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (contexts.size() > maxSize) {
+            Entry entry;
+            synchronized (order) {
+                entry = order.next;
+                if (entry == order) {
+                    return;
+                }
+                unlink(entry);
+            }
+            if (contexts.remove(entry.messageID, entry)) {
+                release(entry);
+                evictions.incrementAndGet();
+                evicted(entry, "evicted as more than " + maxSize +
+                        " operation contexts are registered");
+            }
+        }
+    }
+
+    private void evicted(final Entry entry, final String reason) {
+        if (log.isDebugEnabled()) {
+            log.debug("OperationContext " + entry.context + " for message " + entry.messageID +
+                    " " + reason);
+        }
+        Runnable notifier = new Runnable() {
+            public void run() {
+                faultCallback(entry, reason);
+                configurationContext.contextRemoved(entry.context);
+            }
+        };
+        if (executor != null) {
+            executor.execute(notifier);
+        } else {
+            notifier.run();
+        }
+    }
+
+    private void faultCallback(Entry entry, String reason) {
+        AxisOperation axisOperation = entry.context.getAxisOperation();
+        if (axisOperation == null) {
+            return;
+        }
+        MessageReceiver receiver = axisOperation.getMessageReceiver();
+        if (!(receiver instanceof CallbackReceiver)) {
+            return;
+        }
+        Object callback = ((CallbackReceiver) receiver).lookupCallback(entry.messageID);
+        if (callback instanceof AxisCallback) {
+            AxisCallback axisCallback = (AxisCallback) callback;
+            try {
+                axisCallback.onError(new AxisFault("No response received for message " +
+                        entry.messageID + ": the operation context was " + reason));
+            } catch (Throwable t) {
+                log.warn("AxisCallback failed to handle the eviction of message " +
+                        entry.messageID, t);
+            } finally {
+                axisCallback.onComplete();
+            }
+        }
+    }
+
+    void clear() {
+        contexts.clear();
+        if (wheel != null) {
+            wheel.clear();
+        }
+        synchronized (order) {
+            order.prev = order;
+            order.next = order;
+        }
+    }
+
+    private static final class Entry {
+        private final String messageID;
+        private final OperationContext context;
+        private TimerWheel.Timeout<Entry> timeout;
+
+        // the insertion order links, guarded by the order sentinel
+        private Entry prev;
+        private Entry next;
+        private boolean released;
+
+        Entry(String messageID, OperationContext context) {
+            this.messageID = messageID;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,537 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.context;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.AddressingConstants;
+import org.apache.axis2.transport.http.HTTPConstants;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The property map behind {@link AbstractContext}.
+ * <p/>
+ * The well known Axis2 property names get a fixed slot each, so storing or reading them is an
+ * array access once the name has been located in a small static index. Other names go into a
+ * compact open-addressing table that is only allocated when the first such property is set.
+ * No entry objects are created per property, and an empty store costs a single object.
+ * <p/>
+ * Like the HashMap it replaces, this class is not thread safe. Iterators are fail-fast, which
+ * the retry loops in {@link AbstractContext} rely on. Serializes as a plain HashMap.
+ */
+final class PropertyStore extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = -2613367431390962153L;
+
+    /**
+     * Property names that get an indexed slot. Duplicate values are folded at class load.
+     */
+    private static final String[] KNOWN_KEYS = unique(new String[] {
+            MessageContext.TRANSPORT_OUT,
+            MessageContext.TRANSPORT_IN,
+            MessageContext.TRANSPORT_HEADERS,
+            MessageContext.TRANSPORT_ADDR,
+            MessageContext.TRANSPORT_SUCCEED,
+            MessageContext.REMOTE_ADDR,
+            MessageContext.IN_MESSAGE_CONTEXT,
+            MessageContext.CHARACTER_SET_ENCODING,
+            MessageContext.CLIENT_API_NON_BLOCKING,
+            MessageContext.DISABLE_ASYNC_CALLBACK_ON_TRANSPORT_ERROR,
+            Constants.OUT_TRANSPORT_INFO,
+            Constants.RESPONSE_WRITTEN,
+            Constants.FAULT_INFORMATION_FOR_HEADERS,
+            Constants.AXIS_BINDING_OPERATION,
+            Constants.AXIS_BINDING_MESSAGE,
+            Constants.HTTP_RESPONSE_STATE,
+            Constants.HTTP_RETRY_AFTER,
+            Constants.INBOUND_FAULT_OVERRIDE,
+            Constants.DETACHABLE_INPUT_STREAM,
+            Constants.Configuration.CHARACTER_SET_ENCODING,
+            Constants.Configuration.MESSAGE_TYPE,
+            Constants.Configuration.CONTENT_TYPE,
+            Constants.Configuration.HTTP_METHOD,
+            Constants.Configuration.ENABLE_MTOM,
+            Constants.Configuration.ENABLE_SWA,
+            Constants.Configuration.MIME_BOUNDARY,
+            Constants.Configuration.TRANSPORT_URL,
+            Constants.Configuration.DISABLE_ADDRESSING_FOR_OUT_MESSAGES,
+            Constants.Configuration.SEND_STACKTRACE_DETAILS_WITH_FAULTS,
+            AddressingConstants.WS_ADDRESSING_VERSION,
+            AddressingConstants.DISABLE_ADDRESSING_FOR_OUT_MESSAGES,
+            AddressingConstants.INCLUDE_OPTIONAL_HEADERS,
+            HTTPConstants.HTTP_METHOD,
+            HTTPConstants.HTTP_HEADERS,
+            HTTPConstants.COOKIE_STRING,
+            HTTPConstants.CHUNKED,
+            HTTPConstants.HTTP_PROTOCOL_VERSION,
+            HTTPConstants.RESPONSE_CODE,
+            HTTPConstants.SO_TIMEOUT,
+            HTTPConstants.CONNECTION_TIMEOUT,
+            HTTPConstants.REUSE_HTTP_CLIENT,
+            HTTPConstants.MTOM_RECEIVED_CONTENT_TYPE,
+            HTTPConstants.MC_HTTP_SERVLETREQUEST,
+            HTTPConstants.MC_HTTP_STATUS_CODE,
+            HTTPConstants.MC_ACCEPT_GZIP,
+            HTTPConstants.MC_GZIP_REQUEST,
+            HTTPConstants.MC_GZIP_RESPONSE,
+    });
+
+    /** Open-addressing index from a well known name to its slot. */
+    private static final String[] KNOWN_INDEX_KEYS;
+    private static final int[] KNOWN_INDEX_SLOTS;
+
+    static {
+        int capacity = tableSizeFor(KNOWN_KEYS.length * 4);
+        KNOWN_INDEX_KEYS = new String[capacity];
+        KNOWN_INDEX_SLOTS = new int[capacity];
+        for (int slot = 0; slot < KNOWN_KEYS.length; slot++) {
+            int i = hash(KNOWN_KEYS[slot]) & (capacity - 1);
+            while (KNOWN_INDEX_KEYS[i] != null) {
+                i = (i + 1) & (capacity - 1);
+            }
+            KNOWN_INDEX_KEYS[i] = KNOWN_KEYS[slot];
+            KNOWN_INDEX_SLOTS[i] = slot;
+        }
+    }
+
+    private static final int MIN_CUSTOM_CAPACITY = 8;
+
+    /** Stands in for a stored null value, so that null can mean "absent" in the slot arrays. */
+    private static final Object NULL_VALUE = new Object();
+
+    /** Stands in for the null key in the custom table. */
+    private static final Object NULL_KEY = new Object();
+
+    /** Marks a removed entry in the custom table so probe sequences stay intact. */
+    private static final Object DELETED = new Object();
+
+    private transient Object[] known;
+
+    /** Custom entries as [key0, value0, key1, value1, ...]; the slot count is a power of two. */
+    private transient Object[] table;
+
+    private transient int knownSize;
+    private transient int customSize;
+
+    /** Live plus deleted entries in {@link #table}. */
+    private transient int customUsed;
+
+    private transient volatile int modCount;
+
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    PropertyStore() {
+    }
+
+    PropertyStore(Map<String, ?> map) {
+        putAll(map);
+    }
+
+    /**
+     * @return a counter that changes whenever a mapping is added or removed; replacing the
+     *         value of an existing mapping does not change it
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    public int size() {
+        return knownSize + customSize;
+    }
+
+    public boolean isEmpty() {
+        return knownSize + customSize == 0;
+    }
+
+    public Object get(Object key) {
+        return unmask(lookup(key));
+    }
+
+    public boolean containsKey(Object key) {
+        return lookup(key) != null;
+    }
+
+    public Object put(String key, Object value) {
+        Object masked = value == null ? NULL_VALUE : value;
+        int slot = knownSlot(key);
+        if (slot >= 0) {
+            if (known == null) {
+                known = new Object[KNOWN_KEYS.length];
+            }
+            Object old = known[slot];
+            known[slot] = masked;
+            if (old == null) {
+                knownSize++;
+                modCount++;
+            }
+            return unmask(old);
+        }
+        return putCustom(key == null ? NULL_KEY : key, masked);
+    }
+
+    public Object remove(Object key) {
+        int slot = knownSlot(key);
+        if (slot >= 0) {
+            Object old = known == null ? null : known[slot];
+            if (old != null) {
+                known[slot] = null;
+                knownSize--;
+                modCount++;
+            }
+            return unmask(old);
+        }
+        Object[] tab = table;
+        if (tab == null || (key != null && !(key instanceof String))) {
+            return null;
+        }
+        int i = indexOf(tab, key == null ? NULL_KEY : key);
+        if (i < 0) {
+            return null;
+        }
+        Object old = tab[i + 1];
+        removeCustomAt(tab, i);
+        return unmask(old);
+    }
+
+    public void clear() {
+        if (knownSize > 0) {
+            known = null;
+            knownSize = 0;
+        }
+        if (table != null) {
+            table = null;
+            customSize = 0;
+            customUsed = 0;
+        }
+        modCount++;
+    }
+
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Set<Map.Entry<String, Object>> es = entrySet;
+        if (es == null) {
+            es = entrySet = new EntrySet();
+        }
+        return es;
+    }
+
+    private Object writeReplace() {
+        return new HashMap<String, Object>(this);
+    }
+
+    /**
+     * @return the masked value stored for the key, or null if there is no mapping
+     */
+    private Object lookup(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return null;
+        }
+        int slot = knownSlot((String) key);
+        if (slot >= 0) {
+            Object[] k = known;
+            return k == null ? null : k[slot];
+        }
+        Object[] tab = table;
+        if (tab == null) {
+            return null;
+        }
+        int i = indexOf(tab, key == null ? NULL_KEY : key);
+        return i < 0 ? null : tab[i + 1];
+    }
+
+    private Object putCustom(Object key, Object masked) {
+        Object[] tab = table;
+        if (tab == null) {
+            tab = table = new Object[MIN_CUSTOM_CAPACITY * 2];
+        }
+        int mask = (tab.length >> 1) - 1;
+        int i = hash(key) & mask;
+        int free = -1;
+        while (true) {
+            Object k = tab[i << 1];
+            if (k == null) {
+                break;
+            }
+            if (k == DELETED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (k == key || k.equals(key)) {
+                Object old = tab[(i << 1) + 1];
+                tab[(i << 1) + 1] = masked;
+                return unmask(old);
+            }
+            i = (i + 1) & mask;
+        }
+        if (free < 0) {
+            free = i;
+            customUsed++;
+        }
+        tab[free << 1] = key;
+        tab[(free << 1) + 1] = masked;
+        customSize++;
+        modCount++;
+        if (customUsed * 4 > (tab.length >> 1) * 3) {
+            rehash();
+        }
+        return null;
+    }
+
+    private void removeCustomAt(Object[] tab, int i) {
+        tab[i] = DELETED;
+        tab[i + 1] = null;
+        customSize--;
+        modCount++;
+    }
+
+    private void rehash() {
+        Object[] old = table;
+        int capacity = tableSizeFor(Math.max(MIN_CUSTOM_CAPACITY, customSize * 4));
+        Object[] tab = new Object[capacity * 2];
+        int mask = capacity - 1;
+        for (int j = 0; j < old.length; j += 2) {
+            Object k = old[j];
+            if (k != null && k != DELETED) {
+                int i = hash(k) & mask;
+                while (tab[i << 1] != null) {
+                    i = (i + 1) & mask;
+                }
+                tab[i << 1] = k;
+                tab[(i << 1) + 1] = old[j + 1];
+            }
+        }
+        table = tab;
+        customUsed = customSize;
+    }
+
+    /**
+     * @return the array index of the key in the given custom table, or -1
+     */
+    private static int indexOf(Object[] tab, Object key) {
+        int mask = (tab.length >> 1) - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            Object k = tab[i << 1];
+            if (k == null) {
+                return -1;
+            }
+            if (k == key || (k != DELETED && k.equals(key))) {
+                return i << 1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static int knownSlot(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        String[] keys = KNOWN_INDEX_KEYS;
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            String k = keys[i];
+            if (k == null) {
+                return -1;
+            }
+            if (k == key || k.equals(key)) {
+                return KNOWN_INDEX_SLOTS[i];
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int n) {
+        int size = 1;
+        while (size < n) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private static String[] unique(String[] keys) {
+        Set<String> set = new LinkedHashSet<String>();
+        for (String key : keys) {
+            if (key != null) {
+                set.add(key);
+            }
+        }
+        return set.toArray(new String[set.size()]);
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        public int size() {
+            return PropertyStore.this.size();
+        }
+
+        public void clear() {
+            PropertyStore.this.clear();
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, Object> {
+        private final String key;
+        private Object value;
+
+        Entry(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Object setValue(Object value) {
+            Object old = this.value;
+            this.value = value;
+            put(key, value);
+            return old;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return eq(key, e.getKey()) && eq(value, e.getValue());
+        }
+
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        public String toString() {
+            return key + "=" + value;
+        }
+
+        private boolean eq(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    /**
+     * Walks the indexed slots first and then the custom table.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int expectedModCount = modCount;
+        private final Object[] knownSnapshot = known;
+        private final Object[] tableSnapshot = table;
+        private final int knownLength = knownSnapshot == null ? 0 : knownSnapshot.length;
+        private int next;
+        private int current = -1;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (next < knownLength && knownSnapshot[next] == null) {
+                next++;
+            }
+            if (next < knownLength) {
+                return;
+            }
+            int end = knownLength + (tableSnapshot == null ? 0 : tableSnapshot.length >> 1);
+            while (next < end) {
+                Object k = tableSnapshot[(next - knownLength) << 1];
+                if (k != null && k != DELETED) {
+                    return;
+                }
+                next++;
+            }
+        }
+
+        public boolean hasNext() {
+            int end = knownLength + (tableSnapshot == null ? 0 : tableSnapshot.length >> 1);
+            return next < end;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+            Entry entry;
+            if (current < knownLength) {
+                entry = new Entry(KNOWN_KEYS[current], unmask(knownSnapshot[current]));
+            } else {
+                int i = (current - knownLength) << 1;
+                Object k = tableSnapshot[i];
+                entry = new Entry(k == NULL_KEY ? null : (String) k, unmask(tableSnapshot[i + 1]));
+            }
+            advance();
+            return entry;
+        }
+
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current < knownLength) {
+                if (knownSnapshot[current] != null) {
+                    knownSnapshot[current] = null;
+                    knownSize--;
+                    modCount++;
+                }
+            } else {
+                int i = (current - knownLength) << 1;
+                if (tableSnapshot[i] != null && tableSnapshot[i] != DELETED) {
+                    removeCustomAt(tableSnapshot, i);
+                }
+            }
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
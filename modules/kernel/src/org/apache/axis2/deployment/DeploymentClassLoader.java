@@ -26,6 +26,7 @@ import org.apache.axis2.classloader.BeanInfoCachingClassLoader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
@@ -33,7 +34,12 @@ import java.net.URLStreamHandler;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -48,6 +54,26 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
 
     private final BeanInfoCache beanInfoCache = new BeanInfoCache();
 
+    /**
+     * Upper bound for the number of names remembered as not found, to protect against lookups
+     * of generated names
+     */
+    private static final int MAX_NEGATIVE_CACHE_SIZE = 10000;
+
+    private final Map<String, Boolean> classesNotFound = new ConcurrentHashMap<String, Boolean>();
+    private final Map<String, Boolean> resourcesNotFound =
+            new ConcurrentHashMap<String, Boolean>();
+
+    private volatile EmbeddedJarIndex embeddedJarIndex;
+
+    private final AtomicLong loadedClasses = new AtomicLong();
+    private final AtomicLong classLoadingTime = new AtomicLong();
+    private final AtomicLong negativeLookups = new AtomicLong();
+
+    static {
+        registerAsParallelCapable();
+    }
+
     /**
      * DeploymentClassLoader is extended from URLClassLoader. The constructor
      * does not override the super constructor, but takes in an addition list of
@@ -76,27 +102,42 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
      * @exception ClassNotFoundException if the class could not be found
      */
     protected Class findClass(String name) throws ClassNotFoundException {
-        Class clazz;
+        if (classesNotFound.containsKey(name)) {
+            negativeLookups.incrementAndGet();
+            throw new ClassNotFoundException("Class Not found : " + name);
+        }
+        long start = System.nanoTime();
         try {
-            clazz = super.findClass(name);
-        } catch (ClassNotFoundException e) {
-            byte raw[] = null;
+            Class clazz;
             try {
-                String completeFileName = name;
-                /**
-                 * Replacing org.apache. -> org/apache/...
-                 */
-                completeFileName = completeFileName.replace('.', '/').concat(".class");
-                raw = getBytes(completeFileName);
-            } catch (Exception ex) {
-                // Fall through
-            }
-            if (raw == null) {
-                throw new ClassNotFoundException("Class Not found : " + name);
+                clazz = super.findClass(name);
+            } catch (ClassNotFoundException e) {
+                byte raw[] = null;
+                boolean failed = false;
+                try {
+                    String completeFileName = name;
+                    /**
+                     * Replacing org.apache. -> org/apache/...
+                     */
+                    completeFileName = completeFileName.replace('.', '/').concat(".class");
+                    raw = getBytes(completeFileName);
+                } catch (Exception ex) {
+                    // Fall through
+                    failed = true;
+                }
+                if (raw == null) {
+                    if (!failed) {
+                        notFound(classesNotFound, name);
+                    }
+                    throw new ClassNotFoundException("Class Not found : " + name);
+                }
+                clazz = defineClass(name, raw, 0, raw.length);
             }
-            clazz = defineClass(name, raw, 0, raw.length);
+            loadedClasses.incrementAndGet();
+            return clazz;
+        } finally {
+            classLoadingTime.addAndGet(System.nanoTime() - start);
         }
-        return clazz;
     }
 
 
@@ -108,29 +149,25 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
      * if the resource could not be found.
      */
     public URL findResource(String resource) {
+        if (resourcesNotFound.containsKey(resource)) {
+            negativeLookups.incrementAndGet();
+            return null;
+        }
         URL url = super.findResource(resource);
-        if (url == null) {
-            for (int i = 0; embedded_jars != null && i < embedded_jars.size(); i++) {
-                String libjar_name = (String) embedded_jars.get(i);
-                try {
-                    InputStream in = getJarAsStream(libjar_name);
-                    ZipInputStream zin = new ZipInputStream(in);
-                    ZipEntry entry;
-                    String entryName;
-                    while ((entry = zin.getNextEntry()) != null) {
-                        entryName = entry.getName();
-                        if (entryName != null &&
-                                entryName.endsWith(resource)) {
-                            byte[] raw = IOUtils.getStreamAsByteArray(zin);
-                            return new URL("jar", "", -1, urls[0] + "!/" + libjar_name + "!/" + entryName,
-                                    new ByteUrlStreamHandler(raw));
-                        }
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+        if (url == null && embedded_jars != null && !embedded_jars.isEmpty()) {
+            try {
+                EmbeddedJarIndex index = getEmbeddedJarIndex();
+                List<IndexEntry> entries = index.find(resource, true);
+                if (!entries.isEmpty()) {
+                    url = toURL(index, entries.get(0));
                 }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
         }
+        if (url == null) {
+            notFound(resourcesNotFound, resource);
+        }
         return url;
     }
 
@@ -148,21 +185,11 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
         while (e.hasMoreElements()) {
             resources.add(e.nextElement());
         }
-        for (int i = 0; embedded_jars != null && i < embedded_jars.size(); i++) {
-            String libjar_name = (String) embedded_jars.get(i);
+        if (embedded_jars != null && !embedded_jars.isEmpty()) {
             try {
-            InputStream in = getJarAsStream(libjar_name);
-            ZipInputStream zin = new ZipInputStream(in);
-            ZipEntry entry;
-            String entryName;
-                while ((entry = zin.getNextEntry()) != null) {
-                    entryName = entry.getName();
-                    if (entryName != null &&
-                            entryName.endsWith(resource)) {
-                        byte[] raw = IOUtils.getStreamAsByteArray(zin);
-                        resources.add(new URL("jar", "", -1, urls[0] + "!/" + libjar_name + "!/" + entryName,
-                                new ByteUrlStreamHandler(raw)));
-                    }
+                EmbeddedJarIndex index = getEmbeddedJarIndex();
+                for (IndexEntry entry : index.find(resource, false)) {
+                    resources.add(toURL(index, entry));
                 }
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -172,24 +199,50 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
     }
 
     /**
-     * Access the jars file (/lib) one by one , then for each one create a <code>ZipInputStream</code>
-     * and check to see whether there is any entry eith given name. if it is found then
-     * return the byte array for that
+     * Looks for the given resource in the jars in the /lib directory of the archive, using the
+     * index of their entries.
      *
      * @param resource <code>String</code>  Name of the file to be found
      * @return byte[]
      * @throws java.io.IOException <code>Exception</code>
      */
     private byte[] getBytes(String resource) throws Exception {
-        for (int i = 0; embedded_jars != null && i < embedded_jars.size(); i++) {
-            String libjar_name = (String) embedded_jars.get(i);
-            InputStream in = getJarAsStream(libjar_name);
-            byte[] bytes = getBytes(in, resource);
-            if(bytes != null) {
-                return bytes;
+        if (embedded_jars == null || embedded_jars.isEmpty()) {
+            return null;
+        }
+        EmbeddedJarIndex index = getEmbeddedJarIndex();
+        List<IndexEntry> entries = index.find(resource, true);
+        return entries.isEmpty() ? null : index.getEntryBytes(entries.get(0));
+    }
+
+    private URL toURL(EmbeddedJarIndex index, IndexEntry entry) throws Exception {
+        byte[] raw = index.getEntryBytes(entry);
+        return new URL("jar", "", -1, urls[0] + "!/" + index.jarNames.get(entry.jar) + "!/" +
+                entry.name, new ByteUrlStreamHandler(raw));
+    }
+
+    /**
+     * Returns the index of the entries of the embedded jars, building it the first time.
+     */
+    private EmbeddedJarIndex getEmbeddedJarIndex() throws Exception {
+        EmbeddedJarIndex index = embeddedJarIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = embeddedJarIndex;
+                if (index == null) {
+                    index = new EmbeddedJarIndex();
+                    embeddedJarIndex = index;
+                }
             }
         }
-        return null;
+        return index;
+    }
+
+    private static void notFound(Map<String, Boolean> cache, String name) {
+        if (cache.size() >= MAX_NEGATIVE_CACHE_SIZE) {
+            cache.clear();
+        }
+        cache.put(name, Boolean.TRUE);
     }
 
     /**
@@ -223,8 +276,146 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
      * @return
      * @throws Exception
      */
-    private InputStream getJarAsStream(String libjar_name) throws Exception {
-        return new ByteArrayInputStream(getBytes(urls[0].openStream(), libjar_name));
+    private byte[] getJarBytes(String libjar_name) throws Exception {
+        return getBytes(urls[0].openStream(), libjar_name);
+    }
+
+    /**
+     * Returns the number of classes found by this class loader (as opposed to its parent).
+     *
+     * @return the number of classes loaded
+     */
+    public long getLoadedClassCount() {
+        return loadedClasses.get();
+    }
+
+    /**
+     * Returns the time spent looking for and defining classes in this class loader.
+     *
+     * @return the class loading time in milliseconds
+     */
+    public long getClassLoadingTime() {
+        return TimeUnit.NANOSECONDS.toMillis(classLoadingTime.get());
+    }
+
+    /**
+     * Returns the number of class and resource lookups answered from the cache of names that
+     * are known not to be in this class loader.
+     *
+     * @return the number of negative cache hits
+     */
+    public long getNegativeLookupCount() {
+        return negativeLookups.get();
+    }
+
+    protected void addURL(URL url) {
+        super.addURL(url);
+        classesNotFound.clear();
+        resourcesNotFound.clear();
+    }
+
+    private static class IndexEntry {
+        final int jar;
+        final String name;
+
+        IndexEntry(int jar, String name) {
+            this.jar = jar;
+            this.name = name;
+        }
+    }
+
+    /**
+     * The names of the entries in the jars in the /lib directory of the archive. The index is
+     * built by reading the archive once; the content of the jars is kept with soft references
+     * so that a lookup does not normally need to read the archive again.
+     */
+    private class EmbeddedJarIndex {
+        final List<String> jarNames = new ArrayList<String>();
+        private final List<SoftReference<byte[]>> jarContents =
+                new ArrayList<SoftReference<byte[]>>();
+        // entry name -> entries with that name, in the order of the jars
+        private final Map<String, List<IndexEntry>> entries =
+                new LinkedHashMap<String, List<IndexEntry>>();
+
+        EmbeddedJarIndex() throws Exception {
+            for (int i = 0; i < embedded_jars.size(); i++) {
+                String libjar_name = (String) embedded_jars.get(i);
+                byte[] jar = getJarBytes(libjar_name);
+                jarNames.add(libjar_name);
+                jarContents.add(new SoftReference<byte[]>(jar));
+                if (jar == null) {
+                    continue;
+                }
+                ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(jar));
+                try {
+                    ZipEntry entry;
+                    while ((entry = zin.getNextEntry()) != null) {
+                        String entryName = entry.getName();
+                        if (entryName == null || entry.isDirectory()) {
+                            continue;
+                        }
+                        List<IndexEntry> list = entries.get(entryName);
+                        if (list == null) {
+                            list = new ArrayList<IndexEntry>(1);
+                            entries.put(entryName, list);
+                        }
+                        list.add(new IndexEntry(i, entryName));
+                    }
+                } finally {
+                    zin.close();
+                }
+            }
+        }
+
+        /**
+         * Finds the entries with the given name. Entries whose name merely ends with the given
+         * name (e.g. because the jar has an extra directory level) are only returned if there
+         * is no entry with exactly that name.
+         */
+        List<IndexEntry> find(String resource, boolean firstOnly) {
+            List<IndexEntry> exact = entries.get(resource);
+            if (exact != null) {
+                return exact;
+            }
+            List<IndexEntry> found = Collections.emptyList();
+            for (Map.Entry<String, List<IndexEntry>> e : entries.entrySet()) {
+                if (e.getKey().endsWith(resource)) {
+                    if (found.isEmpty()) {
+                        found = new ArrayList<IndexEntry>();
+                    }
+                    found.addAll(e.getValue());
+                    if (firstOnly) {
+                        break;
+                    }
+                }
+            }
+            return found;
+        }
+
+        byte[] getEntryBytes(IndexEntry indexEntry) throws Exception {
+            byte[] jar = jarContents.get(indexEntry.jar).get();
+            if (jar == null) {
+                jar = getJarBytes(jarNames.get(indexEntry.jar));
+                if (jar == null) {
+                    return null;
+                }
+                synchronized (jarContents) {
+                    jarContents.set(indexEntry.jar, new SoftReference<byte[]>(jar));
+                }
+            }
+            ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(jar));
+            try {
+                ZipEntry entry;
+                while ((entry = zin.getNextEntry()) != null) {
+                    if (indexEntry.name.equals(entry.getName())) {
+                        return IOUtils.getStreamAsByteArray(zin);
+                    }
+                }
+            } finally {
+                zin.close();
+            }
+            return null;
+        }
     }
 
     public static class ByteUrlStreamHandler extends URLStreamHandler {
@@ -270,12 +461,12 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
         return null;
     }
 
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        Class c = null;
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
         if (!isChildFirstClassLoading) {
-            c = super.loadClass(name, resolve);
-        } else {
-            c = findLoadedClass(name);
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class c = findLoadedClass(name);
             if (c == null) {
                 try {
                     c = findClass(name);
@@ -283,8 +474,8 @@ public class DeploymentClassLoader extends URLClassLoader implements BeanInfoCac
                     c = super.loadClass(name, resolve);
                 }
             }
+            return c;
         }
-        return c;
     }
 
     public boolean isChildFirstClassLoading() {
@@ -90,6 +90,13 @@ public interface DeploymentConstants {
     String TAG_HOT_UPDATE = "hotupdate";
     String TAG_ANTI_JAR_LOCKING = "antiJARLocking";
     String TAG_HOT_DEPLOYMENT = "hotdeployment";
+    String TAG_HOT_DEPLOYMENT_WATCHER = "hotDeploymentWatcher";
+    String TAG_HOT_DEPLOYMENT_DEBOUNCE_INTERVAL = "hotDeploymentDebounceInterval";
+    String TAG_PARALLEL_DEPLOYMENT = "parallelDeployment";
+    String TAG_PARALLEL_DEPLOYMENT_THREADS = "parallelDeploymentThreads";
+    String TAG_DEPLOYMENT_CACHE_DIRECTORY = "deploymentCacheDirectory";
+    // the AxisConfiguration parameter holding the DeploymentCache, if enabled
+    String DEPLOYMENT_CACHE = "deploymentCache";
     String TAG_ALLOWOVERRIDE = "allowOverride";
     String TAG_EXPOSE = "expose";
     String TAG_EXTRACT_SERVICE_ARCHIVE = "extractServiceArchive";
@@ -31,8 +31,10 @@ import org.apache.axis2.deployment.repository.util.WSInfo;
 import org.apache.axis2.deployment.resolver.AARBasedWSDLLocator;
 import org.apache.axis2.deployment.resolver.AARFileBasedURIResolver;
 import org.apache.axis2.deployment.scheduler.DeploymentIterator;
+import org.apache.axis2.deployment.scheduler.RepositoryWatcher;
 import org.apache.axis2.deployment.scheduler.Scheduler;
 import org.apache.axis2.deployment.scheduler.SchedulerTask;
+import org.apache.axis2.deployment.util.DeploymentCache;
 import org.apache.axis2.deployment.util.Utils;
 import org.apache.axis2.description.AxisModule;
 import org.apache.axis2.description.AxisOperation;
@@ -63,7 +65,10 @@ import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -81,6 +86,7 @@ public abstract class DeploymentEngine implements DeploymentConstants {
     protected static String webLocationString = null;
     protected Scheduler scheduler;
     private SchedulerTask schedulerTask;
+    private RepositoryWatcher repositoryWatcher;
 
     public static void setWebLocationString(String webLocationString) {
         DeploymentEngine.webLocationString = webLocationString;
@@ -97,6 +103,26 @@ public abstract class DeploymentEngine implements DeploymentConstants {
      */
     protected boolean hotDeployment = true;
 
+    /**
+     * Whether hot deployment watches the repository for changes instead of polling it
+     */
+    protected boolean hotDeploymentWatcher = true;
+
+    /**
+     * How long the repository must be quiet before changes are deployed, in milliseconds
+     */
+    protected long hotDeploymentDebounceInterval = 1000;
+
+    /**
+     * Whether the service groups of the service archives are built in parallel
+     */
+    protected boolean parallelDeployment = false;
+
+    /**
+     * Number of threads used to build service groups when parallel deployment is enabled
+     */
+    protected int parallelDeploymentThreads = Runtime.getRuntime().availableProcessors();
+
     /**
      * Stores all the web Services to deploy.
      */
@@ -147,6 +173,7 @@ public abstract class DeploymentEngine implements DeploymentConstants {
         }
         setDeploymentFeatures();
         prepareRepository(repoDir);
+        setDeploymentCache();
         // setting the CLs
         setClassLoaders(repoDir);
         repoListener = new RepositoryListener(this, false);
@@ -803,21 +830,140 @@ public abstract class DeploymentEngine implements DeploymentConstants {
             if (wsToDeploy.size() > 0) {
                 removeDuplicateDependentCARs();
                 sortWSToDeploy();
-                for (Object aWsToDeploy : wsToDeploy) {
-                    DeploymentFileData fileToDeploy = (DeploymentFileData) aWsToDeploy;
-                    try {
-                        fileToDeploy.deploy();
-                    } catch (DeploymentException e) {
-                        // TODO : This probably isn't sufficient.  Maybe provide an option to stop?
-                        log.info(e);
+                long startTime = System.currentTimeMillis();
+                Map<String, Long> deploymentTimes = new LinkedHashMap<String, Long>();
+                Map<DeploymentFileData, BuildTask> builds = null;
+                ForkJoinPool buildPool = null;
+                if (parallelDeployment) {
+                    buildPool = new ForkJoinPool(parallelDeploymentThreads);
+                    builds = startServiceGroupBuilds(buildPool);
+                }
+                try {
+                    // the archives are added to the configuration one by one in the original
+                    // order, only the building of the service groups is done in parallel
+                    for (Object aWsToDeploy : wsToDeploy) {
+                        DeploymentFileData fileToDeploy = (DeploymentFileData) aWsToDeploy;
+                        long deployStart = System.nanoTime();
+                        BuildTask build = builds == null ? null : builds.get(fileToDeploy);
+                        try {
+                            if (build != null) {
+                                serviceDeployer.deploy(fileToDeploy, build.task);
+                            } else {
+                                fileToDeploy.deploy();
+                            }
+                        } catch (DeploymentException e) {
+                            // TODO : This probably isn't sufficient.  Maybe provide an option to stop?
+                            log.info(e);
+                        }
+                        long elapsed = System.nanoTime() - deployStart;
+                        if (build != null) {
+                            elapsed += build.buildTime;
+                        }
+                        deploymentTimes.put(fileToDeploy.getName(), elapsed / 1000000);
+                    }
+                } finally {
+                    if (buildPool != null) {
+                        buildPool.shutdownNow();
                     }
                 }
+                logDeploymentTimes(deploymentTimes, System.currentTimeMillis() - startTime);
             }
         } finally {
             wsToDeploy.clear();
         }
     }
 
+    /**
+     * Starts building the service groups of all the service archives in
+     * <code>wsToDeploy</code> on the given pool. Only the archives handled by the default
+     * service deployer are built ahead of time, everything else (modules, custom deployers)
+     * is deployed as before.
+     *
+     * @param buildPool the pool to build the service groups on
+     * @return the builds keyed by the archive, or null if there is nothing to build in parallel
+     */
+    private Map<DeploymentFileData, BuildTask> startServiceGroupBuilds(ForkJoinPool buildPool) {
+        List<DeploymentFileData> serviceArchives = new ArrayList<DeploymentFileData>();
+        for (Object aWsToDeploy : wsToDeploy) {
+            DeploymentFileData fileToDeploy = (DeploymentFileData) aWsToDeploy;
+            if (serviceDeployer != null && fileToDeploy.getDeployer() == serviceDeployer) {
+                serviceArchives.add(fileToDeploy);
+            }
+        }
+        if (serviceArchives.size() < 2) {
+            return null;
+        }
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Map<DeploymentFileData, BuildTask> builds =
+                new IdentityHashMap<DeploymentFileData, BuildTask>();
+        for (DeploymentFileData serviceArchive : serviceArchives) {
+            BuildTask build = new BuildTask(serviceArchive, contextClassLoader);
+            build.task = buildPool.submit(build);
+            builds.put(serviceArchive, build);
+        }
+        return builds;
+    }
+
+    /**
+     * Logs how long each artifact took to deploy, slowest first. The times are logged at info
+     * level when parallel deployment is enabled and at debug level otherwise.
+     *
+     * @param deploymentTimes the deployment time in milliseconds of each artifact
+     * @param totalTime the time taken to deploy all the artifacts
+     */
+    private void logDeploymentTimes(Map<String, Long> deploymentTimes, long totalTime) {
+        if (!(parallelDeployment ? log.isInfoEnabled() : log.isDebugEnabled())) {
+            return;
+        }
+        List<Map.Entry<String, Long>> entries =
+                new ArrayList<Map.Entry<String, Long>>(deploymentTimes.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            public int compare(Map.Entry<String, Long> e1, Map.Entry<String, Long> e2) {
+                return e2.getValue().compareTo(e1.getValue());
+            }
+        });
+        StringBuilder report = new StringBuilder();
+        report.append("Deployed ").append(entries.size()).append(" artifact(s) in ")
+                .append(totalTime).append(" ms");
+        for (Map.Entry<String, Long> entry : entries) {
+            report.append("\n    ").append(entry.getKey()).append(": ")
+                    .append(entry.getValue()).append(" ms");
+        }
+        if (parallelDeployment) {
+            log.info(report.toString());
+        } else {
+            log.debug(report.toString());
+        }
+    }
+
+    /**
+     * Builds the service group of a service archive on the parallel deployment pool.
+     */
+    private class BuildTask implements Callable<ServiceDeployer.BuiltServiceGroup> {
+        private final DeploymentFileData serviceArchive;
+        private final ClassLoader contextClassLoader;
+        ForkJoinTask<ServiceDeployer.BuiltServiceGroup> task;
+        volatile long buildTime;
+
+        BuildTask(DeploymentFileData serviceArchive, ClassLoader contextClassLoader) {
+            this.serviceArchive = serviceArchive;
+            this.contextClassLoader = contextClassLoader;
+        }
+
+        public ServiceDeployer.BuiltServiceGroup call() throws Exception {
+            Thread thread = Thread.currentThread();
+            ClassLoader oldContextClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            long start = System.nanoTime();
+            try {
+                return serviceDeployer.build(serviceArchive);
+            } finally {
+                buildTime = System.nanoTime() - start;
+                thread.setContextClassLoader(oldContextClassLoader);
+            }
+        }
+    }
+
     /**
      * Check for duplicate dependent CAPPs and remove them from the deployment list.
      */
@@ -938,12 +1084,40 @@ public abstract class DeploymentEngine implements DeploymentConstants {
      * @param listener : RepositoryListener
      */
     protected void startSearch(RepositoryListener listener) {
-        scheduler = new Scheduler();
-
         schedulerTask = new SchedulerTask(listener, axisConfig);
+        if (hotDeploymentWatcher && servicesDir != null && repositoryDir != null) {
+            RepositoryWatcher watcher = new RepositoryWatcher(schedulerTask,
+                    getWatchedDirectories(), Collections.singletonList(repositoryDir),
+                    hotDeploymentDebounceInterval);
+            if (watcher.start()) {
+                repositoryWatcher = watcher;
+                return;
+            }
+            log.info("Falling back to polling the repository for hot deployment");
+        }
+        scheduler = new Scheduler();
         scheduler.schedule(schedulerTask, new DeploymentIterator());
     }
 
+    /**
+     * Returns the directories scanned by {@link RepositoryListener#checkServices()}, i.e. the
+     * services directory and the directories of the custom deployers.
+     *
+     * @return the directories to watch for hot deployment
+     */
+    protected List<File> getWatchedDirectories() {
+        List<File> directories = new ArrayList<File>();
+        directories.add(servicesDir);
+        for (String directory : getDeployers().keySet()) {
+            File dirToWatch = new File(directory);
+            if (!dirToWatch.isAbsolute()) {
+                dirToWatch = new File(repositoryDir, directory);
+            }
+            directories.add(dirToWatch);
+        }
+        return directories;
+    }
+
     /**
      * Method to check whether the deployment task is currently running. Will be used is graceful
      * shutdown & restart scenarios.
@@ -1133,6 +1307,43 @@ public abstract class DeploymentEngine implements DeploymentConstants {
             this.hotUpdate = JavaUtils.isTrue(hotUpdate.getValue(), true);
         }
 
+        Parameter hotDeploymentWatcher = axisConfig.getParameter(TAG_HOT_DEPLOYMENT_WATCHER);
+        if (hotDeploymentWatcher != null) {
+            this.hotDeploymentWatcher = JavaUtils.isTrue(hotDeploymentWatcher.getValue(), true);
+        }
+
+        Parameter debounceInterval =
+                axisConfig.getParameter(TAG_HOT_DEPLOYMENT_DEBOUNCE_INTERVAL);
+        if (debounceInterval != null) {
+            try {
+                this.hotDeploymentDebounceInterval =
+                        Long.parseLong(((String) debounceInterval.getValue()).trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + TAG_HOT_DEPLOYMENT_DEBOUNCE_INTERVAL + " : " +
+                        debounceInterval.getValue());
+            }
+        }
+
+        Parameter parallelDeployment = axisConfig.getParameter(TAG_PARALLEL_DEPLOYMENT);
+        if (parallelDeployment != null) {
+            this.parallelDeployment = JavaUtils.isTrueExplicitly(parallelDeployment.getValue());
+        }
+
+        Parameter parallelDeploymentThreads =
+                axisConfig.getParameter(TAG_PARALLEL_DEPLOYMENT_THREADS);
+        if (parallelDeploymentThreads != null) {
+            try {
+                int threads = Integer.parseInt(
+                        ((String) parallelDeploymentThreads.getValue()).trim());
+                if (threads > 0) {
+                    this.parallelDeploymentThreads = threads;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + TAG_PARALLEL_DEPLOYMENT_THREADS + " : " +
+                        parallelDeploymentThreads.getValue());
+            }
+        }
+
         String serviceDirPara = (String)
                 axisConfig.getParameterValue(DeploymentConstants.SERVICE_DIR_PATH);
         if (serviceDirPara != null) {
@@ -1146,6 +1357,32 @@ public abstract class DeploymentEngine implements DeploymentConstants {
         }
     }
 
+    /**
+     * Creates the deployment cache if the deploymentCacheDirectory parameter is set. A relative
+     * directory is taken to be relative to the repository.
+     */
+    protected void setDeploymentCache() {
+        String cacheDirectory = (String) axisConfig.getParameterValue(
+                TAG_DEPLOYMENT_CACHE_DIRECTORY);
+        if (cacheDirectory == null || cacheDirectory.trim().length() == 0 ||
+                axisConfig.getParameter(DEPLOYMENT_CACHE) != null) {
+            return;
+        }
+        File directory = new File(cacheDirectory.trim());
+        if (!directory.isAbsolute() && repositoryDir != null) {
+            directory = new File(repositoryDir, cacheDirectory.trim());
+        }
+        try {
+            Parameter cacheParameter = new Parameter(DEPLOYMENT_CACHE,
+                    new DeploymentCache(directory));
+            axisConfig.addParameter(cacheParameter);
+        } catch (IOException e) {
+            log.warn("Deployment cache disabled: " + e.getMessage());
+        } catch (AxisFault axisFault) {
+            log.warn("Deployment cache disabled: " + axisFault.getMessage());
+        }
+    }
+
     /**
      * Creates directories for modules/services, copies configuration xml from class loader if necessary
      *
@@ -1451,6 +1688,9 @@ public abstract class DeploymentEngine implements DeploymentConstants {
         if (scheduler != null) {
             scheduler.cleanup(schedulerTask);
         }
+        if (repositoryWatcher != null) {
+            repositoryWatcher.stop();
+        }
         for (Map<String, Deployer> stringDeployerMap : deployerMap.values()) {
             for (Deployer deployer : stringDeployerMap.values()) {
                 try {
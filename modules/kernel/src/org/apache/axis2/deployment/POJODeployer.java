@@ -23,6 +23,7 @@ import org.apache.axis2.AxisFault;
 import org.apache.axis2.Constants;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.deployment.repository.util.DeploymentFileData;
+import org.apache.axis2.deployment.util.DeploymentCache;
 import org.apache.axis2.deployment.util.Utils;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
@@ -117,22 +118,24 @@ public class POJODeployer extends AbstractDeployer {
             } else if ("jar".equals(extension)) {
                 List<String> classList = Utils.getListOfClasses(deploymentFileData);
                 ArrayList<AxisService> axisServiceList = new ArrayList<AxisService>();
+                // the jar is extracted once, and its classes share the class loader
+                ArrayList<URL> urls = new ArrayList<URL>();
+                urls.add(deploymentFileData.getFile().toURL());
+                urls.add(configCtx.getAxisConfiguration().getRepository());
+                String webLocation = DeploymentEngine.getWebLocationString();
+                if (webLocation != null) {
+                    urls.add(new File(webLocation).toURL());
+                }
+                ClassLoader classLoader = Utils.createClassLoader(
+                        urls,
+                        configCtx.getAxisConfiguration().getSystemClassLoader(),
+                        true,
+                        (File)configCtx.getAxisConfiguration().
+                                getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR),
+                        configCtx.getAxisConfiguration().isChildFirstClassLoading(),
+                        DeploymentCache.getDeploymentCache(configCtx.getAxisConfiguration()));
+                Thread.currentThread().setContextClassLoader(classLoader);
                 for (String className : classList) {
-                    ArrayList<URL> urls = new ArrayList<URL>();
-                    urls.add(deploymentFileData.getFile().toURL());
-                    urls.add(configCtx.getAxisConfiguration().getRepository());
-                    String webLocation = DeploymentEngine.getWebLocationString();
-                    if (webLocation != null) {
-                        urls.add(new File(webLocation).toURL());
-                    }
-                    ClassLoader classLoader = Utils.createClassLoader(
-                            urls,
-                            configCtx.getAxisConfiguration().getSystemClassLoader(),
-                            true,
-                            (File)configCtx.getAxisConfiguration().
-                                    getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR),
-                            configCtx.getAxisConfiguration().isChildFirstClassLoading());
-                    Thread.currentThread().setContextClassLoader(classLoader);
                     Class<?> clazz = Loader.loadClass(className);
 
                     /**
@@ -24,6 +24,7 @@ import org.apache.axis2.Constants;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.deployment.repository.util.ArchiveReader;
 import org.apache.axis2.deployment.repository.util.DeploymentFileData;
+import org.apache.axis2.deployment.util.DeploymentCache;
 import org.apache.axis2.deployment.util.Utils;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
@@ -41,6 +42,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class ServiceDeployer extends AbstractDeployer {
     private static final Log log = LogFactory.getLog(ServiceDeployer.class);
@@ -57,46 +60,87 @@ public class ServiceDeployer extends AbstractDeployer {
     //Will process the file and add that to axisConfig
 
     public void deploy(DeploymentFileData deploymentFileData) throws DeploymentException {
+        deploy(deploymentFileData, null);
+    }
+
+    /**
+     * Builds the service group of the given archive without adding it to the AxisConfiguration.
+     * This only reads the configuration, so it may run for several archives at the same time;
+     * the result is added to the configuration by {@link #deploy(DeploymentFileData, Future)}.
+     *
+     * @param deploymentFileData the service archive or exploded service directory
+     * @return the service group together with its services
+     * @throws Exception if the archive could not be processed
+     */
+    BuiltServiceGroup build(DeploymentFileData deploymentFileData) throws Exception {
         boolean isDirectory = deploymentFileData.getFile().isDirectory();
-        ArchiveReader archiveReader;
+        ArchiveReader archiveReader = new ArchiveReader();
+        deploymentFileData.setClassLoader(isDirectory,
+                                          axisConfig.getServiceClassLoader(),
+                (File)axisConfig.getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR),
+                axisConfig.isChildFirstClassLoading(),
+                DeploymentCache.getDeploymentCache(axisConfig));
+        HashMap<String,AxisService> wsdlservice = archiveReader.processWSDLs(deploymentFileData);
+        if (wsdlservice != null && wsdlservice.size() > 0) {
+            for (AxisService service : wsdlservice.values()) {
+                Iterator<AxisOperation> operations = service.getOperations();
+                while (operations.hasNext()) {
+                    AxisOperation axisOperation = operations.next();
+                    axisConfig.getPhasesInfo().setOperationPhases(axisOperation);
+                }
+            }
+        }
+        AxisServiceGroup serviceGroup = new AxisServiceGroup(axisConfig);
+        serviceGroup.setServiceGroupClassLoader(deploymentFileData.getClassLoader());
+        ArrayList<AxisService> serviceList = archiveReader.processServiceGroup(
+                deploymentFileData.getAbsolutePath(), deploymentFileData,
+                serviceGroup, isDirectory, wsdlservice,
+                configCtx);
+        URL location = deploymentFileData.getFile().toURL();
+
+        // Add the hierarchical path to the service group
+        if (location != null) {
+            String serviceHierarchy = Utils.getServiceHierarchy(location.getPath(),
+                    this.directory);
+            if (serviceHierarchy != null && !"".equals(serviceHierarchy)) {
+                serviceGroup.setServiceGroupName(serviceHierarchy
+                        + serviceGroup.getServiceGroupName());
+                for (AxisService axisService : serviceList) {
+                    axisService.setName(serviceHierarchy + axisService.getName());
+                }
+            }
+        }
+        return new BuiltServiceGroup(serviceGroup, serviceList, location);
+    }
+
+    /**
+     * Deploys the given archive. If <code>pendingBuild</code> is not null it is the (possibly still
+     * running) result of {@link #build(DeploymentFileData)} for this archive, which is waited
+     * for instead of building the service group again.
+     *
+     * @param deploymentFileData the service archive or exploded service directory
+     * @param pendingBuild the result of building the archive ahead of time, or null
+     * @throws DeploymentException if the archive could not be deployed
+     */
+    void deploy(DeploymentFileData deploymentFileData,
+                Future<BuiltServiceGroup> pendingBuild) throws DeploymentException {
         StringWriter errorWriter = new StringWriter();
-        archiveReader = new ArchiveReader();
         String serviceStatus = "";
         try {
-            deploymentFileData.setClassLoader(isDirectory,
-                                              axisConfig.getServiceClassLoader(),
-                    (File)axisConfig.getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR),
-                    axisConfig.isChildFirstClassLoading());
-            HashMap<String,AxisService> wsdlservice = archiveReader.processWSDLs(deploymentFileData);
-            if (wsdlservice != null && wsdlservice.size() > 0) {
-                for (AxisService service : wsdlservice.values()) {
-                    Iterator<AxisOperation> operations = service.getOperations();
-                    while (operations.hasNext()) {
-                        AxisOperation axisOperation = operations.next();
-                        axisConfig.getPhasesInfo().setOperationPhases(axisOperation);
-                    }
-                }
-            }
-            AxisServiceGroup serviceGroup = new AxisServiceGroup(axisConfig);
-            serviceGroup.setServiceGroupClassLoader(deploymentFileData.getClassLoader());
-            ArrayList<AxisService> serviceList = archiveReader.processServiceGroup(
-                    deploymentFileData.getAbsolutePath(), deploymentFileData,
-                    serviceGroup, isDirectory, wsdlservice,
-                    configCtx);
-            URL location = deploymentFileData.getFile().toURL();
-
-            // Add the hierarchical path to the service group
-            if (location != null) {
-                String serviceHierarchy = Utils.getServiceHierarchy(location.getPath(),
-                        this.directory);
-                if (serviceHierarchy != null && !"".equals(serviceHierarchy)) {
-                    serviceGroup.setServiceGroupName(serviceHierarchy
-                            + serviceGroup.getServiceGroupName());
-                    for (AxisService axisService : serviceList) {
-                        axisService.setName(serviceHierarchy + axisService.getName());
-                    }
+            BuiltServiceGroup builtServiceGroup;
+            if (pendingBuild == null) {
+                builtServiceGroup = build(deploymentFileData);
+            } else {
+                try {
+                    builtServiceGroup = pendingBuild.get();
+                } catch (ExecutionException e) {
+                    // report the failure as if the archive had been built on this thread
+                    throw e.getCause();
                 }
             }
+            AxisServiceGroup serviceGroup = builtServiceGroup.serviceGroup;
+            ArrayList<AxisService> serviceList = builtServiceGroup.serviceList;
+            URL location = builtServiceGroup.location;
             DeploymentEngine.addServiceGroup(serviceGroup,
                                              serviceList,
                                              location,
@@ -167,6 +211,23 @@ public class ServiceDeployer extends AbstractDeployer {
         }
     }
 
+    /**
+     * A service group that has been built from an archive but not yet added to the
+     * AxisConfiguration.
+     */
+    static class BuiltServiceGroup {
+        final AxisServiceGroup serviceGroup;
+        final ArrayList<AxisService> serviceList;
+        final URL location;
+
+        BuiltServiceGroup(AxisServiceGroup serviceGroup, ArrayList<AxisService> serviceList,
+                          URL location) {
+            this.serviceGroup = serviceGroup;
+            this.serviceList = serviceList;
+            this.location = location;
+        }
+    }
+
     public void setDirectory(String directory) {
         this.directory = directory;
     }
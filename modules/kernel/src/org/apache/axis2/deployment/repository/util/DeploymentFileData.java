@@ -24,6 +24,7 @@ import org.apache.axis2.AxisFault;
 import org.apache.axis2.deployment.Deployer;
 import org.apache.axis2.deployment.DeploymentErrorMsgs;
 import org.apache.axis2.deployment.DeploymentException;
+import org.apache.axis2.deployment.util.DeploymentCache;
 import org.apache.axis2.deployment.util.Utils;
 import org.apache.axis2.i18n.Messages;
 
@@ -113,6 +114,16 @@ public class DeploymentFileData {
     }
 
     public void setClassLoader(boolean isDirectory, ClassLoader parent, File file, boolean isChildFirstClassLoading) throws AxisFault {
+        setClassLoader(isDirectory, parent, file, isChildFirstClassLoading, null);
+    }
+
+    /**
+     * Creates the class loader of this file. The jars of an archive are extracted into the
+     * given deployment cache if it is not null, or into the temporary directory otherwise.
+     */
+    public void setClassLoader(boolean isDirectory, ClassLoader parent, File file,
+                               boolean isChildFirstClassLoading,
+                               DeploymentCache deploymentCache) throws AxisFault {
         if (!isDirectory) {
             if (this.file != null) {
                 URL[] urlsToLoadFrom;
@@ -122,7 +133,8 @@ public class DeploymentFileData {
                                                                 this.file.getAbsolutePath()));
                     }
                     urlsToLoadFrom = new URL[]{this.file.toURL()};
-                    classLoader = Utils.createClassLoader(urlsToLoadFrom, parent, true, file, isChildFirstClassLoading);
+                    classLoader = Utils.createClassLoader(urlsToLoadFrom, parent, true, file,
+                                                         isChildFirstClassLoading, deploymentCache);
                 } catch (Exception e) {
                     throw AxisFault.makeFault(e);
                 }
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment.scheduler;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the repository scan when something changes in the repository, instead of every ten
+ * seconds as the {@link Scheduler} does.
+ * <p/>
+ * The watched directories are registered with a {@link WatchService}. Changes are collected
+ * until the directories have been quiet for the debounce interval, and the scan then runs once
+ * for the whole batch, so that copying a large archive or several archives only causes a
+ * single redeployment. {@link #start()} returns false if the file system does not support watch
+ * events, in which case the caller should fall back to polling.
+ */
+public class RepositoryWatcher implements Runnable {
+    private static final Log log = LogFactory.getLog(RepositoryWatcher.class);
+
+    /**
+     * The scan runs at the latest this many debounce intervals after the first change, even if
+     * the changes do not stop.
+     */
+    private static final int MAX_DEBOUNCE_INTERVALS = 10;
+
+    private final Runnable task;
+    private final List<File> directories;
+    private final List<File> parentDirectories;
+    private final long debounceInterval;
+    private final Map<WatchKey, WatchedDirectory> watchedDirectories =
+            new ConcurrentHashMap<WatchKey, WatchedDirectory>();
+    private final List<File> missingDirectories = new ArrayList<File>();
+    private final AtomicLong scanCount = new AtomicLong();
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param task the scan to run when something has changed
+     * @param directories the directories to watch, including all their sub directories
+     * @param parentDirectories directories watched without their sub directories, e.g. the
+     *                          repository itself, so that the creation of a missing directory in
+     *                          <code>directories</code> is noticed
+     * @param debounceInterval how long the directories must be quiet before the scan runs, in
+     *                         milliseconds
+     */
+    public RepositoryWatcher(Runnable task, List<File> directories, List<File> parentDirectories,
+                             long debounceInterval) {
+        this.task = task;
+        this.directories = directories;
+        this.parentDirectories = parentDirectories;
+        this.debounceInterval = debounceInterval;
+    }
+
+    /**
+     * Registers the directories and starts the watcher thread.
+     *
+     * @return false if the directories cannot be watched, in which case nothing is started
+     */
+    public synchronized boolean start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (File directory : parentDirectories) {
+                if (directory.isDirectory()) {
+                    register(directory.toPath(), false);
+                }
+            }
+            for (File directory : directories) {
+                if (directory.isDirectory()) {
+                    registerAll(directory.toPath());
+                } else if (isWatchedParent(directory.getAbsoluteFile().getParentFile())) {
+                    missingDirectories.add(directory);
+                } else {
+                    // nothing would tell us when the directory is created
+                    log.info("Cannot watch " + directory + " as neither the directory nor " +
+                            "its parent exists");
+                    close();
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            log.info("Unable to watch the repository for changes: " + e.getMessage());
+            close();
+            return false;
+        } catch (UnsupportedOperationException e) {
+            log.info("The file system does not support watching the repository for changes");
+            close();
+            return false;
+        }
+        running = true;
+        thread = new Thread(this, "Axis2 repository watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stops the watcher thread. A scan that is running is allowed to complete.
+     */
+    public synchronized void stop() {
+        running = false;
+        close();
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Returns the number of times the scan has been run.
+     *
+     * @return the number of scans
+     */
+    public long getScanCount() {
+        return scanCount.get();
+    }
+
+    public void run() {
+        long firstChange = 0;
+        long lastChange = 0;
+        try {
+            while (running) {
+                WatchKey key;
+                if (firstChange == 0) {
+                    key = watchService.take();
+                } else {
+                    long now = System.currentTimeMillis();
+                    long wait = Math.min(lastChange + debounceInterval,
+                            firstChange + MAX_DEBOUNCE_INTERVALS * debounceInterval) - now;
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+                if (key != null) {
+                    processEvents(key);
+                    lastChange = System.currentTimeMillis();
+                    if (firstChange == 0) {
+                        firstChange = lastChange;
+                    }
+                } else if (firstChange != 0) {
+                    firstChange = 0;
+                    scan();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } catch (ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    private void scan() {
+        registerMissingDirectories();
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("Error while updating the deployed artifacts", t);
+        }
+        scanCount.incrementAndGet();
+    }
+
+    private void processEvents(WatchKey key) {
+        WatchedDirectory watchedDirectory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (watchedDirectory != null && watchedDirectory.recursive
+                    && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                Path child = watchedDirectory.path.resolve((Path) event.context());
+                if (Files.isDirectory(child)) {
+                    try {
+                        registerAll(child);
+                    } catch (IOException e) {
+                        log.warn("Unable to watch " + child + " for changes", e);
+                    }
+                }
+            }
+        }
+        if (!key.reset()) {
+            // the directory has been deleted
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private void registerMissingDirectories() {
+        for (Iterator<File> it = missingDirectories.iterator(); it.hasNext(); ) {
+            File directory = it.next();
+            if (directory.isDirectory()) {
+                try {
+                    registerAll(directory.toPath());
+                    it.remove();
+                } catch (IOException e) {
+                    log.warn("Unable to watch " + directory + " for changes", e);
+                }
+            }
+        }
+    }
+
+    private void registerAll(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                register(dir, true);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path directory, boolean recursive) throws IOException {
+        WatchKey key = directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchedDirectory existing = watchedDirectories.get(key);
+        if (existing == null || recursive) {
+            watchedDirectories.put(key, new WatchedDirectory(directory, recursive));
+        }
+    }
+
+    private boolean isWatchedParent(File directory) {
+        if (directory == null) {
+            return false;
+        }
+        for (File parent : parentDirectories) {
+            if (parent.getAbsoluteFile().equals(directory)) {
+                return parent.isDirectory();
+            }
+        }
+        for (File watched : directories) {
+            if (watched.getAbsoluteFile().equals(directory)) {
+                return watched.isDirectory();
+            }
+        }
+        return false;
+    }
+
+    private void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error while closing the watch service", e);
+            }
+        }
+        watchedDirectories.clear();
+    }
+
+    private static class WatchedDirectory {
+        final Path path;
+        final boolean recursive;
+
+        WatchedDirectory(Path path, boolean recursive) {
+            this.path = path;
+            this.recursive = recursive;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment.util;
+
+import org.apache.axis2.deployment.DeploymentConstants;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Keeps the files extracted from service and module archives on disk across restarts.
+ * <p/>
+ * When an archive is deployed, Axis2 copies it and every <code>lib/*.jar</code> it contains
+ * into the temporary directory so that the original file is not locked. With this cache the
+ * copies are made in the cache directory instead, and are reused on the next start as long as
+ * the archive has not changed. An archive is considered unchanged if its size and last
+ * modified time are the ones recorded in the index, or if the fingerprint of its zip central
+ * directory (the names, sizes and CRCs of its entries) is. Computing the fingerprint only reads
+ * the end of the archive, so a touched but otherwise unchanged archive is not read in full. A
+ * changed archive is extracted again and the previous copies are removed.
+ * <p/>
+ * Only the extraction is cached: the service descriptions, WSDLs and schemas are still built
+ * from the archive on every start.
+ * <p/>
+ * The cache is enabled by the <code>deploymentCacheDirectory</code> parameter in axis2.xml.
+ */
+public class DeploymentCache {
+    private static final Log log = LogFactory.getLog(DeploymentCache.class);
+
+    private static final int MAGIC = 0x41324443;
+    private static final int VERSION = 2;
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String LIB_DIRECTORY = "lib";
+
+    private final File directory;
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public DeploymentCache(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the deployment cache directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the deployment cache configured for the given AxisConfiguration.
+     *
+     * @param axisConfig the AxisConfiguration
+     * @return the deployment cache, or null if it is not enabled
+     */
+    public static DeploymentCache getDeploymentCache(AxisConfiguration axisConfig) {
+        Object cache = axisConfig.getParameterValue(DeploymentConstants.DEPLOYMENT_CACHE);
+        return cache instanceof DeploymentCache ? (DeploymentCache) cache : null;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of archives whose extracted files were reused.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of archives that had to be extracted.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Does the same as {@link Utils#getURLsForAllJars(URL, File)} but keeps the copies in the
+     * cache directory, so that they can be reused as long as the archive does not change.
+     *
+     * @param archiveURL the URL of the archive
+     * @return the URL of the copy of the archive followed by the URLs of the jars in its lib
+     *         directory, or null if the archive is not a local file
+     * @throws IOException if the archive could not be read or extracted
+     */
+    public URL[] getURLsForAllJars(URL archiveURL) throws IOException {
+        if (!"file".equals(archiveURL.getProtocol())) {
+            return null;
+        }
+        File archive = Utils.toFile(archiveURL).getAbsoluteFile();
+        if (!archive.isFile()) {
+            return null;
+        }
+        String key = toHex(digest(archive.getPath().getBytes("UTF-8")));
+        Object lock = new Object();
+        Object existingLock = locks.putIfAbsent(key, lock);
+        if (existingLock != null) {
+            lock = existingLock;
+        }
+        synchronized (lock) {
+            File indexFile = new File(directory, key + INDEX_SUFFIX);
+            Entry entry = readIndex(indexFile);
+            if (entry != null && entry.path.equals(archive.getPath()) && entry.isUsable()) {
+                if (entry.size == archive.length() && entry.lastModified == archive.lastModified()) {
+                    hits.incrementAndGet();
+                    return entry.getURLs();
+                }
+                if (entry.contentHash.equals(fingerprint(archive))) {
+                    // only the time stamp has changed
+                    entry.size = archive.length();
+                    entry.lastModified = archive.lastModified();
+                    writeIndex(indexFile, entry);
+                    hits.incrementAndGet();
+                    return entry.getURLs();
+                }
+            }
+            misses.incrementAndGet();
+            Entry newEntry = extract(archive, key);
+            writeIndex(indexFile, newEntry);
+            if (entry != null && !entry.dataDirectory.equals(newEntry.dataDirectory)) {
+                // the old copies may still be in use by the class loader of the previous
+                // version of the archive, in which case they are left for the next restart
+                delete(entry.dataDirectory);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Extracted " + archive + " into the deployment cache at " +
+                        newEntry.dataDirectory);
+            }
+            return newEntry.getURLs();
+        }
+    }
+
+    private Entry extract(File archive, String key) throws IOException {
+        long size = archive.length();
+        long lastModified = archive.lastModified();
+        String contentHash = fingerprint(archive);
+        File dataDirectory = new File(directory, key + "-" + contentHash.substring(0, 16));
+        delete(dataDirectory);
+        File libDirectory = new File(dataDirectory, LIB_DIRECTORY);
+        if (!libDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + libDirectory);
+        }
+        List<String> files = new ArrayList<String>();
+        File archiveCopy = new File(dataDirectory, archive.getName());
+        InputStream in = new FileInputStream(archive);
+        try {
+            copy(in, archiveCopy);
+        } finally {
+            in.close();
+        }
+        files.add(archive.getName());
+
+        ZipInputStream zin = new ZipInputStream(new BufferedInputStream(
+                new FileInputStream(archiveCopy)));
+        try {
+            ZipEntry zipEntry;
+            while ((zipEntry = zin.getNextEntry()) != null) {
+                String entryName = zipEntry.getName();
+                if (entryName.toLowerCase().startsWith("lib/")
+                        && entryName.toLowerCase().endsWith(".jar")) {
+                    // flatten nested directories so that the jar always ends up in lib
+                    String fileName = LIB_DIRECTORY + "/" + files.size() + "-" +
+                            entryName.substring(4).replace('/', '_').replace('\\', '_');
+                    copy(zin, new File(dataDirectory, fileName));
+                    files.add(fileName);
+                }
+            }
+        } finally {
+            zin.close();
+        }
+        return new Entry(archive.getPath(), size, lastModified, contentHash, dataDirectory,
+                files);
+    }
+
+    private static void copy(InputStream in, File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private Entry readIndex(File indexFile) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(indexFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String contentHash = in.readUTF();
+                File dataDirectory = new File(directory, in.readUTF());
+                int count = in.readInt();
+                List<String> files = new ArrayList<String>(count);
+                for (int i = 0; i < count; i++) {
+                    files.add(in.readUTF());
+                }
+                return new Entry(path, size, lastModified, contentHash, dataDirectory, files);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable deployment cache index " + indexFile, e);
+            return null;
+        }
+    }
+
+    private void writeIndex(File indexFile, Entry entry) throws IOException {
+        File tempFile = new File(directory, indexFile.getName() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(entry.path);
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            out.writeUTF(entry.contentHash);
+            out.writeUTF(entry.dataDirectory.getName());
+            out.writeInt(entry.files.size());
+            for (String file : entry.files) {
+                out.writeUTF(file);
+            }
+        } finally {
+            out.close();
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                throw new IOException("Unable to write the deployment cache index " + indexFile);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (file.exists() && !file.delete() && log.isDebugEnabled()) {
+            log.debug("Unable to delete " + file);
+        }
+    }
+
+    /**
+     * Computes a hash of the central directory of a zip archive, or of its whole content if it
+     * is not a zip archive.
+     */
+    static String fingerprint(File file) throws IOException {
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(file);
+        } catch (ZipException e) {
+            return hash(file);
+        }
+        try {
+            MessageDigest digest = newDigest();
+            DataOutputStream out = new DataOutputStream(new DigestOutputStream(digest));
+            for (Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                 entries.hasMoreElements();) {
+                ZipEntry entry = entries.nextElement();
+                out.writeUTF(entry.getName());
+                out.writeLong(entry.getCrc());
+                out.writeLong(entry.getSize());
+                out.writeLong(entry.getCompressedSize());
+            }
+            out.flush();
+            return toHex(digest.digest());
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private static String hash(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return toHex(digest.digest());
+    }
+
+    private static byte[] digest(byte[] data) {
+        return newDigest().digest(data);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder buffer = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buffer.append(Character.forDigit((b >> 4) & 0xF, 16));
+            buffer.append(Character.forDigit(b & 0xF, 16));
+        }
+        return buffer.toString();
+    }
+
+    private static final class DigestOutputStream extends OutputStream {
+        private final MessageDigest digest;
+
+        DigestOutputStream(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        public void write(int b) {
+            digest.update((byte) b);
+        }
+
+        public void write(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+        }
+    }
+
+    /**
+     * An index entry, describing the copies made for one archive.
+     */
+    private static class Entry {
+        final String path;
+        long size;
+        long lastModified;
+        final String contentHash;
+        final File dataDirectory;
+        final List<String> files;
+
+        Entry(String path, long size, long lastModified, String contentHash,
+              File dataDirectory, List<String> files) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.dataDirectory = dataDirectory;
+            this.files = files;
+        }
+
+        boolean isUsable() {
+            if (files.isEmpty()) {
+                return false;
+            }
+            for (String file : files) {
+                if (!new File(dataDirectory, file).isFile()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        URL[] getURLs() throws IOException {
+            URL[] urls = new URL[files.size()];
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = new File(dataDirectory, files.get(i)).toURI().toURL();
+            }
+            return urls;
+        }
+    }
+}
@@ -163,6 +163,17 @@ public class Utils {
         return true;
     }
 
+    private static URL[] getURLsForAllJars(URL url, File tmpDir,
+                                           DeploymentCache deploymentCache) throws IOException {
+        if (deploymentCache != null) {
+            URL[] urls = deploymentCache.getURLsForAllJars(url);
+            if (urls != null) {
+                return urls;
+            }
+        }
+        return getURLsForAllJars(url, tmpDir);
+    }
+
     public static URL[] getURLsForAllJars(URL url, File tmpDir) {
         FileInputStream fin = null;
         InputStream in = null;
@@ -877,10 +888,24 @@ public class Utils {
                                                 boolean extractJars,
                                                 File tmpDir,
                                                 boolean isChildFirstClassLoading) {
+        return createClassLoader(urls, serviceClassLoader, extractJars, tmpDir,
+                                 isChildFirstClassLoading, null);
+    }
+
+    /**
+     * Same as {@link #createClassLoader(ArrayList, ClassLoader, boolean, File, boolean)}, but
+     * takes the extracted jars from the given deployment cache if it is not null.
+     */
+    public static ClassLoader createClassLoader(ArrayList urls,
+                                                ClassLoader serviceClassLoader,
+                                                boolean extractJars,
+                                                File tmpDir,
+                                                boolean isChildFirstClassLoading,
+                                                DeploymentCache deploymentCache) {
         URL url = (URL)urls.get(0);
         if (extractJars) {
             try {
-                URL[] urls1 = Utils.getURLsForAllJars(url, tmpDir);
+                URL[] urls1 = getURLsForAllJars(url, tmpDir, deploymentCache);
                 urls.remove(0);
                 urls.addAll(0, Arrays.asList(urls1));
                 URL[] urls2 = (URL[])urls.toArray(new URL[urls.size()]);
@@ -910,9 +935,23 @@ public class Utils {
                                                 boolean extractJars,
                                                 File tmpDir,
                                                 boolean isChildFirstClassLoading) {
+        return createClassLoader(urls, serviceClassLoader, extractJars, tmpDir,
+                                 isChildFirstClassLoading, null);
+    }
+
+    /**
+     * Same as {@link #createClassLoader(URL[], ClassLoader, boolean, File, boolean)}, but
+     * takes the extracted jars from the given deployment cache if it is not null.
+     */
+    public static ClassLoader createClassLoader(URL[] urls,
+                                                ClassLoader serviceClassLoader,
+                                                boolean extractJars,
+                                                File tmpDir,
+                                                boolean isChildFirstClassLoading,
+                                                DeploymentCache deploymentCache) {
         if (extractJars) {
             try {
-                URL[] urls1 = Utils.getURLsForAllJars(urls[0], tmpDir);
+                URL[] urls1 = getURLsForAllJars(urls[0], tmpDir, deploymentCache);
                 return createDeploymentClassLoader(urls1, serviceClassLoader,
                                                    null, isChildFirstClassLoading);
             } catch (Exception e) {
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
@@ -37,7 +38,9 @@ import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.AxisError;
+import org.apache.axis2.engine.Handler;
 import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.engine.Phase;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.phaseresolver.PhaseResolver;
 import org.apache.axis2.wsdl.WSDLConstants;
@@ -79,6 +82,9 @@ public abstract class AxisOperation extends AxisDescription
 
     private String soapAction;
 
+    // operation out flow joined with the global out flow, shared by every message sent
+    private volatile CompiledFlow compiledOutFlow;
+
 
     /** Default constructor */
     public AxisOperation() {
@@ -411,6 +417,32 @@ public abstract class AxisOperation extends AxisDescription
 
     public abstract ArrayList getRemainingPhasesInFlow();
 
+    /**
+     * Returns a fresh execution chain made of the out flow phases of this operation followed by
+     * the given global out flow phases. The concatenation is computed once and reused until
+     * either list changes or a module is engaged/disengaged, so sending a message only costs a
+     * single array copy.
+     *
+     * @param globalOutPhases the global out flow phases of the AxisConfiguration
+     * @return a new, modifiable execution chain for one message
+     */
+    public ArrayList<Handler> getOutFlowExecutionChain(List<Phase> globalOutPhases) {
+        List<Handler> operationPhases = getPhasesOutFlow();
+        CompiledFlow flow = compiledOutFlow;
+        if (flow == null || !flow.isCurrent(operationPhases, globalOutPhases)) {
+            flow = new CompiledFlow(operationPhases, globalOutPhases);
+            compiledOutFlow = flow;
+        }
+        return new ArrayList<Handler>(flow.chain);
+    }
+
+    /**
+     * Drops the cached execution chains of this operation. They are rebuilt on next use.
+     */
+    public void invalidateCompiledFlows() {
+        compiledOutFlow = null;
+    }
+
     public String getStyle() {
         return style;
     }
@@ -623,4 +655,37 @@ public abstract class AxisOperation extends AxisDescription
          */
         return soapAction;
     }
+
+    /**
+     * Immutable concatenation of an operation flow and a global flow, along with what it was
+     * built from so that a replaced or resized source list is detected without locking.
+     */
+    private static final class CompiledFlow {
+        private final List<Handler> operationPhases;
+        private final List<Phase> globalPhases;
+        private final int operationSize;
+        private final int globalSize;
+        private final List<Handler> chain;
+
+        CompiledFlow(List<Handler> operationPhases, List<Phase> globalPhases) {
+            this.operationPhases = operationPhases;
+            this.globalPhases = globalPhases;
+            this.operationSize = operationPhases == null ? 0 : operationPhases.size();
+            this.globalSize = globalPhases == null ? 0 : globalPhases.size();
+            ArrayList<Handler> chain = new ArrayList<Handler>(operationSize + globalSize);
+            if (operationPhases != null) {
+                chain.addAll(operationPhases);
+            }
+            if (globalPhases != null) {
+                chain.addAll(globalPhases);
+            }
+            this.chain = chain;
+        }
+
+        boolean isCurrent(List<Handler> operationPhases, List<Phase> globalPhases) {
+            return this.operationPhases == operationPhases && this.globalPhases == globalPhases
+                    && operationSize == (operationPhases == null ? 0 : operationPhases.size())
+                    && globalSize == (globalPhases == null ? 0 : globalPhases.size());
+        }
+    }
 }
@@ -37,6 +37,8 @@ import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.TransportSender;
 import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.util.CallbackReceiver;
@@ -234,6 +236,8 @@ class OutInAxisOperationClient extends OperationClient {
                 // Send the SOAP Message and receive a response
                 send(mc);
                 completed = true;
+            } else if (canSendNonBlocking(mc)) {
+                sendNonBlocking(mc, axisCallback);
             } else {
                 sc.getConfigurationContext().getThreadPool().execute(
                         new NonBlockingInvocationWorker(mc, axisCallback));
@@ -241,6 +245,58 @@ class OutInAxisOperationClient extends OperationClient {
         }
     }
 
+    private static boolean canSendNonBlocking(MessageContext mc) {
+        TransportOutDescription transportOut = mc.getTransportOut();
+        if (transportOut == null) {
+            return false;
+        }
+        TransportSender sender = transportOut.getSender();
+        return sender instanceof NonBlockingTransportSender
+                && ((NonBlockingTransportSender) sender).canSendNonBlocking(mc);
+    }
+
+    /**
+     * Send the request through a {@link NonBlockingTransportSender}, so that no thread is held
+     * while the response is outstanding. The response is processed, and the callback notified,
+     * on the thread the transport delivers the response on.
+     */
+    private void sendNonBlocking(final MessageContext msgContext, final AxisCallback axisCallback) {
+        try {
+            final MessageContext responseMessageContext = createResponseMessageContext(msgContext);
+            msgContext.setProperty(NonBlockingTransportSender.RESPONSE_CALLBACK,
+                    new NonBlockingTransportSender.ResponseCallback() {
+                        public void onResponse(MessageContext requestMessageContext) {
+                            try {
+                                receiveResponse(requestMessageContext, responseMessageContext);
+                                notifyCallback(responseMessageContext, axisCallback);
+                            } catch (Exception e) {
+                                if (axisCallback != null) {
+                                    axisCallback.onError(e);
+                                }
+                            } finally {
+                                if (axisCallback != null) {
+                                    axisCallback.onComplete();
+                                }
+                            }
+                        }
+
+                        public void onError(Exception e) {
+                            if (axisCallback != null) {
+                                axisCallback.onError(e);
+                                axisCallback.onComplete();
+                            }
+                        }
+                    });
+            AxisEngine.send(msgContext);
+        } catch (AxisFault e) {
+            // nothing has been scheduled, so the callback has not been (and will not be) called
+            if (axisCallback != null) {
+                axisCallback.onError(e);
+                axisCallback.onComplete();
+            }
+        }
+    }
+
     private void sendAsync(boolean useAsync, MessageContext mc)
             throws AxisFault {
         if (log.isDebugEnabled()) {
@@ -430,9 +486,20 @@ class OutInAxisOperationClient extends OperationClient {
      * @throws AxisFault Sends the message using a two way transport and waits for a response
      */
     protected MessageContext send(MessageContext msgContext) throws AxisFault {
+        MessageContext responseMessageContext = createResponseMessageContext(msgContext);
+
+        //sending the message
+        AxisEngine.send(msgContext);
 
-        // create the responseMessageContext
+        receiveResponse(msgContext, responseMessageContext);
+        return responseMessageContext;
+    }
 
+    /**
+     * Create the response message context and add it to the operation context.
+     */
+    private MessageContext createResponseMessageContext(MessageContext msgContext)
+            throws AxisFault {
         MessageContext responseMessageContext =
                 msgContext.getConfigurationContext().createMessageContext();
 
@@ -444,10 +511,15 @@ class OutInAxisOperationClient extends OperationClient {
         responseMessageContext.setServiceContext(msgContext.getServiceContext());
         responseMessageContext.setAxisMessage(
                 axisOp.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+        return responseMessageContext;
+    }
 
-        //sending the message
-        AxisEngine.send(msgContext);
-
+    /**
+     * Process the response once the transport has set the response properties on the request
+     * message context.
+     */
+    private void receiveResponse(MessageContext msgContext, MessageContext responseMessageContext)
+            throws AxisFault {
         responseMessageContext.setDoingREST(msgContext.isDoingREST());
 
         // Copy RESPONSE properties which the transport set onto the request message context when it processed
@@ -462,7 +534,30 @@ class OutInAxisOperationClient extends OperationClient {
         responseMessageContext.setTransportIn(msgContext.getTransportIn());
         responseMessageContext.setTransportOut(msgContext.getTransportOut());
         handleResponse(responseMessageContext);
-        return responseMessageContext;
+    }
+
+    /**
+     * Notify the callback of a non-blocking invocation about the response.
+     */
+    private void notifyCallback(MessageContext response, AxisCallback axisCallback)
+            throws AxisFault {
+        if (response == null || axisCallback == null) {
+            return;
+        }
+        SOAPEnvelope resenvelope = response.getEnvelope();
+        if (resenvelope.hasFault()) {
+            SOAPBody body = resenvelope.getBody();
+            // If a fault was found, create an AxisFault with a MessageContext so that
+            // other programming models can deserialize the fault to an alternative form.
+            AxisFault fault = new AxisFault(body.getFault(), response);
+            if (options.isExceptionToBeThrownOnSOAPFault()) {
+                axisCallback.onError(fault);
+            } else {
+                axisCallback.onFault(response);
+            }
+        } else {
+            axisCallback.onMessage(response);
+        }
     }
 
     /**
@@ -484,30 +579,7 @@ class OutInAxisOperationClient extends OperationClient {
                 // send the request and wait for response
                 MessageContext response = send(msgctx);
                 // call the callback
-                if (response != null) {
-                    SOAPEnvelope resenvelope = response.getEnvelope();
-
-                    if (resenvelope.hasFault()) {
-                        SOAPBody body = resenvelope.getBody();
-                        // If a fault was found, create an AxisFault with a MessageContext so that
-                        // other programming models can deserialize the fault to an alternative form.
-                        AxisFault fault = new AxisFault(body.getFault(), response);
-                        if (axisCallback != null) {
-                            if (options.isExceptionToBeThrownOnSOAPFault()) {
-                                axisCallback.onError(fault);
-                            } else {
-                                axisCallback.onFault(response);
-                            }
-                        }
-
-                    } else {
-                        if (axisCallback != null) {
-                            axisCallback.onMessage(response);
-                        }
-
-                    }
-                }
-
+                notifyCallback(response, axisCallback);
             } catch (Exception e) {
                 if (axisCallback != null) {
                     axisCallback.onError(e);
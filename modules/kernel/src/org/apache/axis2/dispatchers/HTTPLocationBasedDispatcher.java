@@ -22,6 +22,7 @@ package org.apache.axis2.dispatchers;
 
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisBinding;
 import org.apache.axis2.description.AxisEndpoint;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
@@ -35,8 +36,6 @@ import org.apache.commons.logging.LogFactory;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Dispatches the operation based on the information from the target endpoint URL.
@@ -60,6 +59,7 @@ public class HTTPLocationBasedDispatcher extends AbstractDispatcher {
             String httpMethod = (String) messageContext.getProperty(HTTPConstants.HTTP_METHOD);
 
             if (httpLocation != null) {
+                String resourcePath = httpLocation;
                 httpLocation = httpMethod + httpLocation;
                  // following code is commented out because it is not allowing us
                 //to differenciate  between httplocation GET /product/ and GET /product
@@ -75,7 +75,8 @@ public class HTTPLocationBasedDispatcher extends AbstractDispatcher {
                     Map httpLocationTableForResource = (Map) axisEndpoint.getBinding()
                             .getProperty(WSDL2Constants.HTTP_LOCATION_TABLE_FOR_RESOURCE);
                     if (httpLocationTableForResource != null) {
-                        return getOperationFromHTTPLocationForResource(httpLocation, httpLocationTableForResource);
+                        return getOperationFromHTTPLocationForResource(httpMethod, resourcePath,
+                                axisEndpoint.getBinding(), httpLocationTableForResource);
                     }
                     Map httpLocationTable = (Map) axisEndpoint.getBinding()
                             .getProperty(WSDL2Constants.HTTP_LOCATION_TABLE);
@@ -154,19 +155,25 @@ public class HTTPLocationBasedDispatcher extends AbstractDispatcher {
         return null;
     }
 
-    private AxisOperation getOperationFromHTTPLocationForResource(String requestPath, Map httpLocationTable) {
-
-        Collection httpLocations = httpLocationTable.keySet();
-        Iterator iter = httpLocations.iterator();
-        while (iter.hasNext()) {
-            Pattern location = (Pattern) iter.next();
-            if (requestPath.contains("?")) {
-                requestPath = requestPath.substring(0, requestPath.indexOf("?"));
-            }
-            if (requestPath.matches(location.pattern())) {
-                return (AxisOperation) httpLocationTable.get(location);
-            }
+    /**
+     * Looks up the operation in the binding's table of resource patterns, through the
+     * {@link HTTPLocationRouter} built from that table.
+     *
+     * @param httpMethod - The HTTP method of the request
+     * @param requestPath - Part of the request url which is the part after the service name
+     * @param axisBinding - The binding the table belongs to
+     * @param httpLocationTable - The httpLocationTableForResource stored in the binding
+     * @return AxisOperation - The corresponding AxisOperation
+     */
+    private AxisOperation getOperationFromHTTPLocationForResource(String httpMethod,
+                                                                  String requestPath,
+                                                                  AxisBinding axisBinding,
+                                                                  Map httpLocationTable) {
+        int queryIndex = requestPath.indexOf('?');
+        if (queryIndex != -1) {
+            requestPath = requestPath.substring(0, queryIndex);
         }
-        return null;
+        return HTTPLocationRouter.getRouterForResource(axisBinding, httpLocationTable)
+                .match(httpMethod, requestPath);
     }
 }
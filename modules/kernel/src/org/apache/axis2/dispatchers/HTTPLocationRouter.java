@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.dispatchers;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisBinding;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.WSDL2Constants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Routes a request path to an operation using a trie of path segments, so that the cost of a
+ * lookup depends on the depth of the path rather than on the number of operations.
+ * <p/>
+ * The routes are built from the patterns created by
+ * {@link org.apache.axis2.wsdl.WSDLUtil#getConstantFromHTTPLocationForResource(String, String)},
+ * i.e. the HTTP method followed by segments, each of which is one of
+ * <ul>
+ * <li>a literal, matching a path segment with the same value, or</li>
+ * <li>a wildcard (<code>.*</code>), matching one or more path segments.</li>
+ * </ul>
+ * The routes are kept per HTTP method at the node where their last segment ends. Patterns
+ * that cannot be expressed as such segments are matched with their precompiled regular
+ * expression. If several routes match a request, the one added first wins, which is the order
+ * in which the dispatcher used to test the entries of the http location table.
+ * <p/>
+ * A router is safe for concurrent lookups once it has been built.
+ */
+public final class HTTPLocationRouter {
+
+    private static final Log log = LogFactory.getLog(HTTPLocationRouter.class);
+
+    /**
+     * Name of the {@link AxisBinding} parameter holding the router built from the binding's
+     * {@link WSDL2Constants#HTTP_LOCATION_TABLE_FOR_RESOURCE}.
+     */
+    private static final String ROUTER_PARAMETER = "HTTPLocationRouter";
+
+    private static final String WILDCARD = ".*";
+
+    private static final String REGEX_META_CHARACTERS = "\\[]{}()*+?.^$|";
+
+    private final Node root = new Node();
+
+    private final List<RegexRoute> regexRoutes = new ArrayList<RegexRoute>();
+
+    private int routeCount;
+
+    /**
+     * The table the router was built from, and its entries at that time, used to detect that
+     * the table has been replaced or modified.
+     */
+    private final Map sourceTable;
+
+    private final Object[] sourceKeys;
+
+    private final Object[] sourceValues;
+
+    /**
+     * Create a router for an http location table for resources. All the routes are added in the
+     * constructor, so that the router can be shared through a cache without further
+     * synchronization.
+     */
+    HTTPLocationRouter(Map httpLocationTableForResource) {
+        sourceTable = httpLocationTableForResource;
+        sourceKeys = new Object[httpLocationTableForResource.size()];
+        sourceValues = new Object[sourceKeys.length];
+        int i = 0;
+        for (Object entry : httpLocationTableForResource.entrySet()) {
+            Map.Entry mapEntry = (Map.Entry) entry;
+            sourceKeys[i] = mapEntry.getKey();
+            sourceValues[i] = mapEntry.getValue();
+            addPattern((Pattern) sourceKeys[i], (AxisOperation) sourceValues[i]);
+            i++;
+        }
+    }
+
+    /**
+     * Get the router for a binding's http location table for resources, building it on first
+     * use and rebuilding it whenever the table has been replaced or any of its entries has been
+     * added, removed or replaced.
+     *
+     * @param binding the binding the table belongs to
+     * @param httpLocationTableForResource the table mapping patterns to operations
+     * @return the router
+     */
+    public static HTTPLocationRouter getRouterForResource(AxisBinding binding,
+                                                          Map httpLocationTableForResource) {
+        Parameter parameter = binding.getParameter(ROUTER_PARAMETER);
+        HTTPLocationRouter router = parameter == null ? null
+                : (HTTPLocationRouter) parameter.getValue();
+        if (router != null && router.isBuiltFrom(httpLocationTableForResource)) {
+            return router;
+        }
+        router = new HTTPLocationRouter(httpLocationTableForResource);
+        try {
+            binding.addParameter(ROUTER_PARAMETER, router);
+        } catch (AxisFault e) {
+            // the router is only a cache; use it for this request only
+            log.debug("Unable to cache the HTTP location router on the binding", e);
+        }
+        return router;
+    }
+
+    /**
+     * Check that the table still holds the entries the router was built from. This only
+     * compares references, which is far cheaper than matching the patterns.
+     */
+    private boolean isBuiltFrom(Map httpLocationTableForResource) {
+        if (sourceTable != httpLocationTableForResource
+                || sourceKeys.length != httpLocationTableForResource.size()) {
+            return false;
+        }
+        int i = 0;
+        for (Iterator it = httpLocationTableForResource.entrySet().iterator(); it.hasNext();) {
+            Map.Entry mapEntry = (Map.Entry) it.next();
+            if (i == sourceKeys.length || mapEntry.getKey() != sourceKeys[i]
+                    || mapEntry.getValue() != sourceValues[i]) {
+                return false;
+            }
+            i++;
+        }
+        return i == sourceKeys.length;
+    }
+
+    /**
+     * Add a route for a pattern created by
+     * {@link org.apache.axis2.wsdl.WSDLUtil#getConstantFromHTTPLocationForResource(String,
+     * String)}, i.e. the HTTP method followed by <code>/literal</code> and <code>/.*</code>
+     * segments. Any other pattern is matched as a regular expression.
+     */
+    private void addPattern(Pattern pattern, AxisOperation operation) {
+        String regex = pattern.pattern();
+        int slash = regex.indexOf('/');
+        String httpMethod = slash == -1 ? regex : regex.substring(0, slash);
+        if (containsMetaCharacter(httpMethod)) {
+            regexRoutes.add(new RegexRoute(pattern, new Route(operation, routeCount++)));
+            return;
+        }
+        List<String> segments = new ArrayList<String>();
+        if (slash != -1) {
+            for (String segment : regex.substring(slash + 1).split("/", -1)) {
+                if (!WILDCARD.equals(segment) && containsMetaCharacter(segment)) {
+                    regexRoutes.add(new RegexRoute(pattern, new Route(operation, routeCount++)));
+                    return;
+                }
+                segments.add(segment);
+            }
+        }
+        Node node = root;
+        for (String segment : segments) {
+            node = WILDCARD.equals(segment) ? node.wildcardChild() : node.literalChild(segment);
+        }
+        node.addRoute(httpMethod, new Route(operation, routeCount++));
+    }
+
+    /**
+     * Find the operation for a request.
+     *
+     * @param httpMethod the HTTP method of the request
+     * @param path       the request path relative to the service, starting with a '/' unless it
+     *                   is empty, without the query string
+     * @return the operation, or <code>null</code> if no route matches
+     */
+    public AxisOperation match(String httpMethod, String path) {
+        String[] segments;
+        if (path.length() == 0) {
+            segments = new String[0];
+        } else if (path.charAt(0) == '/') {
+            segments = path.substring(1).split("/", -1);
+        } else {
+            segments = null;
+        }
+
+        Route best = null;
+        if (segments != null) {
+            best = root.match(httpMethod, segments, 0, null);
+        }
+        if (!regexRoutes.isEmpty()) {
+            String requestPath = httpMethod + path;
+            for (RegexRoute regexRoute : regexRoutes) {
+                if (best != null && best.ordinal < regexRoute.route.ordinal) {
+                    break;
+                }
+                if (regexRoute.pattern.matcher(requestPath).matches()) {
+                    best = regexRoute.route;
+                    break;
+                }
+            }
+        }
+        return best == null ? null : best.operation;
+    }
+
+    private static boolean containsMetaCharacter(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (REGEX_META_CHARACTERS.indexOf(s.charAt(i)) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Route {
+
+        final AxisOperation operation;
+
+        /**
+         * The order in which the route was added; lower wins when several routes match.
+         */
+        final int ordinal;
+
+        Route(AxisOperation operation, int ordinal) {
+            this.operation = operation;
+            this.ordinal = ordinal;
+        }
+    }
+
+    private static final class RegexRoute {
+
+        final Pattern pattern;
+
+        final Route route;
+
+        RegexRoute(Pattern pattern, Route route) {
+            this.pattern = pattern;
+            this.route = route;
+        }
+    }
+
+    private static final class Node {
+
+        private Map<String, Node> literals;
+
+        private Node wildcard;
+
+        /**
+         * The routes ending at this node, by HTTP method.
+         */
+        private Map<String, Route> routes;
+
+        Node literalChild(String segment) {
+            if (literals == null) {
+                literals = new HashMap<String, Node>();
+            }
+            Node child = literals.get(segment);
+            if (child == null) {
+                child = new Node();
+                literals.put(segment, child);
+            }
+            return child;
+        }
+
+        Node wildcardChild() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+
+        void addRoute(String httpMethod, Route route) {
+            if (routes == null) {
+                routes = new HashMap<String, Route>();
+            }
+            // keep the first route, as a lookup in the original table would have
+            if (!routes.containsKey(httpMethod)) {
+                routes.put(httpMethod, route);
+            }
+        }
+
+        /**
+         * Find the route added first among <code>best</code> and the routes matching the
+         * segments from <code>index</code> on.
+         */
+        Route match(String httpMethod, String[] segments, int index, Route best) {
+            if (index == segments.length) {
+                Route route = routes == null ? null : routes.get(httpMethod);
+                if (route != null && (best == null || route.ordinal < best.ordinal)) {
+                    return route;
+                }
+                return best;
+            }
+            if (literals != null) {
+                Node child = literals.get(segments[index]);
+                if (child != null) {
+                    best = child.match(httpMethod, segments, index + 1, best);
+                }
+            }
+            if (wildcard != null) {
+                // a wildcard consumes one or more segments
+                for (int end = index + 1; end <= segments.length; end++) {
+                    best = wildcard.match(httpMethod, segments, end, best);
+                }
+            }
+            return best;
+        }
+    }
+}
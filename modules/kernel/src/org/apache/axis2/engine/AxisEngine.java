@@ -134,6 +134,27 @@ public class AxisEngine {
         return MessageContextBuilder.createFaultMessageContext(processingContext, e);
     }
 
+    /**
+     * Hand the message over to the message receiver, within the limits of the
+     * {@link Bulkhead} configured for the operation, if any.
+     */
+    private static void invokeMessageReceiver(MessageContext msgContext,
+                                              MessageReceiver receiver) throws AxisFault {
+        Bulkhead bulkhead = Bulkhead.getBulkhead(msgContext.getAxisOperation());
+        if (bulkhead == null) {
+            receiver.receive(msgContext);
+            return;
+        }
+        if (!bulkhead.acquire()) {
+            throw bulkhead.createRejectionFault(msgContext);
+        }
+        try {
+            receiver.receive(msgContext);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
     /**
      * This methods represents the inflow of the Axis, this could be either at the server side or the client side.
      * Here the <code>ExecutionChain</code> is created using the Phases. The Handlers at the each Phases is ordered in
@@ -160,8 +181,7 @@ public class AxisEngine {
         // Set the initial execution chain in the MessageContext to a *copy* of what
         // we got above.  This allows individual message processing to change the chain without
         // affecting later messages.
-        ArrayList<Handler> executionChain = new ArrayList<Handler>();
-        executionChain.addAll(preCalculatedPhases);
+        ArrayList<Handler> executionChain = new ArrayList<Handler>(preCalculatedPhases);
         msgContext.setExecutionChain(executionChain);
         try {
             InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -177,7 +197,7 @@ public class AxisEngine {
                                 "nomessagereciever",
                                 msgContext.getAxisOperation().getName().toString()));
                     }
-                    receiver.receive(msgContext);
+                    invokeMessageReceiver(msgContext, receiver);
                 }
                 flowComplete(msgContext);
             } else if (pi.equals(InvocationResponse.SUSPEND)) {
@@ -335,7 +355,7 @@ public class AxisEngine {
                             "nomessagereciever",
                             msgContext.getAxisOperation().getName().toString()));
                 }
-                receiver.receive(msgContext);
+                invokeMessageReceiver(msgContext, receiver);
             }
             flowComplete(msgContext);
         }
@@ -415,11 +435,9 @@ public class AxisEngine {
         }
         // find and invoke the Phases
         OperationContext operationContext = msgContext.getOperationContext();
-        ArrayList executionChain = operationContext.getAxisOperation().getPhasesOutFlow();
         //rather than having two steps added both oparation and global chain together
-        ArrayList outPhases = new ArrayList();
-        outPhases.addAll(executionChain);
-        outPhases.addAll(msgContext.getConfigurationContext().getAxisConfiguration().getOutFlowPhases());
+        ArrayList<Handler> outPhases = operationContext.getAxisOperation().getOutFlowExecutionChain(
+                msgContext.getConfigurationContext().getAxisConfiguration().getOutFlowPhases());
         msgContext.setExecutionChain(outPhases);
         msgContext.setFLOW(MessageContext.OUT_FLOW);
         try {
@@ -476,13 +494,11 @@ public class AxisEngine {
         // find and execute the Fault Out Flow Handlers
         if (opContext != null) {
             AxisOperation axisOperation = opContext.getAxisOperation();
-            ArrayList faultExecutionChain = axisOperation.getPhasesOutFaultFlow();
+            ArrayList<Handler> faultExecutionChain = axisOperation.getPhasesOutFaultFlow();
 
             //adding both operation specific and global out fault flows.
 
-            ArrayList outFaultPhases = new ArrayList();
-            outFaultPhases.addAll((ArrayList) faultExecutionChain.clone());
-            msgContext.setExecutionChain((ArrayList) outFaultPhases.clone());
+            msgContext.setExecutionChain(new ArrayList<Handler>(faultExecutionChain));
             msgContext.setFLOW(MessageContext.OUT_FAULT_FLOW);
             try {
                 InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
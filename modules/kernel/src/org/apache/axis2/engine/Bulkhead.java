@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.engine;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisDescription;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.i18n.Messages;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests that a service (or a single operation) may process
+ * concurrently, so that one slow service can not tie up all the transport worker threads.
+ * <p/>
+ * A bulkhead is enabled by setting the {@link #MAX_CONCURRENT_REQUESTS} parameter in
+ * services.xml, either on the service or on an operation. Every operation that sees the
+ * parameter shares the bulkhead of the description that declares it. Requests that find all
+ * the permits taken wait in a bounded queue ({@link #MAX_QUEUED_REQUESTS}) for at most
+ * {@link #MAX_QUEUE_WAIT_TIME} milliseconds; requests that can not be queued, or that time
+ * out, are rejected with a fault that the HTTP transports turn into a
+ * <code>503 Service Unavailable</code> response carrying a <code>Retry-After</code> header.
+ * <pre>
+ * &lt;parameter name="bulkheadMaxConcurrentRequests"&gt;20&lt;/parameter&gt;
+ * &lt;parameter name="bulkheadMaxQueuedRequests"&gt;50&lt;/parameter&gt;
+ * &lt;parameter name="bulkheadMaxQueueWaitTime"&gt;2000&lt;/parameter&gt;
+ * &lt;parameter name="bulkheadRetryAfter"&gt;5&lt;/parameter&gt;
+ * </pre>
+ */
+public class Bulkhead {
+
+    private static final Log log = LogFactory.getLog(Bulkhead.class);
+
+    /**
+     * Maximum number of requests processed concurrently. Setting this parameter enables the
+     * bulkhead.
+     */
+    public static final String MAX_CONCURRENT_REQUESTS = "bulkheadMaxConcurrentRequests";
+
+    /**
+     * Maximum number of requests waiting for a permit; 0 (the default) rejects as soon as all
+     * the permits are taken.
+     */
+    public static final String MAX_QUEUED_REQUESTS = "bulkheadMaxQueuedRequests";
+
+    /**
+     * Maximum time in milliseconds a queued request waits for a permit. Defaults to 1000.
+     */
+    public static final String MAX_QUEUE_WAIT_TIME = "bulkheadMaxQueueWaitTime";
+
+    /**
+     * Value in seconds of the Retry-After header sent with rejected requests. Defaults to 1.
+     */
+    public static final String RETRY_AFTER = "bulkheadRetryAfter";
+
+    /**
+     * Name of the parameter that holds the bulkhead on the description that declares it.
+     */
+    private static final String BULKHEAD = "bulkhead";
+
+    private final String name;
+    private final Parameter configuration;
+    private final int maxConcurrentRequests;
+    private final int maxQueuedRequests;
+    private final long maxQueueWaitTime;
+    private final int retryAfter;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalQueueWaitTime = new AtomicLong();
+    private final AtomicLong maxQueueWaitTimeSeen = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrentRequests, int maxQueuedRequests,
+                    long maxQueueWaitTime, int retryAfter) {
+        this(name, null, maxConcurrentRequests, maxQueuedRequests, maxQueueWaitTime, retryAfter);
+    }
+
+    private Bulkhead(String name, Parameter configuration, int maxConcurrentRequests,
+                     int maxQueuedRequests, long maxQueueWaitTime, int retryAfter) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+        }
+        this.name = name;
+        this.configuration = configuration;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueuedRequests = Math.max(0, maxQueuedRequests);
+        this.maxQueueWaitTime = Math.max(0, maxQueueWaitTime);
+        this.retryAfter = retryAfter;
+        // fair, so that queued requests are served in arrival order
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    /**
+     * Return the bulkhead that applies to the given operation, or null if neither the
+     * operation nor any of its parents declares one.
+     */
+    public static Bulkhead getBulkhead(AxisOperation axisOperation) throws AxisFault {
+        Parameter configuration = axisOperation.getParameter(MAX_CONCURRENT_REQUESTS);
+        if (configuration == null) {
+            return null;
+        }
+        Parameter cached = axisOperation.getParameter(BULKHEAD);
+        if (cached != null && ((Bulkhead) cached.getValue()).configuration == configuration) {
+            return (Bulkhead) cached.getValue();
+        }
+
+        // the bulkhead belongs to the topmost description that sees the same parameter
+        AxisDescription owner = axisOperation;
+        while (owner.getParent() != null
+                && owner.getParent().getParameter(MAX_CONCURRENT_REQUESTS) == configuration) {
+            owner = owner.getParent();
+        }
+        synchronized (owner) {
+            cached = owner.getParameter(BULKHEAD);
+            if (cached != null && ((Bulkhead) cached.getValue()).configuration == configuration) {
+                return (Bulkhead) cached.getValue();
+            }
+            Bulkhead bulkhead = new Bulkhead(String.valueOf(owner.getKey()), configuration,
+                    getIntParameter(owner, MAX_CONCURRENT_REQUESTS, 0),
+                    getIntParameter(owner, MAX_QUEUED_REQUESTS, 0),
+                    getIntParameter(owner, MAX_QUEUE_WAIT_TIME, 1000),
+                    getIntParameter(owner, RETRY_AFTER, 1));
+            owner.addParameter(BULKHEAD, bulkhead);
+            if (log.isDebugEnabled()) {
+                log.debug("Created bulkhead for " + bulkhead.name + " with "
+                        + bulkhead.maxConcurrentRequests + " permits and a queue of "
+                        + bulkhead.maxQueuedRequests);
+            }
+            return bulkhead;
+        }
+    }
+
+    private static int getIntParameter(AxisDescription description, String name,
+                                       int defaultValue) throws AxisFault {
+        Object value = description.getParameterValue(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new AxisFault("Invalid value for parameter " + name + ": " + value, e);
+        }
+    }
+
+    /**
+     * Try to obtain a permit, waiting in the queue if there is room in it.
+     *
+     * @return true if the permit was obtained; the caller must then call {@link #release()}
+     */
+    public boolean acquire() {
+        if (permits.tryAcquire()) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueuedRequests) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(maxQueueWaitTime, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+        long waitTime = System.nanoTime() - start;
+        totalQueueWaitTime.addAndGet(waitTime);
+        long max;
+        while (waitTime > (max = maxQueueWaitTimeSeen.get())
+                && !maxQueueWaitTimeSeen.compareAndSet(max, waitTime)) {
+            // retry
+        }
+        if (acquired) {
+            accepted.incrementAndGet();
+        } else {
+            rejected.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Create the fault for a rejected request and mark the message context so that the HTTP
+     * transports answer with a 503 status and a Retry-After header.
+     */
+    public AxisFault createRejectionFault(MessageContext msgContext) {
+        // 503 Service Unavailable
+        msgContext.setProperty(Constants.HTTP_RESPONSE_STATE, "503");
+        if (retryAfter > 0) {
+            msgContext.setProperty(Constants.HTTP_RETRY_AFTER, String.valueOf(retryAfter));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Bulkhead " + name + " rejected a request; active=" + getActiveCount()
+                    + ", queued=" + getQueuedCount() + ", rejected=" + getRejectedCount());
+        }
+        return new AxisFault(Messages.getMessage("bulkheadrejected", name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return the number of requests currently holding a permit
+     */
+    public int getActiveCount() {
+        return maxConcurrentRequests - permits.availablePermits();
+    }
+
+    /**
+     * @return the number of requests currently waiting for a permit
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the total time, in milliseconds, requests spent waiting for a permit
+     */
+    public long getTotalQueueWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalQueueWaitTime.get());
+    }
+
+    /**
+     * @return the longest time, in milliseconds, a request waited for a permit
+     */
+    public long getMaxQueueWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitTimeSeen.get());
+    }
+}
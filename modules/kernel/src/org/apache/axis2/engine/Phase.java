@@ -31,8 +31,10 @@ import org.apache.axis2.util.LoggingControl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.AbstractList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -53,6 +55,19 @@ public class Phase implements Handler {
      */
     private List<Handler> handlers;
 
+    /**
+     * Immutable snapshot of {@link #handlers}, rebuilt whenever the phase is modified so that
+     * invoke() and flowComplete() can walk a plain array on the message path. The methods that
+     * modify the phase are synchronized, so each modification and its snapshot happen together.
+     */
+    private volatile Handler[] handlerArray = new Handler[0];
+
+    /**
+     * The view of {@link #handlers} returned by {@link #getHandlers()}, which keeps
+     * {@link #handlerArray} in step when callers modify it.
+     */
+    private final List<Handler> handlerList = new HandlerList();
+
     /**
      * A handler has been marked as present in both the first phase and the last phase
      */
@@ -95,7 +110,7 @@ public class Phase implements Handler {
      *
      * @param handler the Handler to add
      */
-    public void addHandler(Handler handler) {
+    public synchronized void addHandler(Handler handler) {
         log.debug("Handler " + handler.getName() + " added to Phase " + phaseName);
 
         if (phaseLastSet) {
@@ -108,6 +123,7 @@ public class Phase implements Handler {
         } else {
             handlers.add(handler);
         }
+        handlersChanged();
     }
 
     /**
@@ -116,7 +132,7 @@ public class Phase implements Handler {
      * @param handlerDesc the HandlerDescription to add
      * @throws PhaseException if there is a problem
      */
-    public void addHandler(HandlerDescription handlerDesc) throws PhaseException {
+    public synchronized void addHandler(HandlerDescription handlerDesc) throws PhaseException {
         Iterator<Handler> handlers_itr = getHandlers().iterator();
 
         while (handlers_itr.hasNext()) {
@@ -141,6 +157,7 @@ public class Phase implements Handler {
                         + " cannot therefore be both phaseFirst and phaseLast.");
             } else {
                 handlers.add(handlerDesc.getHandler());
+                handlersChanged();
                 isOneHandler = true;
             }
         } else if (handlerDesc.getRules().isPhaseFirst()) {
@@ -160,12 +177,13 @@ public class Phase implements Handler {
      * @param handler the Handler to add
      * @param index the position in the Phase at which to place the Handler
      */
-    public void addHandler(Handler handler, int index) {
+    public synchronized void addHandler(Handler handler, int index) {
         if (log.isDebugEnabled()) {
             log.debug("Handler " + handler.getName() + " inserted at position " + index +
                     " of Phase " + phaseName);
         }
         handlers.add(index, handler);
+        handlersChanged();
     }
 
     /**
@@ -278,6 +296,95 @@ public class Phase implements Handler {
                 handlers.add(handler);
             }
         }
+        handlersChanged();
+    }
+
+    /**
+     * Republish the snapshot. Only called with the lock on this phase held, so that a snapshot
+     * taken before a concurrent modification can never replace a newer one.
+     */
+    private void handlersChanged() {
+        handlerArray = handlers.toArray(new Handler[handlers.size()]);
+    }
+
+    /**
+     * Republishes the snapshot after each modification made through {@link #getHandlers()}.
+     * Iterators walk a snapshot, as those of the underlying CopyOnWriteArrayList do; list
+     * iterators and sub lists go through the methods below, since they come from AbstractList.
+     */
+    private final class HandlerList extends AbstractList<Handler> implements RandomAccess {
+
+        public Iterator<Handler> iterator() {
+            final Iterator<Handler> snapshot = handlers.iterator();
+            return new Iterator<Handler>() {
+                private Handler last;
+
+                public boolean hasNext() {
+                    return snapshot.hasNext();
+                }
+
+                public Handler next() {
+                    last = snapshot.next();
+                    return last;
+                }
+
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    HandlerList.this.remove(last);
+                    last = null;
+                }
+            };
+        }
+
+        public Handler get(int index) {
+            return handlers.get(index);
+        }
+
+        public int size() {
+            return handlers.size();
+        }
+
+        public Handler set(int index, Handler handler) {
+            synchronized (Phase.this) {
+                Handler previous = handlers.set(index, handler);
+                handlersChanged();
+                return previous;
+            }
+        }
+
+        public void add(int index, Handler handler) {
+            synchronized (Phase.this) {
+                handlers.add(index, handler);
+                handlersChanged();
+            }
+        }
+
+        public Handler remove(int index) {
+            synchronized (Phase.this) {
+                Handler previous = handlers.remove(index);
+                handlersChanged();
+                return previous;
+            }
+        }
+
+        public boolean remove(Object handler) {
+            synchronized (Phase.this) {
+                boolean removed = handlers.remove(handler);
+                if (removed) {
+                    handlersChanged();
+                }
+                return removed;
+            }
+        }
+
+        public void clear() {
+            synchronized (Phase.this) {
+                handlers.clear();
+                handlersChanged();
+            }
+        }
     }
 
     /**
@@ -305,10 +412,10 @@ public class Phase implements Handler {
             log.debug(msgctx.getLogIDString() + " Invoking phase \"" + phaseName + "\"");
         }
 
-        int handlersSize = handlers.size();
-        
-        for (int i= currentIndex; i < handlersSize; i++) {
-            Handler handler = (Handler) handlers.get(i);
+        Handler[] handlers = handlerArray;
+
+        for (int i= currentIndex; i < handlers.length; i++) {
+            Handler handler = handlers[i];
 
             InvocationResponse pi = invokeHandler(handler, msgctx);
            
@@ -348,9 +455,10 @@ public class Phase implements Handler {
 
         // This will be non-zero if we failed during execution of one of the
         // handlers in this phase
+        Handler[] handlers = handlerArray;
         int currentHandlerIndex = msgContext.getCurrentPhaseIndex();
         if (currentHandlerIndex == 0) {
-            currentHandlerIndex = handlers.size();
+            currentHandlerIndex = handlers.length;
         } else {
             /*We need to set it to 0 so that any previous phases will execute all
          * of their handlers.*/
@@ -358,7 +466,7 @@ public class Phase implements Handler {
         }
 
         for (; currentHandlerIndex > 0; currentHandlerIndex--) {
-            Handler handler = (Handler) handlers.get(currentHandlerIndex - 1);
+            Handler handler = handlers[currentHandlerIndex - 1];
 
             if (isDebugEnabled) {
                 log.debug(msgContext.getLogIDString() + " Invoking flowComplete() for Handler '" +
@@ -374,7 +482,7 @@ public class Phase implements Handler {
     }
 
     public int getHandlerCount() {
-        return handlers.size();
+        return handlerArray.length;
     }
 
     public HandlerDescription getHandlerDesc() {
@@ -382,12 +490,13 @@ public class Phase implements Handler {
     }
 
     /**
-     * Gets all the handlers in the phase.
+     * Gets all the handlers in the phase. The returned list is a live view; modifying it modifies
+     * the phase.
      *
-     * @return Returns an ArrayList of Handlers
+     * @return Returns a List of Handlers
      */
     public List<Handler> getHandlers() {
-        return handlers;
+        return handlerList;
     }
 
     public String getName() {
@@ -416,12 +525,13 @@ public class Phase implements Handler {
      * @param handler the Handler to add
      * @throws PhaseException if another Handler is already set as phaseFirst
      */
-    public void setPhaseFirst(Handler handler) throws PhaseException {
+    public synchronized void setPhaseFirst(Handler handler) throws PhaseException {
         if (phaseFirstSet) {
             throw new PhaseException("PhaseFirst has been set already, cannot have two"
                     + " phaseFirst Handlers for Phase '" + this.getPhaseName() + "'");
         }
         handlers.add(0, handler);
+        handlersChanged();
         phaseFirstSet = true;
     }
 
@@ -432,7 +542,7 @@ public class Phase implements Handler {
      * @param handler the Handler to add
      * @throws PhaseException if another Handler is already set as phaseLast
      */
-    public void setPhaseLast(Handler handler) throws PhaseException {
+    public synchronized void setPhaseLast(Handler handler) throws PhaseException {
         if (phaseLastSet) {
             throw new PhaseException("PhaseLast already has been set,"
                     + " cannot have two PhaseLast Handler for same phase "
@@ -440,6 +550,7 @@ public class Phase implements Handler {
         }
 
         handlers.add(handler);
+        handlersChanged();
         phaseLastSet = true;
     }
 
@@ -448,8 +559,9 @@ public class Phase implements Handler {
      *
      * @param handlerDesc the HandlerDescription to remove
      */
-    public void removeHandler(HandlerDescription handlerDesc) {
+    public synchronized void removeHandler(HandlerDescription handlerDesc) {
         if (handlers.remove(handlerDesc.getHandler())) {
+            handlersChanged();
             PhaseRule rule = handlerDesc.getRules();
             if (rule.isPhaseFirst()) {
                 phaseFirstSet = false;
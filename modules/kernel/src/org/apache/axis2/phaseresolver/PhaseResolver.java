@@ -109,6 +109,7 @@ public class PhaseResolver {
         for (int type = IN_FLOW; type < OUT_FAULT_FLOW; type++) {
             engageModuleToOperation(axisOperation, module, type);
         }
+        axisOperation.invalidateCompiledFlows();
     }
 
     /**
@@ -195,6 +196,7 @@ public class PhaseResolver {
                 removeHandlerfromaPhase(handler, operation.getPhasesOutFaultFlow());
             }
         }
+        operation.invalidateCompiledFlows();
     }
 
     /**
@@ -221,6 +223,7 @@ public class PhaseResolver {
         AxisOperation axisOperation = axisMessage.getAxisOperation();
         if (WSDLConstants.MESSAGE_LABEL_OUT_VALUE.equalsIgnoreCase(direction)) {
             engageModuleToOperation(axisOperation, axisModule, PhaseMetadata.OUT_FLOW);
+            axisOperation.invalidateCompiledFlows();
         } else if (WSDLConstants.MESSAGE_LABEL_IN_VALUE.equalsIgnoreCase(direction)) {
             engageModuleToOperation(axisOperation, axisModule, PhaseMetadata.IN_FLOW);
         } else if (WSDLConstants.MESSAGE_LABEL_FAULT_VALUE.equals(direction)) {
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+
+import java.io.OutputStream;
+
+/**
+ * A {@link MessageFormatter} that can write the content returned by
+ * {@link MessageFormatter#getBytes(MessageContext, OMOutputFormat)} to a stream. Transports that
+ * need to know the length of a message before sending it (e.g. HTTP without chunking) use this
+ * to buffer the message once in their own buffer instead of going through a byte array.
+ */
+public interface BufferingMessageFormatter extends MessageFormatter {
+
+    /**
+     * Write the same bytes as {@link #getBytes(MessageContext, OMOutputFormat)} would return.
+     */
+    void writeBytes(MessageContext messageContext, OMOutputFormat format,
+                    OutputStream outputStream) throws AxisFault;
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport;
+
+import org.apache.axis2.context.MessageContext;
+
+/**
+ * A {@link TransportSender} that can send the request of an out-in exchange without keeping a
+ * thread busy until the response arrives.
+ * <p>
+ * When the request message context carries a {@link ResponseCallback} in the
+ * {@link #RESPONSE_CALLBACK} property, {@link #invoke(MessageContext)} returns as soon as the
+ * request has been written. Once the response is available the transport sets the same
+ * properties a blocking send would have set on the request message context (in particular
+ * {@link MessageContext#TRANSPORT_IN} on the operation context and
+ * {@link MessageContext#TRANSPORT_HEADERS}) and notifies the callback. If
+ * {@link #invoke(MessageContext)} throws an exception, the callback is not called.
+ */
+public interface NonBlockingTransportSender extends TransportSender {
+
+    /**
+     * Name of the message context property holding the {@link ResponseCallback}.
+     */
+    String RESPONSE_CALLBACK = "NonBlockingTransportSender.ResponseCallback";
+
+    /**
+     * Check whether the given request can be sent without blocking. Requests for which this
+     * returns <code>false</code> are sent the usual way.
+     *
+     * @param msgContext the request message context
+     * @return <code>true</code> if the request can be sent without blocking
+     */
+    boolean canSendNonBlocking(MessageContext msgContext);
+
+    /**
+     * Receives the outcome of a request sent without blocking. Exactly one of the methods is
+     * called, normally from a thread of the configuration context's thread pool.
+     */
+    interface ResponseCallback {
+
+        /**
+         * The response is available.
+         *
+         * @param msgContext the request message context, populated with the response properties
+         */
+        void onResponse(MessageContext msgContext);
+
+        /**
+         * The request failed or no response was received in time.
+         *
+         * @param e the cause
+         */
+        void onError(Exception e);
+    }
+}
@@ -578,4 +578,19 @@ public class HTTPConstants {
 
     /** Total number of connections allowed */
     public static final String MAX_TOTAL_CONNECTIONS = "maxTotalConnections";
+
+    /** Maximum connections allowed for individual routes, as scheme://host:port=max pairs */
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "maxConnectionsPerRoute";
+
+    /** Interval in milliseconds at which idle pooled connections are closed */
+    public static final String IDLE_CONNECTION_EVICTION_INTERVAL = "idleConnectionEvictionInterval";
+
+    /** Whether pooled connections are checked for staleness before being reused */
+    public static final String STALE_CONNECTION_CHECK = "staleConnectionCheck";
+
+    /** Maximum time in milliseconds to wait for a connection from the pool */
+    public static final String CONNECTION_POOL_TIMEOUT = "connectionPoolTimeout";
+
+    /** Prefix of the property holding the connection pool of a transport sender */
+    public static final String SHARED_HTTP_CONNECTION_MANAGER = "SHARED_HTTP_CONNECTION_MANAGER_";
 }
@@ -30,7 +30,7 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.engine.AxisConfiguration;
-import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.BufferingMessageFormatter;
 import org.apache.axis2.transport.http.util.URLTemplatingUtil;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.Utils;
@@ -48,7 +48,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-public class SOAPMessageFormatter implements MessageFormatter {
+public class SOAPMessageFormatter implements BufferingMessageFormatter {
 
     private static final Log log = LogFactory.getLog(SOAPMessageFormatter.class);
     private static final String WRITE_XML_DECLARATION = "WRITE_XML_DECLARATION";
@@ -98,24 +98,24 @@ public class SOAPMessageFormatter implements MessageFormatter {
 
     public byte[] getBytes(MessageContext msgCtxt, OMOutputFormat format)
             throws AxisFault {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        writeBytes(msgCtxt, format, bytesOut);
+        return bytesOut.toByteArray();
+    }
+
+    public void writeBytes(MessageContext msgCtxt, OMOutputFormat format, OutputStream out)
+            throws AxisFault {
         if (log.isDebugEnabled()) {
-            log.debug("start getBytes()");
+            log.debug("start writeBytes()");
             log.debug("  isOptimized=" + format.isOptimized());
             log.debug("  isDoingSWA=" + format.isDoingSWA());
         }
         OMElement element = msgCtxt.getEnvelope();
         try {
-            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-            if (!format.isOptimized()) {
-                if (format.isDoingSWA()) {
-                    writeSwAMessage(msgCtxt, bytesOut, format, false);
-                } else {
-                    element.serializeAndConsume(bytesOut, format);
-                }
-                return bytesOut.toByteArray();
+            if (!format.isOptimized() && format.isDoingSWA()) {
+                writeSwAMessage(msgCtxt, out, format, false);
             } else {
-                element.serializeAndConsume(bytesOut, format);
-                return bytesOut.toByteArray();
+                element.serializeAndConsume(out, format);
             }
         } catch (XMLStreamException e) {
             throw AxisFault.makeFault(e);
@@ -123,7 +123,7 @@ public class SOAPMessageFormatter implements MessageFormatter {
             throw AxisFault.makeFault(e);
         } finally {
             if (log.isDebugEnabled()) {
-                log.debug("end getBytes()");
+                log.debug("end writeBytes()");
             }
         }
     }
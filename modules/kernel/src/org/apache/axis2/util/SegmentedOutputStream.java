@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An output stream that buffers the data in fixed size segments taken from a shared pool. Unlike
+ * a {@link java.io.ByteArrayOutputStream} it never copies the data when it grows, and the data
+ * can be written to another stream segment by segment, without creating a contiguous copy.
+ * <p/>
+ * {@link #release()} must be called once the data is no longer needed, to return the segments
+ * to the pool. The pool holds at most {@link #MAX_POOLED_SEGMENTS} segments; segments released
+ * beyond that are left to the garbage collector.
+ * <p/>
+ * Instances are not thread safe.
+ */
+public class SegmentedOutputStream extends OutputStream {
+
+    public static final int SEGMENT_SIZE = 32 * 1024;
+
+    public static final int MAX_POOLED_SEGMENTS = 256;
+
+    private static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+
+    private static final AtomicInteger pooledSegments = new AtomicInteger();
+
+    private byte[][] segments = new byte[4][];
+
+    private int segmentCount;
+
+    /** The number of bytes used in the last segment. */
+    private int position = SEGMENT_SIZE;
+
+    private long size;
+
+    public void write(int b) {
+        if (position == SEGMENT_SIZE) {
+            addSegment();
+        }
+        segments[segmentCount - 1][position++] = (byte) b;
+        size++;
+    }
+
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (position == SEGMENT_SIZE) {
+                addSegment();
+            }
+            int count = Math.min(len, SEGMENT_SIZE - position);
+            System.arraycopy(b, off, segments[segmentCount - 1], position, count);
+            position += count;
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    /**
+     * @return the number of bytes written to the stream
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Write the buffered data to the given stream. This may be called more than once.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < segmentCount; i++) {
+            out.write(segments[i], 0, i == segmentCount - 1 ? position : SEGMENT_SIZE);
+        }
+    }
+
+    /**
+     * Copy the buffered data into a new array.
+     */
+    public byte[] toByteArray() {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too much data to fit into an array: " + size);
+        }
+        byte[] result = new byte[(int) size];
+        for (int i = 0; i < segmentCount; i++) {
+            System.arraycopy(segments[i], 0, result, i * SEGMENT_SIZE,
+                    i == segmentCount - 1 ? position : SEGMENT_SIZE);
+        }
+        return result;
+    }
+
+    /**
+     * Discard the data and return the segments to the pool. The stream may be reused
+     * afterwards.
+     */
+    public void release() {
+        for (int i = 0; i < segmentCount; i++) {
+            if (pooledSegments.incrementAndGet() <= MAX_POOLED_SEGMENTS) {
+                pool.offer(segments[i]);
+            } else {
+                pooledSegments.decrementAndGet();
+            }
+            segments[i] = null;
+        }
+        segmentCount = 0;
+        position = SEGMENT_SIZE;
+        size = 0;
+    }
+
+    /**
+     * @return the number of segments currently available in the pool
+     */
+    public static int getPooledSegmentCount() {
+        return pooledSegments.get();
+    }
+
+    private void addSegment() {
+        byte[] segment = pool.poll();
+        if (segment != null) {
+            pooledSegments.decrementAndGet();
+        } else {
+            segment = new byte[SEGMENT_SIZE];
+        }
+        if (segmentCount == segments.length) {
+            byte[][] newSegments = new byte[segments.length * 2][];
+            System.arraycopy(segments, 0, newSegments, 0, segmentCount);
+            segments = newSegments;
+        }
+        segments[segmentCount++] = segment;
+        position = 0;
+    }
+}
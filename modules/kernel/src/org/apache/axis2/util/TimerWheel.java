@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hashed timer wheel. Items are scheduled into one of a fixed number of buckets according to
+ * their deadline, so both scheduling and cancelling are constant time, and expiring only looks
+ * at the buckets for the ticks that have elapsed instead of scanning every item. Deadlines that
+ * are more than one revolution away simply stay in their bucket until a later pass reaches them.
+ * <p/>
+ * {@link #schedule} and {@link Timeout#cancel()} may be called from any thread; {@link #expire}
+ * is meant to be driven by a single sweeper thread.
+ *
+ * @param <T> the type of the scheduled items
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final Set<Timeout<T>>[] buckets;
+    private final int mask;
+
+    /** The last tick processed, or being processed, by {@link #expire}. */
+    private volatile long lastTick;
+
+    /**
+     * @param tickMillis  the resolution of the wheel in milliseconds
+     * @param bucketCount the number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int bucketCount) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int size = 1;
+        while (size < bucketCount) {
+            size <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new Set[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = Collections.newSetFromMap(new ConcurrentHashMap<Timeout<T>, Boolean>());
+        }
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Schedules an item.
+     *
+     * @param item     the item
+     * @param deadline the absolute time in milliseconds at which the item expires
+     * @return the handle that can be used to cancel or reschedule the item
+     */
+    public Timeout<T> schedule(T item, long deadline) {
+        Timeout<T> timeout = new Timeout<T>(this, item);
+        place(timeout, deadline);
+        return timeout;
+    }
+
+    /**
+     * Moves an item that was returned by {@link #expire} back into the wheel.
+     *
+     * @param timeout  the handle of an expired item
+     * @param deadline the new deadline
+     */
+    public void reschedule(Timeout<T> timeout, long deadline) {
+        buckets[timeout.bucket].remove(timeout);
+        place(timeout, deadline);
+    }
+
+    private void place(Timeout<T> timeout, long deadline) {
+        timeout.deadline = deadline;
+        // the first tick that starts at or after the deadline; when that tick is swept the
+        // deadline has passed
+        long tick = (deadline + tickMillis - 1) / tickMillis;
+        long swept = lastTick;
+        if (tick <= swept) {
+            tick = swept + 1;
+        }
+        add(timeout, tick);
+        // expire publishes lastTick before visiting the buckets, so if the tick was swept while
+        // the item was being added, either the sweep saw the item or we see the new lastTick
+        while (tick <= (swept = lastTick)) {
+            if (!buckets[timeout.bucket].remove(timeout)) {
+                // already expired by the sweep
+                return;
+            }
+            tick = swept + 1;
+            add(timeout, tick);
+        }
+    }
+
+    private void add(Timeout<T> timeout, long tick) {
+        int bucket = (int) (tick & mask);
+        timeout.bucket = bucket;
+        buckets[bucket].add(timeout);
+    }
+
+    /**
+     * Removes and returns every item whose deadline is not after the given time, looking only at
+     * the buckets of the ticks elapsed since the previous call. Items are placed in the bucket of
+     * the first tick starting at or after their deadline, so an item expires at most one tick
+     * late, provided this is called at least once per tick.
+     *
+     * @param now the current time in milliseconds
+     * @return the expired items, in no particular order
+     */
+    public synchronized List<Timeout<T>> expire(long now) {
+        long tick = now / tickMillis;
+        // after a stall longer than one revolution, each bucket only needs to be visited once
+        long from = Math.max(lastTick + 1, tick - mask);
+        if (tick > lastTick) {
+            lastTick = tick;
+        }
+        List<Timeout<T>> expired = null;
+        for (long t = from; t <= tick; t++) {
+            Set<Timeout<T>> bucket = buckets[(int) (t & mask)];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            for (Iterator<Timeout<T>> it = bucket.iterator(); it.hasNext();) {
+                Timeout<T> timeout = it.next();
+                if (timeout.deadline <= now) {
+                    it.remove();
+                    if (expired == null) {
+                        expired = new ArrayList<Timeout<T>>();
+                    }
+                    expired.add(timeout);
+                }
+            }
+        }
+        return expired == null ? Collections.<Timeout<T>>emptyList() : expired;
+    }
+
+    /**
+     * @return the number of scheduled items; this walks every bucket
+     */
+    public int size() {
+        int size = 0;
+        for (Set<Timeout<T>> bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes all scheduled items.
+     */
+    public void clear() {
+        for (Set<Timeout<T>> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * The handle of a scheduled item.
+     *
+     * @param <T> the type of the item
+     */
+    public static final class Timeout<T> {
+        private final TimerWheel<T> wheel;
+        private final T item;
+        private volatile long deadline;
+        private volatile int bucket;
+
+        Timeout(TimerWheel<T> wheel, T item) {
+            this.wheel = wheel;
+            this.item = item;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Removes the item from the wheel.
+         *
+         * @return true if the item was still scheduled
+         */
+        public boolean cancel() {
+            return wheel.buckets[bucket].remove(this);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.builder;
+
+import junit.framework.TestCase;
+import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
+
+import javax.activation.DataHandler;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+public class SpoolFileLifecycleManagerTest extends TestCase {
+
+    private File dir;
+
+    private SpoolFileLifecycleManager manager;
+
+    protected void setUp() throws Exception {
+        dir = new File("target/test-spool");
+        manager = new SpoolFileLifecycleManager();
+    }
+
+    protected void tearDown() throws Exception {
+        manager.clear();
+    }
+
+    public void testReleasedFileIsReused() throws Exception {
+        File file = manager.create(dir.getPath()).getFile();
+        OutputStream out = new FileOutputStream(file);
+        out.write(new byte[1000]);
+        out.close();
+
+        manager.delete(file);
+        assertEquals(1, manager.getPooledFileCount());
+        assertFalse(file.exists());
+
+        File reused = manager.create(dir.getPath()).getFile();
+        assertFalse(file.equals(reused));
+        assertTrue(reused.exists());
+        assertEquals(0, reused.length());
+        assertEquals(1, manager.getCreatedFileCount());
+        assertEquals(1, manager.getReusedFileCount());
+
+        // a late delete for the previous use does not release the file
+        manager.delete(file);
+        assertTrue(reused.exists());
+        assertEquals(0, manager.getPooledFileCount());
+        manager.delete(reused);
+    }
+
+    public void testRetainedFileIsReleasedByLastDelete() throws Exception {
+        File file = manager.create(dir.getPath()).getFile();
+        assertTrue(manager.retain(file));
+        manager.delete(file);
+        assertEquals(0, manager.getPooledFileCount());
+        manager.delete(file);
+        assertEquals(1, manager.getPooledFileCount());
+        assertFalse(manager.retain(file));
+    }
+
+    public void testPoolIsBounded() throws Exception {
+        manager.setMaxPooledFiles(1);
+        File file1 = manager.create(dir.getPath()).getFile();
+        File file2 = manager.create(dir.getPath()).getFile();
+        manager.delete(file1);
+        manager.delete(file2);
+        assertEquals(1, manager.getPooledFileCount());
+        assertFalse(file2.exists());
+    }
+
+    public void testDataHandlerReadsAttachment() throws Exception {
+        FileAccessor accessor = manager.create(dir.getPath());
+        byte[] data = write(accessor.getFile(), 10000, 1);
+
+        DataHandler dh = accessor.getDataHandler("application/octet-stream");
+        assertEquals("application/octet-stream", dh.getContentType());
+        assertTrue(Arrays.equals(data, read(dh.getInputStream())));
+        // every stream starts at the beginning
+        assertTrue(Arrays.equals(data, read(accessor.getInputStream())));
+        manager.delete(accessor.getFile());
+    }
+
+    public void testReleasedAttachmentIsNotReadFromReusedFile() throws Exception {
+        FileAccessor accessor = manager.create(dir.getPath());
+        write(accessor.getFile(), 1000, 1);
+        DataHandler dh = accessor.getDataHandler("application/octet-stream");
+        manager.delete(accessor.getFile());
+
+        FileAccessor next = manager.create(dir.getPath());
+        assertEquals(1, manager.getReusedFileCount());
+        write(next.getFile(), 1000, 2);
+        try {
+            dh.getInputStream();
+            fail("Expected the released attachment not to be readable");
+        } catch (IOException e) {
+            // expected
+        }
+        manager.delete(next.getFile());
+    }
+
+    public void testOpenStreamPreventsReuse() throws Exception {
+        FileAccessor accessor = manager.create(dir.getPath());
+        byte[] data = write(accessor.getFile(), 5000, 3);
+        InputStream in = accessor.getDataHandler("application/octet-stream").getInputStream();
+        assertEquals(data[0] & 0xFF, in.read());
+
+        manager.delete(accessor.getFile());
+        assertEquals(0, manager.getPooledFileCount());
+        assertFalse(accessor.getFile().exists());
+
+        // the stream still reads the data of its own attachment
+        FileAccessor next = manager.create(dir.getPath());
+        assertEquals(0, manager.getReusedFileCount());
+        write(next.getFile(), 5000, 4);
+        byte[] rest = read(in);
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 1, data.length), rest));
+        manager.delete(next.getFile());
+    }
+
+    public void testClosedStreamAllowsReuse() throws Exception {
+        FileAccessor accessor = manager.create(dir.getPath());
+        write(accessor.getFile(), 5000, 5);
+        InputStream in = accessor.getInputStream();
+        read(in);
+        manager.delete(accessor.getFile());
+        assertEquals(1, manager.getPooledFileCount());
+    }
+
+    public void testWriteToFileUsesTransfer() throws Exception {
+        FileAccessor accessor = manager.create(dir.getPath());
+        byte[] data = write(accessor.getFile(), 100000, 6);
+        DataHandler dh = accessor.getDataHandler("application/octet-stream");
+
+        File copy = File.createTempFile("copy", ".att", dir);
+        FileOutputStream out = new FileOutputStream(copy);
+        out.write(1);
+        dh.writeTo(out);
+        out.close();
+        byte[] copied = read(new FileInputStream(copy));
+        assertEquals(data.length + 1, copied.length);
+        assertTrue(Arrays.equals(data, Arrays.copyOfRange(copied, 1, copied.length)));
+        copy.delete();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        dh.writeTo(buffer);
+        assertTrue(Arrays.equals(data, buffer.toByteArray()));
+        manager.delete(accessor.getFile());
+    }
+
+    private static byte[] write(File file, int length, int seed) throws IOException {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * seed);
+        }
+        OutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+        return data;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import junit.framework.TestCase;
+import org.apache.axis2.Constants;
+import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.util.CallbackReceiver;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OperationContextRegistryTest extends TestCase {
+    private ConfigurationContext configurationContext;
+    private AxisOperation axisOperation;
+    private CallbackReceiver callbackReceiver;
+
+    protected void setUp() throws Exception {
+        axisOperation = new InOutAxisOperation(new QName("Temp"));
+        callbackReceiver = new CallbackReceiver();
+        axisOperation.setMessageReceiver(callbackReceiver);
+        AxisService axisService = new AxisService("Temp");
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        axisService.addOperation(axisOperation);
+        axisConfiguration.addService(axisService);
+        configurationContext = new ConfigurationContext(axisConfiguration);
+    }
+
+    public void testUnbounded() {
+        OperationContextRegistry registry =
+                new OperationContextRegistry(configurationContext, 0, 0, 100);
+        assertFalse(registry.isBounded());
+        OperationContext context = new OperationContext(axisOperation, null);
+        assertTrue(registry.register("urn:1", context, false));
+        assertFalse(registry.register("urn:1", new OperationContext(axisOperation, null), false));
+        assertSame(context, registry.get("urn:1"));
+        assertSame(context, registry.unregister("urn:1"));
+        assertTrue(registry.isEmpty());
+    }
+
+    public void testOldestIsEvictedWhenFull() throws Exception {
+        OperationContextRegistry registry =
+                new OperationContextRegistry(configurationContext, 2, 0, 1000);
+        RecordingCallback callback = new RecordingCallback();
+        callbackReceiver.addCallback("urn:1", callback);
+
+        registry.register("urn:1", new OperationContext(axisOperation, null), false);
+        registry.register("urn:2", new OperationContext(axisOperation, null), false);
+        registry.register("urn:3", new OperationContext(axisOperation, null), false);
+
+        assertEquals(2, registry.size());
+        assertNull(registry.get("urn:1"));
+        assertNotNull(registry.get("urn:3"));
+        assertEquals(1, registry.getEvictionCount());
+        assertEquals(1, callback.errors.size());
+        assertTrue(callback.complete);
+        assertNull(callbackReceiver.lookupCallback("urn:1"));
+    }
+
+    public void testEvictionFollowsInsertionOrder() {
+        OperationContextRegistry registry =
+                new OperationContextRegistry(configurationContext, 3, 0, 1000);
+        for (int i = 1; i <= 3; i++) {
+            registry.register("urn:" + i, new OperationContext(axisOperation, null), false);
+        }
+        registry.unregister("urn:1");
+        registry.register("urn:2", new OperationContext(axisOperation, null), true);
+        registry.register("urn:4", new OperationContext(axisOperation, null), false);
+        assertEquals(0, registry.getEvictionCount());
+
+        // urn:3 is now the oldest, since urn:2 was registered again
+        registry.register("urn:5", new OperationContext(axisOperation, null), false);
+        assertEquals(1, registry.getEvictionCount());
+        assertNull(registry.get("urn:3"));
+        assertNotNull(registry.get("urn:2"));
+
+        registry.register("urn:6", new OperationContext(axisOperation, null), false);
+        assertNull(registry.get("urn:2"));
+        assertEquals(3, registry.size());
+        assertEquals(2, registry.getEvictionCount());
+    }
+
+    public void testInvalidLimitsAreIgnored() throws Exception {
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        axisConfiguration.addParameter(Constants.Configuration.MAX_OPERATION_CONTEXTS, "lots");
+        axisConfiguration.addParameter(Constants.Configuration.OPERATION_CONTEXT_TIMEOUT, "1m");
+        ConfigurationContext configurationContext = new ConfigurationContext(axisConfiguration);
+        OperationContext context = new OperationContext(axisOperation, null);
+        configurationContext.registerOperationContext("urn:1", context);
+        assertSame(context, configurationContext.getOperationContext("urn:1"));
+    }
+
+    public void testExpiry() throws Exception {
+        OperationContextRegistry registry =
+                new OperationContextRegistry(configurationContext, 0, 100, 10);
+        RecordingCallback callback = new RecordingCallback();
+        callbackReceiver.addCallback("urn:1", callback);
+        registry.register("urn:1", new OperationContext(axisOperation, null), false);
+        registry.register("urn:2", new OperationContext(axisOperation, null), false);
+        registry.unregister("urn:2");
+
+        registry.sweep(System.currentTimeMillis());
+        assertEquals(1, registry.size());
+
+        registry.sweep(System.currentTimeMillis() + 200);
+        assertTrue(registry.isEmpty());
+        assertEquals(1, registry.getExpirationCount());
+        assertEquals(1, callback.errors.size());
+    }
+
+    private static class RecordingCallback implements AxisCallback {
+        private final List<Exception> errors = new ArrayList<Exception>();
+        private boolean complete;
+
+        public void onMessage(MessageContext msgContext) {
+        }
+
+        public void onFault(MessageContext msgContext) {
+        }
+
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+
+        public void onComplete() {
+            complete = true;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import junit.framework.TestCase;
+import org.apache.axis2.Constants;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import javax.xml.namespace.QName;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class PropertyStoreTest extends TestCase {
+
+    public void testKnownAndCustomKeys() {
+        PropertyStore store = new PropertyStore();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (int i = 0; i < 50; i++) {
+            store.put("custom" + i, Integer.valueOf(i));
+            expected.put("custom" + i, Integer.valueOf(i));
+        }
+        store.put(MessageContext.TRANSPORT_OUT, "out");
+        expected.put(MessageContext.TRANSPORT_OUT, "out");
+        store.put(Constants.Configuration.MESSAGE_TYPE, null);
+        expected.put(Constants.Configuration.MESSAGE_TYPE, null);
+
+        assertEquals(expected, store);
+        assertEquals(52, store.size());
+        assertTrue(store.containsKey(Constants.Configuration.MESSAGE_TYPE));
+        assertNull(store.get(Constants.Configuration.MESSAGE_TYPE));
+        assertEquals("out", store.remove(MessageContext.TRANSPORT_OUT));
+        assertNull(store.get(MessageContext.TRANSPORT_OUT));
+
+        for (Iterator<Map.Entry<String, Object>> it = store.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().startsWith("custom")
+                    && ((Integer) entry.getValue()).intValue() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(26, store.size());
+        assertNull(store.get("custom10"));
+        assertEquals(Integer.valueOf(11), store.get("custom11"));
+
+        store.clear();
+        assertTrue(store.isEmpty());
+    }
+
+    public void testMissesAreInvalidatedWhenAncestorsChange() throws Exception {
+        AxisOperation axisOperation = new InOutAxisOperation(new QName("Temp"));
+        AxisService axisService = new AxisService("Temp");
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        axisService.addOperation(axisOperation);
+        axisConfiguration.addService(axisService);
+        ConfigurationContext configurationContext = new ConfigurationContext(axisConfiguration);
+        ServiceGroupContext serviceGroupContext = configurationContext.createServiceGroupContext(
+                axisService.getAxisServiceGroup());
+        ServiceContext serviceContext = serviceGroupContext.getServiceContext(axisService);
+        OperationContext opContext = serviceContext.createOperationContext(axisOperation);
+
+        String key = Constants.Configuration.CONTENT_TYPE;
+        assertNull(opContext.getProperty(key));
+        assertNull(opContext.getProperty(key));
+
+        configurationContext.setProperty(key, "text/xml");
+        assertEquals("text/xml", opContext.getProperty(key));
+
+        configurationContext.removeProperty(key);
+        assertNull(opContext.getProperty(key));
+
+        // a different parent only differs by identity, not by its property count
+        ServiceContext otherContext = new ServiceContext(axisService, serviceGroupContext);
+        otherContext.setProperty(key, "application/xml");
+        serviceContext.setProperty("unrelated", "value");
+        assertNull(opContext.getProperty(key));
+        opContext.setParent(otherContext);
+        assertEquals("application/xml", opContext.getProperty(key));
+        assertEquals("application/xml", opContext.getPropertyNonReplicable(key));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment;
+
+import junit.framework.TestCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DeploymentClassLoaderTest extends TestCase {
+    private static final String EMBEDDED_CLASS = Embedded.class.getName();
+
+    private File tmpDir;
+    private DeploymentClassLoader classLoader;
+
+    protected void setUp() throws Exception {
+        tmpDir = new File(System.getProperty("java.io.tmpdir"), getClass().getName());
+        if (tmpDir.exists()) {
+            FileUtils.deleteDirectory(tmpDir);
+        }
+        tmpDir.mkdirs();
+
+        String classEntry = EMBEDDED_CLASS.replace('.', '/') + ".class";
+        InputStream in = getClass().getClassLoader().getResourceAsStream(classEntry);
+        byte[] classBytes;
+        try {
+            classBytes = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+        byte[] jar1 = zip(classEntry, classBytes, "META-INF/test.properties", "jar1".getBytes());
+        byte[] jar2 = zip("META-INF/test.properties", "jar2".getBytes(), null, null);
+
+        File archive = new File(tmpDir, "test.aar");
+        OutputStream out = new FileOutputStream(archive);
+        try {
+            out.write(zip("lib/jar1.jar", jar1, "lib/jar2.jar", jar2));
+        } finally {
+            out.close();
+        }
+        // the bootstrap class loader is the parent, so that the embedded class is not found
+        // on the test class path
+        classLoader = new DeploymentClassLoader(new URL[] { archive.toURI().toURL() },
+                Arrays.asList("lib/jar1.jar", "lib/jar2.jar"), null, false);
+    }
+
+    protected void tearDown() throws Exception {
+        classLoader.close();
+        FileUtils.deleteDirectory(tmpDir);
+    }
+
+    public void testLoadClassFromEmbeddedJar() throws Exception {
+        Class<?> clazz = classLoader.loadClass(EMBEDDED_CLASS);
+        assertSame(classLoader, clazz.getClassLoader());
+        assertSame(clazz, classLoader.loadClass(EMBEDDED_CLASS));
+        assertEquals(1, classLoader.getLoadedClassCount());
+    }
+
+    public void testNegativeLookupsAreCached() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            try {
+                classLoader.loadClass("org.example.Missing");
+                fail("Expected ClassNotFoundException");
+            } catch (ClassNotFoundException e) {
+                // expected
+            }
+            assertNull(classLoader.findResource("META-INF/missing.xml"));
+        }
+        assertEquals(4, classLoader.getNegativeLookupCount());
+    }
+
+    public void testResourcesFromEmbeddedJars() throws Exception {
+        InputStream in = classLoader.getResourceAsStream("META-INF/test.properties");
+        try {
+            assertEquals("jar1", IOUtils.toString(in));
+        } finally {
+            in.close();
+        }
+        List<URL> urls = Collections.list(classLoader.findResources("META-INF/test.properties"));
+        assertEquals(2, urls.size());
+        List<String> contents = new ArrayList<String>();
+        for (URL url : urls) {
+            InputStream resource = url.openStream();
+            try {
+                contents.add(IOUtils.toString(resource));
+            } finally {
+                resource.close();
+            }
+        }
+        assertEquals(Arrays.asList("jar1", "jar2"), contents);
+        // entries whose name ends with the requested name are still found
+        assertNotNull(classLoader.findResource("test.properties"));
+    }
+
+    private static byte[] zip(String name1, byte[] content1, String name2, byte[] content2)
+            throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ZipOutputStream out = new ZipOutputStream(baos);
+        out.putNextEntry(new ZipEntry(name1));
+        out.write(content1);
+        if (name2 != null) {
+            out.putNextEntry(new ZipEntry(name2));
+            out.write(content2);
+        }
+        out.close();
+        return baos.toByteArray();
+    }
+
+    public static class Embedded {
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment.scheduler;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RepositoryWatcherTest extends TestCase {
+    private File repository;
+    private File services;
+    private final AtomicInteger scans = new AtomicInteger();
+    private RepositoryWatcher watcher;
+
+    protected void setUp() throws Exception {
+        repository = new File("target/repository-watcher-test").getAbsoluteFile();
+        delete(repository);
+        services = new File(repository, "services");
+        assertTrue(services.mkdirs());
+    }
+
+    protected void tearDown() throws Exception {
+        if (watcher != null) {
+            watcher.stop();
+        }
+        delete(repository);
+    }
+
+    private void startWatcher(File directory) {
+        watcher = new RepositoryWatcher(new Runnable() {
+            public void run() {
+                scans.incrementAndGet();
+            }
+        }, Collections.singletonList(directory), Collections.singletonList(repository), 300);
+        assertTrue(watcher.start());
+    }
+
+    public void testChangesAreBatched() throws Exception {
+        startWatcher(services);
+        for (int i = 0; i < 5; i++) {
+            touch(new File(services, "Service" + i + ".aar"));
+        }
+        waitForScans(1);
+        Thread.sleep(1000);
+        assertEquals(1, scans.get());
+
+        // sub directories are watched too, including the ones created later
+        File version = new File(services, "foo/1.0.0");
+        assertTrue(version.mkdirs());
+        waitForScans(2);
+        touch(new File(version, "Echo.aar"));
+        waitForScans(3);
+    }
+
+    public void testMissingDirectoryIsWatchedOnceCreated() throws Exception {
+        File pojo = new File(repository, "pojo");
+        startWatcher(pojo);
+        assertTrue(pojo.mkdir());
+        waitForScans(1);
+        touch(new File(pojo, "Echo.class"));
+        waitForScans(2);
+    }
+
+    public void testUnwatchableDirectory() throws Exception {
+        watcher = new RepositoryWatcher(new Runnable() {
+            public void run() {
+            }
+        }, Collections.singletonList(new File(repository, "a/b")),
+                Collections.singletonList(repository), 300);
+        assertFalse(watcher.start());
+        watcher = null;
+    }
+
+    private void waitForScans(int count) throws InterruptedException {
+        // some platforms poll for changes, so be generous
+        long deadline = System.currentTimeMillis() + 30000;
+        while (scans.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, scans.get());
+    }
+
+    private static void touch(File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(1);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
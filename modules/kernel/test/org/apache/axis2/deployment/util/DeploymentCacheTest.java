@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment.util;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DeploymentCacheTest extends TestCase {
+    private File workDir;
+
+    protected void setUp() throws Exception {
+        workDir = new File("target/deployment-cache-test");
+        delete(workDir);
+        assertTrue(workDir.mkdirs());
+    }
+
+    protected void tearDown() throws Exception {
+        delete(workDir);
+    }
+
+    public void testExtractedJarsAreReused() throws Exception {
+        File archive = new File(workDir, "Echo.aar");
+        writeArchive(archive, "v1");
+        URL archiveURL = archive.toURI().toURL();
+
+        DeploymentCache cache = new DeploymentCache(new File(workDir, "cache"));
+        URL[] urls = cache.getURLsForAllJars(archiveURL);
+        assertEquals(2, urls.length);
+        assertTrue(urls[0].getPath().endsWith("/Echo.aar"));
+        assertTrue(urls[1].getPath().endsWith("util.jar"));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // a new instance (i.e. a restart) finds the copies made by the previous one
+        cache = new DeploymentCache(new File(workDir, "cache"));
+        URL[] cachedUrls = cache.getURLsForAllJars(archiveURL);
+        assertEquals(urls[0], cachedUrls[0]);
+        assertEquals(urls[1], cachedUrls[1]);
+        assertEquals(1, cache.getHits());
+
+        // touching the archive without changing it keeps the copies
+        assertTrue(archive.setLastModified(archive.lastModified() - 60000));
+        assertEquals(urls[0], cache.getURLsForAllJars(archiveURL)[0]);
+        assertEquals(2, cache.getHits());
+
+        // changing the archive extracts it again and removes the old copies
+        writeArchive(archive, "version 2");
+        URL[] newUrls = cache.getURLsForAllJars(archiveURL);
+        assertEquals(1, cache.getMisses());
+        assertFalse(urls[0].equals(newUrls[0]));
+        assertFalse(new File(urls[0].toURI()).exists());
+        assertTrue(new File(newUrls[1].toURI()).isFile());
+    }
+
+    public void testDeletedCopiesAreExtractedAgain() throws Exception {
+        File archive = new File(workDir, "Echo.aar");
+        writeArchive(archive, "v1");
+        DeploymentCache cache = new DeploymentCache(new File(workDir, "cache"));
+        URL[] urls = cache.getURLsForAllJars(archive.toURI().toURL());
+        assertTrue(new File(urls[1].toURI()).delete());
+
+        urls = cache.getURLsForAllJars(archive.toURI().toURL());
+        assertEquals(2, cache.getMisses());
+        assertTrue(new File(urls[1].toURI()).isFile());
+    }
+
+    public void testFingerprint() throws Exception {
+        File archive = new File(workDir, "Echo.aar");
+        writeArchive(archive, "v1");
+        String fingerprint = DeploymentCache.fingerprint(archive);
+        assertTrue(archive.setLastModified(archive.lastModified() - 60000));
+        assertEquals(fingerprint, DeploymentCache.fingerprint(archive));
+
+        // same sizes, different content
+        writeArchive(archive, "v2");
+        assertFalse(fingerprint.equals(DeploymentCache.fingerprint(archive)));
+
+        // files that are not zip archives are hashed in full
+        File other = new File(workDir, "other.txt");
+        FileOutputStream out = new FileOutputStream(other);
+        out.write("not a zip archive".getBytes("UTF-8"));
+        out.close();
+        assertEquals(40, DeploymentCache.fingerprint(other).length());
+    }
+
+    private static void writeArchive(File file, String content) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            out.putNextEntry(new ZipEntry("META-INF/services.xml"));
+            out.write(("<service name=\"Echo\"><!-- " + content + " --></service>").getBytes("UTF-8"));
+            out.putNextEntry(new ZipEntry("lib/util.jar"));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.dispatchers;
+
+import junit.framework.TestCase;
+import org.apache.axis2.description.AxisBinding;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.wsdl.WSDLUtil;
+
+import javax.xml.namespace.QName;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class HTTPLocationRouterTest extends TestCase {
+
+    private final AxisOperation listStudents = new InOutAxisOperation(new QName("listStudents"));
+    private final AxisOperation getStudent = new InOutAxisOperation(new QName("getStudent"));
+    private final AxisOperation addStudent = new InOutAxisOperation(new QName("addStudent"));
+    private final AxisOperation getReport = new InOutAxisOperation(new QName("getReport"));
+
+    private Map<Pattern, AxisOperation> createTable() {
+        Map<Pattern, AxisOperation> table = new LinkedHashMap<Pattern, AxisOperation>();
+        table.put(WSDLUtil.getConstantFromHTTPLocationForResource("student", "GET"), listStudents);
+        table.put(WSDLUtil.getConstantFromHTTPLocationForResource("student/{id}", "GET"),
+                getStudent);
+        table.put(WSDLUtil.getConstantFromHTTPLocationForResource("student", "POST"), addStudent);
+        table.put(WSDLUtil.getConstantFromHTTPLocationForResource("report.pdf", "GET"),
+                getReport);
+        return table;
+    }
+
+    public void testMatchesLikeThePatterns() throws Exception {
+        Map<Pattern, AxisOperation> table = createTable();
+        HTTPLocationRouter router =
+                HTTPLocationRouter.getRouterForResource(new AxisBinding(), table);
+
+        String[][] requests = {
+                { "GET", "/student" }, { "GET", "/student/101" }, { "GET", "/student/" },
+                { "GET", "/student/101/courses" }, { "POST", "/student" }, { "PUT", "/student" },
+                { "GET", "/report.pdf" }, { "GET", "/reportXpdf" }, { "GET", "/teacher" },
+                { "GET", "" } };
+        for (String[] request : requests) {
+            AxisOperation expected = null;
+            for (Map.Entry<Pattern, AxisOperation> entry : table.entrySet()) {
+                if (entry.getKey().matcher(request[0] + request[1]).matches()) {
+                    expected = entry.getValue();
+                    break;
+                }
+            }
+            assertSame(request[0] + request[1], expected, router.match(request[0], request[1]));
+        }
+    }
+
+    public void testRouterIsCachedOnBinding() throws Exception {
+        AxisBinding binding = new AxisBinding();
+        Map<Pattern, AxisOperation> table = createTable();
+        HTTPLocationRouter router = HTTPLocationRouter.getRouterForResource(binding, table);
+        assertSame(router, HTTPLocationRouter.getRouterForResource(binding, table));
+
+        table.put(WSDLUtil.getConstantFromHTTPLocationForResource("teacher", "GET"),
+                listStudents);
+        HTTPLocationRouter rebuilt = HTTPLocationRouter.getRouterForResource(binding, table);
+        assertNotSame(router, rebuilt);
+        assertSame(listStudents, rebuilt.match("GET", "/teacher"));
+        assertSame(rebuilt, HTTPLocationRouter.getRouterForResource(binding, table));
+    }
+
+    public void testReplacedEntryRebuildsRouter() throws Exception {
+        AxisBinding binding = new AxisBinding();
+        Map<Pattern, AxisOperation> table = createTable();
+        HTTPLocationRouter router = HTTPLocationRouter.getRouterForResource(binding, table);
+        assertSame(listStudents, router.match("GET", "/student"));
+
+        // same size, but the operation of an entry is replaced
+        Pattern pattern = table.keySet().iterator().next();
+        table.put(pattern, getReport);
+        HTTPLocationRouter rebuilt = HTTPLocationRouter.getRouterForResource(binding, table);
+        assertNotSame(router, rebuilt);
+        assertSame(getReport, rebuilt.match("GET", "/student"));
+
+        // same size, but an entry is replaced by another pattern
+        table.remove(pattern);
+        table.put(WSDLUtil.getConstantFromHTTPLocationForResource("teacher", "GET"),
+                listStudents);
+        router = HTTPLocationRouter.getRouterForResource(binding, table);
+        assertNotSame(rebuilt, router);
+        assertNull(router.match("GET", "/student"));
+        assertSame(listStudents, router.match("GET", "/teacher"));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.engine;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOutAxisOperation;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BulkheadTest extends TestCase {
+
+    public void testBulkheadIsSharedByTheDeclaringDescription() throws Exception {
+        AxisService service = new AxisService("TestService");
+        AxisOperation op1 = new InOutAxisOperation(new QName("op1"));
+        AxisOperation op2 = new InOutAxisOperation(new QName("op2"));
+        AxisOperation op3 = new InOutAxisOperation(new QName("op3"));
+        service.addOperation(op1);
+        service.addOperation(op2);
+        service.addOperation(op3);
+
+        assertNull(Bulkhead.getBulkhead(op1));
+
+        service.addParameter(Bulkhead.MAX_CONCURRENT_REQUESTS, "2");
+        service.addParameter(Bulkhead.MAX_QUEUED_REQUESTS, "5");
+        op3.addParameter(Bulkhead.MAX_CONCURRENT_REQUESTS, "1");
+
+        Bulkhead bulkhead = Bulkhead.getBulkhead(op1);
+        assertNotNull(bulkhead);
+        assertEquals(2, bulkhead.getMaxConcurrentRequests());
+        assertEquals(5, bulkhead.getMaxQueuedRequests());
+        assertSame(bulkhead, Bulkhead.getBulkhead(op1));
+        assertSame(bulkhead, Bulkhead.getBulkhead(op2));
+
+        // the operation level configuration gets its own bulkhead, inheriting the rest
+        Bulkhead opBulkhead = Bulkhead.getBulkhead(op3);
+        assertNotSame(bulkhead, opBulkhead);
+        assertEquals(1, opBulkhead.getMaxConcurrentRequests());
+        assertEquals(5, opBulkhead.getMaxQueuedRequests());
+        assertSame(opBulkhead, Bulkhead.getBulkhead(op3));
+    }
+
+    public void testRejectsWhenFullAndQueueIsEmpty() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 0, 1000, 3);
+        assertTrue(bulkhead.acquire());
+        assertTrue(bulkhead.acquire());
+        assertEquals(2, bulkhead.getActiveCount());
+        assertFalse(bulkhead.acquire());
+        assertEquals(1, bulkhead.getRejectedCount());
+
+        bulkhead.release();
+        assertTrue(bulkhead.acquire());
+        assertEquals(3, bulkhead.getAcceptedCount());
+
+        MessageContext msgContext = new MessageContext();
+        AxisFault fault = bulkhead.createRejectionFault(msgContext);
+        assertNotNull(fault.getMessage());
+        assertEquals("503", msgContext.getProperty(Constants.HTTP_RESPONSE_STATE));
+        assertEquals("3", msgContext.getProperty(Constants.HTTP_RETRY_AFTER));
+    }
+
+    public void testQueuedRequestWaitsForPermit() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead("test", 1, 1, 10000, 1);
+        assertTrue(bulkhead.acquire());
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicBoolean acquired = new AtomicBoolean();
+        Thread waiter = new Thread() {
+            public void run() {
+                acquired.set(bulkhead.acquire());
+                done.countDown();
+            }
+        };
+        waiter.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.getQueuedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, bulkhead.getQueuedCount());
+
+        // the queue is full
+        assertFalse(bulkhead.acquire());
+
+        Thread.sleep(50);
+        bulkhead.release();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(acquired.get());
+        assertEquals(0, bulkhead.getQueuedCount());
+        assertTrue(bulkhead.getMaxQueueWaitTime() >= 40);
+        assertTrue(bulkhead.getTotalQueueWaitTime() >= bulkhead.getMaxQueueWaitTime());
+    }
+
+    public void testQueuedRequestTimesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 50, 1);
+        assertTrue(bulkhead.acquire());
+        assertFalse(bulkhead.acquire());
+        assertEquals(1, bulkhead.getRejectedCount());
+        assertEquals(0, bulkhead.getQueuedCount());
+    }
+}
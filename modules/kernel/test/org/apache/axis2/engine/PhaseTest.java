@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.engine.Handler.InvocationResponse;
+import org.apache.axis2.handlers.AbstractHandler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class PhaseTest extends TestCase {
+
+    private List<String> invoked = new ArrayList<String>();
+
+    public void testInvokeSeesAddedAndRemovedHandlers() throws Exception {
+        Phase phase = new Phase("Test");
+        phase.addHandler(new RecordingHandler("h1"));
+        phase.addHandler(new RecordingHandler("h2"));
+
+        MessageContext msgContext = new MessageContext();
+        assertEquals(InvocationResponse.CONTINUE, phase.invoke(msgContext));
+        assertEquals("[h1, h2]", invoked.toString());
+        assertEquals(0, msgContext.getCurrentPhaseIndex());
+
+        RecordingHandler first = new RecordingHandler("first");
+        phase.setPhaseFirst(first);
+        invoked.clear();
+        phase.invoke(msgContext);
+        assertEquals("[first, h1, h2]", invoked.toString());
+
+        phase.removeHandler(first.getHandlerDesc());
+        invoked.clear();
+        phase.invoke(msgContext);
+        assertEquals("[h1, h2]", invoked.toString());
+        assertEquals(2, phase.getHandlerCount());
+    }
+
+    public void testInvokeSeesChangesMadeThroughGetHandlers() throws Exception {
+        Phase phase = new Phase("Test");
+        phase.addHandler(new RecordingHandler("h1"));
+        MessageContext msgContext = new MessageContext();
+
+        List<Handler> handlers = phase.getHandlers();
+        handlers.add(new RecordingHandler("h2"));
+        handlers.add(0, new RecordingHandler("h0"));
+        assertEquals(3, phase.getHandlerCount());
+        phase.invoke(msgContext);
+        assertEquals("[h0, h1, h2]", invoked.toString());
+
+        handlers.remove(1);
+        handlers.set(0, new RecordingHandler("h3"));
+        invoked.clear();
+        phase.invoke(msgContext);
+        assertEquals("[h3, h2]", invoked.toString());
+
+        for (Iterator<Handler> it = handlers.iterator(); it.hasNext();) {
+            if ("h2".equals(it.next().getName())) {
+                it.remove();
+            }
+        }
+        invoked.clear();
+        phase.invoke(msgContext);
+        assertEquals("[h3]", invoked.toString());
+
+        handlers.clear();
+        assertEquals(0, phase.getHandlerCount());
+    }
+
+    public void testConcurrentAddsAreAllInvoked() throws Exception {
+        final Phase phase = new Phase("Test");
+        final int threads = 4;
+        final int perThread = 250;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        phase.addHandler(new RecordingHandler("h" + id + "-" + i));
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        start.countDown();
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+        }
+
+        assertEquals(threads * perThread, phase.getHandlerCount());
+        phase.invoke(new MessageContext());
+        assertEquals(threads * perThread, invoked.size());
+    }
+
+    public void testOutFlowExecutionChain() throws Exception {
+        InOutAxisOperation operation = new InOutAxisOperation();
+        ArrayList<Handler> operationPhases = new ArrayList<Handler>();
+        operationPhases.add(new Phase("OperationOut"));
+        operation.setPhasesOutFlow(operationPhases);
+        List<Phase> globalPhases = new ArrayList<Phase>();
+        globalPhases.add(new Phase("MessageOut"));
+
+        ArrayList<Handler> chain = operation.getOutFlowExecutionChain(globalPhases);
+        assertEquals(2, chain.size());
+        assertEquals("OperationOut", chain.get(0).getName());
+        assertEquals("MessageOut", chain.get(1).getName());
+
+        // each message gets its own copy
+        chain.clear();
+        assertEquals(2, operation.getOutFlowExecutionChain(globalPhases).size());
+
+        // changes to the source lists are picked up
+        globalPhases.add(new Phase("Security"));
+        chain = operation.getOutFlowExecutionChain(globalPhases);
+        assertEquals(3, chain.size());
+        assertEquals("Security", chain.get(2).getName());
+
+        ArrayList<Handler> replaced = new ArrayList<Handler>();
+        operation.setPhasesOutFlow(replaced);
+        assertEquals(2, operation.getOutFlowExecutionChain(globalPhases).size());
+    }
+
+    private class RecordingHandler extends AbstractHandler {
+        private final String name;
+
+        RecordingHandler(String name) {
+            this.name = name;
+            HandlerDescription handlerDesc = new HandlerDescription(name);
+            handlerDesc.setHandler(this);
+            init(handlerDesc);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+            invoked.add(name);
+            return InvocationResponse.CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+public class SegmentedOutputStreamTest extends TestCase {
+
+    public void testWriteAcrossSegments() throws Exception {
+        byte[] data = new byte[SegmentedOutputStream.SEGMENT_SIZE * 5 + 17];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        SegmentedOutputStream out = new SegmentedOutputStream();
+        out.write(data[0]);
+        out.write(data, 1, 1000);
+        out.write(data, 1001, data.length - 1001);
+        assertEquals(data.length, out.size());
+        assertTrue(Arrays.equals(data, out.toByteArray()));
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        out.writeTo(copy);
+        assertTrue(Arrays.equals(data, copy.toByteArray()));
+        out.release();
+        assertEquals(0, out.size());
+    }
+
+    public void testReleaseReturnsSegmentsToPool() throws Exception {
+        SegmentedOutputStream out = new SegmentedOutputStream();
+        out.write(new byte[SegmentedOutputStream.SEGMENT_SIZE * 2]);
+        int pooled = SegmentedOutputStream.getPooledSegmentCount();
+        out.release();
+        assertEquals(pooled + 2, SegmentedOutputStream.getPooledSegmentCount());
+
+        out.write(new byte[10]);
+        assertEquals(pooled + 1, SegmentedOutputStream.getPooledSegmentCount());
+        assertEquals(10, out.toByteArray().length);
+        out.release();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.util;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class TimerWheelTest extends TestCase {
+
+    private static final long TICK = 1000;
+
+    /**
+     * Returns the start of a tick that the wheel has not swept yet.
+     */
+    private static long nextTickStart() {
+        return (System.currentTimeMillis() / TICK + 1) * TICK;
+    }
+
+    /**
+     * Sweeps the wheel at every tick boundary and returns the time of the sweep that expired
+     * the item.
+     */
+    private static long sweepUntilExpired(TimerWheel<String> wheel, long from, long limit) {
+        for (long now = from; now <= limit; now += TICK) {
+            List<TimerWheel.Timeout<String>> expired = wheel.expire(now);
+            if (!expired.isEmpty()) {
+                assertEquals(1, expired.size());
+                return now;
+            }
+        }
+        fail("Not expired by " + limit);
+        return -1;
+    }
+
+    public void testExpiresWithinOneTickOfDeadline() {
+        long[] offsets = { 0, 1, 100, 500, 999 };
+        for (int i = 0; i < offsets.length; i++) {
+            TimerWheel<String> wheel = new TimerWheel<String>(TICK, 512);
+            long start = nextTickStart();
+            long deadline = start + 5000 + offsets[i];
+            wheel.schedule("item", deadline);
+
+            long expiredAt = sweepUntilExpired(wheel, start, deadline + 2 * TICK);
+            assertTrue(expiredAt >= deadline);
+            assertTrue("expired " + (expiredAt - deadline) + " ms late",
+                    expiredAt - deadline < TICK);
+        }
+    }
+
+    public void testSweepWithinTheTickOfTheDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<String>(TICK, 512);
+        long start = nextTickStart();
+        long deadline = start + 5500;
+        wheel.schedule("item", deadline);
+
+        // a sweep in the middle of the tick, before the deadline, must not lose the item
+        assertTrue(wheel.expire(start + 5200).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(1, wheel.expire(start + 6000).size());
+    }
+
+    public void testScheduleIntoSweptTick() {
+        TimerWheel<String> wheel = new TimerWheel<String>(TICK, 512);
+        long start = nextTickStart();
+        assertTrue(wheel.expire(start + 200).isEmpty());
+
+        // the tick containing the deadline has already been swept
+        wheel.schedule("item", start + 300);
+        long expiredAt = sweepUntilExpired(wheel, start + TICK, start + 3 * TICK);
+        assertEquals(start + TICK, expiredAt);
+
+        // an item that is already overdue expires on the next sweep
+        wheel.schedule("overdue", start - 5000);
+        assertEquals(1, wheel.expire(start + 2 * TICK).size());
+    }
+
+    public void testDeadlineBeyondOneRevolution() {
+        TimerWheel<String> wheel = new TimerWheel<String>(TICK, 8);
+        long start = nextTickStart();
+        long deadline = start + 20 * TICK + 300;
+        wheel.schedule("item", deadline);
+
+        long expiredAt = sweepUntilExpired(wheel, start, deadline + 2 * TICK);
+        assertEquals(start + 21 * TICK, expiredAt);
+    }
+
+    public void testCancel() {
+        TimerWheel<String> wheel = new TimerWheel<String>(TICK, 512);
+        long start = nextTickStart();
+        TimerWheel.Timeout<String> timeout = wheel.schedule("item", start + 1500);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.expire(start + 3000).isEmpty());
+    }
+}
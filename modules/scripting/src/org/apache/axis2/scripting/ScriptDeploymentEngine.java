@@ -43,12 +43,20 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * An Axis2 DeploymentEngine subclass for deploying script services 
  * supporting hot deploy and hot update.
+ * 
+ * Scripts can be run by a JSR-223 script engine instead of BSF by naming the
+ * engine for the script file suffix in the axis2.xml, eg. a "scriptEngine.js"
+ * parameter. Such scripts are compiled when they are deployed and, on hot
+ * update, the compiled script of the running service is replaced without
+ * redeploying the service.
  */
 public class ScriptDeploymentEngine extends DeploymentEngine {
 
@@ -58,6 +66,11 @@ public class ScriptDeploymentEngine extends DeploymentEngine {
 
     private AxisConfiguration realAxisConfig;
 
+    /**
+     * The updated scripts whose services are kept and get the new script swapped in
+     */
+    private Set reloadedScripts = new HashSet();
+
     public ScriptDeploymentEngine(AxisConfiguration realAxisConfig) {
         this.axisConfig = new AxisConfiguration();
         this.realAxisConfig = realAxisConfig;
@@ -100,6 +113,12 @@ public class ScriptDeploymentEngine extends DeploymentEngine {
             wsdlFile = getWSDLForScript(scriptFile);
         }
 
+        if (reloadedScripts.remove(file.getAbsolutePath())) {
+            reloadScript(scriptFile);
+            alreadyDeployed.add(scriptFile.toURI());
+            return;
+        }
+
         if (scriptFile != null && wsdlFile != null && !alreadyDeployed.contains(scriptFile.toURI()) && scriptFile.exists() && wsdlFile.exists()) {
             AxisService axisService = createService(wsdlFile, scriptFile);
             AxisServiceGroup axisServiceGroup = new AxisServiceGroup(axisConfig);
@@ -112,12 +131,58 @@ public class ScriptDeploymentEngine extends DeploymentEngine {
         }
     }
 
+    /**
+     * Replaces the script of a deployed JSR-223 script service. If the new
+     * script does not compile the service keeps running the old one.
+     */
+    private void reloadScript(File scriptFile) {
+        String serviceName = scriptFile.getName().substring(0, scriptFile.getName().lastIndexOf('.'));
+        try {
+            AxisService axisService = realAxisConfig.getService(serviceName);
+            String scriptSrc = readScriptSource(scriptFile);
+            ScriptEnginePool pool = (ScriptEnginePool) axisService.getParameter(ScriptReceiver.SCRIPT_ENGINE_POOL_PROP).getValue();
+            pool.reload(scriptSrc);
+            axisService.addParameter(ScriptReceiver.SCRIPT_SRC_PROP, scriptSrc);
+        } catch (AxisFault e) {
+            log.warn("Exception reloading script: " + scriptFile.getName() + ", the previous version is still used", e);
+        }
+    }
+
+    /**
+     * Whether the updated file is the script of a deployed JSR-223 script
+     * service, which then is not undeployed but gets the new script swapped in.
+     */
+    private boolean isReloadable(WSInfo wsInfo) {
+        String fileName = wsInfo.getFileName();
+        if (fileName.endsWith(".wsdl")) {
+            return false;
+        }
+        boolean redeployed = false;
+        for (int i = 0; !redeployed && i < wsToDeploy.size(); i++) {
+            DeploymentFileData fileData = (DeploymentFileData) wsToDeploy.get(i);
+            redeployed = fileData.getFile().getAbsolutePath().equals(fileName);
+        }
+        if (!redeployed) {
+            return false;
+        }
+        try {
+            AxisService axisService = realAxisConfig.getService(getAxisServiceName(Utils.getShortFileName(fileName)));
+            return axisService != null && axisService.getParameter(ScriptReceiver.SCRIPT_ENGINE_POOL_PROP) != null;
+        } catch (AxisFault e) {
+            return false;
+        }
+    }
+
     public void unDeploy() {
         String serviceName = null;
         List undeployed = new ArrayList();
         for (int i = 0; i < wsToUnDeploy.size(); i++) {
             try {
                 WSInfo wsInfo = (WSInfo)wsToUnDeploy.get(i);
+                if (isHotUpdate() && isReloadable(wsInfo)) {
+                    reloadedScripts.add(wsInfo.getFileName());
+                    continue;
+                }
                 String fileName = Utils.getShortFileName(wsInfo.getFileName());
 //                if (wsInfo.getType() == TYPE_SERVICE) {
                     if (isHotUpdate()) {
@@ -211,6 +276,19 @@ public class ScriptDeploymentEngine extends DeploymentEngine {
             Parameter scriptSrc = new Parameter(ScriptReceiver.SCRIPT_SRC_PROP, readScriptSource(scriptFile));
             axisService.addParameter(scriptSrc);
 
+            // the service is not part of the real configuration yet, so look up the script engine there
+            String suffix = scriptFile.getName().substring(scriptFile.getName().lastIndexOf('.') + 1);
+            Parameter engineParam = realAxisConfig.getParameter(ScriptReceiver.ENGINE_ATTR + "." + suffix);
+            if (engineParam != null) {
+                axisService.addParameter(ScriptReceiver.ENGINE_ATTR, engineParam.getValue());
+                Parameter poolSizeParam = realAxisConfig.getParameter(ScriptReceiver.POOL_SIZE_ATTR);
+                if (poolSizeParam != null) {
+                    axisService.addParameter(ScriptReceiver.POOL_SIZE_ATTR, poolSizeParam.getValue());
+                }
+                axisService.addParameter(ScriptReceiver.SCRIPT_ENGINE_POOL_PROP,
+                        ScriptReceiver.createScriptEnginePool(axisService, scriptFile.getName(), (String) scriptSrc.getValue()));
+            }
+
             ScriptReceiver scriptReceiver = new ScriptReceiver();
             axisService.addMessageReceiver("http://www.w3.org/2004/08/wsdl/in-out", scriptReceiver);
 
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.scripting;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.scripting.convertors.OMElementConvertor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A bounded pool of JSR-223 script engines running the script of a service. Each engine gets
+ * its own copy of the script, compiled once through {@link Compilable} when the engine supports
+ * it, so concurrent requests run in parallel on different engines instead of being serialized on
+ * a single one, and the script is not interpreted again for every request. Engines are created
+ * on demand up to the pool size; further requests wait for an engine to be returned.
+ * <p>
+ * {@link #reload(String)} replaces the script of a deployed service: the new source is compiled
+ * first, so a broken script leaves the running one in place, and requests already executing
+ * finish with the old version.
+ */
+public class ScriptEnginePool {
+
+    private static final Log log = LogFactory.getLog(ScriptEnginePool.class);
+
+    private final AxisService axisService;
+    private final String engineName;
+    private final String scriptName;
+    private final int maxSize;
+    private final OMElementConvertor convertor;
+    private final ScriptEngineManager engineManager;
+
+    private volatile Generation current;
+
+    /**
+     * Create the pool and compile the script in its first engine, so that a missing engine or
+     * a script with syntax errors is reported when the service is deployed.
+     */
+    public ScriptEnginePool(AxisService axisService, String engineName, String scriptName,
+                            String scriptSrc, int maxSize, OMElementConvertor convertor)
+            throws AxisFault {
+        if (maxSize < 1) {
+            throw new AxisFault("Invalid script engine pool size: " + maxSize);
+        }
+        this.axisService = axisService;
+        this.engineName = engineName;
+        this.scriptName = scriptName;
+        this.maxSize = maxSize;
+        this.convertor = convertor;
+        ClassLoader classLoader = axisService.getClassLoader();
+        this.engineManager = new ScriptEngineManager(classLoader != null
+                ? classLoader : ScriptEnginePool.class.getClassLoader());
+        Generation generation = new Generation(scriptSrc, maxSize);
+        generation.idle.add(generation.createEngine());
+        current = generation;
+    }
+
+    public OMElementConvertor getConvertor() {
+        return convertor;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Call a function of the script on one of the pooled engines.
+     */
+    public Object invoke(String function, Object[] args) throws AxisFault {
+        Generation generation = current;
+        ScriptEngine engine = generation.acquire();
+        try {
+            return ((Invocable) engine).invokeFunction(function, args);
+        } catch (ScriptException e) {
+            throw AxisFault.makeFault(e);
+        } catch (NoSuchMethodException e) {
+            throw new AxisFault("Script function not found: " + function, e);
+        } finally {
+            generation.release(engine);
+        }
+    }
+
+    /**
+     * Replace the script. The engines running the old script are discarded as they are
+     * returned to the pool.
+     */
+    public void reload(String scriptSrc) throws AxisFault {
+        Generation generation = new Generation(scriptSrc, maxSize);
+        generation.idle.add(generation.createEngine());
+        current = generation;
+        log.info("Reloaded script " + scriptName + " of service " + axisService.getName());
+    }
+
+    /**
+     * The engines running one version of the script.
+     */
+    private class Generation {
+
+        private final String scriptSrc;
+        private final BlockingQueue<ScriptEngine> idle = new LinkedBlockingQueue<ScriptEngine>();
+        private final Semaphore permits;
+
+        Generation(String scriptSrc, int size) {
+            this.scriptSrc = scriptSrc;
+            this.permits = new Semaphore(size);
+        }
+
+        ScriptEngine acquire() throws AxisFault {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AxisFault("Interrupted while waiting for a script engine", e);
+            }
+            ScriptEngine engine = idle.poll();
+            if (engine == null) {
+                try {
+                    engine = createEngine();
+                } catch (AxisFault e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            return engine;
+        }
+
+        void release(ScriptEngine engine) {
+            if (this == current) {
+                idle.add(engine);
+            }
+            permits.release();
+        }
+
+        ScriptEngine createEngine() throws AxisFault {
+            ScriptEngine engine = engineManager.getEngineByName(engineName);
+            if (engine == null) {
+                throw new AxisFault("Script engine not found: " + engineName);
+            }
+            if (!(engine instanceof Invocable)) {
+                throw new AxisFault("Script engine " + engineName
+                        + " does not support invoking script functions");
+            }
+            engine.put(ScriptEngine.FILENAME, scriptName);
+            engine.getBindings(ScriptContext.ENGINE_SCOPE).put("_AxisService", axisService);
+            try {
+                if (engine instanceof Compilable) {
+                    CompiledScript compiledScript = ((Compilable) engine).compile(scriptSrc);
+                    compiledScript.eval();
+                } else {
+                    engine.eval(scriptSrc);
+                }
+            } catch (ScriptException e) {
+                throw new AxisFault("Error compiling script " + scriptName + ": "
+                        + e.getMessage(), e);
+            }
+            return engine;
+        }
+    }
+}
@@ -75,6 +75,13 @@ import java.util.ArrayList;
  * 
  * The script language is determined by the file name suffix when using scripts
  * in seperate files or the script parameter name suffix when using inline scripts.
+ * 
+ * Alternatively the script can be run by a JSR-223 script engine, by naming the
+ * engine in a "scriptEngine" parameter, eg. <code>&lt;parameter name="scriptEngine"&gt;nashorn&lt;/parameter&gt;</code>.
+ * The script is then compiled once per engine and a pool of engines, sized by the
+ * "scriptEnginePoolSize" parameter (the number of processors by default), serves
+ * concurrent requests; see {@link ScriptEnginePool}. XML is passed to such scripts
+ * as Strings unless a convertor is configured with the "convertor" parameter.
  */
 public class ScriptReceiver extends AbstractInOutSyncMessageReceiver {
 
@@ -82,10 +89,13 @@ public class ScriptReceiver extends AbstractInOutSyncMessageReceiver {
     public static final String FUNCTION_ATTR = "function";
     public static final String DEFAULT_FUNCTION = "invoke";
     public static final String CONVERTOR_ATTR = "convertor";
+    public static final String ENGINE_ATTR = "scriptEngine";
+    public static final String POOL_SIZE_ATTR = "scriptEnginePoolSize";
 
     protected static final String BSFENGINE_PROP = ScriptReceiver.class.getName() + "BSFEngine";
     protected static final String CONVERTOR_PROP = ScriptReceiver.class.getName() + "OMElementConvertor";
     public static final String SCRIPT_SRC_PROP = ScriptReceiver.class.getName() + "ScriptSrc";
+    public static final String SCRIPT_ENGINE_POOL_PROP = ScriptReceiver.class.getName() + "ScriptEnginePool";
 
     private static final Log log = LogFactory.getLog(ScriptModule.class);
 
@@ -102,12 +112,21 @@ public class ScriptReceiver extends AbstractInOutSyncMessageReceiver {
 
             outMC.setEnvelope(getSOAPFactory(inMC).getDefaultEnvelope());
 
-            BSFEngine engine = getBSFEngine(inMC);
-            OMElementConvertor convertor = (OMElementConvertor) inMC.getServiceContext().getProperty(CONVERTOR_PROP);
-
             Parameter scriptFunctionParam = inMC.getAxisService().getParameter(FUNCTION_ATTR);
             String scriptFunction = scriptFunctionParam == null ? DEFAULT_FUNCTION : (String) scriptFunctionParam.getValue();
 
+            ScriptEnginePool pool = getScriptEnginePool(inMC.getAxisService());
+            if (pool != null) {
+                OMElementConvertor convertor = pool.getConvertor();
+                Object[] args = new Object[] { new ScriptMessageContext(inMC, convertor),
+                                               new ScriptMessageContext(outMC, convertor) };
+                pool.invoke(scriptFunction, args);
+                return;
+            }
+
+            BSFEngine engine = getBSFEngine(inMC);
+            OMElementConvertor convertor = (OMElementConvertor) inMC.getServiceContext().getProperty(CONVERTOR_PROP);
+
             ScriptMessageContext inScriptMC = new ScriptMessageContext(inMC, convertor);
             ScriptMessageContext outScriptMC = new ScriptMessageContext(outMC, convertor);
             Object[] args = new Object[] { inScriptMC, outScriptMC };
@@ -137,6 +156,53 @@ public class ScriptReceiver extends AbstractInOutSyncMessageReceiver {
         return bsfEngine;
     }
 
+    /**
+     * Gets the JSR-223 script engine pool of the script service, or null if
+     * the script is run by BSF.
+     * 
+     * The pool is normally created when the service is deployed, otherwise the
+     * first service invocation creates it and caches it as a service parameter.
+     */
+    protected ScriptEnginePool getScriptEnginePool(AxisService axisService) throws AxisFault {
+        Parameter poolParam = axisService.getParameter(SCRIPT_ENGINE_POOL_PROP);
+        if (poolParam != null) {
+            return (ScriptEnginePool) poolParam.getValue();
+        }
+        if (axisService.getParameter(ENGINE_ATTR) == null) {
+            return null;
+        }
+        synchronized (axisService) {
+            poolParam = axisService.getParameter(SCRIPT_ENGINE_POOL_PROP);
+            if (poolParam != null) {
+                return (ScriptEnginePool) poolParam.getValue();
+            }
+            String[] script = getScript(axisService);
+            ScriptEnginePool pool = createScriptEnginePool(axisService, script[0], script[1]);
+            axisService.addParameter(SCRIPT_ENGINE_POOL_PROP, pool);
+            return pool;
+        }
+    }
+
+    /**
+     * Creates the JSR-223 script engine pool for the script, compiling the
+     * script in its first engine.
+     */
+    public static ScriptEnginePool createScriptEnginePool(AxisService axisService, String scriptName,
+                                                          String scriptSrc) throws AxisFault {
+        String engineName = ((String) axisService.getParameter(ENGINE_ATTR).getValue()).trim();
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        Parameter poolSizeParam = axisService.getParameter(POOL_SIZE_ATTR);
+        if (poolSizeParam != null) {
+            try {
+                poolSize = Integer.parseInt(((String) poolSizeParam.getValue()).trim());
+            } catch (NumberFormatException e) {
+                throw new AxisFault("Invalid " + POOL_SIZE_ATTR + " parameter: " + poolSizeParam.getValue());
+            }
+        }
+        OMElementConvertor convertor = ConvertorFactory.createJSR223OMElementConvertor(axisService);
+        return new ScriptEnginePool(axisService, engineName, scriptName, scriptSrc, poolSize, convertor);
+    }
+
     /**
      * Initializes the script service by finding the script source code,
      * compiling it in a BSFEngine, and creating an OMElementConvertor
@@ -146,7 +212,38 @@ public class ScriptReceiver extends AbstractInOutSyncMessageReceiver {
         log.debug("initializing script service");
 
         AxisService axisService = mc.getAxisService();
+        String[] script = getScript(axisService);
+        String scriptName = script[0];
+        String scriptSrc = script[1];
+
+        try {
 
+            String scriptLanguage = BSFManager.getLangFromFilename(scriptName);
+            BSFManager bsfManager = new BSFManager();
+            bsfManager.setClassLoader(BSFManager.class.getClassLoader());
+            bsfManager.declareBean("_AxisService", axisService, AxisService.class);
+
+            BSFEngine bsfEngine = bsfManager.loadScriptingEngine(scriptLanguage);
+            bsfEngine.exec(scriptName, 0, 0, scriptSrc);
+
+            ServiceContext serviceContext = mc.getServiceContext();
+            serviceContext.setProperty(BSFENGINE_PROP, bsfEngine);
+
+            OMElementConvertor convertor = ConvertorFactory.createOMElementConvertor(axisService, scriptName);
+            serviceContext.setProperty(CONVERTOR_PROP, convertor);
+
+            return bsfEngine;
+
+        } catch (BSFException e) {
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+    /**
+     * Finds the name and source code of the script of the service, returned
+     * as a two element array.
+     */
+    protected String[] getScript(AxisService axisService) throws AxisFault {
         String scriptName = null;
         String scriptSrc = null;
         Parameter scriptFileParam = axisService.getParameter(SCRIPT_ATTR);
@@ -174,28 +271,7 @@ public class ScriptReceiver extends AbstractInOutSyncMessageReceiver {
         if (scriptName == null) {
             throw new AxisFault("Missing script parameter");
         }
-        
-        try {
-
-            String scriptLanguage = BSFManager.getLangFromFilename(scriptName);
-            BSFManager bsfManager = new BSFManager();
-            bsfManager.setClassLoader(BSFManager.class.getClassLoader());
-            bsfManager.declareBean("_AxisService", axisService, AxisService.class);
-
-            BSFEngine bsfEngine = bsfManager.loadScriptingEngine(scriptLanguage);
-            bsfEngine.exec(scriptName, 0, 0, scriptSrc);
-
-            ServiceContext serviceContext = mc.getServiceContext();
-            serviceContext.setProperty(BSFENGINE_PROP, bsfEngine);
-
-            OMElementConvertor convertor = ConvertorFactory.createOMElementConvertor(axisService, scriptName);
-            serviceContext.setProperty(CONVERTOR_PROP, convertor);
-
-            return bsfEngine;
-
-        } catch (BSFException e) {
-            throw AxisFault.makeFault(e);
-        }
+        return new String[] { scriptName, scriptSrc };
     }
 
     /**
@@ -56,6 +56,21 @@ public class ConvertorFactory {
         return oc;
     }
 
+    /**
+     * Creates an OMElementConvertor for a script run by a JSR-223 script engine.
+     * 
+     * The language specific convertors work on BSF engines, so unless a convertor
+     * class is named with the convertor attribute in the services.xml the
+     * DefaultOMElementConvertor is used.
+     */
+    public static OMElementConvertor createJSR223OMElementConvertor(AxisService axisService) {
+        OMElementConvertor oc = getScriptConvertor(axisService);
+        if (oc == null) {
+            oc = new DefaultOMElementConvertor();
+        }
+        return oc;
+    }
+
     /**
      * 
      */
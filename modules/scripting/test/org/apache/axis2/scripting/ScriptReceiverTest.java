@@ -26,6 +26,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.Parameter;
 
+import javax.script.ScriptEngineManager;
 import java.util.Iterator;
 
 public class ScriptReceiverTest extends TestCase {
@@ -59,4 +60,31 @@ public class ScriptReceiverTest extends TestCase {
         assertEquals("<a>request</a>", ((OMElement) iterator.next()).getFirstElement().toString());
     }
 
+    public void testJSR223ScriptEngine() throws AxisFault {
+        if (new ScriptEngineManager().getEngineByName("javascript") == null) {
+            return; // no JSR-223 JavaScript engine on this JVM
+        }
+        ScriptReceiver scriptReceiver = new ScriptReceiver();
+        MessageContext inMC = TestUtils.createMockMessageContext("<a>petra</a>");
+        AxisService axisService = inMC.getAxisService();
+        axisService.addParameter(new Parameter(ScriptReceiver.SCRIPT_ATTR, "foo.js"));
+        axisService.addParameter(new Parameter(ScriptReceiver.ENGINE_ATTR, "javascript"));
+        axisService.addParameter(new Parameter(ScriptReceiver.SCRIPT_SRC_PROP,
+                                               "function invoke(inMC,outMC) " +
+                                                       "{outMC.setPayloadXML('<b>' + _AxisService.getScope() + '</b>') }"));
+        scriptReceiver.invokeBusinessLogic(inMC, inMC);
+        Iterator iterator = inMC.getEnvelope().getChildElements();
+        iterator.next();
+        assertEquals("<b>request</b>", ((OMElement) iterator.next()).getFirstElement().toString());
+
+        ScriptEnginePool pool = (ScriptEnginePool) axisService.getParameter(
+                ScriptReceiver.SCRIPT_ENGINE_POOL_PROP).getValue();
+        assertEquals(Runtime.getRuntime().availableProcessors(), pool.getMaxSize());
+        pool.reload("function invoke(inMC,outMC) {outMC.setPayloadXML('<c>reloaded</c>') }");
+        scriptReceiver.invokeBusinessLogic(inMC, inMC);
+        iterator = inMC.getEnvelope().getChildElements();
+        iterator.next();
+        assertEquals("<c>reloaded</c>", ((OMElement) iterator.next()).getFirstElement().toString());
+    }
+
 }
@@ -103,6 +103,7 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
         String targetAddress = (String) msgContext.getProperty(
             Constants.Configuration.TRANSPORT_URL);
 
+        long start = System.nanoTime();
         if (targetAddress != null) {
             sendMessage(msgContext, targetAddress, null);
         } else if (msgContext.getTo() != null && !msgContext.getTo().hasAnonymousAddress()) {
@@ -118,8 +119,13 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
             // get the out transport info for server side when target EPR is unknown
             sendMessage(msgContext, null,
                 (OutTransportInfo) msgContext.getProperty(Constants.OUT_TRANSPORT_INFO));
+        } else {
+            return InvocationResponse.CONTINUE;
         }
 
+        if (metrics != null) {
+            metrics.notifySentMessageLatency((System.nanoTime() - start) / 1000);
+        }
         return InvocationResponse.CONTINUE;
     }
 
@@ -275,6 +281,10 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
         return 0;
     }
 
+    public MetricsCollector getMetricsCollector() {
+        return metrics;
+    }
+
     // -- jmx/management methods--
     public long getMessagesReceived() {
         if (metrics != null) {
@@ -19,63 +19,76 @@
 
 package org.apache.axis2.transport.base;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
 
 import java.util.Map;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Collects metrics related to a transport that has metrics support enabled
+ * Collects metrics related to a transport that has metrics support enabled. All the
+ * update methods are lock free so that concurrent transport threads do not contend
+ * on a single monitor for every message.
  */
 public class MetricsCollector {
 
     public static final int LEVEL_NONE = 0;
     public static final int LEVEL_TRANSPORT = 1;
     public static final int LEVEL_FULL = 2;
-    private static final Long ONE = (long) 1;
 
     /** By default, full metrics collection is enabled */
     private int level = LEVEL_FULL;
 
-    private long messagesReceived;
-    private long faultsReceiving;
-    private long timeoutsReceiving;
-    private long bytesReceived;
-    private long minSizeReceived;
-    private long maxSizeReceived;
-    private double avgSizeReceived;
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder faultsReceiving = new LongAdder();
+    private final LongAdder timeoutsReceiving = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final AtomicLong minSizeReceived = new AtomicLong();
+    private final AtomicLong maxSizeReceived = new AtomicLong();
+    private final AtomicLong avgSizeReceived = new AtomicLong();
 
-    private long messagesSent;
-    private long faultsSending;
-    private long timeoutsSending;
-    private long bytesSent;
-    private long minSizeSent;
-    private long maxSizeSent;
-    private double avgSizeSent;
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder faultsSending = new LongAdder();
+    private final LongAdder timeoutsSending = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final AtomicLong minSizeSent = new AtomicLong();
+    private final AtomicLong maxSizeSent = new AtomicLong();
+    private final AtomicLong avgSizeSent = new AtomicLong();
 
-    private final Map<Integer, Long> responseCodeTable =
-        Collections.synchronizedMap(new HashMap<Integer, Long>());
+    private final ConcurrentMap<Integer, AtomicLong> responseCodeTable =
+        new ConcurrentHashMap<Integer, AtomicLong>();
 
-    private long lastResetTime = System.currentTimeMillis();
+    private final LatencyHistogram receiveLatency = new LatencyHistogram();
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> serviceLatency =
+        new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private volatile long lastResetTime = System.currentTimeMillis();
 
     public void reset() {
-        messagesReceived  = 0;
-        faultsReceiving   = 0;
-        timeoutsReceiving = 0;
-        bytesReceived     = 0;
-        minSizeReceived   = 0;
-        maxSizeReceived   = 0;
-        avgSizeReceived   = 0;
-
-        messagesSent      = 0;
-        faultsSending     = 0;
-        timeoutsSending   = 0;
-        bytesSent         = 0;
-        minSizeSent       = 0;
-        maxSizeSent       = 0;
-        avgSizeSent       = 0;
+        messagesReceived.reset();
+        faultsReceiving.reset();
+        timeoutsReceiving.reset();
+        bytesReceived.reset();
+        minSizeReceived.set(0);
+        maxSizeReceived.set(0);
+        avgSizeReceived.set(0);
+
+        messagesSent.reset();
+        faultsSending.reset();
+        timeoutsSending.reset();
+        bytesSent.reset();
+        minSizeSent.set(0);
+        maxSizeSent.set(0);
+        avgSizeSent.set(0);
 
         responseCodeTable.clear();
+        receiveLatency.reset();
+        sendLatency.reset();
+        serviceLatency.clear();
         lastResetTime = System.currentTimeMillis();
     }
 
@@ -92,19 +105,19 @@ public class MetricsCollector {
     }
 
     public long getMessagesReceived() {
-        return messagesReceived;
+        return messagesReceived.sum();
     }
 
     public long getFaultsReceiving() {
-        return faultsReceiving;
+        return faultsReceiving.sum();
     }
 
     public long getTimeoutsReceiving() {
-        return timeoutsReceiving;
+        return timeoutsReceiving.sum();
     }
 
     public long getBytesReceived() {
-        return bytesReceived;
+        return bytesReceived.sum();
     }
 
     /**
@@ -114,110 +127,197 @@ public class MetricsCollector {
      * @return the number of messages sent
      */
     public long getMessagesSent() {
-        return messagesSent;
+        return messagesSent.sum();
     }
 
     public long getFaultsSending() {
-        return faultsSending;
+        return faultsSending.sum();
     }
 
     public long getTimeoutsSending() {
-        return timeoutsSending;
+        return timeoutsSending.sum();
     }
 
     public long getBytesSent() {
-        return bytesSent;
+        return bytesSent.sum();
     }
 
     public long getMinSizeReceived() {
-        return minSizeReceived;
+        return minSizeReceived.get();
     }
 
     public long getMaxSizeReceived() {
-        return maxSizeReceived;
+        return maxSizeReceived.get();
     }
 
     public long getMinSizeSent() {
-        return minSizeSent;
+        return minSizeSent.get();
     }
 
     public long getMaxSizeSent() {
-        return maxSizeSent;
+        return maxSizeSent.get();
     }
 
     public double getAvgSizeReceived() {
-        return avgSizeReceived;
+        return Double.longBitsToDouble(avgSizeReceived.get());
     }
 
     public double getAvgSizeSent() {
-        return avgSizeSent;
+        return Double.longBitsToDouble(avgSizeSent.get());
     }
 
+    /**
+     * Get a snapshot of the number of responses reported for each response code.
+     *
+     * @return a map of response codes to the number of times they were reported
+     */
     public Map<Integer, Long> getResponseCodeTable() {
-        return responseCodeTable;
+        Map<Integer, Long> table = new HashMap<Integer, Long>();
+        for (Map.Entry<Integer, AtomicLong> entry : responseCodeTable.entrySet()) {
+            table.put(entry.getKey(), entry.getValue().get());
+        }
+        return table;
     }
 
-    public synchronized void incrementMessagesReceived() {
-        messagesReceived++;
+    /**
+     * Get the histogram of the time taken to process received messages.
+     */
+    public LatencyHistogram getReceiveLatencyHistogram() {
+        return receiveLatency;
     }
 
-    public synchronized void incrementFaultsReceiving() {
-        faultsReceiving++;
+    /**
+     * Get the histogram of the time taken to send messages.
+     */
+    public LatencyHistogram getSendLatencyHistogram() {
+        return sendLatency;
     }
 
-    public synchronized void incrementTimeoutsReceiving() {
-        timeoutsReceiving++;
+    /**
+     * Get the histogram of the time taken to process messages received for a service.
+     *
+     * @param serviceName the name of the service
+     * @return the histogram or null if no message has been recorded for the service
+     */
+    public LatencyHistogram getServiceLatencyHistogram(String serviceName) {
+        return serviceLatency.get(serviceName);
     }
 
-    public synchronized void incrementBytesReceived(long size) {
-        bytesReceived += size;
+    /**
+     * Get a summary of the latency histograms of all the services, keyed by service name.
+     */
+    public Map<String, Map<String, Object>> getServiceLatencyTable() {
+        Map<String, Map<String, Object>> table = new HashMap<String, Map<String, Object>>();
+        for (Map.Entry<String, LatencyHistogram> entry : serviceLatency.entrySet()) {
+            table.put(entry.getKey(), entry.getValue().getSummary());
+        }
+        return table;
+    }
+
+    public void incrementMessagesReceived() {
+        messagesReceived.increment();
     }
 
-    public synchronized void incrementMessagesSent() {
-        messagesSent++;
+    public void incrementFaultsReceiving() {
+        faultsReceiving.increment();
     }
 
-    public synchronized void incrementFaultsSending() {
-        faultsSending++;
+    public void incrementTimeoutsReceiving() {
+        timeoutsReceiving.increment();
     }
 
-    public synchronized void incrementTimeoutsSending() {
-        timeoutsSending++;
+    public void incrementBytesReceived(long size) {
+        bytesReceived.add(size);
     }
 
-    public synchronized void incrementBytesSent(long size) {
-        bytesSent += size;
+    public void incrementMessagesSent() {
+        messagesSent.increment();
+    }
+
+    public void incrementFaultsSending() {
+        faultsSending.increment();
+    }
+
+    public void incrementTimeoutsSending() {
+        timeoutsSending.increment();
+    }
+
+    public void incrementBytesSent(long size) {
+        bytesSent.add(size);
     }
     
-    public synchronized void notifyReceivedMessageSize(long size) {
-        if (minSizeReceived == 0 || size < minSizeReceived) {
-            minSizeReceived = size;
+    public void notifyReceivedMessageSize(long size) {
+        updateSizes(minSizeReceived, maxSizeReceived, avgSizeReceived, size);
+    }
+
+    public void notifySentMessageSize(long size) {
+        updateSizes(minSizeSent, maxSizeSent, avgSizeSent, size);
+    }
+
+    private static void updateSizes(AtomicLong min, AtomicLong max, AtomicLong avg, long size) {
+        long current = min.get();
+        while ((current == 0 || size < current) && !min.compareAndSet(current, size)) {
+            current = min.get();
+        }
+        current = max.get();
+        while (size > current && !max.compareAndSet(current, size)) {
+            current = max.get();
         }
-        if (size > maxSizeReceived) {
-            maxSizeReceived = size;
+        // the average is stored as the bits of a double value
+        while (true) {
+            long bits = avg.get();
+            double value = Double.longBitsToDouble(bits);
+            double newValue = (value == 0 ? size : (value + size) / 2);
+            if (avg.compareAndSet(bits, Double.doubleToLongBits(newValue))) {
+                break;
+            }
         }
-        avgSizeReceived = (avgSizeReceived == 0 ? size : (avgSizeReceived + size) / 2);
     }
 
-    public synchronized void notifySentMessageSize(long size) {
-        if (minSizeSent == 0 || size < minSizeSent) {
-            minSizeSent = size;
+    public void reportResponseCode(int respCode) {
+        AtomicLong count = responseCodeTable.get(respCode);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = responseCodeTable.putIfAbsent(respCode, newCount);
+            if (count == null) {
+                count = newCount;
+            }
         }
-        if (size > maxSizeSent) {
-            maxSizeSent = size;
+        count.incrementAndGet();
+    }
+
+    /**
+     * Record the time taken to process a received message.
+     *
+     * @param latency the processing time in microseconds
+     */
+    public void notifyReceivedMessageLatency(long latency) {
+        if (level != LEVEL_NONE) {
+            receiveLatency.recordValue(latency);
         }
-        avgSizeSent = (avgSizeSent == 0 ? size : (avgSizeSent + size) / 2);
     }
 
-    public void reportResponseCode(int respCode) {
-        synchronized(responseCodeTable) {
-            Object o = responseCodeTable.get(respCode);
-            if (o == null) {
-                responseCodeTable.put(respCode, ONE);
-            } else {
-                responseCodeTable.put(respCode, (Long) o + 1);
+    /**
+     * Record the time taken to send a message.
+     *
+     * @param latency the sending time in microseconds
+     */
+    public void notifySentMessageLatency(long latency) {
+        if (level != LEVEL_NONE) {
+            sendLatency.recordValue(latency);
+        }
+    }
+
+    private LatencyHistogram getOrCreateServiceLatencyHistogram(String serviceName) {
+        LatencyHistogram histogram = serviceLatency.get(serviceName);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = serviceLatency.putIfAbsent(serviceName, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
             }
         }
+        return histogram;
     }
 
     // --- enhanced methods ---
@@ -318,4 +418,15 @@ public class MetricsCollector {
             m.reportResponseCode(respCode);
         }
     }
+
+    public void notifyReceivedMessageLatency(MessageContext mc, long latency) {
+        notifyReceivedMessageLatency(latency);
+
+        if (mc != null && level == LEVEL_FULL) {
+            AxisService service = mc.getAxisService();
+            if (service != null) {
+                getOrCreateServiceLatencyHistogram(service.getName()).recordValue(latency);
+            }
+        }
+    }
 }
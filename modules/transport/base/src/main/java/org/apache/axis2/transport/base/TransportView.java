@@ -32,18 +32,26 @@ public class TransportView implements TransportViewMBean {
 
     private TransportSender sender = null;
 
+    private MetricsCollector metrics = null;
+
     public TransportView(TransportListener listener, TransportSender sender) {
         if (listener != null) {
             this.listener = listener;
             if (listener instanceof  ManagementSupport) {
                 managementSupport = (ManagementSupport) listener;
             }
+            if (listener instanceof AbstractTransportListener) {
+                metrics = ((AbstractTransportListener) listener).getMetricsCollector();
+            }
         }
         if (sender != null) {
             this.sender = sender;
             if (sender instanceof ManagementSupport) {
                 managementSupport = (ManagementSupport) sender;
             }
+            if (sender instanceof AbstractTransportSender) {
+                metrics = ((AbstractTransportSender) sender).getMetricsCollector();
+            }
         }
     }
 
@@ -153,6 +161,48 @@ public class TransportView implements TransportViewMBean {
         return null;
     }    
 
+    /**
+     * Latency percentiles are reported in milliseconds, or -1 if the transport
+     * does not collect latency metrics.
+     */
+    public double getReceiveLatencyP50() {
+        return getPercentile(metrics != null ? metrics.getReceiveLatencyHistogram() : null, 50);
+    }
+
+    public double getReceiveLatencyP99() {
+        return getPercentile(metrics != null ? metrics.getReceiveLatencyHistogram() : null, 99);
+    }
+
+    public double getReceiveLatencyP999() {
+        return getPercentile(metrics != null ? metrics.getReceiveLatencyHistogram() : null, 99.9);
+    }
+
+    public double getSendLatencyP50() {
+        return getPercentile(metrics != null ? metrics.getSendLatencyHistogram() : null, 50);
+    }
+
+    public double getSendLatencyP99() {
+        return getPercentile(metrics != null ? metrics.getSendLatencyHistogram() : null, 99);
+    }
+
+    public double getSendLatencyP999() {
+        return getPercentile(metrics != null ? metrics.getSendLatencyHistogram() : null, 99.9);
+    }
+
+    public Map getServiceLatencyTable() {
+        if (metrics != null) {
+            return metrics.getServiceLatencyTable();
+        }
+        return null;
+    }
+
+    private static double getPercentile(LatencyHistogram histogram, double percentile) {
+        if (histogram != null) {
+            return LatencyHistogram.toMillis(histogram.getValueAtPercentile(percentile));
+        }
+        return -1;
+    }
+
     public int getActiveThreadCount() {
         if (managementSupport != null) {
             return managementSupport.getActiveThreadCount();
@@ -40,6 +40,13 @@ public interface TransportViewMBean {
     public int  getActiveThreadCount();
     public int getQueueSize();
     public Map getResponseCodeTable();
+    public double getReceiveLatencyP50();
+    public double getReceiveLatencyP99();
+    public double getReceiveLatencyP999();
+    public double getSendLatencyP50();
+    public double getSendLatencyP99();
+    public double getSendLatencyP999();
+    public Map getServiceLatencyTable();
 
     // JMX Operations
     public void start() throws Exception;
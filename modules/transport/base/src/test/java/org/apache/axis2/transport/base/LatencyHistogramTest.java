@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.base;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class LatencyHistogramTest extends TestCase {
+
+    public void testBucketBoundaries() {
+        // values below 32 have a bucket each
+        for (long v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.bucketIndex(v));
+            assertEquals(v, LatencyHistogram.highestValueInBucket((int) v));
+        }
+        assertEquals(32, LatencyHistogram.bucketIndex(32));
+        assertEquals(63, LatencyHistogram.bucketIndex(63));
+        // from 64 on the buckets are 2 wide, from 128 on 4 wide and so on
+        assertEquals(64, LatencyHistogram.bucketIndex(64));
+        assertEquals(64, LatencyHistogram.bucketIndex(65));
+        assertEquals(65, LatencyHistogram.bucketIndex(66));
+        assertEquals(65, LatencyHistogram.highestValueInBucket(64));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueInBucket(
+                LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+
+        Random random = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            checkBucket(value);
+        }
+        for (int shift = 1; shift < 63; shift++) {
+            checkBucket((1L << shift) - 1);
+            checkBucket(1L << shift);
+            checkBucket((1L << shift) + 1);
+        }
+    }
+
+    private void checkBucket(long value) {
+        int index = LatencyHistogram.bucketIndex(value);
+        long highest = LatencyHistogram.highestValueInBucket(index);
+        assertTrue(value + " above its bucket", value <= highest);
+        if (index > 0) {
+            assertTrue(value + " in the bucket below",
+                    value > LatencyHistogram.highestValueInBucket(index - 1));
+        }
+        // the bucket width is at most 1/32 of the value
+        assertTrue(value + " not precise enough", highest - value <= value / 32);
+    }
+
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getMin());
+
+        for (long v = 1; v <= 1000; v++) {
+            histogram.recordValue(v);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+
+        assertPercentile(histogram, 50, 500);
+        assertPercentile(histogram, 99, 990);
+        assertPercentile(histogram, 99.9, 999);
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    private void assertPercentile(LatencyHistogram histogram, double percentile, long expected) {
+        long value = histogram.getValueAtPercentile(percentile);
+        assertTrue("p" + percentile + " = " + value,
+                value >= expected && value <= expected + expected / 32);
+    }
+
+    public void testNegativeValuesAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        histogram.recordValue(7000);
+        assertEquals(7.0, histogram.getSummary().get("max"));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 8;
+        final int values = 20000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long offset = t;
+            workers[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < values; i++) {
+                        histogram.recordValue(offset * values + i);
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long total = (long) threads * values;
+        assertEquals(total, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(total - 1, histogram.getMax());
+        assertEquals((total - 1) / 2.0, histogram.getMean(), 0.001);
+        assertEquals(total - 1, histogram.getValueAtPercentile(100));
+    }
+}
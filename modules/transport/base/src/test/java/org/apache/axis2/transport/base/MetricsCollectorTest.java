@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.base;
+
+import junit.framework.TestCase;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+
+import java.util.Map;
+
+public class MetricsCollectorTest extends TestCase {
+
+    public void testConcurrentUpdates() throws Exception {
+        final MetricsCollector metrics = new MetricsCollector();
+        final int threads = 8;
+        final int messages = 20000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < messages; i++) {
+                        metrics.incrementMessagesReceived();
+                        metrics.incrementBytesReceived(10);
+                        metrics.notifyReceivedMessageSize(100 + i % 50);
+                        metrics.incrementMessagesSent();
+                        metrics.incrementFaultsSending();
+                        metrics.reportResponseCode(i % 4 == 0 ? 500 : 200);
+                        metrics.notifyReceivedMessageLatency(i);
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long total = (long) threads * messages;
+        assertEquals(total, metrics.getMessagesReceived());
+        assertEquals(total * 10, metrics.getBytesReceived());
+        assertEquals(total, metrics.getMessagesSent());
+        assertEquals(total, metrics.getFaultsSending());
+        assertEquals(100, metrics.getMinSizeReceived());
+        assertEquals(149, metrics.getMaxSizeReceived());
+        double avg = metrics.getAvgSizeReceived();
+        assertTrue(avg >= 100 && avg <= 149);
+
+        Map<Integer, Long> responseCodes = metrics.getResponseCodeTable();
+        assertEquals(2, responseCodes.size());
+        assertEquals(total / 4, responseCodes.get(500).longValue());
+        assertEquals(total - total / 4, responseCodes.get(200).longValue());
+
+        assertEquals(total, metrics.getReceiveLatencyHistogram().getCount());
+    }
+
+    public void testServiceLatency() throws Exception {
+        MetricsCollector metrics = new MetricsCollector();
+        MessageContext mc = new MessageContext();
+        mc.setAxisService(new AxisService("Echo"));
+        metrics.notifyReceivedMessageLatency(mc, 1500);
+        metrics.notifyReceivedMessageLatency(mc, 2500);
+
+        assertEquals(2, metrics.getServiceLatencyHistogram("Echo").getCount());
+        assertNull(metrics.getServiceLatencyHistogram("Other"));
+        assertEquals(2, metrics.getReceiveLatencyHistogram().getCount());
+        Map<String, Object> summary = metrics.getServiceLatencyTable().get("Echo");
+        assertEquals(2L, summary.get("count"));
+        assertEquals(1.5, summary.get("min"));
+
+        // only the transport wide histogram at the transport level
+        metrics.setLevel(MetricsCollector.LEVEL_TRANSPORT);
+        metrics.notifyReceivedMessageLatency(mc, 1000);
+        assertEquals(2, metrics.getServiceLatencyHistogram("Echo").getCount());
+        assertEquals(3, metrics.getReceiveLatencyHistogram().getCount());
+
+        metrics.setLevel(MetricsCollector.LEVEL_NONE);
+        metrics.notifyReceivedMessageLatency(mc, 1000);
+        assertEquals(3, metrics.getReceiveLatencyHistogram().getCount());
+    }
+
+    public void testReset() {
+        MetricsCollector metrics = new MetricsCollector();
+        metrics.incrementMessagesReceived();
+        metrics.notifySentMessageSize(42);
+        metrics.reportResponseCode(200);
+        metrics.notifySentMessageLatency(10);
+        metrics.reset();
+
+        assertEquals(0, metrics.getMessagesReceived());
+        assertEquals(0, metrics.getMinSizeSent());
+        assertEquals(0, metrics.getMaxSizeSent());
+        assertEquals(0.0, metrics.getAvgSizeSent(), 0);
+        assertTrue(metrics.getResponseCodeTable().isEmpty());
+        assertEquals(0, metrics.getSendLatencyHistogram().getCount());
+    }
+}
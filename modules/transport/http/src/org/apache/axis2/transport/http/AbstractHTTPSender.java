@@ -653,6 +653,15 @@ public abstract class AbstractHTTPSender {
                         (HttpConnectionManager) msgContext.getProperty(
                                 HTTPConstants.MUTTITHREAD_HTTP_CONNECTION_MANAGER);
             }
+            if (connManager == null) {
+                connManager = (HttpConnectionManager) configContext.getProperty(
+                        HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+            }
+            if (connManager == null) {
+                // use the connection pool of the transport sender
+                connManager = (HttpConnectionManager) configContext.getProperty(
+                        HTTPConstants.SHARED_HTTP_CONNECTION_MANAGER + transportName);
+            }
             if (connManager == null) {
                 // reuse HttpConnectionManager
                 synchronized (configContext) {
@@ -673,7 +682,13 @@ public abstract class AbstractHTTPSender {
             httpClient = new HttpClient(connManager);
 
             // Set the default timeout in case we have a connection pool starvation to 30sec
-            httpClient.getParams().setConnectionManagerTimeout(30000);
+            if (connManager instanceof PooledHttpConnectionManager) {
+                httpClient.getParams().setConnectionManagerTimeout(
+                        ((PooledHttpConnectionManager) connManager).getConnectionPoolTimeout());
+            } else {
+                httpClient.getParams().setConnectionManagerTimeout(
+                        PooledHttpConnectionManager.DEFAULT_CONNECTION_POOL_TIMEOUT);
+            }
 
             // Get the timeout values set in the runtime
             initializeTimeouts(msgContext, httpClient);
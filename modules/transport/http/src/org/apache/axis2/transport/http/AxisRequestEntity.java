@@ -22,8 +22,10 @@ package org.apache.axis2.transport.http;
 import org.apache.axiom.om.OMOutputFormat;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.BufferingMessageFormatter;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.util.JavaUtils;
+import org.apache.axis2.util.SegmentedOutputStream;
 import org.apache.commons.httpclient.methods.RequestEntity;
 
 import javax.xml.stream.FactoryConfigurationError;
@@ -45,6 +47,11 @@ public class AxisRequestEntity implements RequestEntity {
 
     private byte[] bytes;
 
+    /**
+     * Holds the message when the formatter can write it into a buffer, instead of {@link #bytes}.
+     */
+    private SegmentedOutputStream buffer;
+
     private boolean isAllowedRetry;
 
     private OMOutputFormat format;
@@ -83,10 +90,12 @@ public class AxisRequestEntity implements RequestEntity {
             if (chunked) {
                 messageFormatter.writeTo(messageContext, format, outStream, isAllowedRetry);
             } else {
-                if (bytes == null) {
-                    bytes = messageFormatter.getBytes(messageContext, format);
+                bufferMessage();
+                if (buffer != null) {
+                    buffer.writeTo(outStream);
+                } else {
+                    outStream.write(bytes);
                 }
-                outStream.write(bytes);
             }
             if (outStream instanceof GZIPOutputStream) {
                 ((GZIPOutputStream) outStream).finish();
@@ -104,14 +113,49 @@ public class AxisRequestEntity implements RequestEntity {
         if (chunked) {
             return -1;
         }
-        if (bytes == null) {
+        try {
+            bufferMessage();
+        } catch (AxisFault e) {
+            return -1;
+        }
+        return buffer != null ? buffer.size() : bytes.length;
+    }
+
+    /**
+     * Serialize the message once, so that its length can be sent before the content. Formatters
+     * implementing {@link BufferingMessageFormatter} write into a pooled segmented buffer, which
+     * avoids copying the message into a byte array.
+     */
+    private void bufferMessage() throws AxisFault {
+        if (buffer != null || bytes != null) {
+            return;
+        }
+        if (messageFormatter instanceof BufferingMessageFormatter) {
+            SegmentedOutputStream out = new SegmentedOutputStream();
             try {
-                bytes = messageFormatter.getBytes(messageContext, format);
+                ((BufferingMessageFormatter) messageFormatter).writeBytes(messageContext, format,
+                        out);
             } catch (AxisFault e) {
-                return -1;
+                out.release();
+                throw e;
+            } catch (RuntimeException e) {
+                out.release();
+                throw e;
             }
+            buffer = out;
+        } else {
+            bytes = messageFormatter.getBytes(messageContext, format);
+        }
+    }
+
+    /**
+     * Return the buffer holding the message to the pool. Called once the request has been sent.
+     */
+    public void release() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
         }
-        return bytes.length;
     }
 
     public String getContentType() {
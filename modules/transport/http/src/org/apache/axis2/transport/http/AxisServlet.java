@@ -380,6 +380,11 @@ public class AxisServlet extends HttpServlet {
                     res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 } else {
                     res.setStatus(Integer.parseInt(status));
+                    String retryAfter =
+                            (String) msgContext.getProperty(Constants.HTTP_RETRY_AFTER);
+                    if (retryAfter != null) {
+                        res.setHeader("Retry-After", retryAfter);
+                    }
                 }
 
                 AxisBindingOperation axisBindingOperation =
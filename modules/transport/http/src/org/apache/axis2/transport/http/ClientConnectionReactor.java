@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axis2.util.threadpool.ThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector based I/O reactor waiting for the responses to requests sent without blocking. Once
+ * a request has been written, its channel is registered with the reactor, so no thread is held
+ * while the server processes the request. When response data arrives the channel is switched
+ * back to blocking mode and the {@link PendingResponse} is run on its executor, which then
+ * reads the response as usual. Requests that get no response within their timeout are failed.
+ */
+public class ClientConnectionReactor implements Runnable {
+
+    private static final Log log = LogFactory.getLog(ClientConnectionReactor.class);
+
+    private static final int SELECT_TIMEOUT = 1000; // ms
+
+    private final Selector selector;
+    private final Queue<PendingResponse> pending = new ConcurrentLinkedQueue<PendingResponse>();
+
+    private volatile boolean shutdown = false;
+
+    public ClientConnectionReactor() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Wait for the response on the channel of the given request without holding a thread.
+     *
+     * @throws IOException if the reactor has been shut down or the channel can not be switched
+     *                     to non-blocking mode
+     */
+    public void await(PendingResponse response) throws IOException {
+        if (shutdown) {
+            throw new IOException("The I/O reactor has been shut down");
+        }
+        response.channel.configureBlocking(false);
+        pending.add(response);
+        selector.wakeup();
+    }
+
+    public void run() {
+        long lastTimeoutCheck = System.currentTimeMillis();
+        try {
+            while (!shutdown && !Thread.currentThread().isInterrupted()) {
+                selector.select(SELECT_TIMEOUT);
+                registerPending();
+                processSelectedKeys();
+                long now = System.currentTimeMillis();
+                if (now - lastTimeoutCheck >= SELECT_TIMEOUT / 10) {
+                    expireTimedOut(now);
+                    lastTimeoutCheck = now;
+                }
+            }
+        } catch (IOException e) {
+            if (!shutdown) {
+                log.error("I/O reactor terminated abnormally", e);
+            }
+        } finally {
+            failAll();
+        }
+    }
+
+    private void registerPending() {
+        PendingResponse response;
+        while ((response = pending.poll()) != null) {
+            try {
+                response.channel.register(selector, SelectionKey.OP_READ, response);
+            } catch (IOException e) {
+                response.fail(e);
+            }
+        }
+    }
+
+    private void processSelectedKeys() throws IOException {
+        List<PendingResponse> ready = null;
+        for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (key.isValid() && key.isReadable()) {
+                // the key must be cancelled before the channel can be switched back to
+                // blocking mode
+                key.cancel();
+                if (ready == null) {
+                    ready = new ArrayList<PendingResponse>();
+                }
+                ready.add((PendingResponse) key.attachment());
+            }
+        }
+        if (ready != null) {
+            // deregister the cancelled keys
+            selector.selectNow();
+            for (PendingResponse response : ready) {
+                response.dispatch();
+            }
+        }
+    }
+
+    private void expireTimedOut(long now) {
+        for (SelectionKey key : selector.keys()) {
+            PendingResponse response = (PendingResponse) key.attachment();
+            if (response != null && key.isValid() && response.deadline > 0
+                    && now > response.deadline) {
+                key.cancel();
+                response.fail(new SocketTimeoutException("No response received within "
+                        + response.timeout + " ms"));
+            }
+        }
+    }
+
+    private void failAll() {
+        shutdown = true;
+        IOException e = new IOException("The I/O reactor has been shut down");
+        try {
+            for (SelectionKey key : selector.keys()) {
+                PendingResponse response = (PendingResponse) key.attachment();
+                if (response != null && key.isValid()) {
+                    response.fail(e);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // the selector may already have been closed
+        }
+        PendingResponse response;
+        while ((response = pending.poll()) != null) {
+            response.fail(e);
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            log.debug("I/O error closing selector");
+        }
+    }
+
+    /**
+     * Stop the reactor; the requests still waiting for a response are failed.
+     */
+    public void shutdown() {
+        shutdown = true;
+        selector.wakeup();
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * A request waiting for its response. {@link #run()} reads the response and
+     * {@link #failed(Exception)} reports a failure; both are called on the executor, never on the
+     * reactor thread.
+     */
+    public abstract static class PendingResponse implements Runnable {
+
+        private final SocketChannel channel;
+        private final ThreadFactory executor;
+        private final int timeout;
+        private final long deadline;
+
+        /**
+         * @param channel  the channel the request was written to
+         * @param executor the executor reading the response
+         * @param timeout  the time in milliseconds to wait for the response, or 0 to wait
+         *                 indefinitely
+         */
+        protected PendingResponse(SocketChannel channel, ThreadFactory executor, int timeout) {
+            this.channel = channel;
+            this.executor = executor;
+            this.timeout = timeout;
+            this.deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        }
+
+        /**
+         * Called when reading the response failed or timed out, after the channel has been
+         * closed.
+         */
+        protected abstract void failed(Exception e);
+
+        void dispatch() {
+            try {
+                channel.configureBlocking(true);
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            executor.execute(this);
+        }
+
+        void fail(final Exception e) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                log.debug("I/O error closing connection");
+            }
+            executor.execute(new Runnable() {
+                public void run() {
+                    failed(e);
+                }
+            });
+        }
+    }
+}
@@ -80,6 +80,8 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
     private int connectionIdleTimeout = HTTPConstants.DEFAULT_CONNECTION_IDLE_TIMEOUT;
 
+    private PooledHttpConnectionManager connectionManager;
+
     public void cleanup(MessageContext msgContext) throws AxisFault {
         HttpMethod httpMethod = (HttpMethod) msgContext.getProperty(HTTPConstants.HTTP_METHOD);
 
@@ -152,52 +154,29 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
             log.error("Invalid timeout value format: not a number", nfe);
         }
 
-        Parameter cacheHttpClientParam = transportOut.getParameter(HTTPConstants.CACHE_HTTP_CLIENT);
-        if (cacheHttpClientParam != null && "true".equals(cacheHttpClientParam.getValue())) {
-
-            Parameter defaultMaxConnectionsPerHostParam = transportOut.getParameter(
-                    HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST);
-
-            Parameter totalConnectionsParam = transportOut.getParameter(
-                    HTTPConstants.MAX_TOTAL_CONNECTIONS);
+        // The connection pool is shared by all the requests sent through this transport
+        connectionManager = new PooledHttpConnectionManager();
+        connectionManager.getParams().setSoTimeout(soTimeout);
+        connectionManager.getParams().setConnectionTimeout(connectionTimeout);
+        connectionManager.getParams().setConnectionIdleTimeout(connectionIdleTimeout);
 
-            HttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
-            
-            connectionManager.getParams().setSoTimeout(soTimeout);
-            connectionManager.getParams().setConnectionTimeout(connectionTimeout);
-            connectionManager.getParams().setConnectionIdleTimeout(connectionIdleTimeout);
-
-            if (defaultMaxConnectionsPerHostParam != null &&
-                    defaultMaxConnectionsPerHostParam.getValue() != null) {
-
-                try {
-                    int defaultMaxConnectionsPerHost = Integer.parseInt(
-                            (String) defaultMaxConnectionsPerHostParam.getValue());
-                    connectionManager.getParams().setDefaultMaxConnectionsPerHost(
-                            defaultMaxConnectionsPerHost);
-                } catch (NumberFormatException nfe) {
-                    // If there's a problem log it and use the default values
-                    log.error("Invalid defaultMaxConnectionsPerHost " +
-                            "value format: not a number", nfe);
-                }
-            } else {
-                connectionManager.getParams().setDefaultMaxConnectionsPerHost(100);
-            }
-
-            if (totalConnectionsParam != null && totalConnectionsParam.getValue() != null) {
-                try {
-                    int totalConnections = Integer.parseInt(
-                            (String) totalConnectionsParam.getValue());
-                    connectionManager.getParams().setMaxTotalConnections(totalConnections);
-                } catch (NumberFormatException nfe) {
-                    // If there's a problem log it and use the default values
-                    log.error("Invalid totalConnections value format: not a number", nfe);
-                }
-            } else {
-                connectionManager.getParams().setMaxTotalConnections(1000);
-            }
+        Parameter cacheHttpClientParam = transportOut.getParameter(HTTPConstants.CACHE_HTTP_CLIENT);
+        boolean cacheHttpClient =
+                cacheHttpClientParam != null && "true".equals(cacheHttpClientParam.getValue());
+        if (cacheHttpClient) {
+            // Defaults applied to the cached client unless configured otherwise
+            connectionManager.getParams().setDefaultMaxConnectionsPerHost(100);
+            connectionManager.getParams().setMaxTotalConnections(1000);
+        }
+        connectionManager.configure(transportOut);
+        confContext.setProperty(
+                HTTPConstants.SHARED_HTTP_CONNECTION_MANAGER + transportOut.getName(),
+                connectionManager);
 
+        if (cacheHttpClient) {
             HttpClient httpClient = new HttpClient(connectionManager);
+            httpClient.getParams().setConnectionManagerTimeout(
+                    connectionManager.getConnectionPoolTimeout());
             String cacheKey = HTTPConstants.CACHED_HTTP_CLIENT + transportOut.getName();
             confContext.setProperty(HTTPConstants.REUSE_HTTP_CLIENT, "true");
             confContext.setProperty(cacheKey, httpClient);
@@ -207,6 +186,18 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
     public void stop() {
         // Any code that , need to invoke when sender stop
         //MultiThreadedHttpConnectionManager.shutdownAll();
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
+    }
+
+    /**
+     * Returns the connection pool shared by the requests sent through this transport sender.
+     *
+     * @return the connection pool, or <code>null</code> if the sender has not been initialized
+     */
+    public PooledHttpConnectionManager getConnectionManager() {
+        return connectionManager;
     }
 
     public InvocationResponse invoke(MessageContext msgContext)
@@ -434,8 +425,16 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
         }
     }
 
-    private void writeMessageWithCommons(MessageContext messageContext,
-                                         EndpointReference toEPR, OMOutputFormat format)
+    /**
+     * Send a request to the given endpoint and set the response on the message context.
+     *
+     * @param messageContext the request message context
+     * @param toEPR the endpoint to send the request to
+     * @param format output formatter for the request
+     * @throws AxisFault if the request fails
+     */
+    protected void writeMessageWithCommons(MessageContext messageContext,
+                                           EndpointReference toEPR, OMOutputFormat format)
             throws AxisFault {
         try {
             URL url = new URL(toEPR.getAddress());
@@ -445,25 +444,10 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
             sender = new HTTPSender();
 
-            boolean chunked;
-            if (messageContext.getProperty(HTTPConstants.CHUNKED) != null) {
-                chunked = JavaUtils.isTrueExplicitly(messageContext
-                        .getProperty(HTTPConstants.CHUNKED));
-            } else {
-                chunked = defaultChunked;
-            }
-
-            String httpVersion;
-            if (messageContext.getProperty(HTTPConstants.HTTP_PROTOCOL_VERSION) != null) {
-                httpVersion = (String) messageContext
-                        .getProperty(HTTPConstants.HTTP_PROTOCOL_VERSION);
-            } else {
-                httpVersion = defaultHttpVersion;
-            }
             // Following order needed to be preserved because,
             // HTTP/1.0 does not support chunk encoding
-            sender.setChunked(chunked);
-            sender.setHttpVersion(httpVersion);
+            sender.setChunked(isChunked(messageContext));
+            sender.setHttpVersion(getHttpVersion(messageContext));
             sender.setFormat(format);
 
             sender.send(messageContext, url, findSOAPAction(messageContext));
@@ -479,6 +463,40 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
         }
     }
 
+    /**
+     * @return whether the request is sent with chunked encoding
+     */
+    protected boolean isChunked(MessageContext messageContext) {
+        if (messageContext.getProperty(HTTPConstants.CHUNKED) != null) {
+            return JavaUtils.isTrueExplicitly(messageContext.getProperty(HTTPConstants.CHUNKED));
+        }
+        return defaultChunked;
+    }
+
+    /**
+     * @return the HTTP version the request is sent with
+     */
+    protected String getHttpVersion(MessageContext messageContext) {
+        if (messageContext.getProperty(HTTPConstants.HTTP_PROTOCOL_VERSION) != null) {
+            return (String) messageContext.getProperty(HTTPConstants.HTTP_PROTOCOL_VERSION);
+        }
+        return defaultHttpVersion;
+    }
+
+    /**
+     * @return the configured socket timeout in milliseconds
+     */
+    protected int getSoTimeout() {
+        return soTimeout;
+    }
+
+    /**
+     * @return the configured connection timeout in milliseconds
+     */
+    protected int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
     /**
      * @param actionString
      * @return true if the specified String represents a generated (anonymous name)
@@ -513,7 +531,7 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
     }
 
     
-    private static String findSOAPAction(MessageContext messageContext) {
+    protected static String findSOAPAction(MessageContext messageContext) {
         String soapActionString = null;
 
         Parameter parameter =
@@ -34,9 +34,11 @@ import org.apache.commons.httpclient.HttpMethodBase;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.cookie.CookiePolicy;
 import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -128,6 +130,12 @@ public class HTTPSender extends AbstractHTTPSender {
     }
 
     private void cleanup(MessageContext msgContext, HttpMethod method) {
+        if (method instanceof EntityEnclosingMethod) {
+            RequestEntity requestEntity = ((EntityEnclosingMethod) method).getRequestEntity();
+            if (requestEntity instanceof AxisRequestEntity) {
+                ((AxisRequestEntity) requestEntity).release();
+            }
+        }
         if (msgContext.isPropertyTrue(HTTPConstants.AUTO_RELEASE_CONNECTION)) {
             log.trace("AutoReleasing " + method);
             method.releaseConnection();
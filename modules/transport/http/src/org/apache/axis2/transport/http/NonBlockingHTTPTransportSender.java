@@ -0,0 +1,541 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.http.util.HTTPProxyConfigurationUtil;
+import org.apache.axis2.util.MessageProcessorSelector;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.NameValuePair;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.DefaultBHttpClientConnection;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP transport sender that does not hold a thread while waiting for the response to a
+ * non-blocking out-in invocation (see {@link NonBlockingTransportSender}). The request is
+ * written on the caller's thread; the connection is then handed over to a
+ * {@link ClientConnectionReactor} and the response is read on a thread of the configuration
+ * context's thread pool once response data is available.
+ * <p>
+ * Only plain POST requests over http without a proxy, authentication or compression of the
+ * request are sent this way, each on its own connection. Everything else, including all
+ * blocking invocations, is handled exactly as by {@link CommonsHTTPTransportSender}.
+ * <pre>
+ * &lt;transportSender name="http"
+ *                  class="org.apache.axis2.transport.http.NonBlockingHTTPTransportSender"&gt;
+ * </pre>
+ */
+public class NonBlockingHTTPTransportSender extends CommonsHTTPTransportSender
+        implements NonBlockingTransportSender {
+
+    private static final Log log = LogFactory.getLog(NonBlockingHTTPTransportSender.class);
+
+    /**
+     * Message context property holding the connection of a response read without blocking.
+     */
+    private static final String RESPONSE_CONNECTION =
+            "NonBlockingHTTPTransportSender.ResponseConnection";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private ClientConnectionReactor reactor;
+
+    public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+            throws AxisFault {
+        super.init(confContext, transportOut);
+        try {
+            reactor = new ClientConnectionReactor();
+        } catch (IOException e) {
+            throw AxisFault.makeFault(e);
+        }
+        Thread thread = new Thread(reactor, "HTTPClientReactor-" + transportOut.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        if (reactor != null) {
+            reactor.shutdown();
+        }
+        super.stop();
+    }
+
+    public void cleanup(MessageContext msgContext) throws AxisFault {
+        DefaultBHttpClientConnection conn =
+                (DefaultBHttpClientConnection) msgContext.getProperty(RESPONSE_CONNECTION);
+        if (conn != null) {
+            msgContext.removeProperty(RESPONSE_CONNECTION);
+            closeQuietly(conn);
+        }
+        super.cleanup(msgContext);
+    }
+
+    public boolean canSendNonBlocking(MessageContext msgContext) {
+        if (reactor == null || reactor.isShutdown()) {
+            return false;
+        }
+        URL url = getTargetURL(msgContext);
+        if (url == null || !"http".equals(url.getProtocol())) {
+            return false;
+        }
+        String httpMethod = (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD);
+        if (httpMethod != null
+                && !Constants.Configuration.HTTP_METHOD_POST.equalsIgnoreCase(httpMethod)) {
+            return false;
+        }
+        if (msgContext.getProperty(HTTPConstants.AUTHENTICATE) != null
+                || msgContext.getProperty(HTTPConstants.MC_GZIP_REQUEST) != null
+                || msgContext.getProperty(HTTPConstants.ERROR_HTTP_STATUS_CODES) != null
+                || msgContext.getProperty(HTTPConstants.NON_ERROR_HTTP_STATUS_CODES) != null) {
+            return false;
+        }
+        try {
+            return !HTTPProxyConfigurationUtil.isProxyEnabled(msgContext, url);
+        } catch (AxisFault e) {
+            return false;
+        }
+    }
+
+    private static URL getTargetURL(MessageContext msgContext) {
+        String address = (String) msgContext.getProperty(Constants.Configuration.TRANSPORT_URL);
+        if (address == null) {
+            EndpointReference to = msgContext.getTo();
+            if (to == null || to.hasAnonymousAddress() || to.hasNoneAddress()) {
+                return null;
+            }
+            address = to.getAddress();
+        }
+        try {
+            return new URL(address);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    protected void writeMessageWithCommons(MessageContext messageContext,
+                                           EndpointReference toEPR, OMOutputFormat format)
+            throws AxisFault {
+        ResponseCallback callback =
+                (ResponseCallback) messageContext.getProperty(RESPONSE_CALLBACK);
+        if (callback == null) {
+            super.writeMessageWithCommons(messageContext, toEPR, format);
+            return;
+        }
+        if (!canSendNonBlocking(messageContext)) {
+            // the request changed on its way through the out flow; send it the usual way
+            super.writeMessageWithCommons(messageContext, toEPR, format);
+            callback.onResponse(messageContext);
+            return;
+        }
+        try {
+            sendNonBlocking(messageContext, new URL(toEPR.getAddress()), format, callback);
+        } catch (IOException e) {
+            log.debug(e);
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+    private void sendNonBlocking(final MessageContext msgContext, URL url,
+                                 OMOutputFormat format, final ResponseCallback callback)
+            throws IOException {
+        String soapActionString = findSOAPAction(msgContext);
+        MessageFormatter messageFormatter = MessageProcessorSelector.getMessageFormatter(msgContext);
+        url = messageFormatter.getTargetAddress(msgContext, format, url);
+
+        String uri = url.getPath();
+        if (uri == null || uri.length() == 0) {
+            uri = "/";
+        }
+        if (url.getQuery() != null) {
+            uri += "?" + url.getQuery();
+        }
+        boolean http10 = HTTPConstants.HEADER_PROTOCOL_10.equals(getHttpVersion(msgContext));
+        BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", uri,
+                http10 ? HttpVersion.HTTP_1_0 : HttpVersion.HTTP_1_1);
+
+        int port = url.getPort() == -1 ? 80 : url.getPort();
+        request.setHeader(HTTPConstants.HEADER_HOST,
+                url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + port);
+        request.setHeader(HTTPConstants.HEADER_CONTENT_TYPE,
+                messageFormatter.getContentType(msgContext, format, soapActionString));
+        String soapAction = messageFormatter.formatSOAPAction(msgContext, format, soapActionString);
+        if (soapAction != null && !msgContext.isDoingREST()) {
+            request.setHeader(HTTPConstants.HEADER_SOAP_ACTION, soapAction);
+        }
+        if (msgContext.getOptions() != null && msgContext.getOptions().isManageSession()) {
+            Object cookieString = msgContext.getProperty(HTTPConstants.COOKIE_STRING);
+            if (cookieString != null) {
+                request.setHeader(HTTPConstants.HEADER_COOKIE, cookieString.toString());
+            }
+        }
+        addCustomHeaders(request, msgContext);
+        // every request gets its own connection, closed once the response has been read
+        request.setHeader(HTTPConstants.HEADER_CONNECTION, HTTPConstants.HEADER_CONNECTION_CLOSE);
+
+        AbstractHttpEntity entity;
+        if (isChunked(msgContext) && !http10) {
+            entity = new MessageFormatterEntity(messageFormatter, msgContext, format);
+            entity.setChunked(true);
+            request.setHeader(HTTPConstants.HEADER_TRANSFER_ENCODING,
+                    HTTPConstants.HEADER_TRANSFER_ENCODING_CHUNKED);
+        } else {
+            entity = new ByteArrayEntity(messageFormatter.getBytes(msgContext, format));
+            request.setHeader(HTTPConstants.HEADER_CONTENT_LENGTH,
+                    String.valueOf(entity.getContentLength()));
+        }
+        request.setEntity(entity);
+
+        int timeout = getTimeout(msgContext);
+        SocketChannel channel = SocketChannel.open();
+        final DefaultBHttpClientConnection conn = new DefaultBHttpClientConnection(BUFFER_SIZE);
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setSoTimeout(timeout);
+            channel.socket().connect(new InetSocketAddress(url.getHost(), port),
+                    getConnectionTimeout(msgContext));
+            conn.bind(channel.socket());
+            conn.sendRequestHeader(request);
+            conn.sendRequestEntity(request);
+            conn.flush();
+
+            reactor.await(new ClientConnectionReactor.PendingResponse(channel,
+                    msgContext.getConfigurationContext().getThreadPool(), timeout) {
+                public void run() {
+                    try {
+                        receiveResponse(msgContext, conn);
+                    } catch (Exception e) {
+                        closeQuietly(conn);
+                        callback.onError(e);
+                        return;
+                    }
+                    callback.onResponse(msgContext);
+                }
+
+                protected void failed(Exception e) {
+                    closeQuietly(conn);
+                    callback.onError(e);
+                }
+            });
+        } catch (IOException e) {
+            closeQuietly(conn);
+            channel.close();
+            throw e;
+        }
+    }
+
+    private int getTimeout(MessageContext msgContext) {
+        Object soTimeout = msgContext.getProperty(HTTPConstants.SO_TIMEOUT);
+        if (soTimeout instanceof Integer) {
+            return ((Integer) soTimeout).intValue();
+        }
+        if (msgContext.getOptions() != null) {
+            return (int) msgContext.getOptions().getTimeOutInMilliSeconds();
+        }
+        return getSoTimeout();
+    }
+
+    private int getConnectionTimeout(MessageContext msgContext) {
+        Object connectionTimeout = msgContext.getProperty(HTTPConstants.CONNECTION_TIMEOUT);
+        if (connectionTimeout instanceof Integer) {
+            return ((Integer) connectionTimeout).intValue();
+        }
+        return getConnectionTimeout();
+    }
+
+    private static void addCustomHeaders(BasicHttpEntityEnclosingRequest request,
+                                         MessageContext msgContext) {
+        boolean userAgentSet = false;
+        Object httpHeaders = msgContext.getProperty(HTTPConstants.HTTP_HEADERS);
+        if (httpHeaders instanceof List) {
+            for (Object o : (List) httpHeaders) {
+                org.apache.commons.httpclient.Header header =
+                        (org.apache.commons.httpclient.Header) o;
+                request.addHeader(header.getName(), header.getValue());
+                userAgentSet |= HTTPConstants.HEADER_USER_AGENT.equalsIgnoreCase(header.getName());
+            }
+        } else if (httpHeaders instanceof Map) {
+            for (Iterator it = ((Map) httpHeaders).entrySet().iterator(); it.hasNext();) {
+                Map.Entry entry = (Map.Entry) it.next();
+                request.addHeader((String) entry.getKey(), (String) entry.getValue());
+                userAgentSet |= HTTPConstants.HEADER_USER_AGENT.equalsIgnoreCase(
+                        (String) entry.getKey());
+            }
+        }
+        Map transportHeaders = (Map) msgContext.getProperty(MessageContext.TRANSPORT_HEADERS);
+        if (transportHeaders != null) {
+            for (Iterator it = transportHeaders.entrySet().iterator(); it.hasNext();) {
+                Map.Entry entry = (Map.Entry) it.next();
+                if (!(entry.getKey() instanceof String) || entry.getValue() == null) {
+                    continue;
+                }
+                String name = (String) entry.getKey();
+                // headers dictated by the transport are not copied
+                if (request.containsHeader(name)
+                        || HTTPConstants.HEADER_CONNECTION.equalsIgnoreCase(name)
+                        || HTTPConstants.HEADER_TRANSFER_ENCODING.equalsIgnoreCase(name)
+                        || HTTPConstants.HEADER_CONTENT_LENGTH.equalsIgnoreCase(name)
+                        || HTTPConstants.HEADER_CONTENT_TYPE.equalsIgnoreCase(name)
+                        || HTTPConstants.HEADER_HOST.equalsIgnoreCase(name)
+                        || "Date".equalsIgnoreCase(name)) {
+                    continue;
+                }
+                request.addHeader(name, entry.getValue().toString());
+                userAgentSet |= HTTPConstants.HEADER_USER_AGENT.equalsIgnoreCase(name);
+            }
+        }
+        if (!userAgentSet) {
+            Object userAgent = msgContext.getProperty(HTTPConstants.USER_AGENT);
+            request.setHeader(HTTPConstants.HEADER_USER_AGENT,
+                    userAgent != null ? userAgent.toString() : "Axis2");
+        }
+    }
+
+    /**
+     * Read the response and set it on the request message context, the same way
+     * {@link HTTPSender} does for a blocking request.
+     */
+    private void receiveResponse(MessageContext msgContext, DefaultBHttpClientConnection conn)
+            throws Exception {
+        HttpResponse response;
+        do {
+            response = conn.receiveResponseHeader();
+        } while (response.getStatusLine().getStatusCode() < HttpStatus.SC_OK);
+        int statusCode = response.getStatusLine().getStatusCode();
+        msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_CODE, new Integer(statusCode));
+
+        if (statusCode / 100 == 2) {
+            processResponse(msgContext, conn, response);
+        } else if (statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR
+                || statusCode == HttpStatus.SC_BAD_REQUEST
+                || statusCode == HttpStatus.SC_CONFLICT) {
+            OperationContext opContext = msgContext.getOperationContext();
+            if (opContext != null) {
+                MessageContext inMessageContext =
+                        opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+                if (inMessageContext != null) {
+                    inMessageContext.setProcessingFault(true);
+                }
+            }
+            if (response.getFirstHeader(HTTPConstants.HEADER_CONTENT_TYPE) != null) {
+                processResponse(msgContext, conn, response);
+            } else {
+                closeQuietly(conn);
+            }
+        } else {
+            closeQuietly(conn);
+            AxisFault axisFault = new AxisFault(Messages.getMessage("transportError",
+                    String.valueOf(statusCode), response.getStatusLine().getReasonPhrase()),
+                    msgContext);
+            axisFault.setFaultCode(String.valueOf(statusCode));
+            throw axisFault;
+        }
+    }
+
+    private void processResponse(MessageContext msgContext, DefaultBHttpClientConnection conn,
+                                 HttpResponse response) throws Exception {
+        Map<String, String> transportHeaders =
+                new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        StringBuilder cookies = new StringBuilder();
+        for (Header header : response.getAllHeaders()) {
+            transportHeaders.put(header.getName(), header.getValue());
+            if (HTTPConstants.HEADER_SET_COOKIE.equalsIgnoreCase(header.getName())) {
+                if (cookies.length() > 0) {
+                    cookies.append(';');
+                }
+                cookies.append(header.getValue());
+            }
+        }
+        msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, transportHeaders);
+        if (cookies.length() > 0 && msgContext.getServiceContext() != null) {
+            msgContext.getServiceContext().setProperty(HTTPConstants.COOKIE_STRING,
+                    cookies.toString());
+        }
+
+        Header contentType = response.getFirstHeader(HTTPConstants.HEADER_CONTENT_TYPE);
+        if (contentType != null) {
+            String charSetEnc = null;
+            for (HeaderElement element : contentType.getElements()) {
+                NameValuePair charset = element.getParameterByName(HTTPConstants.CHAR_SET_ENCODING);
+                if (charset != null) {
+                    charSetEnc = charset.getValue();
+                }
+            }
+            MessageContext inMessageContext = msgContext.getOperationContext().getMessageContext(
+                    WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+            if (inMessageContext != null) {
+                inMessageContext.setProperty(Constants.Configuration.CONTENT_TYPE,
+                        contentType.getValue());
+                inMessageContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING,
+                        charSetEnc);
+            }
+        }
+
+        int statusCode = response.getStatusLine().getStatusCode();
+        InputStream in;
+        if (statusCode == HttpStatus.SC_NO_CONTENT || statusCode == HttpStatus.SC_NOT_MODIFIED) {
+            closeQuietly(conn);
+            in = new ByteArrayInputStream(new byte[0]);
+        } else {
+            conn.receiveResponseEntity(response);
+            HttpEntity entity = response.getEntity();
+            if (statusCode == HttpStatus.SC_ACCEPTED && entity.getContentLength() == 0) {
+                // nothing to process for an empty 202 Accepted
+                closeQuietly(conn);
+                return;
+            }
+            in = new ResponseInputStream(entity.getContent(), conn);
+            msgContext.setProperty(RESPONSE_CONNECTION, conn);
+        }
+
+        Header contentEncoding = response.getFirstHeader(HTTPConstants.HEADER_CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            if (HTTPConstants.COMPRESSION_GZIP.equalsIgnoreCase(contentEncoding.getValue())) {
+                in = new GZIPInputStream(in);
+            } else if (!"identity".equalsIgnoreCase(contentEncoding.getValue())) {
+                closeQuietly(conn);
+                throw new AxisFault("HTTP :" + "unsupported content-encoding of '"
+                        + contentEncoding.getValue() + "' found");
+            }
+        }
+
+        OperationContext opContext = msgContext.getOperationContext();
+        if (opContext != null) {
+            opContext.setProperty(MessageContext.TRANSPORT_IN, in);
+        }
+    }
+
+    private static void closeQuietly(DefaultBHttpClientConnection conn) {
+        try {
+            conn.close();
+        } catch (IOException e) {
+            log.debug("I/O error closing connection");
+        }
+    }
+
+    /**
+     * Closes the connection once the response has been read completely or the stream is closed.
+     */
+    private static class ResponseInputStream extends FilterInputStream {
+
+        private final DefaultBHttpClientConnection conn;
+
+        ResponseInputStream(InputStream in, DefaultBHttpClientConnection conn) {
+            super(in);
+            this.conn = conn;
+        }
+
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                closeQuietly(conn);
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                closeQuietly(conn);
+            }
+            return n;
+        }
+
+        public void close() throws IOException {
+            closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Streams the message to the connection with chunked encoding. httpcore only calls
+     * {@link #writeTo(OutputStream)}; {@link #getContent()} serializes a copy of the message to
+     * a buffer, preserving the envelope so that it can still be written afterwards.
+     */
+    private static class MessageFormatterEntity extends AbstractHttpEntity {
+
+        private final MessageFormatter messageFormatter;
+        private final MessageContext msgContext;
+        private final OMOutputFormat format;
+
+        MessageFormatterEntity(MessageFormatter messageFormatter, MessageContext msgContext,
+                               OMOutputFormat format) {
+            this.messageFormatter = messageFormatter;
+            this.msgContext = msgContext;
+            this.format = format;
+        }
+
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        public long getContentLength() {
+            return -1;
+        }
+
+        public InputStream getContent() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            messageFormatter.writeTo(msgContext, format, out, true);
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            messageFormatter.writeTo(msgContext, format, out, false);
+        }
+
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection pool shared by all the requests sent through a {@link CommonsHTTPTransportSender}.
+ * In addition to the features of {@link MultiThreadedHttpConnectionManager}, this manager
+ * <ul>
+ * <li>is configured from the <tt>transportSender</tt> parameters in <tt>axis2.xml</tt>,
+ * including per route connection limits,</li>
+ * <li>evicts idle connections in the background, which allows the stale connection check
+ * to be disabled,</li>
+ * <li>records how long callers wait to lease a connection from the pool.</li>
+ * </ul>
+ * The supported parameters are:
+ * <pre>
+ * &lt;parameter name="defaultMaxConnectionsPerHost"&gt;100&lt;/parameter&gt;
+ * &lt;parameter name="maxTotalConnections"&gt;1000&lt;/parameter&gt;
+ * &lt;parameter name="maxConnectionsPerRoute"&gt;https://host1:443=50, http://host2:8080=20&lt;/parameter&gt;
+ * &lt;parameter name="idleConnectionEvictionInterval"&gt;5000&lt;/parameter&gt;
+ * &lt;parameter name="staleConnectionCheck"&gt;false&lt;/parameter&gt;
+ * &lt;parameter name="connectionPoolTimeout"&gt;30000&lt;/parameter&gt;
+ * </pre>
+ */
+public class PooledHttpConnectionManager extends MultiThreadedHttpConnectionManager {
+
+    private static final Log log = LogFactory.getLog(PooledHttpConnectionManager.class);
+
+    /** Default time to wait for a connection from the pool, in milliseconds */
+    public static final long DEFAULT_CONNECTION_POOL_TIMEOUT = 30000;
+
+    private long connectionPoolTimeout = DEFAULT_CONNECTION_POOL_TIMEOUT;
+
+    private IdleConnectionTimeoutThread idleConnectionEvictor;
+
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong leaseTimeoutCount = new AtomicLong();
+    private final AtomicLong totalLeaseWaitTime = new AtomicLong();
+    private final AtomicLong maxLeaseWaitTime = new AtomicLong();
+    private final AtomicLong leasedConnections = new AtomicLong();
+
+    public PooledHttpConnectionManager() {
+        super();
+    }
+
+    /**
+     * Applies the connection pool parameters of the given transport sender. Parameters which
+     * are not present leave the corresponding setting unchanged.
+     *
+     * @param transportOut the transport sender description
+     * @throws AxisFault if a parameter has an invalid value
+     */
+    public void configure(TransportOutDescription transportOut) throws AxisFault {
+        HttpConnectionManagerParams params = getParams();
+
+        int defaultMaxConnectionsPerHost =
+                getIntParameter(transportOut, HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+        if (defaultMaxConnectionsPerHost > 0) {
+            params.setDefaultMaxConnectionsPerHost(defaultMaxConnectionsPerHost);
+        }
+
+        int maxTotalConnections = getIntParameter(transportOut, HTTPConstants.MAX_TOTAL_CONNECTIONS);
+        if (maxTotalConnections > 0) {
+            params.setMaxTotalConnections(maxTotalConnections);
+        }
+
+        String value = getParameter(transportOut, HTTPConstants.MAX_CONNECTIONS_PER_ROUTE);
+        if (value != null) {
+            setMaxConnectionsPerRoute(value);
+        }
+
+        value = getParameter(transportOut, HTTPConstants.STALE_CONNECTION_CHECK);
+        if (value != null) {
+            params.setStaleCheckingEnabled(Boolean.valueOf(value).booleanValue());
+        }
+
+        int poolTimeout = getIntParameter(transportOut, HTTPConstants.CONNECTION_POOL_TIMEOUT);
+        if (poolTimeout >= 0) {
+            connectionPoolTimeout = poolTimeout;
+        }
+
+        int interval =
+                getIntParameter(transportOut, HTTPConstants.IDLE_CONNECTION_EVICTION_INTERVAL);
+        if (interval > 0) {
+            // Connections are evicted after CONNECTION_IDLE_TIMEOUT if set, otherwise after
+            // having been idle for a full eviction interval
+            int idleTimeout = getIntParameter(transportOut, HTTPConstants.CONNECTION_IDLE_TIMEOUT);
+            startIdleConnectionEviction(interval, idleTimeout > 0 ? idleTimeout : interval);
+        }
+    }
+
+    /**
+     * Sets the maximum number of connections for individual routes. The value is a comma
+     * separated list of <tt>scheme://host:port=max</tt> entries.
+     */
+    private void setMaxConnectionsPerRoute(String value) throws AxisFault {
+        String[] routes = value.split(",");
+        for (int i = 0; i < routes.length; i++) {
+            String route = routes[i].trim();
+            if (route.length() == 0) {
+                continue;
+            }
+            int index = route.lastIndexOf('=');
+            if (index <= 0) {
+                throw new AxisFault("Invalid route definition in parameter " +
+                        HTTPConstants.MAX_CONNECTIONS_PER_ROUTE + ": " + route);
+            }
+            int max;
+            try {
+                max = Integer.parseInt(route.substring(index + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new AxisFault("Invalid connection limit in parameter " +
+                        HTTPConstants.MAX_CONNECTIONS_PER_ROUTE + ": " + route, e);
+            }
+            URI uri;
+            try {
+                uri = new URI(route.substring(0, index).trim());
+            } catch (URISyntaxException e) {
+                throw AxisFault.makeFault(e);
+            }
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                throw new AxisFault("Invalid route definition in parameter " +
+                        HTTPConstants.MAX_CONNECTIONS_PER_ROUTE + ": " + route);
+            }
+            HostConfiguration hostConfiguration = new HostConfiguration();
+            hostConfiguration.setHost(uri.getHost(), uri.getPort(), uri.getScheme());
+            getParams().setMaxConnectionsPerHost(hostConfiguration, max);
+            if (log.isDebugEnabled()) {
+                log.debug("Maximum number of connections to " + uri + " set to " + max);
+            }
+        }
+    }
+
+    /**
+     * Starts a background thread closing the connections that have been idle in the pool for
+     * longer than the given time.
+     *
+     * @param interval    the interval between two checks, in milliseconds
+     * @param idleTimeout the time after which an idle connection is closed, in milliseconds
+     */
+    public synchronized void startIdleConnectionEviction(long interval, long idleTimeout) {
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdown();
+        }
+        idleConnectionEvictor = new IdleConnectionTimeoutThread();
+        idleConnectionEvictor.setTimeoutInterval(interval);
+        idleConnectionEvictor.setConnectionTimeout(idleTimeout);
+        idleConnectionEvictor.addConnectionManager(this);
+        idleConnectionEvictor.start();
+    }
+
+    public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration,
+                                                   long timeout)
+            throws ConnectionPoolTimeoutException {
+        long start = System.nanoTime();
+        HttpConnection connection;
+        try {
+            connection = super.getConnectionWithTimeout(hostConfiguration, timeout);
+        } catch (ConnectionPoolTimeoutException e) {
+            leaseTimeoutCount.incrementAndGet();
+            throw e;
+        }
+        long waitTime = System.nanoTime() - start;
+        leaseCount.incrementAndGet();
+        leasedConnections.incrementAndGet();
+        totalLeaseWaitTime.addAndGet(waitTime);
+        long max = maxLeaseWaitTime.get();
+        while (waitTime > max && !maxLeaseWaitTime.compareAndSet(max, waitTime)) {
+            max = maxLeaseWaitTime.get();
+        }
+        return connection;
+    }
+
+    public void releaseConnection(HttpConnection conn) {
+        super.releaseConnection(conn);
+        leasedConnections.decrementAndGet();
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            if (idleConnectionEvictor != null) {
+                idleConnectionEvictor.shutdown();
+                idleConnectionEvictor = null;
+            }
+        }
+        super.shutdown();
+    }
+
+    /**
+     * @return the time in milliseconds callers wait for a connection before failing
+     */
+    public long getConnectionPoolTimeout() {
+        return connectionPoolTimeout;
+    }
+
+    public void setConnectionPoolTimeout(long connectionPoolTimeout) {
+        this.connectionPoolTimeout = connectionPoolTimeout;
+    }
+
+    /**
+     * @return the number of connections successfully leased from the pool
+     */
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * @return the number of callers that gave up waiting for a connection
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.get();
+    }
+
+    /**
+     * @return the number of connections currently leased from the pool
+     */
+    public long getLeasedConnections() {
+        return leasedConnections.get();
+    }
+
+    /**
+     * @return the total time spent waiting for connections, in milliseconds
+     */
+    public long getTotalLeaseWaitTime() {
+        return totalLeaseWaitTime.get() / 1000000;
+    }
+
+    /**
+     * @return the longest time spent waiting for a connection, in milliseconds
+     */
+    public long getMaxLeaseWaitTime() {
+        return maxLeaseWaitTime.get() / 1000000;
+    }
+
+    /**
+     * @return the average time spent waiting for a connection, in milliseconds
+     */
+    public double getAverageLeaseWaitTime() {
+        long count = leaseCount.get();
+        return count == 0 ? 0 : (double) totalLeaseWaitTime.get() / count / 1000000;
+    }
+
+    /**
+     * Resets the lease statistics. The number of leased connections is not affected.
+     */
+    public void resetStatistics() {
+        leaseCount.set(0);
+        leaseTimeoutCount.set(0);
+        totalLeaseWaitTime.set(0);
+        maxLeaseWaitTime.set(0);
+    }
+
+    private static String getParameter(TransportOutDescription transportOut, String name) {
+        Parameter parameter = transportOut.getParameter(name);
+        if (parameter != null && parameter.getValue() != null) {
+            return ((String) parameter.getValue()).trim();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of an integer parameter, or -1 if the parameter is absent or invalid.
+     */
+    private static int getIntParameter(TransportOutDescription transportOut, String name) {
+        String value = getParameter(transportOut, name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException nfe) {
+                // If there's a problem log it and use the default values
+                log.error("Invalid " + name + " value format: not a number", nfe);
+            }
+        }
+        return -1;
+    }
+
+}
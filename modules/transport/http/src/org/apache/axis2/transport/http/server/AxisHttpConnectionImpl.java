@@ -74,6 +74,23 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
     
     public AxisHttpConnectionImpl(final Socket socket, final HttpParams params) 
             throws IOException {
+        this(socket, null, params);
+    }
+
+    /**
+     * Creates a connection reading request data from the given session input buffer
+     * instead of directly from the socket. This allows callers that have already
+     * consumed part of the request from the underlying channel (e.g. a non-blocking
+     * reactor waiting for a complete request head) to hand those bytes back to the
+     * request parser.
+     *
+     * @param socket   the connected socket
+     * @param inbuffer the input buffer to read requests from, or <code>null</code> to read
+     *                 directly from the socket
+     * @param params   the HTTP parameters
+     */
+    protected AxisHttpConnectionImpl(final Socket socket, final SessionInputBuffer inbuffer,
+                                     final HttpParams params) throws IOException {
         super();
         if (socket == null) {
             throw new IllegalArgumentException("Socket may not be null"); 
@@ -92,7 +109,11 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         int buffersize = HttpConnectionParams.getSocketBufferSize(params);
         this.socket = socket;
         this.outbuffer = new SocketOutputBuffer(socket, buffersize, params); 
-        this.inbuffer = new SocketInputBuffer(socket, buffersize, params); 
+        if (inbuffer != null) {
+            this.inbuffer = inbuffer;
+        } else {
+            this.inbuffer = new SocketInputBuffer(socket, buffersize, params);
+        }
         this.contentLenStrategy = new StrictContentLengthStrategy();
         this.requestParser = new HttpRequestParser(
                 this.inbuffer, null, new DefaultHttpRequestFactory(), params);
@@ -117,6 +138,13 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         return !this.socket.isClosed();
     }
 
+    /**
+     * Returns the session input buffer used to read incoming requests.
+     */
+    protected SessionInputBuffer getSessionInputBuffer() {
+        return this.inbuffer;
+    }
+
     public boolean isStale() {
         try {
             this.inbuffer.isDataAvailable(1);
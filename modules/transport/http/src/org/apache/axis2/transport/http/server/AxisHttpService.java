@@ -308,6 +308,11 @@ public class AxisHttpService {
                         response.addHeader("WWW-Authenticate",
                                            "basic realm=\"" + realm + "\"");
                     }
+                    String retryAfter =
+                            (String) msgContext.getProperty(Constants.HTTP_RETRY_AFTER);
+                    if (retryAfter != null) {
+                        response.addHeader("Retry-After", retryAfter);
+                    }
                 } else {
                     if (e instanceof AxisFault) {
                         response.sendError(getStatusFromAxisFault((AxisFault)e), e.getMessage());
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Selector based I/O reactor watching idle HTTP connections. A connection is registered with
+ * the reactor when it is accepted and every time a worker has finished serving a request on it.
+ * The reactor reads incoming data without blocking and hands the connection over to the
+ * {@link HttpConnectionManager} only once a complete request head is available. Connections
+ * that stay idle for longer than the configured timeout are closed.
+ */
+public class ConnectionReactor implements Runnable {
+
+    private static final Log LOG = LogFactory.getLog(ConnectionReactor.class);
+
+    private static final int SELECT_TIMEOUT = 1000; // ms
+
+    private final HttpConnectionManager connmanager;
+    private final HttpParams params;
+    private final int idleTimeout;
+    private final int maxHeadSize;
+    private final Selector selector;
+    private final Queue<Session> pending = new ConcurrentLinkedQueue<Session>();
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param connmanager the connection manager to which connections are dispatched
+     * @param params      the HTTP parameters applied to dispatched connections
+     * @param idleTimeout the time in millis after which an idle connection is closed
+     * @param maxHeadSize the maximum number of bytes buffered while waiting for a request head;
+     *                    connections sending longer heads are dispatched early
+     */
+    public ConnectionReactor(final HttpConnectionManager connmanager, final HttpParams params,
+                             int idleTimeout, int maxHeadSize) throws IOException {
+        super();
+        if (connmanager == null) {
+            throw new IllegalArgumentException("Connection manager may not be null");
+        }
+        if (params == null) {
+            throw new IllegalArgumentException("HTTP parameters may not be null");
+        }
+        this.connmanager = connmanager;
+        this.params = params;
+        this.idleTimeout = idleTimeout;
+        this.maxHeadSize = maxHeadSize;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Registers a newly accepted channel with this reactor.
+     */
+    public void register(final SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        enqueue(new Session(this, channel));
+    }
+
+    private void enqueue(final Session session) throws IOException {
+        if (this.shutdown) {
+            session.close();
+            return;
+        }
+        this.pending.add(session);
+        this.selector.wakeup();
+    }
+
+    public void run() {
+        long lastIdleCheck = System.currentTimeMillis();
+        try {
+            while (!this.shutdown && !Thread.currentThread().isInterrupted()) {
+                this.selector.select(SELECT_TIMEOUT);
+                registerPending();
+                processSelectedKeys();
+                long now = System.currentTimeMillis();
+                if (now - lastIdleCheck >= SELECT_TIMEOUT) {
+                    closeIdleConnections(now);
+                    lastIdleCheck = now;
+                }
+            }
+        } catch (IOException ex) {
+            if (!this.shutdown) {
+                LOG.error("I/O reactor terminated abnormally", ex);
+            }
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void registerPending() {
+        long now = System.currentTimeMillis();
+        Session session;
+        while ((session = this.pending.poll()) != null) {
+            try {
+                session.lastActivity = now;
+                session.channel.register(this.selector, SelectionKey.OP_READ, session);
+            } catch (IOException ex) {
+                LOG.debug("Unable to register connection with I/O reactor: " + ex.getMessage());
+                session.close();
+            }
+        }
+    }
+
+    private void processSelectedKeys() throws IOException {
+        List<SelectionKey> ready = null;
+        for (Iterator<SelectionKey> it = this.selector.selectedKeys().iterator(); it.hasNext();) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (key.isValid() && key.isReadable() && readHead(key)) {
+                // The request head is available; the key must be cancelled before the
+                // channel can be switched back to blocking mode for the worker
+                key.cancel();
+                if (ready == null) {
+                    ready = new ArrayList<SelectionKey>();
+                }
+                ready.add(key);
+            }
+        }
+        if (ready != null) {
+            // Deregister the cancelled keys
+            this.selector.selectNow();
+            for (int i = 0; i < ready.size(); i++) {
+                dispatch((Session) ready.get(i).attachment());
+            }
+        }
+    }
+
+    /**
+     * Reads the available data into the head buffer of the session.
+     *
+     * @return <code>true</code> if the connection must be dispatched to a worker
+     */
+    private boolean readHead(final SelectionKey key) {
+        Session session = (Session) key.attachment();
+        if (session.head == null) {
+            session.head = ByteBuffer.allocate(this.maxHeadSize);
+            session.scanned = 0;
+        }
+        int n;
+        try {
+            n = session.channel.read(session.head);
+        } catch (IOException ex) {
+            LOG.debug("I/O error reading from idle connection: " + ex.getMessage());
+            key.cancel();
+            session.close();
+            return false;
+        }
+        if (n < 0) {
+            LOG.debug("Client closed connection");
+            key.cancel();
+            session.close();
+            return false;
+        }
+        session.lastActivity = System.currentTimeMillis();
+        return !session.head.hasRemaining() || isHeadComplete(session);
+    }
+
+    /**
+     * Scans the buffered data for the empty line terminating the request head.
+     */
+    private static boolean isHeadComplete(final Session session) {
+        ByteBuffer head = session.head;
+        int end = head.position();
+        for (int i = session.scanned; i < end; i++) {
+            if (head.get(i) == '\n') {
+                int j = i + 1;
+                if (j < end && head.get(j) == '\r') {
+                    j++;
+                }
+                if (j < end && head.get(j) == '\n') {
+                    return true;
+                }
+            }
+        }
+        // Rescan a possibly incomplete line terminator next time
+        session.scanned = Math.max(0, end - 2);
+        return false;
+    }
+
+    private void dispatch(final Session session) {
+        NIOHttpConnection conn = null;
+        try {
+            session.channel.configureBlocking(true);
+            ByteBuffer head = session.head;
+            session.head = null;
+            head.flip();
+            conn = new NIOHttpConnection(session, this.params);
+            conn.prefetched(head);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Dispatching HTTP connection from " +
+                          session.channel.socket().getRemoteSocketAddress());
+            }
+            this.connmanager.process(conn);
+        } catch (RejectedExecutionException e) {
+            try {
+                conn.sendResponse(new DefaultHttpResponseFactory().newHttpResponse(
+                        HttpVersion.HTTP_1_0, HttpStatus.SC_SERVICE_UNAVAILABLE,
+                        new BasicHttpContext(null)));
+                conn.close();
+            } catch (Exception ex) {
+                session.close();
+            }
+        } catch (IOException ex) {
+            LOG.debug("I/O error dispatching connection: " + ex.getMessage());
+            session.close();
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        if (this.idleTimeout <= 0) {
+            return;
+        }
+        for (Iterator<SelectionKey> it = this.selector.keys().iterator(); it.hasNext();) {
+            SelectionKey key = it.next();
+            Session session = (Session) key.attachment();
+            if (session != null && key.isValid() && now - session.lastActivity > this.idleTimeout) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Closing idle connection from " +
+                              session.channel.socket().getRemoteSocketAddress());
+                }
+                key.cancel();
+                session.close();
+            }
+        }
+    }
+
+    private void closeAll() {
+        this.shutdown = true;
+        try {
+            for (Iterator<SelectionKey> it = this.selector.keys().iterator(); it.hasNext();) {
+                Session session = (Session) it.next().attachment();
+                if (session != null) {
+                    session.close();
+                }
+            }
+        } catch (RuntimeException ex) {
+            // The selector may already have been closed
+        }
+        Session session;
+        while ((session = this.pending.poll()) != null) {
+            session.close();
+        }
+        try {
+            this.selector.close();
+        } catch (IOException ex) {
+            LOG.debug("I/O error closing selector");
+        }
+    }
+
+    /**
+     * Stops the reactor and closes all the idle connections it is watching.
+     */
+    public void shutdown() {
+        this.shutdown = true;
+        this.selector.wakeup();
+    }
+
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    /**
+     * State kept for a connection across the requests it carries. Only this object (and no
+     * worker thread nor I/O buffers) is retained while the connection is idle.
+     */
+    static class Session {
+
+        private final ConnectionReactor reactor;
+        private final SocketChannel channel;
+        private final HttpContext context;
+        private AxisHttpService httpService;
+
+        ByteBuffer head;
+        int scanned;
+        volatile long lastActivity;
+
+        Session(final ConnectionReactor reactor, final SocketChannel channel) {
+            this.reactor = reactor;
+            this.channel = channel;
+            this.context = new BasicHttpContext(null);
+        }
+
+        SocketChannel getChannel() {
+            return this.channel;
+        }
+
+        HttpContext getContext() {
+            return this.context;
+        }
+
+        AxisHttpService getHttpService() {
+            return this.httpService;
+        }
+
+        void setHttpService(final AxisHttpService httpService) {
+            this.httpService = httpService;
+        }
+
+        void suspend() throws IOException {
+            this.channel.configureBlocking(false);
+            this.reactor.enqueue(this);
+        }
+
+        void close() {
+            try {
+                this.channel.close();
+            } catch (IOException ex) {
+                LOG.debug("I/O error closing connection");
+            }
+        }
+
+    }
+
+}
@@ -116,7 +116,7 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
      * @param processor The processor to add.
      * @throws NullPointerException If processor is <code>null</code>.
      */
-    private synchronized void addProcessor(final IOProcessor processor) {
+    synchronized void addProcessor(final IOProcessor processor) {
         if (processor == null) {
             throw new NullPointerException("The processor can't be null");
         }
@@ -147,7 +147,32 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
         // Evict destroyed processors
         cleanup();
 
-        // Assemble new Axis HTTP service
+        AxisHttpService httpService = newHttpService();
+
+        // Create I/O processor to execute HTTP service
+        IOProcessorCallback callback = new IOProcessorCallback() {
+
+            public void completed(final IOProcessor processor) {
+                removeProcessor(processor);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(processor + " terminated");
+                }
+            }
+
+        };
+        IOProcessor processor = new HttpServiceProcessor(httpService, conn, callback);
+
+        addProcessor(processor);
+        this.executor.execute(processor);
+    }
+
+
+    /**
+     * Assembles a new Axis HTTP service used to serve the requests of a single connection.
+     * 
+     * @return The newly created HTTP service.
+     */
+    protected AxisHttpService newHttpService() {
         HttpProcessor httpProcessor;
         ConnectionReuseStrategy connStrategy;
         HttpResponseFactory responseFactory;
@@ -172,22 +197,15 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
         AxisHttpService httpService = new AxisHttpService(httpProcessor, connStrategy,
             responseFactory, this.configurationContext, this.workerfactory.newWorker());
         httpService.setParams(this.params);
+        return httpService;
+    }
 
-        // Create I/O processor to execute HTTP service
-        IOProcessorCallback callback = new IOProcessorCallback() {
-
-            public void completed(final IOProcessor processor) {
-                removeProcessor(processor);
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(processor + " terminated");
-                }
-            }
-
-        };
-        IOProcessor processor = new HttpServiceProcessor(httpService, conn, callback);
 
-        addProcessor(processor);
-        this.executor.execute(processor);
+    /**
+     * Returns the executor used to run the processors.
+     */
+    protected Executor getExecutor() {
+        return this.executor;
     }
 
 
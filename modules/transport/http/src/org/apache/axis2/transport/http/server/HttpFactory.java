@@ -90,6 +90,11 @@ public class HttpFactory {
      */
     public static final String PARAMETER_REQUEST_MAX_THREAD_POOL_SIZE = "requestMaxThreadPoolSize";
 
+    /**
+     * Name of axis2.xml requestQueueSize parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_REQUEST_QUEUE_SIZE = "requestQueueSize";
+
     /**
      * Name of axis2.xml threadKeepAliveTime parameter for SimpleHTTPServer configuration
      */
@@ -100,6 +105,21 @@ public class HttpFactory {
      */
     public static final String PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT = "threadKeepAliveTimeUnit";
 
+    /**
+     * Name of axis2.xml nonBlockingIO parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_NON_BLOCKING_IO = "nonBlockingIO";
+
+    /**
+     * Name of axis2.xml ioReactorsPerCore parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_IO_REACTORS_PER_CORE = "ioReactorsPerCore";
+
+    /**
+     * Name of axis2.xml connectionIdleTimeout parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_CONNECTION_IDLE_TIMEOUT = "connectionIdleTimeout";
+
     private ConfigurationContext configurationContext;
     private TransportInDescription httpConfiguration;
     private int port;
@@ -109,8 +129,12 @@ public class HttpFactory {
     private boolean requestTcpNoDelay;
     private int requestCoreThreadPoolSize;
     private int requestMaxThreadPoolSize;
+    private int requestQueueSize;
     private long threadKeepAliveTime;
     private TimeUnit threadKeepAliveTimeUnit;
+    private boolean nonBlockingIO;
+    private int ioReactorsPerCore;
+    private int connectionIdleTimeout;
 
     private WorkerFactory requestWorkerFactory = null;
 
@@ -127,9 +151,13 @@ public class HttpFactory {
         requestTcpNoDelay = getBooleanParam(PARAMETER_REQUEST_TCP_NO_DELAY, true);
         requestCoreThreadPoolSize = getIntParam(PARAMETER_REQUEST_CORE_THREAD_POOL_SIZE, 100);
         requestMaxThreadPoolSize = getIntParam(PARAMETER_REQUEST_MAX_THREAD_POOL_SIZE, 150);
+        requestQueueSize = getIntParam(PARAMETER_REQUEST_QUEUE_SIZE, -1);
         threadKeepAliveTime = getLongParam(PARAMETER_THREAD_KEEP_ALIVE_TIME, 180L);
         threadKeepAliveTimeUnit =
                 getTimeUnitParam(PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT, TimeUnit.SECONDS);
+        nonBlockingIO = getBooleanParam(PARAMETER_NON_BLOCKING_IO, false);
+        ioReactorsPerCore = getIntParam(PARAMETER_IO_REACTORS_PER_CORE, 1);
+        connectionIdleTimeout = getIntParam(PARAMETER_CONNECTION_IDLE_TIMEOUT, 60000);
     }
 
     /**
@@ -236,6 +264,15 @@ public class HttpFactory {
             int port,
             final HttpConnectionManager manager, 
             final HttpParams params) throws IOException {
+        if (nonBlockingIO) {
+            return new NIOConnectionListener(
+                    port,
+                    manager,
+                    new DefaultConnectionListenerFailureHandler(),
+                    params,
+                    getIOReactorCount(),
+                    connectionIdleTimeout);
+        }
         return new DefaultConnectionListener(
                 port, 
                 manager, 
@@ -264,6 +301,10 @@ public class HttpFactory {
     public HttpConnectionManager newRequestConnectionManager(ExecutorService requestExecutor,
                                                              WorkerFactory workerFactory,
                                                              HttpParams params) {
+        if (nonBlockingIO) {
+            return new NIOHttpConnectionManager(configurationContext, requestExecutor,
+                                                workerFactory, params);
+        }
         return new DefaultHttpConnectionManager(configurationContext, requestExecutor,
                                                 workerFactory, params);
     }
@@ -282,9 +323,14 @@ public class HttpFactory {
 
     /**
      * Create the queue used to hold incoming requests when requestCoreThreadPoolSize threads are busy.
-     * Default is an unbounded queue.
+     * Default is an unbounded queue. With a bounded queue (requestQueueSize) the pool grows up to
+     * requestMaxThreadPoolSize once the queue is full, and further connections are answered with
+     * 503 Service Unavailable.
      */
     public BlockingQueue newRequestBlockingQueue() {
+        if (requestQueueSize > 0) {
+            return new LinkedBlockingQueue(requestQueueSize);
+        }
         return new LinkedBlockingQueue();
     }
 
@@ -299,6 +345,13 @@ public class HttpFactory {
         }
     }
 
+    /**
+     * Return the number of I/O reactors used by the non-blocking listener
+     */
+    public int getIOReactorCount() {
+        return Math.max(1, ioReactorsPerCore * Runtime.getRuntime().availableProcessors());
+    }
+
     public HttpProcessor newHttpProcessor() {
         BasicHttpProcessor httpProcessor = new BasicHttpProcessor();
         httpProcessor.addInterceptor(new RequestSessionCookie());
@@ -436,7 +489,8 @@ public class HttpFactory {
      * Getter for requestMaxThreadPoolSize
      *
      * @return the maximum size of the thread pool used to process requests if the queue fills up (default 150).
-     *         Since the default queue is unbounded this parameter is meaningless unless you override newRequestBlockingQueue()
+     *         Since the default queue is unbounded this parameter is meaningless unless requestQueueSize is set
+     *         or you override newRequestBlockingQueue()
      */
     public int getRequestMaxThreadPoolSize() {
         return requestMaxThreadPoolSize;
@@ -449,6 +503,23 @@ public class HttpFactory {
         this.requestMaxThreadPoolSize = requestMaxThreadPoolSize;
     }
 
+    /**
+     * Getter for requestQueueSize
+     *
+     * @return the capacity of the queue holding requests while all core threads are busy, or a value less
+     *         than 1 for an unbounded queue (default -1)
+     */
+    public int getRequestQueueSize() {
+        return requestQueueSize;
+    }
+
+    /**
+     * Setter for requestQueueSize
+     */
+    public void setRequestQueueSize(int requestQueueSize) {
+        this.requestQueueSize = requestQueueSize;
+    }
+
     /**
      * Getter for threadKeepAliveTime
      *
@@ -481,4 +552,55 @@ public class HttpFactory {
         this.threadKeepAliveTimeUnit = threadKeepAliveTimeUnit;
     }
 
+    /**
+     * Getter for nonBlockingIO
+     *
+     * @return true if connections are accepted and watched by non-blocking I/O reactors, so that
+     *         idle keep-alive connections do not hold request threads (default false)
+     */
+    public boolean isNonBlockingIO() {
+        return nonBlockingIO;
+    }
+
+    /**
+     * Setter for nonBlockingIO
+     */
+    public void setNonBlockingIO(boolean nonBlockingIO) {
+        this.nonBlockingIO = nonBlockingIO;
+    }
+
+    /**
+     * Getter for ioReactorsPerCore
+     *
+     * @return the number of I/O reactors started per available processor when nonBlockingIO is
+     *         enabled (default 1)
+     */
+    public int getIoReactorsPerCore() {
+        return ioReactorsPerCore;
+    }
+
+    /**
+     * Setter for ioReactorsPerCore
+     */
+    public void setIoReactorsPerCore(int ioReactorsPerCore) {
+        this.ioReactorsPerCore = ioReactorsPerCore;
+    }
+
+    /**
+     * Getter for connectionIdleTimeout
+     *
+     * @return the time in millis after which an idle keep-alive connection is closed when
+     *         nonBlockingIO is enabled (default 60000)
+     */
+    public int getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    /**
+     * Setter for connectionIdleTimeout
+     */
+    public void setConnectionIdleTimeout(int connectionIdleTimeout) {
+        this.connectionIdleTimeout = connectionIdleTimeout;
+    }
+
 }
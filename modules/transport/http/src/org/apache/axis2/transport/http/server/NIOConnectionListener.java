@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Connection listener accepting connections on a {@link ServerSocketChannel} and distributing
+ * them over a fixed set of {@link ConnectionReactor}s. Worker threads are only involved once a
+ * complete request head has been received, which allows a large number of idle keep-alive
+ * connections to be maintained with a small request thread pool.
+ */
+public class NIOConnectionListener implements IOProcessor {
+
+    private static Log LOG = LogFactory.getLog(NIOConnectionListener.class);
+
+    private static final int MAX_HEAD_SIZE = 8 * 1024;
+
+    private volatile boolean destroyed = false;
+
+    private final int port;
+    private final HttpConnectionManager connmanager;
+    private final ConnectionListenerFailureHandler failureHandler;
+    private final HttpParams params;
+    private final int reactorCount;
+    private final int idleTimeout;
+
+    private ServerSocketChannel serverChannel = null;
+    private ConnectionReactor[] reactors = null;
+    private ExecutorService reactorExecutor = null;
+    private int nextReactor = 0;
+
+    /**
+     * @param port           the port to listen on
+     * @param connmanager    the connection manager serving the dispatched connections
+     * @param failureHandler the handler notified of listener failures
+     * @param params         the HTTP parameters applied to the connections
+     * @param reactorCount   the number of I/O reactors watching idle connections
+     * @param idleTimeout    the time in millis after which an idle connection is closed
+     */
+    public NIOConnectionListener(
+            int port,
+            final HttpConnectionManager connmanager,
+            final ConnectionListenerFailureHandler failureHandler,
+            final HttpParams params,
+            int reactorCount,
+            int idleTimeout) throws IOException {
+        super();
+        if (connmanager == null) {
+            throw new IllegalArgumentException("Connection manager may not be null");
+        }
+        if (failureHandler == null) {
+            throw new IllegalArgumentException("Failure handler may not be null");
+        }
+        if (params == null) {
+            throw new IllegalArgumentException("HTTP parameters may not be null");
+        }
+        if (reactorCount < 1) {
+            throw new IllegalArgumentException("At least one I/O reactor is required");
+        }
+        this.port = port;
+        this.connmanager = connmanager;
+        this.failureHandler = failureHandler;
+        this.params = params;
+        this.reactorCount = reactorCount;
+        this.idleTimeout = idleTimeout;
+    }
+
+    private synchronized void startReactors() throws IOException {
+        if (this.reactors != null) {
+            return;
+        }
+        ConnectionReactor[] newReactors = new ConnectionReactor[this.reactorCount];
+        for (int i = 0; i < newReactors.length; i++) {
+            newReactors[i] = new ConnectionReactor(
+                    this.connmanager, this.params, this.idleTimeout, MAX_HEAD_SIZE);
+        }
+        this.reactorExecutor = Executors.newFixedThreadPool(this.reactorCount,
+                new DefaultThreadFactory(new ThreadGroup("I/O reactor thread group"),
+                                         "HttpIOReactor-" + this.port));
+        for (int i = 0; i < newReactors.length; i++) {
+            this.reactorExecutor.execute(newReactors[i]);
+        }
+        this.reactors = newReactors;
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Started " + this.reactorCount + " I/O reactors for port " + this.port);
+        }
+    }
+
+    public void run() {
+        try {
+            startReactors();
+            while (!Thread.interrupted() && !destroyed) {
+                try {
+                    if (serverChannel == null || !serverChannel.isOpen()) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info("Listening on port " + port + " (non-blocking I/O)");
+                        }
+                        serverChannel = ServerSocketChannel.open();
+                        serverChannel.socket().setReuseAddress(true);
+                        serverChannel.socket().bind(new InetSocketAddress(port));
+                    }
+                    LOG.debug("Waiting for incoming HTTP connection");
+                    SocketChannel channel = this.serverChannel.accept();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Incoming HTTP connection from " +
+                                channel.socket().getRemoteSocketAddress());
+                    }
+                    nextReactor().register(channel);
+                } catch (ClosedByInterruptException ie) {
+                    break;
+                } catch (Throwable ex) {
+                    if (Thread.interrupted() || destroyed) {
+                        break;
+                    }
+                    if (!failureHandler.failed(this, ex)) {
+                        break;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            LOG.error("Unable to start I/O reactors", ex);
+        } finally {
+            destroy();
+        }
+    }
+
+    private ConnectionReactor nextReactor() {
+        ConnectionReactor reactor = this.reactors[this.nextReactor];
+        this.nextReactor = (this.nextReactor + 1) % this.reactors.length;
+        return reactor;
+    }
+
+    public void close() throws IOException {
+        if (this.serverChannel != null) {
+            this.serverChannel.close();
+        }
+    }
+
+    public void destroy() {
+        this.destroyed = true;
+        try {
+            close();
+        } catch (IOException ex) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("I/O error closing listener", ex);
+            }
+        }
+        synchronized (this) {
+            if (this.reactors != null) {
+                for (int i = 0; i < this.reactors.length; i++) {
+                    this.reactors[i].shutdown();
+                }
+                this.reactorExecutor.shutdown();
+            }
+        }
+    }
+
+    public boolean isDestroyed() {
+        return this.destroyed;
+    }
+
+}
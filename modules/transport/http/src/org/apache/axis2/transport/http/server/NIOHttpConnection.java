@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * HTTP connection served by the non-blocking listener. The connection is only bound to a
+ * worker thread while a request is being processed; between requests the underlying channel
+ * is handed back to its {@link ConnectionReactor} so that idle keep-alive connections do not
+ * hold any thread.
+ */
+public class NIOHttpConnection extends AxisHttpConnectionImpl {
+
+    private final ConnectionReactor.Session session;
+    private final PrefetchedInputStream instream;
+    private final NIOSessionInputBuffer inbuffer;
+
+    NIOHttpConnection(final ConnectionReactor.Session session, final HttpParams params)
+            throws IOException {
+        this(session, new PrefetchedInputStream(session.getChannel().socket().getInputStream()),
+             params);
+    }
+
+    private NIOHttpConnection(final ConnectionReactor.Session session,
+                              final PrefetchedInputStream instream,
+                              final HttpParams params) throws IOException {
+        this(session, instream,
+             new NIOSessionInputBuffer(session.getChannel().socket(), instream, params), params);
+    }
+
+    private NIOHttpConnection(final ConnectionReactor.Session session,
+                              final PrefetchedInputStream instream,
+                              final NIOSessionInputBuffer inbuffer,
+                              final HttpParams params) throws IOException {
+        super(session.getChannel().socket(), inbuffer, params);
+        this.session = session;
+        this.instream = instream;
+        this.inbuffer = inbuffer;
+    }
+
+    /**
+     * Sets the request data already read from the channel by the reactor. This data is
+     * returned before any further data is read from the socket.
+     */
+    void prefetched(final ByteBuffer head) {
+        this.instream.setHead(head);
+    }
+
+    /**
+     * Returns <code>true</code> if request data (e.g. a pipelined request) has already been
+     * read from the socket but not yet consumed.
+     */
+    public boolean hasBufferedInput() {
+        return this.inbuffer.hasBufferedInput() || this.instream.available() > 0;
+    }
+
+    /**
+     * Returns the HTTP context shared by all requests received on this connection.
+     */
+    public HttpContext getContext() {
+        return this.session.getContext();
+    }
+
+    AxisHttpService getHttpService() {
+        return this.session.getHttpService();
+    }
+
+    void setHttpService(final AxisHttpService httpService) {
+        this.session.setHttpService(httpService);
+    }
+
+    /**
+     * Releases the worker thread from this connection and returns the channel to its reactor,
+     * which will dispatch it again once the next request head is available.
+     */
+    public void suspend() throws IOException {
+        this.session.suspend();
+    }
+
+    public SocketChannel getChannel() {
+        return this.session.getChannel();
+    }
+
+    /**
+     * Input stream returning the prefetched request head before reading from the socket.
+     */
+    static class PrefetchedInputStream extends FilterInputStream {
+
+        private ByteBuffer head;
+
+        PrefetchedInputStream(final InputStream in) {
+            super(in);
+        }
+
+        void setHead(final ByteBuffer head) {
+            this.head = head;
+        }
+
+        public int read() throws IOException {
+            if (this.head != null && this.head.hasRemaining()) {
+                return this.head.get() & 0xff;
+            }
+            this.head = null;
+            return super.read();
+        }
+
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.head != null && this.head.hasRemaining()) {
+                int chunk = Math.min(len, this.head.remaining());
+                this.head.get(b, off, chunk);
+                return chunk;
+            }
+            this.head = null;
+            return super.read(b, off, len);
+        }
+
+        public int available() {
+            return this.head != null ? this.head.remaining() : 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.params.HttpParams;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Connection manager used with the non-blocking {@link NIOConnectionListener}. Each request
+ * head dispatched by a {@link ConnectionReactor} is served by a short lived
+ * {@link NIOHttpServiceProcessor}, so worker threads are only held for the duration of a
+ * request and never by idle keep-alive connections.
+ */
+public class NIOHttpConnectionManager extends DefaultHttpConnectionManager {
+
+    private static Log LOG = LogFactory.getLog(NIOHttpConnectionManager.class);
+
+    private final IOProcessorCallback callback = new IOProcessorCallback() {
+
+        public void completed(final IOProcessor processor) {
+            removeProcessor(processor);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(processor + " completed");
+            }
+        }
+
+    };
+
+    public NIOHttpConnectionManager(final ConfigurationContext configurationContext,
+            final Executor executor, final WorkerFactory workerfactory,
+            final HttpParams params) {
+        super(configurationContext, executor, workerfactory, params);
+    }
+
+    public NIOHttpConnectionManager(
+            final ConfigurationContext configurationContext,
+            final Executor executor,
+            final WorkerFactory workerfactory,
+            final HttpParams params,
+            final HttpFactory httpFactory) {
+        super(configurationContext, executor, workerfactory, params, httpFactory);
+    }
+
+    public void process(final AxisHttpConnection conn) {
+        if (!(conn instanceof NIOHttpConnection)) {
+            super.process(conn);
+            return;
+        }
+        NIOHttpConnection nioconn = (NIOHttpConnection) conn;
+        // The HTTP service is kept with the connection across suspensions
+        AxisHttpService httpService = nioconn.getHttpService();
+        if (httpService == null) {
+            httpService = newHttpService();
+            nioconn.setHttpService(httpService);
+        }
+        IOProcessor processor = new NIOHttpServiceProcessor(httpService, nioconn, this.callback);
+        addProcessor(processor);
+        try {
+            getExecutor().execute(processor);
+        } catch (RuntimeException ex) {
+            removeProcessor(processor);
+            throw ex;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpException;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * I/O processor serving the requests available on a {@link NIOHttpConnection}. Unlike
+ * {@link HttpServiceProcessor}, it does not wait for further requests on a keep-alive
+ * connection but suspends the connection, handing it back to its reactor.
+ */
+public class NIOHttpServiceProcessor implements IOProcessor {
+
+    private static final Log LOG = LogFactory.getLog(NIOHttpServiceProcessor.class);
+
+    private final AtomicBoolean terminated;
+
+    private final AxisHttpService httpservice;
+
+    private final NIOHttpConnection conn;
+
+    private final IOProcessorCallback callback;
+
+    public NIOHttpServiceProcessor(final AxisHttpService httpservice,
+            final NIOHttpConnection conn, final IOProcessorCallback callback) {
+        super();
+        if (callback == null) {
+            throw new IllegalArgumentException("The callback object can't be null");
+        }
+        this.httpservice = httpservice;
+        this.conn = conn;
+        this.callback = callback;
+        this.terminated = new AtomicBoolean(false);
+    }
+
+    public void run() {
+        boolean suspended = false;
+        try {
+            do {
+                this.httpservice.handleRequest(this.conn, this.conn.getContext());
+            } while (!Thread.interrupted() && !isDestroyed() && this.conn.isOpen()
+                    && this.conn.hasBufferedInput());
+            if (!isDestroyed() && this.conn.isOpen()) {
+                this.conn.suspend();
+                suspended = true;
+            }
+        } catch (ConnectionClosedException ex) {
+            LOG.debug("Client closed connection");
+        } catch (IOException ex) {
+            if (ex instanceof SocketTimeoutException) {
+                LOG.debug(ex.getMessage());
+            } else if (ex instanceof SocketException) {
+                LOG.debug(ex.getMessage());
+            } else {
+                LOG.warn(ex.getMessage(), ex);
+            }
+        } catch (HttpException ex) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("HTTP protocol error: " + ex.getMessage());
+            }
+        } finally {
+            if (suspended) {
+                this.terminated.set(true);
+            } else {
+                destroy();
+            }
+            this.callback.completed(this);
+        }
+    }
+
+    public void close() throws IOException {
+        this.conn.close();
+    }
+
+    public void destroy() {
+        if (this.terminated.compareAndSet(false, true)) {
+            try {
+                close();
+            } catch (IOException ex) {
+                LOG.debug("I/O error shutting down connection");
+            }
+        }
+    }
+
+    public boolean isDestroyed() {
+        return this.terminated.get();
+    }
+
+}
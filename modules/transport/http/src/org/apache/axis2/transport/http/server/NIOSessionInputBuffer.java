@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.http.impl.io.AbstractSessionInputBuffer;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+
+/**
+ * Session input buffer reading from an arbitrary input stream bound to a socket. Used by
+ * {@link NIOHttpConnection} to replay the request head already read by the
+ * {@link ConnectionReactor} before continuing with the socket stream.
+ */
+class NIOSessionInputBuffer extends AbstractSessionInputBuffer {
+
+    private final Socket socket;
+
+    NIOSessionInputBuffer(final Socket socket, final InputStream instream,
+                          final HttpParams params) throws IOException {
+        super();
+        if (socket == null) {
+            throw new IllegalArgumentException("Socket may not be null");
+        }
+        this.socket = socket;
+        int buffersize = HttpConnectionParams.getSocketBufferSize(params);
+        if (buffersize < 0) {
+            buffersize = socket.getReceiveBufferSize();
+        }
+        if (buffersize < 1024) {
+            buffersize = 1024;
+        }
+        init(instream, buffersize, params);
+    }
+
+    public boolean isDataAvailable(int timeout) throws IOException {
+        boolean result = hasBufferedData();
+        if (!result) {
+            int oldtimeout = this.socket.getSoTimeout();
+            try {
+                this.socket.setSoTimeout(timeout);
+                fillBuffer();
+                result = hasBufferedData();
+            } finally {
+                this.socket.setSoTimeout(oldtimeout);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns <code>true</code> if data has been read from the stream but not yet consumed.
+     */
+    boolean hasBufferedInput() {
+        return hasBufferedData();
+    }
+
+}
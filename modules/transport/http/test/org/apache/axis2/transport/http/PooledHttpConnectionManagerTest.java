@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+
+public class PooledHttpConnectionManagerTest extends TestCase {
+
+    private PooledHttpConnectionManager manager;
+
+    protected void setUp() throws Exception {
+        manager = new PooledHttpConnectionManager();
+    }
+
+    protected void tearDown() throws Exception {
+        manager.shutdown();
+    }
+
+    public void testConfigure() throws Exception {
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        transportOut.addParameter(new Parameter(
+                HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST, "5"));
+        transportOut.addParameter(new Parameter(HTTPConstants.MAX_TOTAL_CONNECTIONS, " 20 "));
+        transportOut.addParameter(new Parameter(HTTPConstants.MAX_CONNECTIONS_PER_ROUTE,
+                "http://host1:8080=2, https://host2=3,"));
+        transportOut.addParameter(new Parameter(HTTPConstants.STALE_CONNECTION_CHECK, "false"));
+        transportOut.addParameter(new Parameter(HTTPConstants.CONNECTION_POOL_TIMEOUT, "1000"));
+        manager.configure(transportOut);
+
+        HttpConnectionManagerParams params = manager.getParams();
+        assertEquals(5, params.getDefaultMaxConnectionsPerHost());
+        assertEquals(20, params.getMaxTotalConnections());
+        assertEquals(2, params.getMaxConnectionsPerHost(hostConfiguration("host1", 8080, "http")));
+        // the default port of the scheme is used when the route has none
+        assertEquals(3, params.getMaxConnectionsPerHost(hostConfiguration("host2", 443, "https")));
+        assertEquals(5, params.getMaxConnectionsPerHost(hostConfiguration("host1", 80, "http")));
+        assertFalse(params.isStaleCheckingEnabled());
+        assertEquals(1000, manager.getConnectionPoolTimeout());
+    }
+
+    public void testMalformedNumbersAreIgnored() throws Exception {
+        int defaultMaxConnectionsPerHost = manager.getParams().getDefaultMaxConnectionsPerHost();
+        int maxTotalConnections = manager.getParams().getMaxTotalConnections();
+
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        transportOut.addParameter(new Parameter(
+                HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST, "lots"));
+        transportOut.addParameter(new Parameter(HTTPConstants.MAX_TOTAL_CONNECTIONS, "-1"));
+        transportOut.addParameter(new Parameter(HTTPConstants.CONNECTION_POOL_TIMEOUT, "30s"));
+        manager.configure(transportOut);
+
+        assertEquals(defaultMaxConnectionsPerHost,
+                manager.getParams().getDefaultMaxConnectionsPerHost());
+        assertEquals(maxTotalConnections, manager.getParams().getMaxTotalConnections());
+        assertEquals(PooledHttpConnectionManager.DEFAULT_CONNECTION_POOL_TIMEOUT,
+                manager.getConnectionPoolTimeout());
+    }
+
+    public void testMalformedRoutesAreRejected() throws Exception {
+        String[] routes = { "http://host1:8080", "http://host1:8080=many", "host1=3", "=3",
+                "http://host 1=3" };
+        for (int i = 0; i < routes.length; i++) {
+            TransportOutDescription transportOut = new TransportOutDescription("http");
+            transportOut.addParameter(new Parameter(HTTPConstants.MAX_CONNECTIONS_PER_ROUTE,
+                    routes[i]));
+            try {
+                manager.configure(transportOut);
+                fail("Expected AxisFault for " + routes[i]);
+            } catch (AxisFault e) {
+                // expected
+            }
+        }
+    }
+
+    public void testPerRouteLimitIsEnforced() throws Exception {
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        transportOut.addParameter(new Parameter(
+                HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST, "10"));
+        transportOut.addParameter(new Parameter(HTTPConstants.MAX_CONNECTIONS_PER_ROUTE,
+                "http://limited:8080=1"));
+        manager.configure(transportOut);
+
+        HostConfiguration limited = hostConfiguration("limited", 8080, "http");
+        HttpConnection first = manager.getConnectionWithTimeout(limited, 100);
+        try {
+            manager.getConnectionWithTimeout(limited, 100);
+            fail("Expected ConnectionPoolTimeoutException");
+        } catch (ConnectionPoolTimeoutException e) {
+            // expected
+        }
+        assertEquals(1, manager.getLeaseTimeoutCount());
+
+        // other routes are not affected
+        HostConfiguration other = hostConfiguration("other", 8080, "http");
+        HttpConnection second = manager.getConnectionWithTimeout(other, 100);
+        HttpConnection third = manager.getConnectionWithTimeout(other, 100);
+        assertEquals(3, manager.getLeasedConnections());
+
+        first.releaseConnection();
+        HttpConnection fourth = manager.getConnectionWithTimeout(limited, 100);
+        assertEquals(4, manager.getLeaseCount());
+
+        second.releaseConnection();
+        third.releaseConnection();
+        fourth.releaseConnection();
+        assertEquals(0, manager.getLeasedConnections());
+    }
+
+    public void testSenderSharesItsManager() throws Exception {
+        ConfigurationContext configurationContext =
+                new ConfigurationContext(new AxisConfiguration());
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        transportOut.addParameter(new Parameter(HTTPConstants.MAX_CONNECTIONS_PER_ROUTE,
+                "http://host1:8080=7"));
+        CommonsHTTPTransportSender sender = new CommonsHTTPTransportSender();
+        sender.init(configurationContext, transportOut);
+        try {
+            PooledHttpConnectionManager shared = sender.getConnectionManager();
+            assertSame(shared, configurationContext.getProperty(
+                    HTTPConstants.SHARED_HTTP_CONNECTION_MANAGER + "http"));
+            assertEquals(7, shared.getParams().getMaxConnectionsPerHost(
+                    hostConfiguration("host1", 8080, "http")));
+
+            // a second sender gets its own pool
+            CommonsHTTPTransportSender other = new CommonsHTTPTransportSender();
+            TransportOutDescription otherOut = new TransportOutDescription("https");
+            other.init(configurationContext, otherOut);
+            assertNotSame(shared, other.getConnectionManager());
+            assertSame(shared, configurationContext.getProperty(
+                    HTTPConstants.SHARED_HTTP_CONNECTION_MANAGER + "http"));
+            other.stop();
+        } finally {
+            sender.stop();
+        }
+    }
+
+    private static HostConfiguration hostConfiguration(String host, int port, String scheme) {
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        hostConfiguration.setHost(host, port, scheme);
+        return hostConfiguration;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+import junit.framework.TestCase;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the non-blocking listener with a connection manager that answers every request with
+ * its request URI.
+ */
+public class NIOConnectionListenerTest extends TestCase {
+
+    private int port;
+    private EchoConnectionManager connmanager;
+    private NIOConnectionListener listener;
+    private List<Socket> clients = new ArrayList<Socket>();
+
+    protected void setUp() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        port = socket.getLocalPort();
+        socket.close();
+        connmanager = new EchoConnectionManager();
+    }
+
+    protected void tearDown() throws Exception {
+        for (Socket client : clients) {
+            client.close();
+        }
+        if (listener != null) {
+            listener.destroy();
+        }
+        connmanager.shutdown();
+    }
+
+    private void startListener(int idleTimeout) throws Exception {
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setSoTimeout(params, 5000);
+        HttpConnectionParams.setSocketBufferSize(params, 8 * 1024);
+        listener = new NIOConnectionListener(port, connmanager,
+                new DefaultConnectionListenerFailureHandler(), params, 1, idleTimeout);
+        Thread thread = new Thread(listener, "NIOConnectionListenerTest");
+        thread.setDaemon(true);
+        thread.start();
+        // wait until the listener accepts connections
+        for (int i = 0; ; i++) {
+            try {
+                new Socket("localhost", port).close();
+                return;
+            } catch (IOException e) {
+                if (i == 100) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    public void testKeepAliveRequestsReuseTheConnection() throws Exception {
+        startListener(0);
+        Socket client = connect();
+        assertEquals("/first", get(client, "/first"));
+        assertEquals("/second", get(client, "/second"));
+        assertEquals("/third", get(client, "/third"));
+
+        waitFor(new Condition() {
+            public boolean isMet() {
+                return connmanager.suspended.get() == 3;
+            }
+        });
+        // all the requests were served on the connection, which went back to the reactor
+        // between them
+        SocketChannel channel = connmanager.channels.get(0);
+        for (SocketChannel other : connmanager.channels) {
+            assertSame(channel, other);
+        }
+        assertEquals(3, connmanager.channels.size());
+    }
+
+    public void testConcurrentConnections() throws Exception {
+        startListener(0);
+        Socket[] sockets = new Socket[10];
+        for (int i = 0; i < sockets.length; i++) {
+            sockets[i] = connect();
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < sockets.length; i++) {
+                assertEquals("/" + i + "/" + round, get(sockets[i], "/" + i + "/" + round));
+            }
+        }
+        waitFor(new Condition() {
+            public boolean isMet() {
+                return connmanager.served.get() == 30;
+            }
+        });
+        assertEquals(10, new HashSet<SocketChannel>(connmanager.channels).size());
+    }
+
+    public void testClientDisconnectingMidRequest() throws Exception {
+        startListener(0);
+
+        // an incomplete request head is never dispatched
+        Socket client = connect();
+        write(client, "GET /partial HTTP/1.1\r\nHost: localhost\r\n");
+        client.close();
+
+        // a request body that is cut short fails the request, but not the listener
+        client = connect();
+        write(client, "POST /body HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n" +
+                "only a part of the body");
+        client.close();
+
+        waitFor(new Condition() {
+            public boolean isMet() {
+                return connmanager.dispatched.get() == 1 && connmanager.finished.get() == 1;
+            }
+        });
+        assertEquals(0, connmanager.served.get());
+        waitFor(new Condition() {
+            public boolean isMet() {
+                return !connmanager.channels.get(0).isOpen();
+            }
+        });
+
+        assertEquals("/after", get(connect(), "/after"));
+    }
+
+    public void testIdleConnectionsAreClosed() throws Exception {
+        startListener(500);
+        Socket client = connect();
+        assertEquals("/request", get(client, "/request"));
+        Socket silent = connect();
+
+        // the idle connections are checked once per second
+        client.setSoTimeout(5000);
+        silent.setSoTimeout(5000);
+        assertClosedByServer(client);
+        assertClosedByServer(silent);
+    }
+
+    public void testShutdownClosesIdleConnections() throws Exception {
+        startListener(0);
+        Socket client = connect();
+        assertEquals("/request", get(client, "/request"));
+        Socket silent = connect();
+        waitFor(new Condition() {
+            public boolean isMet() {
+                return connmanager.suspended.get() == 1;
+            }
+        });
+
+        listener.destroy();
+        client.setSoTimeout(5000);
+        silent.setSoTimeout(5000);
+        assertClosedByServer(client);
+        assertClosedByServer(silent);
+        try {
+            new Socket("localhost", port).close();
+            fail("Expected the listener to be closed");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket("localhost", port);
+        client.setSoTimeout(5000);
+        clients.add(client);
+        return client;
+    }
+
+    private static void write(Socket client, String data) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write(data.getBytes("US-ASCII"));
+        out.flush();
+    }
+
+    /**
+     * Sends a GET request and returns the body of the response.
+     */
+    private static String get(Socket client, String uri) throws IOException {
+        write(client, "GET " + uri + " HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        InputStream in = client.getInputStream();
+        String statusLine = readLine(in);
+        assertEquals("HTTP/1.1 200 OK", statusLine);
+        int contentLength = -1;
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        assertTrue(contentLength >= 0);
+        byte[] body = new byte[contentLength];
+        for (int n = 0; n < contentLength; ) {
+            int read = in.read(body, n, contentLength - n);
+            assertTrue(read > 0);
+            n += read;
+        }
+        return new String(body, "US-ASCII");
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Connection closed");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString("US-ASCII");
+    }
+
+    private static void assertClosedByServer(Socket client) throws IOException {
+        try {
+            assertEquals(-1, client.getInputStream().read());
+        } catch (SocketException e) {
+            // connection reset
+        }
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.isMet(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.isMet());
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    /**
+     * Serves one request per dispatch and suspends the connection afterwards, as
+     * NIOHttpServiceProcessor does.
+     */
+    private static class EchoConnectionManager implements HttpConnectionManager {
+
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final List<SocketChannel> channels = new CopyOnWriteArrayList<SocketChannel>();
+        final AtomicInteger dispatched = new AtomicInteger();
+        final AtomicInteger served = new AtomicInteger();
+        final AtomicInteger suspended = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+
+        public void process(final AxisHttpConnection conn) {
+            dispatched.incrementAndGet();
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        serve((NIOHttpConnection) conn);
+                    } finally {
+                        finished.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        private void serve(NIOHttpConnection conn) {
+            channels.add(conn.getChannel());
+            try {
+                HttpRequest request = conn.receiveRequest();
+                InputStream in = conn.getInputStream();
+                if (in != null) {
+                    byte[] buffer = new byte[1024];
+                    int total = 0;
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        total += n;
+                    }
+                    long expected = Long.parseLong(
+                            request.getFirstHeader("Content-Length").getValue());
+                    if (total != expected) {
+                        throw new IOException("Truncated request body");
+                    }
+                }
+                byte[] body = request.getRequestLine().getUri().getBytes("US-ASCII");
+                HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+                response.setEntity(new ByteArrayEntity(body));
+                response.addHeader("Content-Length", String.valueOf(body.length));
+                conn.sendResponse(response);
+                conn.getOutputStream().write(body);
+                conn.reset();
+                served.incrementAndGet();
+                conn.suspend();
+                suspended.incrementAndGet();
+            } catch (Exception e) {
+                try {
+                    conn.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
+        public void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.transport.http.HTTPWorkerFactory;
+import org.apache.axis2.util.Utils;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests the non-blocking listener together with NIOHttpConnectionManager and
+ * NIOHttpServiceProcessor, which hand the requests to the Axis2 engine.
+ */
+public class NIOHttpConnectionManagerTest extends TestCase {
+
+    private static final String ENVELOPE_START =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<soapenv:Body><echo><text>";
+
+    private static final String ENVELOPE_END = "</text></echo></soapenv:Body></soapenv:Envelope>";
+
+    private int port;
+    private ConfigurationContext configurationContext;
+    private ExecutorService executor;
+    private NIOHttpConnectionManager connmanager;
+    private NIOConnectionListener listener;
+    private List<Socket> clients = new ArrayList<Socket>();
+
+    protected void setUp() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        port = socket.getLocalPort();
+        socket.close();
+        configurationContext = ConfigurationContextFactory.createDefaultConfigurationContext();
+        configurationContext.getAxisConfiguration().addService(Utils.createSimpleService(
+                new QName("EchoService"), Echo.class.getName(), new QName("echo")));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    protected void tearDown() throws Exception {
+        for (Socket client : clients) {
+            client.close();
+        }
+        if (listener != null) {
+            listener.destroy();
+        }
+        if (connmanager != null) {
+            connmanager.shutdown();
+        }
+        executor.shutdownNow();
+        configurationContext.terminate();
+    }
+
+    private void startListener() throws Exception {
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setSoTimeout(params, 5000);
+        HttpConnectionParams.setSocketBufferSize(params, 8 * 1024);
+        connmanager = new NIOHttpConnectionManager(configurationContext, executor,
+                new HTTPWorkerFactory(), params);
+        listener = new NIOConnectionListener(port, connmanager,
+                new DefaultConnectionListenerFailureHandler(), params, 1, 0);
+        Thread thread = new Thread(listener, "NIOHttpConnectionManagerTest");
+        thread.setDaemon(true);
+        thread.start();
+        // wait until the listener accepts connections
+        for (int i = 0; ; i++) {
+            try {
+                new Socket("localhost", port).close();
+                return;
+            } catch (IOException e) {
+                if (i == 100) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    public void testKeepAliveRequestsAreDispatchedToTheService() throws Exception {
+        startListener();
+        Socket client = connect();
+        for (int i = 0; i < 3; i++) {
+            String[] response = post(client, "/axis2/services/EchoService/echo", "request" + i,
+                                     false);
+            assertEquals("HTTP/1.1 200 OK", response[0]);
+            assertTrue(response[1], response[1].indexOf("<text>request" + i + "</text>") != -1);
+        }
+
+        // a second connection is served while the first one is suspended
+        Socket other = connect();
+        String[] response = post(other, "/axis2/services/EchoService/echo", "other", false);
+        assertEquals("HTTP/1.1 200 OK", response[0]);
+        assertTrue(response[1], response[1].indexOf("<text>other</text>") != -1);
+        response = post(client, "/axis2/services/EchoService/echo", "again", false);
+        assertTrue(response[1], response[1].indexOf("<text>again</text>") != -1);
+    }
+
+    public void testConnectionCloseIsHonoured() throws Exception {
+        startListener();
+        Socket client = connect();
+        String[] response = post(client, "/axis2/services/EchoService/echo", "last", true);
+        assertEquals("HTTP/1.1 200 OK", response[0]);
+        assertTrue(response[1], response[1].indexOf("<text>last</text>") != -1);
+        assertClosedByServer(client);
+    }
+
+    public void testUnknownServiceIsAnsweredWithFault() throws Exception {
+        startListener();
+        Socket client = connect();
+        String[] response = post(client, "/axis2/services/NoSuchService/echo", "lost", false);
+        assertFalse(response[0], response[0].startsWith("HTTP/1.1 200"));
+        assertTrue(response[1], response[1].indexOf("Fault") != -1);
+    }
+
+    public void testRejectedConnectionIsAnsweredWith503() throws Exception {
+        executor.shutdown();
+        startListener();
+        Socket client = connect();
+        write(client, "GET /axis2/services/EchoService/echo HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        InputStream in = client.getInputStream();
+        assertTrue(readLine(in).startsWith("HTTP/1.0 503"));
+        while (readLine(in).length() > 0) {
+            // skip the headers
+        }
+        assertClosedByServer(client);
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket("localhost", port);
+        client.setSoTimeout(5000);
+        clients.add(client);
+        return client;
+    }
+
+    private static void write(Socket client, String data) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write(data.getBytes("UTF-8"));
+        out.flush();
+    }
+
+    /**
+     * Posts a SOAP 1.1 request echoing the given text and returns the status line and the body
+     * of the response.
+     */
+    private static String[] post(Socket client, String uri, String text, boolean close)
+            throws IOException {
+        byte[] body = (ENVELOPE_START + text + ENVELOPE_END).getBytes("UTF-8");
+        write(client, "POST " + uri + " HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: text/xml; charset=UTF-8\r\n" +
+                "SOAPAction: \"\"\r\n" +
+                "Content-Length: " + body.length + "\r\n" +
+                (close ? "Connection: close\r\n" : "") +
+                "\r\n");
+        client.getOutputStream().write(body);
+        client.getOutputStream().flush();
+
+        InputStream in = client.getInputStream();
+        String statusLine = readLine(in);
+        int contentLength = -1;
+        boolean chunked = false;
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            String header = line.toLowerCase();
+            if (header.startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            } else if (header.startsWith("transfer-encoding:")) {
+                chunked = header.indexOf("chunked") != -1;
+            }
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        if (chunked) {
+            int size;
+            while ((size = Integer.parseInt(readLine(in).split(";")[0].trim(), 16)) > 0) {
+                read(in, content, size);
+                readLine(in);
+            }
+            while (readLine(in).length() > 0) {
+                // skip the trailers
+            }
+        } else if (contentLength >= 0) {
+            read(in, content, contentLength);
+        } else {
+            int b;
+            while ((b = in.read()) != -1) {
+                content.write(b);
+            }
+        }
+        return new String[] { statusLine, content.toString("UTF-8") };
+    }
+
+    private static void read(InputStream in, ByteArrayOutputStream content, int length)
+            throws IOException {
+        byte[] buffer = new byte[length];
+        for (int n = 0; n < length; ) {
+            int read = in.read(buffer, n, length - n);
+            assertTrue(read > 0);
+            n += read;
+        }
+        content.write(buffer);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Connection closed");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString("US-ASCII");
+    }
+
+    private static void assertClosedByServer(Socket client) throws IOException {
+        try {
+            assertEquals(-1, client.getInputStream().read());
+        } catch (SocketException e) {
+            // connection reset
+        }
+    }
+
+    /**
+     * Service class of the echo service.
+     */
+    public static class Echo {
+
+        public OMElement echo(OMElement element) {
+            element.build();
+            element.detach();
+            return element;
+        }
+    }
+}